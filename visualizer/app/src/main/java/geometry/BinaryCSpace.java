@@ -0,0 +1,164 @@
+package geometry;
+
+import metrics.CSpaceParseEvent;
+import metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary container for {@link CSpaceGeometry}.
+ * All values are little-endian and 4-byte aligned:
+ * <pre>
+ *     int     magic "CSPB"
+ *     int     format version
+ *     int     description length in bytes, UTF-8 description padded to 4 bytes
+ *     int     vertex count, float[3 * vertex count] c-space vertices
+ *     float[3] start, float[3] finish
+ *     int     obstacle count, int triangle count
+ *     int[obstacle count + 1]   index of first triangle of each obstacle
+ *     float[6 * obstacle count] obstacle bound boxes
+ *     float[9 * triangle count] triangle sections of {@link TriangleStore}
+ * </pre>
+ * Reader maps file with {@link FileChannel#map} and hands triangle section to
+ * {@link TriangleStore} without copying, so opening a scene takes time proportional
+ * to header and obstacle table, not to triangle count.
+ *
+ * @version     %I%, %G%
+ * @see CSpaceGeometry
+ * @see TriangleStore
+ */
+public final class BinaryCSpace {
+
+    /** First four bytes of binary c-space file */
+    public static final int MAGIC = 0x42505343;
+    /** Current format version */
+    public static final int VERSION = 1;
+    /** Default file extension */
+    public static final String EXTENSION = ".cspb";
+
+    private BinaryCSpace(){
+    }
+
+    /**
+     * Check if file starts with binary c-space magic
+     * @param file file to check
+     * @return true for binary c-space file
+     * @throws IOException if file can't be read
+     */
+    public static boolean isBinary(File file) throws IOException {
+        if(file.length() < 4)
+            return false;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")){
+            return Integer.reverseBytes(raf.readInt()) == MAGIC;
+        }
+    }
+
+    /**
+     * Write geometry to binary file. File is written through {@link CacheFile}, so mapped readers
+     * of replaced file keep its old content
+     * @param geometry c-space to write
+     * @param file target file, must not be the file geometry was read from
+     * @throws IOException if file can't be written
+     */
+    public static void write(CSpaceGeometry geometry, File file) throws IOException {
+        TriangleStore store = geometry.getStore();
+        byte[] description = geometry.getDescription().getBytes(StandardCharsets.UTF_8);
+        int obstacles = store.getObstacleCount();
+        int triangles = store.getTriangleCount();
+        long size = 12L + align(description.length) + 4 + geometry.getVertex().length * 4L + 24 + 8 +
+                (obstacles + 1) * 4L + obstacles * 24L + triangles * (long) TriangleStore.FLOATS_PER_TRIANGLE * 4;
+
+        CacheFile.write(file, size, buffer -> {
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(description.length);
+            buffer.put(description);
+            buffer.position(buffer.position() + align(description.length) - description.length);
+            buffer.putInt(geometry.getVertex().length / 3);
+            for(float v: geometry.getVertex())
+                buffer.putFloat(v);
+            for(float v: geometry.getStart())
+                buffer.putFloat(v);
+            for(float v: geometry.getFinish())
+                buffer.putFloat(v);
+            buffer.putInt(obstacles);
+            buffer.putInt(triangles);
+            for(int o = 0; o <= obstacles; ++o)
+                buffer.putInt(store.getFirstTriangle(o));
+            for(float v: store.getObstacleBounds())
+                buffer.putFloat(v);
+            FloatBuffer data = store.getData().duplicate();
+            data.rewind().limit(triangles * TriangleStore.FLOATS_PER_TRIANGLE);
+            buffer.asFloatBuffer().put(data);
+        });
+    }
+
+    /**
+     * Map binary file and create geometry, triangle data stays in mapped buffer
+     * @param file binary c-space file
+     * @return read {@link CSpaceGeometry}
+     * @throws IOException if file can't be read or has wrong format
+     */
+    public static CSpaceGeometry read(File file) throws IOException {
+        long startTime = Metrics.ENABLED ? System.nanoTime() : 0L;
+        CSpaceParseEvent event = new CSpaceParseEvent();
+        event.begin();
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()){
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            if(buffer.getInt() != MAGIC)
+                throw new IOException("Not a binary c-space file: " + file);
+            int version = buffer.getInt();
+            if(version != VERSION)
+                throw new IOException("Unsupported binary c-space version " + version + " in " + file);
+            byte[] description = new byte[buffer.getInt()];
+            buffer.get(description);
+            buffer.position(buffer.position() + align(description.length) - description.length);
+            float[] vertex = new float[buffer.getInt() * 3];
+            buffer.asFloatBuffer().get(vertex);
+            buffer.position(buffer.position() + vertex.length * 4);
+            float[] start = {buffer.getFloat(), buffer.getFloat(), buffer.getFloat()};
+            float[] finish = {buffer.getFloat(), buffer.getFloat(), buffer.getFloat()};
+            int obstacles = buffer.getInt();
+            int triangles = buffer.getInt();
+            int[] first = new int[obstacles + 1];
+            buffer.asIntBuffer().get(first);
+            buffer.position(buffer.position() + first.length * 4);
+            if(first[obstacles] != triangles)
+                throw new IOException("Corrupted obstacle table in " + file);
+            float[] bounds = new float[obstacles * 6];
+            buffer.asFloatBuffer().get(bounds);
+            buffer.position(buffer.position() + bounds.length * 4);
+            FloatBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            data.limit(triangles * TriangleStore.FLOATS_PER_TRIANGLE);
+            TriangleStore store = new TriangleStore(data.slice(), first, bounds);
+            if(Metrics.ENABLED)
+                Metrics.recordCSpace(startTime, buffer.capacity(), obstacles, triangles);
+            event.end();
+            if(event.shouldCommit()){
+                event.source = file.getPath();
+                event.bytes = buffer.capacity();
+                event.obstacles = obstacles;
+                event.facets = triangles;
+                event.commit();
+            }
+            return new CSpaceGeometry(new String(description, StandardCharsets.UTF_8), vertex, start, finish, store);
+        }
+        catch (RuntimeException e){
+            throw new IOException("Corrupted binary c-space file " + file + ": " + e, e);
+        }
+    }
+
+    private static int align(int length){
+        return (length + 3) & ~3;
+    }
+}
@@ -0,0 +1,188 @@
+package geometry;
+
+import json.pojo.CSpace;
+import json.pojo.Point;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primitive representation of configuration space.
+ * Stores c-space vertices, start and finish points as float arrays
+ * and obstacle triangles in {@link TriangleStore}. Can be created from
+ * parsed {@link CSpace} or directly by streaming reader without intermediate objects.
+ *
+ * @version     %I%, %G%
+ * @see CSpace
+ * @see TriangleStore
+ */
+public class CSpaceGeometry {
+
+    private String description;
+    private float[] vertex;
+    private float[] bounds;
+    private float[] start;
+    private float[] finish;
+    private TriangleStore store;
+
+    /**
+     * Default constructor
+     * @param description c-space description
+     * @param vertex packed x, y, z coordinates of c-space vertices
+     * @param start x, y, z coordinates of start point
+     * @param finish x, y, z coordinates of finish point
+     * @param store packed obstacle triangles
+     */
+    public CSpaceGeometry(String description, float[] vertex, float[] start, float[] finish, TriangleStore store){
+        this.description = description;
+        this.vertex = vertex;
+        this.start = start;
+        this.finish = finish;
+        this.store = store;
+        this.bounds = new float[]{Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for(int i = 0; i < vertex.length; i += 3){
+            for(int axis = 0; axis < 3; ++axis){
+                bounds[axis] = Math.min(bounds[axis], vertex[i + axis]);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], vertex[i + axis]);
+            }
+        }
+    }
+
+    /**
+     * Create geometry from parsed c-space
+     * @param cSpace parsed {@link CSpace}
+     * @return created geometry
+     */
+    public static CSpaceGeometry fromCSpace(CSpace cSpace){
+        return new CSpaceGeometry(cSpace.getDescription(), pack(cSpace.getVertex()),
+                pack(cSpace.getStart()), pack(cSpace.getFinish()),
+                TriangleStore.fromObstacles(cSpace.getObstacles()));
+    }
+
+    /**
+     * Pack list of points into float array
+     * @param points list of {@link Point}
+     * @return x, y, z coordinates of each point
+     */
+    public static float[] pack(List<Point> points){
+        float[] result = new float[points.size() * 3];
+        for(int i = 0; i < points.size(); ++i){
+            result[i * 3] = points.get(i).x();
+            result[i * 3 + 1] = points.get(i).y();
+            result[i * 3 + 2] = points.get(i).z();
+        }
+        return result;
+    }
+
+    /**
+     * Build indexed mesh of obstacle, used for visualization.
+     * Equal vertices of obstacle triangles are merged
+     * @param obstacle obstacle index
+     * @return created {@link Mesh}
+     */
+    public Mesh getMesh(int obstacle){
+        int first = store.getFirstTriangle(obstacle);
+        int count = store.getFirstTriangle(obstacle + 1) - first;
+        StlReader.VertexIndex index = new StlReader.VertexIndex(count * 3);
+        float[] vertex = new float[3];
+        int[] faces = new int[count * 3];
+        for(int t = 0; t < count; ++t){
+            for(int v = 0; v < 3; ++v){
+                for(int axis = 0; axis < 3; ++axis)
+                    vertex[axis] = store.getVertex(first + t, v, axis);
+                faces[t * 3 + v] = index.add(vertex, 0);
+            }
+        }
+        return new Mesh(Arrays.copyOf(index.coordinates, index.size * 3), faces);
+    }
+
+    private static float[] pack(Point p){
+        return new float[]{p.x(), p.y(), p.z()};
+    }
+
+    /**
+     * Return c-space description
+     * @return description
+     */
+    public String getDescription(){
+        return description;
+    }
+
+    /**
+     * Return c-space vertices
+     * @return packed x, y, z coordinates
+     */
+    public float[] getVertex(){
+        return vertex;
+    }
+
+    /**
+     * Return bound box of c-space vertices
+     * @return min x, min y, min z, max x, max y, max z
+     */
+    public float[] getBounds(){
+        return bounds;
+    }
+
+    /**
+     * Return start point
+     * @return x, y, z coordinates
+     */
+    public float[] getStart(){
+        return start;
+    }
+
+    /**
+     * Return finish point
+     * @return x, y, z coordinates
+     */
+    public float[] getFinish(){
+        return finish;
+    }
+
+    /**
+     * Return packed obstacle triangles
+     * @return {@link TriangleStore}
+     */
+    public TriangleStore getStore(){
+        return store;
+    }
+
+    /**
+     * Indexed triangle mesh of one obstacle
+     */
+    public static class Mesh {
+        private float[] points;
+        private int[] faces;
+
+        Mesh(float[] points, int[] faces){
+            this.points = points;
+            this.faces = faces;
+        }
+
+        /**
+         * Return mesh vertices
+         * @return packed x, y, z coordinates
+         */
+        public float[] getPoints(){
+            return points;
+        }
+
+        /**
+         * Return mesh triangles
+         * @return three vertex indices of each triangle
+         */
+        public int[] getFaces(){
+            return faces;
+        }
+
+        /**
+         * Return number of mesh triangles
+         * @return triangle count
+         */
+        public int getFaceCount(){
+            return faces.length / 3;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package geometry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+/**
+ * Writer of mapped cache files kept next to c-space files.
+ * Content is written to temporary file in the same directory, forced to disk and renamed
+ * over target atomically, so concurrent readers see either old complete file or new
+ * complete file, and crash during write leaves only temporary file behind.
+ *
+ * @version     %I%, %G%
+ * @see BinaryCSpace
+ * @see DistanceField
+ * @see planner.Roadmap
+ */
+public final class CacheFile {
+
+    private CacheFile(){
+    }
+
+    /**
+     * Write cache file
+     * @param file target file, replaced if it exists
+     * @param length file length in bytes
+     * @param writer fills little-endian buffer of given length from position 0
+     * @throws IOException if file can't be written or renamed
+     */
+    public static void write(File file, long length, Consumer<MappedByteBuffer> writer) throws IOException {
+        File target = file.getAbsoluteFile();
+        File tmp = File.createTempFile(target.getName() + ".", ".tmp", target.getParentFile());
+        boolean moved = false;
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw"); FileChannel channel = raf.getChannel()){
+                raf.setLength(length);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                writer.accept(buffer);
+                buffer.force();
+                channel.force(true);
+            }
+            Files.move(tmp.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        }
+        finally {
+            if(!moved)
+                Files.deleteIfExists(tmp.toPath());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package geometry;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Point in obstacle query over voxel classification of c-space.
+ * Obstacle surfaces are rasterised into {@link OccupancyGrid} with one free voxel layer around
+ * obstacles. Free voxels don't contain any surface, so all points of connected free voxels are
+ * inside the same obstacles: free voxels are split into 6-connected components by flood fill and
+ * each component is classified once by ray parity from its first voxel. Query of point in
+ * classified voxel is one array read, only points in surface voxels cast exact ray through
+ * {@link TriangleBvh}: point is inside obstacle if ray crosses its surface odd number of times.
+ * <p>
+ * Grid stores one int per voxel: index of containing obstacle (the smallest one for overlapped
+ * obstacles), {@link #OUTSIDE} or surface mark, grid of 128<sup>3</sup> voxels takes 8 MB.
+ * Grid is immutable after creation and can be shared between threads.
+ *
+ * @version     %I%, %G%
+ * @see OccupancyGrid
+ * @see TriangleBvh
+ */
+public class ContainmentGrid {
+
+    /** Default number of voxels along the longest side of c-space */
+    public static final int DEFAULT_RESOLUTION = OccupancyGrid.DEFAULT_RESOLUTION;
+    /** The smallest resolution chosen by {@link #getResolution(TriangleStore)} */
+    public static final int MIN_RESOLUTION = 16;
+    /** Query result for point outside of all obstacles */
+    public static final int OUTSIDE = -1;
+
+    // label of voxel with obstacle surface, such voxels are resolved by ray
+    private static final int SURFACE = -2;
+    private static final int UNKNOWN = -3;
+    // voxels per triangle for resolution chosen by scene size
+    private static final int VOXELS_PER_TRIANGLE = 64;
+    // batch queries shorter than this are run in calling thread
+    private static final int PARALLEL_BATCH = 4096;
+    // ray direction, slightly off axes to avoid hitting edges of axis aligned faces
+    private static final double RAY_X = 1.0;
+    private static final double RAY_Y = 0.000123;
+    private static final double RAY_Z = 0.000217;
+
+    private TriangleBvh bvh;
+    private float[] origin = new float[3];
+    private float voxel;
+    private int[] size = new int[3];
+    private int[] labels;
+    // parity buffer and visitor of each thread, rays are cast in parallel queries and classification
+    private final ThreadLocal<RayParity> parity = ThreadLocal.withInitial(RayParity::new);
+
+    /**
+     * Classify voxels of c-space geometry
+     * @param geometry c-space with obstacle triangles and vertex bounds
+     * @param bvh triangle hierarchy over triangles of geometry
+     * @param resolution number of voxels along the longest side
+     */
+    public ContainmentGrid(CSpaceGeometry geometry, TriangleBvh bvh, int resolution){
+        this(bvh, geometry.getBounds(), resolution);
+    }
+
+    /**
+     * Classify voxels of space around triangles of hierarchy
+     * @param bvh triangle hierarchy
+     * @param spaceBounds min x, min y, min z, max x, max y, max z of space,
+     *                    grid is extended to obstacle bounds if they are outside
+     * @param resolution number of voxels along the longest side
+     */
+    public ContainmentGrid(TriangleBvh bvh, float[] spaceBounds, int resolution){
+        if(resolution < 1)
+            throw new IllegalArgumentException("Resolution should be positive: " + resolution);
+        this.bvh = bvh;
+        float[] bounds = spaceBounds.clone();
+        float[] obstacleBounds = bvh.getStore().getObstacleBounds();
+        for(int b = 0; b < obstacleBounds.length; b += 6){
+            for(int axis = 0; axis < 3; ++axis){
+                bounds[axis] = Math.min(bounds[axis], obstacleBounds[b + axis]);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], obstacleBounds[b + axis + 3]);
+            }
+        }
+        float extent = 0f;
+        for(int axis = 0; axis < 3; ++axis)
+            extent = Math.max(extent, bounds[axis + 3] - bounds[axis]);
+        // one voxel is added on each side, so corner voxel is outside of all obstacles
+        float pad = extent > 0f ? extent / resolution : 1f;
+        for(int axis = 0; axis < 3; ++axis){
+            bounds[axis] -= pad;
+            bounds[axis + 3] += pad;
+        }
+        OccupancyGrid surface = new OccupancyGrid(bvh.getStore(), bounds, resolution + 2);
+        voxel = surface.getVoxelSize();
+        for(int axis = 0; axis < 3; ++axis){
+            origin[axis] = surface.getOrigin(axis);
+            size[axis] = surface.getSize(axis);
+        }
+        classify(surface);
+    }
+
+    /**
+     * Return resolution scaled with scene size: grid has about {@value #VOXELS_PER_TRIANGLE} voxels
+     * per triangle, from {@link #MIN_RESOLUTION} to {@link #DEFAULT_RESOLUTION} voxels along
+     * the longest side. Small scenes don't pay for classification and memory of full grid
+     * @param store packed obstacle triangles
+     * @return number of voxels along the longest side
+     */
+    public static int getResolution(TriangleStore store){
+        double voxels = (double) store.getTriangleCount() * VOXELS_PER_TRIANGLE;
+        int resolution = (int) Math.ceil(Math.cbrt(voxels));
+        return Math.max(MIN_RESOLUTION, Math.min(DEFAULT_RESOLUTION, resolution));
+    }
+
+    // label surface voxels, then flood fill free components from unlabeled voxels
+    private void classify(OccupancyGrid surface){
+        int sx = size[0], sy = size[1], sz = size[2];
+        labels = new int[sx * sy * sz];
+        IntStream.range(0, sz).parallel().forEach(k -> {
+            for(int j = 0; j < sy; ++j){
+                for(int i = 0; i < sx; ++i)
+                    labels[(k * sy + j) * sx + i] = surface.isOccupied(i, j, k) ? SURFACE : UNKNOWN;
+            }
+        });
+        int[] queue = new int[labels.length];
+        for(int seed = 0; seed < labels.length; ++seed){
+            if(labels[seed] != UNKNOWN)
+                continue;
+            int i = seed % sx, j = seed / sx % sy, k = seed / (sx * sy);
+            int label = castRay(origin[0] + (i + 0.5) * voxel, origin[1] + (j + 0.5) * voxel,
+                    origin[2] + (k + 0.5) * voxel);
+            labels[seed] = label;
+            int head = 0, tail = 0;
+            queue[tail++] = seed;
+            while(head < tail){
+                int v = queue[head++];
+                int vi = v % sx, vj = v / sx % sy, vk = v / (sx * sy);
+                if(vi > 0 && labels[v - 1] == UNKNOWN){
+                    labels[v - 1] = label;
+                    queue[tail++] = v - 1;
+                }
+                if(vi < sx - 1 && labels[v + 1] == UNKNOWN){
+                    labels[v + 1] = label;
+                    queue[tail++] = v + 1;
+                }
+                if(vj > 0 && labels[v - sx] == UNKNOWN){
+                    labels[v - sx] = label;
+                    queue[tail++] = v - sx;
+                }
+                if(vj < sy - 1 && labels[v + sx] == UNKNOWN){
+                    labels[v + sx] = label;
+                    queue[tail++] = v + sx;
+                }
+                if(vk > 0 && labels[v - sx * sy] == UNKNOWN){
+                    labels[v - sx * sy] = label;
+                    queue[tail++] = v - sx * sy;
+                }
+                if(vk < sz - 1 && labels[v + sx * sy] == UNKNOWN){
+                    labels[v + sx * sy] = label;
+                    queue[tail++] = v + sx * sy;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return obstacle containing point
+     * @param x x coordinate of point
+     * @param y y coordinate of point
+     * @param z z coordinate of point
+     * @return index of containing obstacle (the smallest one if obstacles overlap)
+     * or {@link #OUTSIDE}
+     */
+    public int getObstacle(double x, double y, double z){
+        int i = (int) Math.floor((x - origin[0]) / voxel);
+        int j = (int) Math.floor((y - origin[1]) / voxel);
+        int k = (int) Math.floor((z - origin[2]) / voxel);
+        if(i < 0 || j < 0 || k < 0 || i >= size[0] || j >= size[1] || k >= size[2])
+            return OUTSIDE;
+        int label = labels[(k * size[1] + j) * size[0] + i];
+        return label != SURFACE ? label : castRay(x, y, z);
+    }
+
+    /**
+     * Check if point is inside any obstacle
+     * @param x x coordinate of point
+     * @param y y coordinate of point
+     * @param z z coordinate of point
+     * @return true if point is inside obstacle
+     */
+    public boolean isInside(double x, double y, double z){
+        return getObstacle(x, y, z) != OUTSIDE;
+    }
+
+    /**
+     * Return obstacles containing points, long arrays are checked in parallel
+     * @param points x, y, z coordinates of each point
+     * @return index of containing obstacle or {@link #OUTSIDE} for each point
+     */
+    public int[] getObstacles(float[] points){
+        int[] result = new int[points.length / 3];
+        IntStream range = IntStream.range(0, result.length);
+        if(result.length >= PARALLEL_BATCH)
+            range = range.parallel();
+        range.forEach(p -> result[p] = getObstacle(points[p * 3], points[p * 3 + 1], points[p * 3 + 2]));
+        return result;
+    }
+
+    /**
+     * Return obstacle containing point by ray parity without voxel classification
+     * @param x x coordinate of point
+     * @param y y coordinate of point
+     * @param z z coordinate of point
+     * @return index of containing obstacle or {@link #OUTSIDE}
+     */
+    public int getObstacleExact(double x, double y, double z){
+        return castRay(x, y, z);
+    }
+
+    /**
+     * Return number of voxels along axis
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return voxel count
+     */
+    public int getSize(int axis){
+        return size[axis];
+    }
+
+    /**
+     * Return number of voxels with obstacle surface, queries in them cast ray
+     * @return surface voxel count
+     */
+    public long getSurfaceCount(){
+        long count = 0;
+        for(int label: labels){
+            if(label == SURFACE)
+                ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Return memory taken by voxel labels
+     * @return size in bytes
+     */
+    public long getMemorySize(){
+        return labels.length * 4L;
+    }
+
+    // ray crosses surface of containing obstacle odd number of times
+    private int castRay(double x, double y, double z){
+        RayParity ray = parity.get();
+        ray.crossed.clear();
+        bvh.forEachHit(x, y, z, RAY_X, RAY_Y, RAY_Z, Double.POSITIVE_INFINITY, ray);
+        return ray.crossed.nextSetBit(0);
+    }
+
+    /**
+     * Hit visitor of ray, flips parity of obstacle of each crossed triangle.
+     * One instance is reused by all rays of its thread
+     */
+    private final class RayParity implements IntPredicate {
+        private final TriangleStore store = bvh.getStore();
+        private final BitSet crossed = new BitSet();
+
+        @Override
+        public boolean test(int triangle){
+            crossed.flip(store.getObstacle(triangle));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package geometry;
+
+import java.util.stream.IntStream;
+
+/**
+ * Parametric form of convex obstacles of {@link TriangleStore}.
+ * Generated obstacles are perturbed boxes, so most of them are convex and many are
+ * exactly axis aligned. Each obstacle is classified once:
+ * <ul>
+ *     <li>{@link #BOX} - closed convex obstacle with axis aligned faces, it equals
+ *     its bound box and is tested by slab test</li>
+ *     <li>{@link #CONVEX} - closed convex obstacle, stored as set of face planes
+ *     and tested by clipping line with half-spaces</li>
+ *     <li>{@link #GENERAL} - any other obstacle, its triangles are tested</li>
+ * </ul>
+ * Obstacle is convex if all its vertices lie behind the plane of each triangle, and closed if
+ * area vectors of its triangles sum to zero. Coplanar triangles share one plane, planes are
+ * stored as four floats (unit outward normal and offset, point p is inside if n * p &lt;= d).
+ * Line origin + t * direction inside convex obstacle is an interval of t, its ends are crossings
+ * of obstacle surface, the same crossings which triangle tests find.
+ * Shapes are immutable after creation and can be shared between threads.
+ *
+ * @version     %I%, %G%
+ * @see TriangleStore
+ * @see TriangleBvh
+ */
+public class ConvexShapes {
+
+    /** Obstacle tested by its triangles */
+    public static final byte GENERAL = 0;
+    /** Convex obstacle tested by its face planes */
+    public static final byte CONVEX = 1;
+    /** Axis aligned box tested by its bounds */
+    public static final byte BOX = 2;
+
+    // obstacles with more triangles are not checked for convexity, check is quadratic
+    private static final int MAX_TRIANGLES = 64;
+    // tolerance of plane tests relative to obstacle size
+    private static final double TOLERANCE = 1e-5;
+    // rounding error of vertex coordinates in units in the last place
+    private static final int ROUNDING_ULPS = 16;
+    // normal component of axis aligned plane
+    private static final double AXIS_COSINE = 1.0 - 1e-7;
+
+    private TriangleStore store;
+    private byte[] kind;
+    private int[] planeFirst;
+    private float[] planes;
+
+    /**
+     * Classify obstacles of store in parallel
+     * @param store packed triangles
+     */
+    public ConvexShapes(TriangleStore store){
+        this.store = store;
+        int obstacles = store.getObstacleCount();
+        kind = new byte[obstacles];
+        float[][] obstaclePlanes = new float[obstacles][];
+        IntStream.range(0, obstacles).parallel().forEach(o -> obstaclePlanes[o] = classify(o));
+        planeFirst = new int[obstacles + 1];
+        for(int o = 0; o < obstacles; ++o)
+            planeFirst[o + 1] = planeFirst[o] + (kind[o] == CONVEX ? obstaclePlanes[o].length / 4 : 0);
+        planes = new float[planeFirst[obstacles] * 4];
+        for(int o = 0; o < obstacles; ++o){
+            if(kind[o] == CONVEX)
+                System.arraycopy(obstaclePlanes[o], 0, planes, planeFirst[o] * 4, obstaclePlanes[o].length);
+        }
+    }
+
+    // set kind of obstacle, return its planes
+    private float[] classify(int obstacle){
+        int from = store.getFirstTriangle(obstacle);
+        int to = store.getFirstTriangle(obstacle + 1);
+        if(to - from < 4 || to - from > MAX_TRIANGLES)
+            return null;
+        float[] bounds = store.getObstacleBounds();
+        double size = 0.0;
+        float magnitude = 0f;
+        for(int axis = 0; axis < 3; ++axis){
+            size = Math.max(size, bounds[obstacle * 6 + axis + 3] - bounds[obstacle * 6 + axis]);
+            magnitude = Math.max(magnitude, Math.max(Math.abs(bounds[obstacle * 6 + axis]),
+                    Math.abs(bounds[obstacle * 6 + axis + 3])));
+        }
+        // float vertices far from origin are rounded more than small obstacle tolerance
+        double eps = TOLERANCE * size + ROUNDING_ULPS * Math.ulp(magnitude);
+        double[] result = new double[(to - from) * 4];
+        int count = 0;
+        double sumX = 0.0, sumY = 0.0, sumZ = 0.0, area = 0.0;
+        boolean axisAligned = true;
+        for(int t = from; t < to; ++t){
+            double e1x = store.get(TriangleStore.E1X, t), e1y = store.get(TriangleStore.E1Y, t), e1z = store.get(TriangleStore.E1Z, t);
+            double e2x = store.get(TriangleStore.E2X, t), e2y = store.get(TriangleStore.E2Y, t), e2z = store.get(TriangleStore.E2Z, t);
+            double nx = e1y * e2z - e1z * e2y;
+            double ny = e1z * e2x - e1x * e2z;
+            double nz = e1x * e2y - e1y * e2x;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if(length <= eps * eps)
+                continue;
+            nx /= length;
+            ny /= length;
+            nz /= length;
+            double d = nx * store.get(TriangleStore.V0X, t) + ny * store.get(TriangleStore.V0Y, t)
+                    + nz * store.get(TriangleStore.V0Z, t);
+            // orient plane outwards: the farthest vertex of obstacle should be behind it
+            double min = 0.0, max = 0.0;
+            for(int u = from; u < to; ++u){
+                for(int v = 0; v < 3; ++v){
+                    double distance = nx * store.getVertex(u, v, 0) + ny * store.getVertex(u, v, 1)
+                            + nz * store.getVertex(u, v, 2) - d;
+                    min = Math.min(min, distance);
+                    max = Math.max(max, distance);
+                }
+            }
+            if(min < -eps && max > eps)
+                return null;
+            if(max <= eps && min >= -eps)
+                return null;
+            if(max > eps){
+                nx = -nx;
+                ny = -ny;
+                nz = -nz;
+                d = -d;
+            }
+            sumX += nx * length;
+            sumY += ny * length;
+            sumZ += nz * length;
+            area += length;
+            boolean duplicate = false;
+            for(int p = 0; p < count && !duplicate; ++p){
+                duplicate = nx * result[p * 4] + ny * result[p * 4 + 1] + nz * result[p * 4 + 2] > AXIS_COSINE
+                        && Math.abs(d - result[p * 4 + 3]) <= eps;
+            }
+            if(duplicate)
+                continue;
+            axisAligned &= Math.max(Math.abs(nx), Math.max(Math.abs(ny), Math.abs(nz))) > AXIS_COSINE;
+            result[count * 4] = nx;
+            result[count * 4 + 1] = ny;
+            result[count * 4 + 2] = nz;
+            result[count * 4 + 3] = d;
+            ++count;
+        }
+        // surface without some faces isn't closed, its area vectors don't cancel out
+        if(Math.sqrt(sumX * sumX + sumY * sumY + sumZ * sumZ) > TOLERANCE * area || count < 4)
+            return null;
+        if(axisAligned){
+            kind[obstacle] = BOX;
+            return null;
+        }
+        kind[obstacle] = CONVEX;
+        float[] packed = new float[count * 4];
+        for(int i = 0; i < packed.length; ++i)
+            packed[i] = (float) result[i];
+        return packed;
+    }
+
+    /**
+     * Return store of classified obstacles
+     * @return {@link TriangleStore}
+     */
+    public TriangleStore getStore(){
+        return store;
+    }
+
+    /**
+     * Return kind of obstacle
+     * @param obstacle obstacle index
+     * @return {@link #GENERAL}, {@link #CONVEX} or {@link #BOX}
+     */
+    public byte getKind(int obstacle){
+        return kind[obstacle];
+    }
+
+    /**
+     * Return number of obstacles of kind
+     * @param obstacleKind {@link #GENERAL}, {@link #CONVEX} or {@link #BOX}
+     * @return obstacle count
+     */
+    public int getCount(byte obstacleKind){
+        int result = 0;
+        for(byte k: kind){
+            if(k == obstacleKind)
+                ++result;
+        }
+        return result;
+    }
+
+    /**
+     * Return number of face planes of convex obstacle
+     * @param obstacle obstacle index
+     * @return plane count, 0 for boxes and general obstacles
+     */
+    public int getPlaneCount(int obstacle){
+        return planeFirst[obstacle + 1] - planeFirst[obstacle];
+    }
+
+    /**
+     * Clip line origin + t * direction with box or convex obstacle.
+     * Doesn't allocate objects, so it can be used in hot loops with reused range array
+     * @param obstacle obstacle index
+     * @param ox x coordinate of origin
+     * @param oy y coordinate of origin
+     * @param oz z coordinate of origin
+     * @param dx x coordinate of direction
+     * @param dy y coordinate of direction
+     * @param dz z coordinate of direction
+     * @param range receives parameters t of entry into obstacle and exit from it
+     * @return true if line passes through obstacle, false if it misses obstacle or obstacle is general
+     */
+    public boolean clip(int obstacle, double ox, double oy, double oz, double dx, double dy, double dz,
+                        double[] range){
+        return clipLine(obstacle, ox, oy, oz, dx, dy, dz, range);
+    }
+
+    // clip line and store entry and exit into range, for null range check if entry or exit
+    // lies on segment with t in [0, 1], so segment test doesn't need range array
+    private boolean clipLine(int obstacle, double ox, double oy, double oz, double dx, double dy, double dz,
+                             double[] range){
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        if(kind[obstacle] == BOX){
+            float[] bounds = store.getObstacleBounds();
+            int b = obstacle * 6;
+            for(int axis = 0; axis < 3; ++axis){
+                double o = axis == 0 ? ox : axis == 1 ? oy : oz;
+                double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+                double min = bounds[b + axis], max = bounds[b + axis + 3];
+                if(d == 0.0){
+                    if(o < min || o > max)
+                        return false;
+                    continue;
+                }
+                double t1 = (min - o) / d;
+                double t2 = (max - o) / d;
+                enter = Math.max(enter, Math.min(t1, t2));
+                exit = Math.min(exit, Math.max(t1, t2));
+            }
+        }
+        else if(kind[obstacle] == CONVEX){
+            for(int p = planeFirst[obstacle] * 4; p < planeFirst[obstacle + 1] * 4; p += 4){
+                double nx = planes[p], ny = planes[p + 1], nz = planes[p + 2];
+                double distance = nx * ox + ny * oy + nz * oz - planes[p + 3];
+                double speed = nx * dx + ny * dy + nz * dz;
+                if(speed == 0.0){
+                    if(distance > 0.0)
+                        return false;
+                    continue;
+                }
+                double t = -distance / speed;
+                if(speed < 0.0)
+                    enter = Math.max(enter, t);
+                else
+                    exit = Math.min(exit, t);
+            }
+        }
+        else
+            return false;
+        if(enter > exit)
+            return false;
+        if(range == null)
+            return enter >= 0.0 && enter <= 1.0 || exit >= 0.0 && exit <= 1.0;
+        range[0] = enter;
+        range[1] = exit;
+        return true;
+    }
+
+    /**
+     * Check if segment from (x1, y1, z1) to (x2, y2, z2) crosses surface of obstacle.
+     * Box and convex obstacles are clipped, triangles of general obstacles are tested
+     * @param obstacle obstacle index
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return true if segment intersects obstacle surface
+     */
+    public boolean isSegmentIntersects(int obstacle, double x1, double y1, double z1,
+                                       double x2, double y2, double z2){
+        if(kind[obstacle] == GENERAL)
+            return store.isSegmentIntersects(obstacle, x1, y1, z1, x2, y2, z2);
+        return clipLine(obstacle, x1, y1, z1, x2 - x1, y2 - y1, z2 - z1, null);
+    }
+
+    /**
+     * Return memory taken by planes
+     * @return size in bytes
+     */
+    public long getMemorySize(){
+        return planes.length * 4L + planeFirst.length * 4L + kind.length;
+    }
+}
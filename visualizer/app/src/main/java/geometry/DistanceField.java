@@ -0,0 +1,639 @@
+package geometry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Signed distance field of c-space obstacles.
+ * Distance to the nearest obstacle surface is sampled in corners of cubic voxels covering
+ * c-space vertex bounds, values are negative inside obstacles. Resolution is number of voxels
+ * along the longest side of bounds.
+ * <p>
+ * Field is built in parallel by z layers:
+ * <ol>
+ *     <li>exact point-triangle distance for samples near each triangle (narrow band),
+ *     every sample keeps its closest surface point</li>
+ *     <li>jump flooding propagates closest points to all other samples</li>
+ *     <li>sign is taken from crossing parity of x rows with each obstacle separately,
+ *     so overlapping obstacles are handled</li>
+ * </ol>
+ * Queries interpolate samples trilinearly, so clearance of point costs eight lookups.
+ * Field can be saved next to c-space file and mapped back with {@link #load}:
+ * <pre>
+ *     int     magic "CSDF"
+ *     int     format version
+ *     int     resolution
+ *     long    c-space file length, long c-space file modification time
+ *     float[3] origin, float voxel size
+ *     int[3]  number of samples along x, y, z
+ *     float[] samples, x is the fastest axis
+ * </pre>
+ *
+ * @version     %I%, %G%
+ * @see CSpaceGeometry
+ */
+public class DistanceField {
+
+    /** First four bytes of distance field file */
+    public static final int MAGIC = 0x46445343;
+    /** Current format version */
+    public static final int VERSION = 1;
+    /** Default file extension */
+    public static final String EXTENSION = ".sdf";
+    /** Default number of voxels along the longest side of c-space */
+    public static final int DEFAULT_RESOLUTION = 64;
+
+    private static final int HEADER_SIZE = 56;
+    // samples nearer than this number of voxels to triangle get exact distance
+    private static final float BAND = 1.5f;
+    private static final int NO_SEED = -1;
+
+    private float[] origin = new float[3];
+    private float voxel;
+    private int[] size = new int[3];
+    private int resolution;
+    private FloatBuffer values;
+
+    /**
+     * Build field for c-space geometry
+     * @param geometry c-space with obstacle triangles and vertex bounds
+     * @param resolution number of voxels along the longest side of c-space bounds
+     */
+    public DistanceField(CSpaceGeometry geometry, int resolution){
+        if(resolution < 1)
+            throw new IllegalArgumentException("Resolution should be positive: " + resolution);
+        this.resolution = resolution;
+        float[] bounds = geometry.getBounds();
+        float extent = 0f;
+        for(int axis = 0; axis < 3; ++axis)
+            extent = Math.max(extent, bounds[axis + 3] - bounds[axis]);
+        voxel = extent > 0f ? extent / resolution : 1f;
+        for(int axis = 0; axis < 3; ++axis){
+            origin[axis] = bounds[axis];
+            size[axis] = Math.max(2, (int) Math.ceil((bounds[axis + 3] - bounds[axis]) / voxel) + 1);
+        }
+        values = FloatBuffer.wrap(new Builder(geometry.getStore()).build());
+    }
+
+    private DistanceField(int resolution, float[] origin, float voxel, int[] size, FloatBuffer values){
+        this.resolution = resolution;
+        this.origin = origin;
+        this.voxel = voxel;
+        this.size = size;
+        this.values = values;
+    }
+
+    /**
+     * Return field for c-space file, cached next to it.
+     * Cached field is used if it was built with the same resolution for the same
+     * c-space file (length and modification time), otherwise field is built and saved.
+     * Cache is optional: if file can't be written, built field is returned anyway
+     * @param cSpaceFile c-space file
+     * @param geometry geometry read from c-space file
+     * @param resolution number of voxels along the longest side of c-space bounds
+     * @return distance field
+     */
+    public static DistanceField load(File cSpaceFile, CSpaceGeometry geometry, int resolution){
+        File cache = cacheFile(cSpaceFile);
+        if(cache.isFile()){
+            try {
+                DistanceField field = read(cache, cSpaceFile);
+                if(field != null && field.resolution == resolution)
+                    return field;
+            }
+            catch (IOException e){
+                // broken cache is rebuilt
+            }
+        }
+        DistanceField field = new DistanceField(geometry, resolution);
+        try {
+            field.write(cache, cSpaceFile);
+        }
+        catch (IOException e){
+            // cache is optional, field is still usable
+        }
+        return field;
+    }
+
+    /**
+     * Return default cache file for c-space file
+     * @param cSpaceFile c-space file
+     * @return file with {@link #EXTENSION} extension in the same directory
+     */
+    public static File cacheFile(File cSpaceFile){
+        String name = cSpaceFile.getName();
+        int dot = name.lastIndexOf('.');
+        if(dot > 0)
+            name = name.substring(0, dot);
+        return new File(cSpaceFile.getAbsoluteFile().getParentFile(), name + EXTENSION);
+    }
+
+    /**
+     * Write field to file.
+     * File is replaced atomically, see {@link CacheFile}
+     * @param file target file
+     * @param cSpaceFile c-space file, which length and modification time are stored to check cache
+     * @throws IOException if file can't be written
+     */
+    public void write(File file, File cSpaceFile) throws IOException {
+        int count = size[0] * size[1] * size[2];
+        long length = HEADER_SIZE + count * 4L;
+        long cSpaceLength = cSpaceFile.length();
+        long cSpaceModified = cSpaceFile.lastModified();
+        CacheFile.write(file, length, buffer -> {
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(resolution);
+            buffer.putLong(cSpaceLength);
+            buffer.putLong(cSpaceModified);
+            for(float v: origin)
+                buffer.putFloat(v);
+            buffer.putFloat(voxel);
+            for(int n: size)
+                buffer.putInt(n);
+            FloatBuffer data = values.duplicate();
+            data.rewind();
+            buffer.asFloatBuffer().put(data);
+        });
+    }
+
+    /**
+     * Map field file, samples stay in mapped buffer
+     * @param file distance field file
+     * @param cSpaceFile c-space file to check, null to skip check
+     * @return read field or null if it was built for other version of c-space file
+     * @throws IOException if file can't be read or has wrong format
+     */
+    public static DistanceField read(File file, File cSpaceFile) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()){
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            if(buffer.getInt() != MAGIC)
+                throw new IOException("Not a distance field file: " + file);
+            int version = buffer.getInt();
+            if(version != VERSION)
+                throw new IOException("Unsupported distance field version " + version + " in " + file);
+            int resolution = buffer.getInt();
+            long length = buffer.getLong();
+            long modified = buffer.getLong();
+            if(cSpaceFile != null && (length != cSpaceFile.length() || modified != cSpaceFile.lastModified()))
+                return null;
+            float[] origin = {buffer.getFloat(), buffer.getFloat(), buffer.getFloat()};
+            float voxel = buffer.getFloat();
+            int[] size = {buffer.getInt(), buffer.getInt(), buffer.getInt()};
+            long count = (long) size[0] * size[1] * size[2];
+            if(size[0] < 2 || size[1] < 2 || size[2] < 2 || count * 4 != buffer.remaining())
+                throw new IOException("Distance field " + file + " has " + buffer.remaining() +
+                        " bytes of samples, expected " + count * 4);
+            FloatBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            data.limit(size[0] * size[1] * size[2]);
+            return new DistanceField(resolution, origin, voxel, size, data.slice());
+        }
+        catch (RuntimeException e){
+            throw new IOException("Corrupted distance field file " + file + ": " + e, e);
+        }
+    }
+
+    /**
+     * Return number of voxels along the longest side of c-space
+     * @return resolution
+     */
+    public int getResolution(){
+        return resolution;
+    }
+
+    /**
+     * Return edge length of cubic voxel
+     * @return voxel size
+     */
+    public float getVoxelSize(){
+        return voxel;
+    }
+
+    /**
+     * Return number of samples along axis
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return sample count
+     */
+    public int getSize(int axis){
+        return size[axis];
+    }
+
+    /**
+     * Return memory taken by samples, mapped cache file is counted too
+     * @return size in bytes
+     */
+    public long getMemorySize(){
+        return values.capacity() * 4L;
+    }
+
+    /**
+     * Return sample value
+     * @param i sample index along x
+     * @param j sample index along y
+     * @param k sample index along z
+     * @return signed distance at sample point
+     */
+    public float getSample(int i, int j, int k){
+        return values.get((k * size[1] + j) * size[0] + i);
+    }
+
+    /**
+     * Return interpolated signed distance from point to the nearest obstacle surface.
+     * Points outside of field bounds are clamped to bounds
+     * @param x x coordinate of point
+     * @param y y coordinate of point
+     * @param z z coordinate of point
+     * @return distance, negative inside obstacle
+     */
+    public double distance(double x, double y, double z){
+        double fx = clamp((x - origin[0]) / voxel, size[0] - 1);
+        double fy = clamp((y - origin[1]) / voxel, size[1] - 1);
+        double fz = clamp((z - origin[2]) / voxel, size[2] - 1);
+        int i = Math.min((int) fx, size[0] - 2);
+        int j = Math.min((int) fy, size[1] - 2);
+        int k = Math.min((int) fz, size[2] - 2);
+        double tx = fx - i, ty = fy - j, tz = fz - k;
+        int sx = size[0];
+        int sxy = size[0] * size[1];
+        int c = (k * size[1] + j) * sx + i;
+        double c00 = lerp(values.get(c), values.get(c + 1), tx);
+        double c10 = lerp(values.get(c + sx), values.get(c + sx + 1), tx);
+        double c01 = lerp(values.get(c + sxy), values.get(c + sxy + 1), tx);
+        double c11 = lerp(values.get(c + sxy + sx), values.get(c + sxy + sx + 1), tx);
+        return lerp(lerp(c00, c10, ty), lerp(c01, c11, ty), tz);
+    }
+
+    /**
+     * Return minimal clearance along segment from (x1, y1, z1) to (x2, y2, z2).
+     * Field is sampled with half voxel step
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return minimal signed distance, negative if segment goes through obstacle
+     */
+    public double minClearance(double x1, double y1, double z1, double x2, double y2, double z2){
+        double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        int steps = (int) Math.ceil(length / (voxel * 0.5));
+        double min = distance(x1, y1, z1);
+        for(int s = 1; s <= steps; ++s){
+            double t = (double) s / steps;
+            min = Math.min(min, distance(x1 + dx * t, y1 + dy * t, z1 + dz * t));
+        }
+        return min;
+    }
+
+    /**
+     * Check if every point of segment from (x1, y1, z1) to (x2, y2, z2) is at least radius
+     * away from obstacles. Segment is walked with step equal to distance reserve over radius,
+     * but not less than half voxel, and check stops on the first close point
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @param radius required clearance
+     * @return true if segment keeps clearance
+     */
+    public boolean isClear(double x1, double y1, double z1, double x2, double y2, double z2, double radius){
+        double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        double minStep = voxel * 0.5;
+        double t = 0.0;
+        while(true){
+            double f = length > 0.0 ? t / length : 0.0;
+            double d = distance(x1 + dx * f, y1 + dy * f, z1 + dz * f);
+            if(d < radius)
+                return false;
+            if(t >= length)
+                return true;
+            t = Math.min(length, t + Math.max(minStep, d - radius));
+        }
+    }
+
+    private static double clamp(double v, int max){
+        return v < 0.0 ? 0.0 : (v > max ? max : v);
+    }
+
+    private static double lerp(double a, double b, double t){
+        return a + (b - a) * t;
+    }
+
+    /**
+     * Build state: closest surface points and seeds of samples
+     */
+    private class Builder {
+        private TriangleStore store;
+        private int count;
+        private float[] closest;
+        private float[] distance;
+        private int[] seed;
+        // triangles overlapping each z layer of samples in compressed arrays, as in OccupancyGrid
+        private int[] layerStart;
+        private int[] layerItems;
+
+        Builder(TriangleStore store){
+            this.store = store;
+            this.count = size[0] * size[1] * size[2];
+        }
+
+        float[] build(){
+            if(store.getTriangleCount() == 0){
+                float[] result = new float[count];
+                Arrays.fill(result, Float.MAX_VALUE);
+                return result;
+            }
+            closest = new float[count * 3];
+            distance = new float[count];
+            seed = new int[count];
+            Arrays.fill(distance, Float.POSITIVE_INFINITY);
+            Arrays.fill(seed, NO_SEED);
+            binLayers();
+            IntStream.range(0, size[2]).parallel().forEach(this::seedLayer);
+            int[] next = new int[count];
+            int maxSize = Math.max(size[0], Math.max(size[1], size[2]));
+            int step = Integer.highestOneBit(maxSize);
+            // jump flooding with additional pass of step 1 to fix most of its errors
+            while(step >= 1){
+                flood(step, next);
+                step /= 2;
+            }
+            flood(1, next);
+            float[] result = new float[count];
+            IntStream.range(0, size[2]).parallel().forEach(k -> signLayer(k, result));
+            return result;
+        }
+
+        private void binLayers(){
+            int triangles = store.getTriangleCount();
+            int[] range = new int[2 * triangles];
+            layerStart = new int[size[2] + 1];
+            for(int t = 0; t < triangles; ++t){
+                float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+                for(int v = 0; v < 3; ++v){
+                    float z = store.getVertex(t, v, 2);
+                    min = Math.min(min, z);
+                    max = Math.max(max, z);
+                }
+                range[2 * t] = index(min - BAND * voxel, 2, 1f);
+                range[2 * t + 1] = index(max + BAND * voxel, 2, -1f);
+                for(int k = range[2 * t]; k <= range[2 * t + 1]; ++k)
+                    ++layerStart[k + 1];
+            }
+            for(int k = 0; k < size[2]; ++k)
+                layerStart[k + 1] += layerStart[k];
+            layerItems = new int[layerStart[size[2]]];
+            int[] fill = Arrays.copyOf(layerStart, size[2]);
+            for(int t = 0; t < triangles; ++t){
+                for(int k = range[2 * t]; k <= range[2 * t + 1]; ++k)
+                    layerItems[fill[k]++] = t;
+            }
+        }
+
+        // index of the nearest sample not less (round > 0) or not greater than coordinate, clamped
+        private int index(float coordinate, int axis, float round){
+            double f = (coordinate - origin[axis]) / voxel;
+            int i = (int) (round > 0f ? Math.ceil(f) : Math.floor(f));
+            return Math.max(0, Math.min(size[axis] - 1, i));
+        }
+
+        private void seedLayer(int k){
+            double[] point = new double[3];
+            float[] v = new float[9];
+            double z = origin[2] + k * (double) voxel;
+            for(int item = layerStart[k]; item < layerStart[k + 1]; ++item){
+                int t = layerItems[item];
+                float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+                float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+                for(int c = 0; c < 3; ++c){
+                    for(int axis = 0; axis < 3; ++axis)
+                        v[c * 3 + axis] = store.getVertex(t, c, axis);
+                    minX = Math.min(minX, v[c * 3]);
+                    maxX = Math.max(maxX, v[c * 3]);
+                    minY = Math.min(minY, v[c * 3 + 1]);
+                    maxY = Math.max(maxY, v[c * 3 + 1]);
+                }
+                int i0 = index(minX - BAND * voxel, 0, 1f), i1 = index(maxX + BAND * voxel, 0, -1f);
+                int j0 = index(minY - BAND * voxel, 1, 1f), j1 = index(maxY + BAND * voxel, 1, -1f);
+                for(int j = j0; j <= j1; ++j){
+                    double y = origin[1] + j * (double) voxel;
+                    for(int i = i0; i <= i1; ++i){
+                        double x = origin[0] + i * (double) voxel;
+                        closestPoint(v, x, y, z, point);
+                        double ex = point[0] - x, ey = point[1] - y, ez = point[2] - z;
+                        float d = (float) Math.sqrt(ex * ex + ey * ey + ez * ez);
+                        int s = (k * size[1] + j) * size[0] + i;
+                        if(d < distance[s]){
+                            distance[s] = d;
+                            seed[s] = s;
+                            closest[3 * s] = (float) point[0];
+                            closest[3 * s + 1] = (float) point[1];
+                            closest[3 * s + 2] = (float) point[2];
+                        }
+                    }
+                }
+            }
+        }
+
+        private void flood(int step, int[] next){
+            int[] current = seed;
+            IntStream.range(0, size[2]).parallel().forEach(k -> {
+                for(int j = 0; j < size[1]; ++j){
+                    for(int i = 0; i < size[0]; ++i){
+                        int s = (k * size[1] + j) * size[0] + i;
+                        int best = current[s];
+                        double bestDistance = best == NO_SEED ? Double.POSITIVE_INFINITY : seedDistance(best, i, j, k);
+                        for(int nk = k - step; nk <= k + step; nk += step){
+                            if(nk < 0 || nk >= size[2])
+                                continue;
+                            for(int nj = j - step; nj <= j + step; nj += step){
+                                if(nj < 0 || nj >= size[1])
+                                    continue;
+                                for(int ni = i - step; ni <= i + step; ni += step){
+                                    if(ni < 0 || ni >= size[0])
+                                        continue;
+                                    int candidate = current[(nk * size[1] + nj) * size[0] + ni];
+                                    if(candidate == NO_SEED || candidate == best)
+                                        continue;
+                                    double d = seedDistance(candidate, i, j, k);
+                                    if(d < bestDistance){
+                                        bestDistance = d;
+                                        best = candidate;
+                                    }
+                                }
+                            }
+                        }
+                        next[s] = best;
+                    }
+                }
+            });
+            System.arraycopy(next, 0, seed, 0, count);
+        }
+
+        private double seedDistance(int s, int i, int j, int k){
+            double ex = closest[3 * s] - (origin[0] + i * (double) voxel);
+            double ey = closest[3 * s + 1] - (origin[1] + j * (double) voxel);
+            double ez = closest[3 * s + 2] - (origin[2] + k * (double) voxel);
+            return Math.sqrt(ex * ex + ey * ey + ez * ez);
+        }
+
+        // unsigned distance from seeds, sign from crossings of each row along x with obstacles
+        private void signLayer(int k, float[] result){
+            double z = origin[2] + k * (double) voxel;
+            double start = origin[0] - voxel;
+            int[] rowObstacle = new int[16];
+            double[] rowX = new double[16];
+            boolean[] inside = new boolean[size[0]];
+            for(int j = 0; j < size[1]; ++j){
+                double y = origin[1] + j * (double) voxel;
+                int crossings = 0;
+                for(int item = layerStart[k]; item < layerStart[k + 1]; ++item){
+                    int t = layerItems[item];
+                    double hit = store.intersect(t, start, y, z, 1.0, 0.0, 0.0);
+                    if(Double.isNaN(hit))
+                        continue;
+                    if(crossings == rowX.length){
+                        rowX = Arrays.copyOf(rowX, crossings * 2);
+                        rowObstacle = Arrays.copyOf(rowObstacle, crossings * 2);
+                    }
+                    rowObstacle[crossings] = store.getObstacle(t);
+                    rowX[crossings] = start + hit;
+                    ++crossings;
+                }
+                Arrays.fill(inside, false);
+                sortCrossings(rowObstacle, rowX, crossings);
+                markInside(rowObstacle, rowX, crossings, inside);
+                for(int i = 0; i < size[0]; ++i){
+                    int s = (k * size[1] + j) * size[0] + i;
+                    float d = (float) seedDistance(seed[s], i, j, k);
+                    result[s] = inside[i] ? -d : d;
+                }
+            }
+        }
+
+        // insertion sort by obstacle, then by x: rows cross only a few triangles
+        private void sortCrossings(int[] obstacle, double[] x, int n){
+            for(int a = 1; a < n; ++a){
+                int o = obstacle[a];
+                double v = x[a];
+                int b = a - 1;
+                while(b >= 0 && (obstacle[b] > o || (obstacle[b] == o && x[b] > v))){
+                    obstacle[b + 1] = obstacle[b];
+                    x[b + 1] = x[b];
+                    --b;
+                }
+                obstacle[b + 1] = o;
+                x[b + 1] = v;
+            }
+        }
+
+        // for each obstacle pairs of crossings bound inside intervals, equal crossings
+        // (row through shared edge of two triangles) are counted once
+        private void markInside(int[] obstacle, double[] x, int n, boolean[] inside){
+            double eps = voxel * 1e-6;
+            int a = 0;
+            while(a < n){
+                int b = a;
+                double enter = Double.NaN;
+                double last = Double.NaN;
+                while(b < n && obstacle[b] == obstacle[a]){
+                    if(!(Math.abs(x[b] - last) <= eps)){
+                        if(Double.isNaN(enter))
+                            enter = x[b];
+                        else {
+                            fill(enter, x[b], inside);
+                            enter = Double.NaN;
+                        }
+                    }
+                    last = x[b];
+                    ++b;
+                }
+                a = b;
+            }
+        }
+
+        private void fill(double from, double to, boolean[] inside){
+            int i0 = (int) Math.ceil((from - origin[0]) / voxel);
+            int i1 = (int) Math.floor((to - origin[0]) / voxel);
+            for(int i = Math.max(0, i0); i <= Math.min(size[0] - 1, i1); ++i)
+                inside[i] = true;
+        }
+    }
+
+    /**
+     * Find closest point of triangle to point p (Ericson, Real-Time Collision Detection, 5.1.5)
+     * @param v x, y, z coordinates of three triangle vertices
+     * @param px x coordinate of point
+     * @param py y coordinate of point
+     * @param pz z coordinate of point
+     * @param out x, y, z coordinates of closest point
+     */
+    static void closestPoint(float[] v, double px, double py, double pz, double[] out){
+        double ax = v[0], ay = v[1], az = v[2];
+        double abx = v[3] - ax, aby = v[4] - ay, abz = v[5] - az;
+        double acx = v[6] - ax, acy = v[7] - ay, acz = v[8] - az;
+        double apx = px - ax, apy = py - ay, apz = pz - az;
+        double d1 = abx * apx + aby * apy + abz * apz;
+        double d2 = acx * apx + acy * apy + acz * apz;
+        if(d1 <= 0.0 && d2 <= 0.0){
+            set(out, ax, ay, az);
+            return;
+        }
+        double bpx = px - v[3], bpy = py - v[4], bpz = pz - v[5];
+        double d3 = abx * bpx + aby * bpy + abz * bpz;
+        double d4 = acx * bpx + acy * bpy + acz * bpz;
+        if(d3 >= 0.0 && d4 <= d3){
+            set(out, v[3], v[4], v[5]);
+            return;
+        }
+        double vc = d1 * d4 - d3 * d2;
+        if(vc <= 0.0 && d1 >= 0.0 && d3 <= 0.0){
+            double t = d1 / (d1 - d3);
+            set(out, ax + abx * t, ay + aby * t, az + abz * t);
+            return;
+        }
+        double cpx = px - v[6], cpy = py - v[7], cpz = pz - v[8];
+        double d5 = abx * cpx + aby * cpy + abz * cpz;
+        double d6 = acx * cpx + acy * cpy + acz * cpz;
+        if(d6 >= 0.0 && d5 <= d6){
+            set(out, v[6], v[7], v[8]);
+            return;
+        }
+        double vb = d5 * d2 - d1 * d6;
+        if(vb <= 0.0 && d2 >= 0.0 && d6 <= 0.0){
+            double t = d2 / (d2 - d6);
+            set(out, ax + acx * t, ay + acy * t, az + acz * t);
+            return;
+        }
+        double va = d3 * d6 - d5 * d4;
+        if(va <= 0.0 && (d4 - d3) >= 0.0 && (d5 - d6) >= 0.0){
+            double t = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            set(out, v[3] + (v[6] - v[3]) * t, v[4] + (v[7] - v[4]) * t, v[5] + (v[8] - v[5]) * t);
+            return;
+        }
+        double denom = 1.0 / (va + vb + vc);
+        double s = vb * denom;
+        double t = vc * denom;
+        set(out, ax + abx * s + acx * t, ay + aby * s + acy * t, az + abz * s + acz * t);
+    }
+
+    private static void set(double[] out, double x, double y, double z){
+        out[0] = x;
+        out[1] = y;
+        out[2] = z;
+    }
+}
@@ -0,0 +1,386 @@
+package geometry;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Bit-packed occupancy grid of obstacle surfaces.
+ * Cubic voxels cover c-space vertex bounds together with obstacle bounds, resolution is number
+ * of voxels along the longest side. Voxel is occupied if any obstacle triangle overlaps it
+ * (separating axis test of triangle and box), so grid is conservative: every intersection
+ * of segment with obstacle lies in occupied voxel.
+ * <p>
+ * Bits are stored in <code>long[]</code>, each x row takes whole number of words, so z layers
+ * don't share words and are rasterised in parallel. Grid of 512<sup>3</sup> voxels takes 16 MB.
+ * Segments are walked through voxels with 3D DDA (Amanatides-Woo), exact triangle test is run
+ * only for parts of segment inside occupied voxels.
+ *
+ * @version     %I%, %G%
+ * @see TriangleStore
+ * @see TriangleBvh
+ */
+public class OccupancyGrid {
+
+    /** Default number of voxels along the longest side of c-space */
+    public static final int DEFAULT_RESOLUTION = 128;
+
+    // voxels are enlarged by this part of voxel size in overlap test to stay conservative
+    private static final double MARGIN = 1e-4;
+
+    private float[] origin = new float[3];
+    private float voxel;
+    private int[] size = new int[3];
+    private int wordsPerRow;
+    private long[] bits;
+
+    /**
+     * Rasterise obstacles of c-space geometry
+     * @param geometry c-space with obstacle triangles and vertex bounds
+     * @param resolution number of voxels along the longest side
+     */
+    public OccupancyGrid(CSpaceGeometry geometry, int resolution){
+        this(geometry.getStore(), geometry.getBounds(), resolution);
+    }
+
+    /**
+     * Rasterise triangles of store
+     * @param store packed triangles
+     * @param spaceBounds min x, min y, min z, max x, max y, max z of space,
+     *                    grid is extended to obstacle bounds if they are outside
+     * @param resolution number of voxels along the longest side
+     */
+    public OccupancyGrid(TriangleStore store, float[] spaceBounds, int resolution){
+        if(resolution < 1)
+            throw new IllegalArgumentException("Resolution should be positive: " + resolution);
+        float[] bounds = Arrays.copyOf(spaceBounds, 6);
+        float[] obstacleBounds = store.getObstacleBounds();
+        for(int b = 0; b < obstacleBounds.length; b += 6){
+            for(int axis = 0; axis < 3; ++axis){
+                bounds[axis] = Math.min(bounds[axis], obstacleBounds[b + axis]);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], obstacleBounds[b + axis + 3]);
+            }
+        }
+        float extent = 0f;
+        for(int axis = 0; axis < 3; ++axis)
+            extent = Math.max(extent, bounds[axis + 3] - bounds[axis]);
+        voxel = extent > 0f ? extent / resolution : 1f;
+        for(int axis = 0; axis < 3; ++axis){
+            origin[axis] = bounds[axis];
+            size[axis] = Math.max(1, (int) Math.ceil((bounds[axis + 3] - bounds[axis]) / voxel));
+        }
+        wordsPerRow = (size[0] + 63) >>> 6;
+        bits = new long[wordsPerRow * size[1] * size[2]];
+        rasterise(store);
+    }
+
+    private void rasterise(TriangleStore store){
+        // triangles overlapping each z layer in compressed arrays:
+        // triangles of layer k are layerItems[layerStart[k]] .. layerItems[layerStart[k + 1] - 1]
+        int triangles = store.getTriangleCount();
+        int[] range = new int[2 * triangles];
+        int[] layerStart = new int[size[2] + 1];
+        for(int t = 0; t < triangles; ++t){
+            float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+            for(int v = 0; v < 3; ++v){
+                min = Math.min(min, store.getVertex(t, v, 2));
+                max = Math.max(max, store.getVertex(t, v, 2));
+            }
+            range[2 * t] = cell(min - MARGIN * voxel, 2);
+            range[2 * t + 1] = cell(max + MARGIN * voxel, 2);
+            for(int k = range[2 * t]; k <= range[2 * t + 1]; ++k)
+                ++layerStart[k + 1];
+        }
+        for(int k = 0; k < size[2]; ++k)
+            layerStart[k + 1] += layerStart[k];
+        int[] layerItems = new int[layerStart[size[2]]];
+        int[] fill = Arrays.copyOf(layerStart, size[2]);
+        for(int t = 0; t < triangles; ++t){
+            for(int k = range[2 * t]; k <= range[2 * t + 1]; ++k)
+                layerItems[fill[k]++] = t;
+        }
+
+        IntStream.range(0, size[2]).parallel().forEach(k -> {
+            double[] v = new double[9];
+            double half = voxel * (0.5 + MARGIN);
+            double cz = origin[2] + (k + 0.5) * voxel;
+            for(int item = layerStart[k]; item < layerStart[k + 1]; ++item){
+                int t = layerItems[item];
+                double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                for(int c = 0; c < 3; ++c){
+                    for(int axis = 0; axis < 3; ++axis)
+                        v[c * 3 + axis] = store.getVertex(t, c, axis);
+                    minX = Math.min(minX, v[c * 3]);
+                    maxX = Math.max(maxX, v[c * 3]);
+                    minY = Math.min(minY, v[c * 3 + 1]);
+                    maxY = Math.max(maxY, v[c * 3 + 1]);
+                }
+                int i0 = cell(minX - MARGIN * voxel, 0), i1 = cell(maxX + MARGIN * voxel, 0);
+                int j0 = cell(minY - MARGIN * voxel, 1), j1 = cell(maxY + MARGIN * voxel, 1);
+                for(int j = j0; j <= j1; ++j){
+                    double cy = origin[1] + (j + 0.5) * voxel;
+                    int row = (k * size[1] + j) * wordsPerRow;
+                    for(int i = i0; i <= i1; ++i){
+                        if((bits[row + (i >>> 6)] & (1L << i)) != 0)
+                            continue;
+                        double cx = origin[0] + (i + 0.5) * voxel;
+                        if(isTriangleBoxOverlap(v, cx, cy, cz, half))
+                            bits[row + (i >>> 6)] |= 1L << i;
+                    }
+                }
+            }
+        });
+    }
+
+    // voxel index of coordinate along axis, clamped to grid
+    private int cell(double coordinate, int axis){
+        int i = (int) Math.floor((coordinate - origin[axis]) / voxel);
+        return Math.max(0, Math.min(size[axis] - 1, i));
+    }
+
+    /**
+     * Return number of voxels along axis
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return voxel count
+     */
+    public int getSize(int axis){
+        return size[axis];
+    }
+
+    /**
+     * Return minimal coordinate of grid along axis
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return coordinate of grid corner
+     */
+    public float getOrigin(int axis){
+        return origin[axis];
+    }
+
+    /**
+     * Return edge length of cubic voxel
+     * @return voxel size
+     */
+    public float getVoxelSize(){
+        return voxel;
+    }
+
+    /**
+     * Return memory taken by bits
+     * @return size in bytes
+     */
+    public long getMemorySize(){
+        return bits.length * 8L;
+    }
+
+    /**
+     * Return number of occupied voxels
+     * @return occupied voxel count
+     */
+    public long getOccupiedCount(){
+        long count = 0;
+        for(long word: bits)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * Check if voxel is occupied
+     * @param i voxel index along x
+     * @param j voxel index along y
+     * @param k voxel index along z
+     * @return true if any triangle overlaps voxel, false for voxels outside grid
+     */
+    public boolean isOccupied(int i, int j, int k){
+        if(i < 0 || j < 0 || k < 0 || i >= size[0] || j >= size[1] || k >= size[2])
+            return false;
+        return (bits[(k * size[1] + j) * wordsPerRow + (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    /**
+     * Return index of voxel containing coordinate along axis
+     * @param coordinate point coordinate
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return voxel index, may be outside of grid
+     */
+    public int toVoxel(double coordinate, int axis){
+        return (int) Math.floor((coordinate - origin[axis]) / voxel);
+    }
+
+    /**
+     * Return coordinate of voxel center along axis
+     * @param index voxel index
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return center coordinate
+     */
+    public double toCenter(int index, int axis){
+        return origin[axis] + (index + 0.5) * voxel;
+    }
+
+    /**
+     * Conservative check of segment from (x1, y1, z1) to (x2, y2, z2): segment passes
+     * through occupied voxel. False result means that segment doesn't intersect obstacles
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return true if any voxel on segment is occupied
+     */
+    public boolean isSegmentOccupied(double x1, double y1, double z1, double x2, double y2, double z2){
+        return walk(x1, y1, z1, x2, y2, z2, null);
+    }
+
+    /**
+     * Exact check of segment from (x1, y1, z1) to (x2, y2, z2). Segment is walked through voxels,
+     * each run of occupied voxels is tested with triangle hierarchy, free voxels are skipped
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @param exact hierarchy over the same triangles which were rasterised
+     * @return true if segment intersects any triangle
+     */
+    public boolean isSegmentIntersects(double x1, double y1, double z1, double x2, double y2, double z2,
+                                       TriangleBvh exact){
+        return walk(x1, y1, z1, x2, y2, z2, exact);
+    }
+
+    // Amanatides-Woo traversal, segment parameter t is in [0, 1]
+    private boolean walk(double x1, double y1, double z1, double x2, double y2, double z2, TriangleBvh exact){
+        double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
+        // clip segment to grid box
+        double enter = 0.0, exit = 1.0;
+        double[] o = {x1, y1, z1};
+        double[] d = {dx, dy, dz};
+        for(int axis = 0; axis < 3; ++axis){
+            double min = origin[axis], max = origin[axis] + size[axis] * (double) voxel;
+            if(d[axis] == 0.0){
+                if(o[axis] < min || o[axis] > max)
+                    return false;
+                continue;
+            }
+            double t1 = (min - o[axis]) / d[axis];
+            double t2 = (max - o[axis]) / d[axis];
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if(enter > exit)
+            return false;
+
+        int[] cell = new int[3];
+        int[] step = new int[3];
+        double[] next = new double[3];
+        double[] delta = new double[3];
+        for(int axis = 0; axis < 3; ++axis){
+            double p = o[axis] + d[axis] * enter;
+            cell[axis] = cell(p, axis);
+            if(d[axis] > 0.0){
+                step[axis] = 1;
+                next[axis] = (origin[axis] + (cell[axis] + 1) * (double) voxel - o[axis]) / d[axis];
+                delta[axis] = voxel / d[axis];
+            }
+            else if(d[axis] < 0.0){
+                step[axis] = -1;
+                next[axis] = (origin[axis] + cell[axis] * (double) voxel - o[axis]) / d[axis];
+                delta[axis] = -voxel / d[axis];
+            }
+            else {
+                step[axis] = 0;
+                next[axis] = Double.POSITIVE_INFINITY;
+                delta[axis] = Double.POSITIVE_INFINITY;
+            }
+        }
+
+        double t = enter;
+        double runStart = Double.NaN;
+        while(true){
+            double leave = Math.min(exit, Math.min(next[0], Math.min(next[1], next[2])));
+            boolean occupied = isOccupied(cell[0], cell[1], cell[2]);
+            if(occupied){
+                if(exact == null)
+                    return true;
+                if(Double.isNaN(runStart))
+                    runStart = t;
+            }
+            else if(!Double.isNaN(runStart)){
+                if(isRunIntersects(o, d, runStart, t, exact))
+                    return true;
+                runStart = Double.NaN;
+            }
+            if(leave >= exit)
+                break;
+            int axis = next[0] <= next[1] ? (next[0] <= next[2] ? 0 : 2) : (next[1] <= next[2] ? 1 : 2);
+            cell[axis] += step[axis];
+            if(cell[axis] < 0 || cell[axis] >= size[axis])
+                break;
+            t = next[axis];
+            next[axis] += delta[axis];
+        }
+        return !Double.isNaN(runStart) && isRunIntersects(o, d, runStart, exit, exact);
+    }
+
+    // exact test of segment part from t = from to t = to, slightly extended on both ends
+    private static boolean isRunIntersects(double[] o, double[] d, double from, double to, TriangleBvh exact){
+        double margin = (to - from) * MARGIN + 1e-9;
+        double a = Math.max(0.0, from - margin);
+        double b = Math.min(1.0, to + margin);
+        return exact.isSegmentIntersects(o[0] + d[0] * a, o[1] + d[1] * a, o[2] + d[2] * a,
+                o[0] + d[0] * b, o[1] + d[1] * b, o[2] + d[2] * b);
+    }
+
+    /**
+     * Separating axis test of triangle and axis aligned cube (Akenine-Moller)
+     * @param v x, y, z coordinates of three triangle vertices
+     * @param cx x coordinate of cube center
+     * @param cy y coordinate of cube center
+     * @param cz z coordinate of cube center
+     * @param h half of cube edge
+     * @return true if triangle overlaps cube
+     */
+    static boolean isTriangleBoxOverlap(double[] v, double cx, double cy, double cz, double h){
+        double v0x = v[0] - cx, v0y = v[1] - cy, v0z = v[2] - cz;
+        double v1x = v[3] - cx, v1y = v[4] - cy, v1z = v[5] - cz;
+        double v2x = v[6] - cx, v2y = v[7] - cy, v2z = v[8] - cz;
+        double e0x = v1x - v0x, e0y = v1y - v0y, e0z = v1z - v0z;
+        double e1x = v2x - v1x, e1y = v2y - v1y, e1z = v2z - v1z;
+        double e2x = v0x - v2x, e2y = v0y - v2y, e2z = v0z - v2z;
+
+        // nine cross products of triangle edges and box axes
+        if(!axisTest(e0z, -e0y, v0y, v0z, v2y, v2z, h) || !axisTest(-e0z, e0x, v0x, v0z, v2x, v2z, h) ||
+                !axisTest(e0y, -e0x, v1x, v1y, v2x, v2y, h))
+            return false;
+        if(!axisTest(e1z, -e1y, v0y, v0z, v2y, v2z, h) || !axisTest(-e1z, e1x, v0x, v0z, v2x, v2z, h) ||
+                !axisTest(e1y, -e1x, v0x, v0y, v1x, v1y, h))
+            return false;
+        if(!axisTest(e2z, -e2y, v0y, v0z, v1y, v1z, h) || !axisTest(-e2z, e2x, v0x, v0z, v1x, v1z, h) ||
+                !axisTest(e2y, -e2x, v1x, v1y, v2x, v2y, h))
+            return false;
+
+        // box face normals
+        if(Math.min(v0x, Math.min(v1x, v2x)) > h || Math.max(v0x, Math.max(v1x, v2x)) < -h)
+            return false;
+        if(Math.min(v0y, Math.min(v1y, v2y)) > h || Math.max(v0y, Math.max(v1y, v2y)) < -h)
+            return false;
+        if(Math.min(v0z, Math.min(v1z, v2z)) > h || Math.max(v0z, Math.max(v1z, v2z)) < -h)
+            return false;
+
+        // triangle plane
+        double nx = e0y * e1z - e0z * e1y;
+        double ny = e0z * e1x - e0x * e1z;
+        double nz = e0x * e1y - e0y * e1x;
+        double distance = -(nx * v0x + ny * v0y + nz * v0z);
+        double radius = h * (Math.abs(nx) + Math.abs(ny) + Math.abs(nz));
+        return Math.abs(distance) <= radius;
+    }
+
+    // projection of two vertices (third one projects to one of them) on axis a * p + b * q
+    private static boolean axisTest(double a, double b, double p1, double q1, double p2, double q2, double h){
+        double s1 = a * p1 + b * q1;
+        double s2 = a * p2 + b * q2;
+        double radius = h * (Math.abs(a) + Math.abs(b));
+        return !(Math.min(s1, s2) > radius || Math.max(s1, s2) < -radius);
+    }
+}
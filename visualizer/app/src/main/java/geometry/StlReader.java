@@ -0,0 +1,421 @@
+package geometry;
+
+import metrics.CSpaceParseEvent;
+import metrics.Metrics;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reader of c-space saved by generator in STL format, ASCII and binary.
+ * Generator writes c-space bounds as the first 12 facets, then start and finish
+ * points as zero-area facets and then triangles of all obstacles.
+ * Facets are decoded straight into float arrays: binary STL is read from mapped file,
+ * ASCII STL is scanned from buffered bytes without creating strings for numbers.
+ * Obstacles are recovered as connected components of triangles sharing vertices.
+ *
+ * @version     %I%, %G%
+ * @see CSpaceGeometry
+ * @see <a href="https://en.wikipedia.org/wiki/STL_%28file_format%29">STL format</a>
+ */
+public final class StlReader {
+
+    /** Default file extension */
+    public static final String EXTENSION = ".stl";
+
+    private static final int BOUND_FACETS = 12;
+    private static final int BINARY_HEADER = 80;
+    private static final int BINARY_FACET = 50;
+
+    private StlReader(){
+    }
+
+    /**
+     * Check if file has STL extension
+     * @param file file to check
+     * @return true for STL file name
+     */
+    public static boolean isStl(File file){
+        return file.getName().toLowerCase().endsWith(EXTENSION);
+    }
+
+    /**
+     * Read c-space from STL file, ASCII or binary format is detected by file size and header
+     * @param file reference to STL file
+     * @return read {@link CSpaceGeometry}
+     * @throws IOException if file can't be read or isn't c-space STL
+     */
+    public static CSpaceGeometry read(File file) throws IOException {
+        long startTime = Metrics.ENABLED ? System.nanoTime() : 0L;
+        CSpaceParseEvent event = new CSpaceParseEvent();
+        event.begin();
+        CSpaceGeometry geometry = readFile(file);
+        TriangleStore store = geometry.getStore();
+        if(Metrics.ENABLED)
+            Metrics.recordCSpace(startTime, file.length(), store.getObstacleCount(), store.getTriangleCount());
+        event.end();
+        if(event.shouldCommit()){
+            event.source = file.getPath();
+            event.bytes = file.length();
+            event.obstacles = store.getObstacleCount();
+            event.facets = store.getTriangleCount();
+            event.commit();
+        }
+        return geometry;
+    }
+
+    private static CSpaceGeometry readFile(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()){
+            long size = channel.size();
+            if(size >= BINARY_HEADER + 4){
+                ByteBuffer head = ByteBuffer.allocate(BINARY_HEADER + 4).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(head, 0);
+                long facets = head.getInt(BINARY_HEADER) & 0xffffffffL;
+                // ASCII files start with "solid", but some binary exporters write it too,
+                // so exact binary size is checked first
+                if(BINARY_HEADER + 4 + facets * BINARY_FACET == size)
+                    return readBinary(channel, head, (int) facets);
+            }
+        }
+        try (InputStream in = new FileInputStream(file)){
+            return readAscii(in);
+        }
+    }
+
+    private static CSpaceGeometry readBinary(FileChannel channel, ByteBuffer head, int facets) throws IOException {
+        byte[] header = new byte[BINARY_HEADER];
+        head.position(0);
+        head.get(header);
+        String description = new String(header, StandardCharsets.US_ASCII).replace('\0', ' ').trim();
+        if(description.startsWith("solid"))
+            description = description.substring(5).trim();
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, BINARY_HEADER + 4,
+                (long) facets * BINARY_FACET).order(ByteOrder.LITTLE_ENDIAN);
+        float[] triangles = new float[facets * 9];
+        for(int f = 0; f < facets; ++f){
+            int offset = f * BINARY_FACET + 12;
+            for(int k = 0; k < 9; ++k)
+                triangles[f * 9 + k] = buffer.getFloat(offset + k * 4);
+        }
+        return build(description, triangles, facets);
+    }
+
+    private static CSpaceGeometry readAscii(InputStream in) throws IOException {
+        Scanner scanner = new Scanner(in);
+        if(scanner.nextKeyword() != Scanner.SOLID)
+            throw new IOException("STL file should start with \"solid\"");
+        String description = scanner.restOfLine().trim();
+        float[] triangles = new float[9 * 1024];
+        int count = 0;
+        int vertex = 0;
+        int keyword;
+        while((keyword = scanner.nextKeyword()) != Scanner.END){
+            if(keyword == Scanner.VERTEX){
+                if(count * 9 + vertex * 3 + 3 > triangles.length)
+                    triangles = Arrays.copyOf(triangles, triangles.length * 2);
+                for(int axis = 0; axis < 3; ++axis)
+                    triangles[count * 9 + vertex * 3 + axis] = scanner.nextFloat();
+                if(++vertex == 3){
+                    vertex = 0;
+                    ++count;
+                }
+            }
+            else if(keyword == Scanner.NORMAL){
+                scanner.nextFloat();
+                scanner.nextFloat();
+                scanner.nextFloat();
+            }
+            else if(keyword == Scanner.ENDSOLID)
+                break;
+        }
+        if(vertex != 0)
+            throw new IOException("Unexpected end of STL facet");
+        return build(description, triangles, count);
+    }
+
+    // split facets into bounds, start, finish and obstacles
+    private static CSpaceGeometry build(String description, float[] triangles, int count) throws IOException {
+        if(count < BOUND_FACETS + 2)
+            throw new IOException("STL file has " + count + " facets, c-space STL should have at least " +
+                    (BOUND_FACETS + 2));
+        VertexIndex boundVertices = new VertexIndex(16);
+        for(int i = 0; i < BOUND_FACETS * 3; ++i)
+            boundVertices.add(triangles, i * 3);
+        float[] vertex = Arrays.copyOf(boundVertices.coordinates, boundVertices.size * 3);
+
+        float[] start = null;
+        float[] finish = null;
+        int[] obstacleTriangles = new int[count];
+        int obstacleCount = 0;
+        for(int t = BOUND_FACETS; t < count; ++t){
+            if(finish == null && isPoint(triangles, t * 9)){
+                if(start == null)
+                    start = Arrays.copyOfRange(triangles, t * 9, t * 9 + 3);
+                else
+                    finish = Arrays.copyOfRange(triangles, t * 9, t * 9 + 3);
+            }
+            else
+                obstacleTriangles[obstacleCount++] = t;
+        }
+        if(finish == null)
+            throw new IOException("STL file doesn't contain start and finish zero-area facets");
+
+        // weld obstacle vertices and join triangles with shared vertices
+        VertexIndex welded = new VertexIndex(obstacleCount * 2);
+        int[] triangleVertex = new int[obstacleCount * 3];
+        for(int i = 0; i < obstacleCount; ++i)
+            for(int v = 0; v < 3; ++v)
+                triangleVertex[i * 3 + v] = welded.add(triangles, obstacleTriangles[i] * 9 + v * 3);
+        int[] parent = new int[welded.size];
+        for(int v = 0; v < parent.length; ++v)
+            parent[v] = v;
+        for(int i = 0; i < obstacleCount; ++i){
+            union(parent, triangleVertex[i * 3], triangleVertex[i * 3 + 1]);
+            union(parent, triangleVertex[i * 3], triangleVertex[i * 3 + 2]);
+        }
+
+        // number components in order of first triangle and sort triangles by component
+        int[] component = new int[welded.size];
+        Arrays.fill(component, -1);
+        int[] triangleComponent = new int[obstacleCount];
+        int components = 0;
+        for(int i = 0; i < obstacleCount; ++i){
+            int root = find(parent, triangleVertex[i * 3]);
+            if(component[root] < 0)
+                component[root] = components++;
+            triangleComponent[i] = component[root];
+        }
+        int[] first = new int[components + 1];
+        for(int i = 0; i < obstacleCount; ++i)
+            first[triangleComponent[i] + 1]++;
+        for(int c = 0; c < components; ++c)
+            first[c + 1] += first[c];
+        int[] fill = Arrays.copyOf(first, components);
+        float[] data = new float[obstacleCount * TriangleStore.FLOATS_PER_TRIANGLE];
+        for(int i = 0; i < obstacleCount; ++i){
+            int t = fill[triangleComponent[i]]++;
+            int src = obstacleTriangles[i] * 9;
+            for(int axis = 0; axis < 3; ++axis){
+                float v0 = triangles[src + axis];
+                data[axis * obstacleCount + t] = v0;
+                data[(3 + axis) * obstacleCount + t] = triangles[src + 3 + axis] - v0;
+                data[(6 + axis) * obstacleCount + t] = triangles[src + 6 + axis] - v0;
+            }
+        }
+        return new CSpaceGeometry(description, vertex, start, finish,
+                new TriangleStore(FloatBuffer.wrap(data), first));
+    }
+
+    private static boolean isPoint(float[] triangles, int i){
+        return triangles[i] == triangles[i + 3] && triangles[i] == triangles[i + 6] &&
+                triangles[i + 1] == triangles[i + 4] && triangles[i + 1] == triangles[i + 7] &&
+                triangles[i + 2] == triangles[i + 5] && triangles[i + 2] == triangles[i + 8];
+    }
+
+    private static int find(int[] parent, int v){
+        while(parent[v] != v){
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static void union(int[] parent, int a, int b){
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if(ra != rb)
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+    }
+
+    /**
+     * Open addressing hash of vertices with exactly equal coordinates
+     */
+    static class VertexIndex {
+        float[] coordinates;
+        int size;
+        private int[] table;
+
+        VertexIndex(int expected){
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            table = new int[capacity];
+            Arrays.fill(table, -1);
+            coordinates = new float[Math.max(16, expected) * 3];
+        }
+
+        // return index of vertex source[i], source[i + 1], source[i + 2]
+        int add(float[] source, int i){
+            if(size * 2 >= table.length)
+                rehash();
+            int mask = table.length - 1;
+            int slot = hash(source[i], source[i + 1], source[i + 2]) & mask;
+            while(table[slot] >= 0){
+                int v = table[slot] * 3;
+                if(coordinates[v] == source[i] && coordinates[v + 1] == source[i + 1] &&
+                        coordinates[v + 2] == source[i + 2])
+                    return table[slot];
+                slot = (slot + 1) & mask;
+            }
+            if(size * 3 + 3 > coordinates.length)
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            System.arraycopy(source, i, coordinates, size * 3, 3);
+            table[slot] = size;
+            return size++;
+        }
+
+        private void rehash(){
+            table = new int[table.length * 2];
+            Arrays.fill(table, -1);
+            int mask = table.length - 1;
+            for(int v = 0; v < size; ++v){
+                int slot = hash(coordinates[v * 3], coordinates[v * 3 + 1], coordinates[v * 3 + 2]) & mask;
+                while(table[slot] >= 0)
+                    slot = (slot + 1) & mask;
+                table[slot] = v;
+            }
+        }
+
+        private static int hash(float x, float y, float z){
+            int h = Float.floatToIntBits(x + 0.0f);
+            h = h * 31 + Float.floatToIntBits(y + 0.0f);
+            h = h * 31 + Float.floatToIntBits(z + 0.0f);
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Byte scanner of ASCII STL, parses keywords and numbers without creating strings
+     */
+    private static class Scanner {
+        static final int END = 0;
+        static final int OTHER = 1;
+        static final int SOLID = 2;
+        static final int VERTEX = 3;
+        static final int NORMAL = 4;
+        static final int ENDSOLID = 5;
+        private static final byte[][] KEYWORDS = {null, null, ascii("solid"), ascii("vertex"),
+                ascii("normal"), ascii("endsolid")};
+
+        private InputStream in;
+        private byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+        private byte[] word = new byte[16];
+        private StringBuilder line = new StringBuilder();
+
+        Scanner(InputStream in){
+            this.in = in;
+        }
+
+        private int read() throws IOException {
+            if(position == limit){
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if(limit <= 0){
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+
+        private int skipSpaces() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while(c == ' ' || c == '\t' || c == '\n' || c == '\r');
+            return c;
+        }
+
+        private static byte[] ascii(String keyword){
+            return keyword.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        // return code of next whitespace separated word, END at the end of stream
+        int nextKeyword() throws IOException {
+            int c = skipSpaces();
+            if(c < 0)
+                return END;
+            int length = 0;
+            while(c > ' '){
+                if(length < word.length)
+                    word[length] = (byte) c;
+                ++length;
+                c = read();
+            }
+            for(int k = SOLID; k < KEYWORDS.length; ++k){
+                byte[] keyword = KEYWORDS[k];
+                if(keyword.length == length){
+                    int i = 0;
+                    while(i < length && keyword[i] == word[i])
+                        ++i;
+                    if(i == length)
+                        return k;
+                }
+            }
+            return OTHER;
+        }
+
+        String restOfLine() throws IOException {
+            line.setLength(0);
+            int c = read();
+            while(c >= 0 && c != '\n'){
+                line.append((char) c);
+                c = read();
+            }
+            return line.toString();
+        }
+
+        float nextFloat() throws IOException {
+            int c = skipSpaces();
+            if(c < 0)
+                throw new EOFException("Unexpected end of STL file");
+            boolean negative = c == '-';
+            if(c == '-' || c == '+')
+                c = read();
+            long mantissa = 0;
+            int exponent = 0;
+            int digits = 0;
+            boolean point = false;
+            for(;; c = read()){
+                if(c >= '0' && c <= '9'){
+                    if(digits < 18){
+                        mantissa = mantissa * 10 + (c - '0');
+                        ++digits;
+                        if(point)
+                            --exponent;
+                    }
+                    else if(!point)
+                        ++exponent;
+                }
+                else if(c == '.' && !point)
+                    point = true;
+                else
+                    break;
+            }
+            if(c == 'e' || c == 'E'){
+                c = read();
+                boolean negativeExponent = c == '-';
+                if(c == '-' || c == '+')
+                    c = read();
+                int value = 0;
+                for(; c >= '0' && c <= '9'; c = read())
+                    value = value * 10 + (c - '0');
+                exponent += negativeExponent ? -value : value;
+            }
+            else if(c > ' ')
+                throw new IOException("Wrong number format in STL file");
+            double result = exponent < 0 ? mantissa / Math.pow(10, -exponent) : mantissa * Math.pow(10, exponent);
+            return (float) (negative ? -result : result);
+        }
+    }
+}
@@ -0,0 +1,652 @@
+package geometry;
+
+import metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Bounding volume hierarchy over all triangles of {@link TriangleStore}.
+ * Box and convex obstacles found by {@link ConvexShapes} are single primitives of hierarchy,
+ * they are clipped by their bounds or face planes instead of tests of their triangles.
+ * Built with binned surface area heuristic along the largest centroid extent, subtrees of large nodes are built
+ * in parallel in common {@link ForkJoinPool}. After construction tree is flattened
+ * in depth-first order into primitive arrays:
+ * <pre>
+ *     bounds[6 * node]  - min x, min y, min z, max x, max y, max z of node
+ *     first[node]       - first primitive in order for leaf, right child index for inner node
+ *     count[node]       - primitive count for leaf, 0 for inner node (left child is node + 1)
+ * </pre>
+ * Primitive in order is triangle index or bitwise complement of convex obstacle index.
+ * Queries report hits by triangle index, crossing of convex obstacle surface is reported
+ * as hit of its first triangle, so ray parity and obstacle lookups work for both kinds.
+ * Queries test segment origin + t * direction for t in [0, tMax], so ray queries
+ * use {@link Double#POSITIVE_INFINITY} as tMax. Tree is immutable and can be shared between threads,
+ * queries keep traversal stack in per-thread scratch and don't allocate.
+ *
+ * @version     %I%, %G%
+ * @see TriangleStore
+ */
+public class TriangleBvh {
+
+    private static final int BINS = 16;
+    private static final int MIN_LEAF_SIZE = 4;
+    private static final int MAX_LEAF_SIZE = 16;
+    private static final int PARALLEL_THRESHOLD = 8192;
+    // cost of node traversal relative to one triangle test
+    private static final float TRAVERSAL_COST = 1.5f;
+
+    private TriangleStore store;
+    private ConvexShapes shapes;
+    private int[] order;
+    private float[] bounds;
+    private int[] first;
+    private int[] count;
+    private int depth;
+
+    // build-time primitive bounds and centroids, indexed by position in order
+    // and moved together with it, so that node scans are sequential
+    private float[] triangleBounds;
+    private float[] centroids;
+
+    // query arrays reused by each thread, depth is read when thread makes its first query
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(depth + 1));
+
+    /**
+     * Build hierarchy over all obstacles of store, convex obstacles are classified
+     * by {@link ConvexShapes}
+     * @param store packed triangles
+     */
+    public TriangleBvh(TriangleStore store){
+        this(store, new ConvexShapes(store));
+    }
+
+    /**
+     * Build hierarchy with classified obstacles
+     * @param store packed triangles
+     * @param shapes convex obstacles of store, null to build hierarchy over triangles only
+     */
+    public TriangleBvh(TriangleStore store, ConvexShapes shapes){
+        this.store = store;
+        this.shapes = shapes;
+        int n = 0;
+        for(int o = 0; o < store.getObstacleCount(); ++o)
+            n += isConvex(o) ? 1 : store.getFirstTriangle(o + 1) - store.getFirstTriangle(o);
+        order = new int[n];
+        int index = 0;
+        for(int o = 0; o < store.getObstacleCount(); ++o){
+            if(isConvex(o))
+                order[index++] = ~o;
+            else {
+                for(int t = store.getFirstTriangle(o); t < store.getFirstTriangle(o + 1); ++t)
+                    order[index++] = t;
+            }
+        }
+        triangleBounds = new float[n * 6];
+        centroids = new float[n * 3];
+        IntStream.range(0, n).parallel().forEach(this::preparePrimitive);
+
+        BuildNode root = n == 0 ? new BuildNode(0, 0, new float[6]) :
+                ForkJoinPool.commonPool().invoke(new BuildTask(0, n));
+        int nodes = root.nodes;
+        bounds = new float[nodes * 6];
+        first = new int[nodes];
+        count = new int[nodes];
+        flatten(root, 0, 1);
+
+        triangleBounds = null;
+        centroids = null;
+    }
+
+    private boolean isConvex(int obstacle){
+        return shapes != null && shapes.getKind(obstacle) != ConvexShapes.GENERAL;
+    }
+
+    private void preparePrimitive(int i){
+        int t = order[i];
+        if(t < 0){
+            float[] obstacleBounds = store.getObstacleBounds();
+            for(int axis = 0; axis < 3; ++axis){
+                float min = obstacleBounds[~t * 6 + axis];
+                float max = obstacleBounds[~t * 6 + axis + 3];
+                triangleBounds[i * 6 + axis] = min;
+                triangleBounds[i * 6 + axis + 3] = max;
+                centroids[i * 3 + axis] = (min + max) * 0.5f;
+            }
+            return;
+        }
+        for(int axis = 0; axis < 3; ++axis){
+            float v0 = store.getVertex(t, 0, axis);
+            float v1 = store.getVertex(t, 1, axis);
+            float v2 = store.getVertex(t, 2, axis);
+            float min = Math.min(v0, Math.min(v1, v2));
+            float max = Math.max(v0, Math.max(v1, v2));
+            triangleBounds[i * 6 + axis] = min;
+            triangleBounds[i * 6 + axis + 3] = max;
+            centroids[i * 3 + axis] = (min + max) * 0.5f;
+        }
+    }
+
+    // write subtree in depth-first order, return next free node index
+    private int flatten(BuildNode node, int index, int level){
+        depth = Math.max(depth, level);
+        System.arraycopy(node.bounds, 0, bounds, index * 6, 6);
+        if(node.left == null){
+            first[index] = node.start;
+            count[index] = node.count;
+            return index + 1;
+        }
+        count[index] = 0;
+        int right = flatten(node.left, index + 1, level + 1);
+        first[index] = right;
+        return flatten(node.right, right, level + 1);
+    }
+
+    /**
+     * Return packed triangles used by hierarchy
+     * @return {@link TriangleStore}
+     */
+    public TriangleStore getStore(){
+        return store;
+    }
+
+    /**
+     * Return convex obstacles used by hierarchy
+     * @return {@link ConvexShapes} or null if all obstacles are tested by triangles
+     */
+    public ConvexShapes getShapes(){
+        return shapes;
+    }
+
+    /**
+     * Return number of primitives in hierarchy: triangles of general obstacles and convex obstacles
+     * @return primitive count
+     */
+    public int getPrimitiveCount(){
+        return order.length;
+    }
+
+    /**
+     * Return number of nodes in hierarchy
+     * @return node count
+     */
+    public int getNodeCount(){
+        return first.length;
+    }
+
+    /**
+     * Return memory taken by nodes, primitive order and planes of convex obstacles,
+     * triangles of store aren't counted
+     * @return size in bytes
+     */
+    public long getMemorySize(){
+        long size = order.length * 4L + bounds.length * 4L + first.length * 4L + count.length * 4L;
+        return shapes != null ? size + shapes.getMemorySize() : size;
+    }
+
+    /**
+     * Return index of any triangle intersected by segment origin + t * direction, t in [0, tMax].
+     * Traversal stops on the first found hit
+     * @param ox x coordinate of origin
+     * @param oy y coordinate of origin
+     * @param oz z coordinate of origin
+     * @param dx x coordinate of direction
+     * @param dy y coordinate of direction
+     * @param dz z coordinate of direction
+     * @param tMax maximal segment parameter, 1 for segment from origin to origin + direction
+     * @return triangle index or -1 if there is no intersection
+     */
+    public int anyHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMax){
+        return traverse(ox, oy, oz, dx, dy, dz, tMax, null);
+    }
+
+    /**
+     * Check if segment from (x1, y1, z1) to (x2, y2, z2) intersects any triangle
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return true if segment intersects any triangle
+     */
+    public boolean isSegmentIntersects(double x1, double y1, double z1, double x2, double y2, double z2){
+        return anyHit(x1, y1, z1, x2 - x1, y2 - y1, z2 - z1, 1.0) >= 0;
+    }
+
+    /**
+     * Find the nearest intersection of segment from (x1, y1, z1) to (x2, y2, z2) with triangles.
+     * Segment end shrinks to each found hit, so nodes beyond it are skipped
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return distance from start point to the nearest intersection, in range from 0 to |p2 - p1|,
+     * or NaN if segment doesn't intersect any triangle
+     */
+    public double nearestHit(double x1, double y1, double z1, double x2, double y2, double z2){
+        if(order.length == 0)
+            return Double.NaN;
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double dz = z2 - z1;
+        double ix = 1.0 / dx;
+        double iy = 1.0 / dy;
+        double iz = 1.0 / dz;
+        double nearest = Double.NaN;
+        double tMax = 1.0;
+        Scratch local = acquire();
+        double[] range = local.range;
+        int[] stack = local.stack;
+        int top = 0;
+        int candidates = 0;
+        int tests = 0;
+        stack[top++] = 0;
+        try {
+            while(top > 0){
+                int node = stack[--top];
+                if(!isNodeHit(node * 6, x1, y1, z1, ix, iy, iz, tMax))
+                    continue;
+                int n = count[node];
+                if(n == 0){
+                    stack[top++] = first[node];
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                candidates += n;
+                for(int i = first[node]; i < first[node] + n; ++i){
+                    int primitive = order[i];
+                    if(primitive >= 0){
+                        ++tests;
+                        double t = store.intersect(primitive, x1, y1, z1, dx, dy, dz);
+                        if(t >= 0.0 && t <= tMax){
+                            tMax = t;
+                            nearest = t;
+                        }
+                        continue;
+                    }
+                    if(!shapes.clip(~primitive, x1, y1, z1, dx, dy, dz, range))
+                        continue;
+                    for(int side = 0; side < 2; ++side){
+                        if(range[side] >= 0.0 && range[side] <= tMax){
+                            tMax = range[side];
+                            nearest = range[side];
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            local.busy = false;
+        }
+        if(Metrics.ENABLED)
+            record(candidates, tests);
+        return nearest * Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Return number of primitives in leaves, which bound boxes are crossed by segment
+     * from (x1, y1, z1) to (x2, y2, z2). Traversal doesn't stop on hits, so result is the upper
+     * bound of exact tests of any query with this segment, used for diagnostics of slow queries
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return candidate primitive count
+     */
+    public int getCandidateCount(double x1, double y1, double z1, double x2, double y2, double z2){
+        if(order.length == 0)
+            return 0;
+        double ix = 1.0 / (x2 - x1);
+        double iy = 1.0 / (y2 - y1);
+        double iz = 1.0 / (z2 - z1);
+        Scratch local = acquire();
+        int[] stack = local.stack;
+        int top = 0;
+        int candidates = 0;
+        stack[top++] = 0;
+        try {
+            while(top > 0){
+                int node = stack[--top];
+                if(!isNodeHit(node * 6, x1, y1, z1, ix, iy, iz, 1.0))
+                    continue;
+                if(count[node] == 0){
+                    stack[top++] = first[node];
+                    stack[top++] = node + 1;
+                }
+                else
+                    candidates += count[node];
+            }
+        }
+        finally {
+            local.busy = false;
+        }
+        return candidates;
+    }
+
+    /**
+     * Visit all triangles intersected by segment origin + t * direction, t in [0, tMax].
+     * Traversal stops when visitor returns false
+     * @param ox x coordinate of origin
+     * @param oy y coordinate of origin
+     * @param oz z coordinate of origin
+     * @param dx x coordinate of direction
+     * @param dy y coordinate of direction
+     * @param dz z coordinate of direction
+     * @param tMax maximal segment parameter
+     * @param visitor receives index of each intersected triangle, for each crossing of convex
+     *                obstacle surface receives index of its first triangle
+     */
+    public void forEachHit(double ox, double oy, double oz, double dx, double dy, double dz, double tMax,
+                           IntPredicate visitor){
+        traverse(ox, oy, oz, dx, dy, dz, tMax, visitor);
+    }
+
+    private int traverse(double ox, double oy, double oz, double dx, double dy, double dz, double tMax,
+                         IntPredicate visitor){
+        if(order.length == 0)
+            return -1;
+        double ix = 1.0 / dx;
+        double iy = 1.0 / dy;
+        double iz = 1.0 / dz;
+        Scratch local = acquire();
+        double[] range = local.range;
+        int[] stack = local.stack;
+        int top = 0;
+        int candidates = 0;
+        int tests = 0;
+        int result = -1;
+        stack[top++] = 0;
+        try {
+            search:
+            while(top > 0){
+                int node = stack[--top];
+                if(!isNodeHit(node * 6, ox, oy, oz, ix, iy, iz, tMax))
+                    continue;
+                int n = count[node];
+                if(n == 0){
+                    stack[top++] = first[node];
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                candidates += n;
+                for(int i = first[node]; i < first[node] + n; ++i){
+                    int triangle = order[i];
+                    if(triangle >= 0){
+                        ++tests;
+                        double t = store.intersect(triangle, ox, oy, oz, dx, dy, dz);
+                        if(t >= 0.0 && t <= tMax && (visitor == null || !visitor.test(triangle))){
+                            result = triangle;
+                            break search;
+                        }
+                        continue;
+                    }
+                    int obstacle = ~triangle;
+                    if(!shapes.clip(obstacle, ox, oy, oz, dx, dy, dz, range))
+                        continue;
+                    triangle = store.getFirstTriangle(obstacle);
+                    // entry and exit are two crossings of surface
+                    for(int side = 0; side < 2; ++side){
+                        if(range[side] >= 0.0 && range[side] <= tMax && (visitor == null || !visitor.test(triangle))){
+                            result = triangle;
+                            break search;
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            local.busy = false;
+        }
+        if(Metrics.ENABLED)
+            record(candidates, tests);
+        return result;
+    }
+
+    // scratch of current thread, query made from visitor of other query gets new arrays
+    private Scratch acquire(){
+        Scratch local = scratch.get();
+        if(local.busy)
+            local = new Scratch(depth + 1);
+        local.busy = true;
+        return local;
+    }
+
+    /**
+     * Traversal stack and clip range of convex obstacle, reused by queries of one thread
+     */
+    private static final class Scratch {
+        final int[] stack;
+        final double[] range = new double[2];
+        boolean busy;
+
+        Scratch(int size){
+            stack = new int[size];
+        }
+    }
+
+    // one update of shared counters per query
+    private static void record(int candidates, int tests){
+        Metrics.CANDIDATES.add(candidates);
+        Metrics.TRIANGLE_TESTS.add(tests);
+    }
+
+    // slab test, NaN values (origin on slab plane with zero direction) don't reject node
+    private boolean isNodeHit(int b, double ox, double oy, double oz, double ix, double iy, double iz, double tMax){
+        double tNear = 0.0;
+        double tFar = tMax;
+        double t1 = (bounds[b] - ox) * ix;
+        double t2 = (bounds[b + 3] - ox) * ix;
+        double lo = t1 < t2 ? t1 : t2;
+        double hi = t1 < t2 ? t2 : t1;
+        if(lo > tNear) tNear = lo;
+        if(hi < tFar) tFar = hi;
+        t1 = (bounds[b + 1] - oy) * iy;
+        t2 = (bounds[b + 4] - oy) * iy;
+        lo = t1 < t2 ? t1 : t2;
+        hi = t1 < t2 ? t2 : t1;
+        if(lo > tNear) tNear = lo;
+        if(hi < tFar) tFar = hi;
+        t1 = (bounds[b + 2] - oz) * iz;
+        t2 = (bounds[b + 5] - oz) * iz;
+        lo = t1 < t2 ? t1 : t2;
+        hi = t1 < t2 ? t2 : t1;
+        if(lo > tNear) tNear = lo;
+        if(hi < tFar) tFar = hi;
+        return tNear <= tFar;
+    }
+
+    private void swap(int i, int j){
+        int t = order[i];
+        order[i] = order[j];
+        order[j] = t;
+        for(int k = 0; k < 6; ++k){
+            float b = triangleBounds[i * 6 + k];
+            triangleBounds[i * 6 + k] = triangleBounds[j * 6 + k];
+            triangleBounds[j * 6 + k] = b;
+        }
+        for(int k = 0; k < 3; ++k){
+            float c = centroids[i * 3 + k];
+            centroids[i * 3 + k] = centroids[j * 3 + k];
+            centroids[j * 3 + k] = c;
+        }
+    }
+
+    private static float area(float[] b, int i){
+        float x = b[i + 3] - b[i];
+        float y = b[i + 4] - b[i + 1];
+        float z = b[i + 5] - b[i + 2];
+        return x * y + y * z + z * x;
+    }
+
+    private static void reset(float[] b, int i){
+        b[i] = b[i + 1] = b[i + 2] = Float.POSITIVE_INFINITY;
+        b[i + 3] = b[i + 4] = b[i + 5] = Float.NEGATIVE_INFINITY;
+    }
+
+    private static void grow(float[] b, int i, float[] source, int j){
+        if(source[j] < b[i]) b[i] = source[j];
+        if(source[j + 1] < b[i + 1]) b[i + 1] = source[j + 1];
+        if(source[j + 2] < b[i + 2]) b[i + 2] = source[j + 2];
+        if(source[j + 3] > b[i + 3]) b[i + 3] = source[j + 3];
+        if(source[j + 4] > b[i + 4]) b[i + 4] = source[j + 4];
+        if(source[j + 5] > b[i + 5]) b[i + 5] = source[j + 5];
+    }
+
+    /**
+     * Temporary tree node used during construction
+     */
+    private static class BuildNode {
+        int start;
+        int count;
+        float[] bounds;
+        BuildNode left;
+        BuildNode right;
+        int nodes = 1;
+
+        BuildNode(int start, int count, float[] bounds){
+            this.start = start;
+            this.count = count;
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * Build subtree for primitives order[start, end) with binned SAH split
+     */
+    private class BuildTask extends RecursiveTask<BuildNode> {
+        private static final long serialVersionUID = 1L;
+
+        private int start;
+        private int end;
+
+        // scratch arrays reused by all nodes built sequentially in this task
+        private int[] binCount = new int[BINS];
+        private float[] binBounds = new float[BINS * 6];
+        private float[] rightArea = new float[BINS];
+        private int[] rightCount = new int[BINS];
+        private float[] sweep = new float[6];
+
+        BuildTask(int start, int end){
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected BuildNode compute(){
+            return build(start, end);
+        }
+
+        private BuildNode build(int start, int end){
+            int n = end - start;
+            float[] nodeBounds = new float[6];
+            float[] centroidBounds = new float[6];
+            reset(nodeBounds, 0);
+            reset(centroidBounds, 0);
+            for(int i = start; i < end; ++i){
+                grow(nodeBounds, 0, triangleBounds, i * 6);
+                for(int axis = 0; axis < 3; ++axis){
+                    centroidBounds[axis] = Math.min(centroidBounds[axis], centroids[i * 3 + axis]);
+                    centroidBounds[axis + 3] = Math.max(centroidBounds[axis + 3], centroids[i * 3 + axis]);
+                }
+            }
+            BuildNode node = new BuildNode(start, n, nodeBounds);
+            if(n <= MIN_LEAF_SIZE)
+                return node;
+
+            // bin triangles along the axis with the largest centroid extent,
+            // small nodes use less bins to keep per node cost low
+            int bestAxis = -1;
+            float extent = 0f;
+            for(int axis = 0; axis < 3; ++axis){
+                if(centroidBounds[axis + 3] - centroidBounds[axis] > extent){
+                    extent = centroidBounds[axis + 3] - centroidBounds[axis];
+                    bestAxis = axis;
+                }
+            }
+            int bins = Math.min(BINS, n);
+            int bestSplit = 0;
+            float bestCost = Float.POSITIVE_INFINITY;
+            float axisScale = bins / extent;
+            if(bestAxis >= 0){
+                Arrays.fill(binCount, 0, bins, 0);
+                for(int b = 0; b < bins; ++b)
+                    reset(binBounds, b * 6);
+                float min = centroidBounds[bestAxis];
+                for(int i = start; i < end; ++i){
+                    int b = Math.min(bins - 1, (int) ((centroids[i * 3 + bestAxis] - min) * axisScale));
+                    binCount[b]++;
+                    grow(binBounds, b * 6, triangleBounds, i * 6);
+                }
+                // sweep from the right: area and count of bins [b, bins)
+                reset(sweep, 0);
+                int sum = 0;
+                for(int b = bins - 1; b > 0; --b){
+                    sum += binCount[b];
+                    if(binCount[b] > 0)
+                        grow(sweep, 0, binBounds, b * 6);
+                    rightCount[b] = sum;
+                    rightArea[b] = sum > 0 ? area(sweep, 0) : 0f;
+                }
+                // sweep from the left and evaluate split before bin b
+                reset(sweep, 0);
+                sum = 0;
+                for(int b = 1; b < bins; ++b){
+                    sum += binCount[b - 1];
+                    if(binCount[b - 1] > 0)
+                        grow(sweep, 0, binBounds, (b - 1) * 6);
+                    if(sum == 0 || rightCount[b] == 0)
+                        continue;
+                    float cost = area(sweep, 0) * sum + rightArea[b] * rightCount[b];
+                    if(cost < bestCost){
+                        bestCost = cost;
+                        bestSplit = b;
+                    }
+                }
+            }
+
+            int middle;
+            if(bestAxis < 0){
+                // all centroids are equal, split by count
+                if(n <= MAX_LEAF_SIZE)
+                    return node;
+                middle = start + n / 2;
+            }
+            else {
+                if(bestCost / area(nodeBounds, 0) + TRAVERSAL_COST >= n && n <= MAX_LEAF_SIZE)
+                    return node;
+                float min = centroidBounds[bestAxis];
+                int i = start;
+                int j = end - 1;
+                while(i <= j){
+                    int b = Math.min(bins - 1, (int) ((centroids[i * 3 + bestAxis] - min) * axisScale));
+                    if(b < bestSplit)
+                        ++i;
+                    else
+                        swap(i, j--);
+                }
+                middle = i;
+            }
+
+            if(n > PARALLEL_THRESHOLD){
+                BuildTask leftTask = new BuildTask(start, middle);
+                leftTask.fork();
+                node.right = new BuildTask(middle, end).compute();
+                node.left = leftTask.join();
+            }
+            else {
+                node.left = build(start, middle);
+                node.right = build(middle, end);
+            }
+            node.nodes = 1 + node.left.nodes + node.right.nodes;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package geometry;
+
+import json.pojo.Facet;
+import json.pojo.Obstacle;
+import json.pojo.Point;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * Packed structure-of-arrays store of obstacle triangles.
+ * For each triangle stores first vertex and two precomputed edges
+ * in nine float sections of one buffer:
+ * <pre>
+ *     v0x[n] v0y[n] v0z[n] e1x[n] e1y[n] e1z[n] e2x[n] e2y[n] e2z[n]
+ * </pre>
+ * Triangles of one obstacle are stored contiguously, range of obstacle triangles
+ * is defined by {@link #getFirstTriangle(int)}. Buffer can be heap or direct (mapped),
+ * intersection kernel works with absolute buffer access and doesn't allocate objects.
+ *
+ * @version     %I%, %G%
+ * @see json.pojo.Obstacle
+ */
+public class TriangleStore {
+
+    static final double EPS = 0.000001;
+
+    static final int V0X = 0;
+    static final int V0Y = 1;
+    static final int V0Z = 2;
+    static final int E1X = 3;
+    static final int E1Y = 4;
+    static final int E1Z = 5;
+    static final int E2X = 6;
+    static final int E2Y = 7;
+    static final int E2Z = 8;
+
+    /** Number of float values stored for each triangle */
+    public static final int FLOATS_PER_TRIANGLE = 9;
+
+    private FloatBuffer data;
+    private int count;
+    private int[] obstacleFirst;
+    private float[] obstacleBounds;
+
+    /**
+     * Create store from packed triangle data
+     * @param data buffer with {@link #FLOATS_PER_TRIANGLE} sections of triangle count size
+     * @param obstacleFirst index of first triangle for each obstacle and total triangle count at the end
+     */
+    public TriangleStore(FloatBuffer data, int[] obstacleFirst){
+        this(data, obstacleFirst, null);
+    }
+
+    /**
+     * Create store from packed triangle data with precomputed obstacle bound boxes,
+     * used to avoid full scan of triangles for mapped files
+     * @param data buffer with {@link #FLOATS_PER_TRIANGLE} sections of triangle count size
+     * @param obstacleFirst index of first triangle for each obstacle and total triangle count at the end
+     * @param obstacleBounds six values for each obstacle as in {@link #getObstacleBounds()},
+     *                       computed from triangles if null
+     */
+    public TriangleStore(FloatBuffer data, int[] obstacleFirst, float[] obstacleBounds){
+        this.data = data;
+        this.obstacleFirst = obstacleFirst;
+        this.count = obstacleFirst[obstacleFirst.length - 1];
+        if(data.capacity() < count * FLOATS_PER_TRIANGLE)
+            throw new IllegalArgumentException("Triangle buffer is too small: " + data.capacity() +
+                    " values for " + count + " triangles");
+        this.obstacleBounds = obstacleBounds != null ? obstacleBounds : computeBounds();
+    }
+
+    /**
+     * Create store for list of parsed obstacles
+     * @param obstacles list of {@link Obstacle}
+     * @return created store
+     */
+    public static TriangleStore fromObstacles(List<Obstacle> obstacles){
+        int[] first = new int[obstacles.size() + 1];
+        for(int i = 0; i < obstacles.size(); ++i)
+            first[i + 1] = first[i] + obstacles.get(i).getFacets().size();
+        float[] data = new float[first[obstacles.size()] * FLOATS_PER_TRIANGLE];
+        for(int i = 0; i < obstacles.size(); ++i)
+            pack(obstacles.get(i).getVertices(), obstacles.get(i).getFacets(), data, first[i], first[obstacles.size()]);
+        return new TriangleStore(FloatBuffer.wrap(data), first);
+    }
+
+    // write facets into data sections starting from triangle index
+    private static void pack(List<Point> points, List<Facet> facets, float[] data, int index, int count){
+        for(Facet f: facets){
+            Point a = points.get(f.getFirst());
+            Point b = points.get(f.getSecond());
+            Point c = points.get(f.getThird());
+            data[V0X * count + index] = a.x();
+            data[V0Y * count + index] = a.y();
+            data[V0Z * count + index] = a.z();
+            data[E1X * count + index] = b.x() - a.x();
+            data[E1Y * count + index] = b.y() - a.y();
+            data[E1Z * count + index] = b.z() - a.z();
+            data[E2X * count + index] = c.x() - a.x();
+            data[E2Y * count + index] = c.y() - a.y();
+            data[E2Z * count + index] = c.z() - a.z();
+            ++index;
+        }
+    }
+
+    private float[] computeBounds(){
+        int obstacles = getObstacleCount();
+        float[] bounds = new float[obstacles * 6];
+        for(int o = 0; o < obstacles; ++o){
+            int b = o * 6;
+            bounds[b] = bounds[b + 1] = bounds[b + 2] = Float.POSITIVE_INFINITY;
+            bounds[b + 3] = bounds[b + 4] = bounds[b + 5] = Float.NEGATIVE_INFINITY;
+            for(int t = obstacleFirst[o]; t < obstacleFirst[o + 1]; ++t){
+                for(int axis = 0; axis < 3; ++axis){
+                    float v0 = get(V0X + axis, t);
+                    float v1 = v0 + get(E1X + axis, t);
+                    float v2 = v0 + get(E2X + axis, t);
+                    bounds[b + axis] = Math.min(bounds[b + axis], Math.min(v0, Math.min(v1, v2)));
+                    bounds[b + axis + 3] = Math.max(bounds[b + axis + 3], Math.max(v0, Math.max(v1, v2)));
+                }
+            }
+        }
+        return bounds;
+    }
+
+    float get(int section, int triangle){
+        return data.get(section * count + triangle);
+    }
+
+    /**
+     * Return number of stored triangles
+     * @return triangle count
+     */
+    public int getTriangleCount(){
+        return count;
+    }
+
+    /**
+     * Return number of stored obstacles
+     * @return obstacle count
+     */
+    public int getObstacleCount(){
+        return obstacleFirst.length - 1;
+    }
+
+    /**
+     * Return memory taken by triangles and obstacle bounds, mapped triangle data is counted too
+     * @return size in bytes
+     */
+    public long getMemorySize(){
+        return data.capacity() * 4L + obstacleFirst.length * 4L + obstacleBounds.length * 4L;
+    }
+
+    /**
+     * Return index of the first obstacle triangle, for index equal to obstacle count
+     * returns total triangle count
+     * @param obstacle obstacle index
+     * @return triangle index
+     */
+    public int getFirstTriangle(int obstacle){
+        return obstacleFirst[obstacle];
+    }
+
+    /**
+     * Return index of obstacle which contains triangle
+     * @param triangle triangle index
+     * @return obstacle index
+     */
+    public int getObstacle(int triangle){
+        int low = 0;
+        int high = obstacleFirst.length - 2;
+        while(low < high){
+            int mid = (low + high + 1) >>> 1;
+            if(obstacleFirst[mid] <= triangle)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Return bound boxes of all obstacles
+     * @return min x, min y, min z, max x, max y, max z for each obstacle
+     */
+    public float[] getObstacleBounds(){
+        return obstacleBounds;
+    }
+
+    /**
+     * Return packed triangle data
+     * @return buffer with {@link #FLOATS_PER_TRIANGLE} sections
+     */
+    public FloatBuffer getData(){
+        return data;
+    }
+
+    /**
+     * Return coordinate of triangle vertex
+     * @param triangle triangle index
+     * @param vertex vertex index in triangle (0, 1 or 2)
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return coordinate value
+     */
+    public float getVertex(int triangle, int vertex, int axis){
+        float v0 = get(V0X + axis, triangle);
+        if(vertex == 1)
+            return v0 + get(E1X + axis, triangle);
+        if(vertex == 2)
+            return v0 + get(E2X + axis, triangle);
+        return v0;
+    }
+
+    /**
+     * Moller-Trumbore test of line origin + t * direction with triangle.
+     * Doesn't allocate objects, so it can be used in hot loops
+     * @param triangle triangle index
+     * @param ox x coordinate of origin
+     * @param oy y coordinate of origin
+     * @param oz z coordinate of origin
+     * @param dx x coordinate of direction
+     * @param dy y coordinate of direction
+     * @param dz z coordinate of direction
+     * @return line parameter t of intersection point or NaN if line doesn't intersect triangle
+     */
+    public double intersect(int triangle, double ox, double oy, double oz, double dx, double dy, double dz){
+        double e1x = get(E1X, triangle), e1y = get(E1Y, triangle), e1z = get(E1Z, triangle);
+        double e2x = get(E2X, triangle), e2y = get(E2Y, triangle), e2z = get(E2Z, triangle);
+        // pvec = direction x edge2
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if(det > -EPS && det < EPS)
+            return Double.NaN;
+        double invDet = 1.0 / det;
+        double tx = ox - get(V0X, triangle), ty = oy - get(V0Y, triangle), tz = oz - get(V0Z, triangle);
+        double u = (tx * px + ty * py + tz * pz) * invDet;
+        if(u < 0.0 || u > 1.0)
+            return Double.NaN;
+        // qvec = tvec x edge1
+        double qx = ty * e1z - tz * e1y;
+        double qy = tz * e1x - tx * e1z;
+        double qz = tx * e1y - ty * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * invDet;
+        if(v < 0.0 || u + v > 1.0)
+            return Double.NaN;
+        return (e2x * qx + e2y * qy + e2z * qz) * invDet;
+    }
+
+    /**
+     * Check if segment from (x1, y1, z1) to (x2, y2, z2) intersects any triangle of obstacle.
+     * Triangles are tested only if segment crosses obstacle bound box, test stops on the first hit
+     * @param obstacle obstacle index
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return true if segment intersects obstacle
+     */
+    public boolean isSegmentIntersects(int obstacle, double x1, double y1, double z1,
+                                       double x2, double y2, double z2){
+        if(!isSegmentOverlapsBounds(obstacle, x1, y1, z1, x2, y2, z2))
+            return false;
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double dz = z2 - z1;
+        for(int t = obstacleFirst[obstacle]; t < obstacleFirst[obstacle + 1]; ++t){
+            double hit = intersect(t, x1, y1, z1, dx, dy, dz);
+            if(hit >= 0.0 && hit <= 1.0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Find the nearest intersection of segment from (x1, y1, z1) to (x2, y2, z2) with obstacle.
+     * Only points of segment itself are taken into account: distance of returned hit is
+     * in range from 0 to |p2 - p1|, triangles behind start point or beyond end point are ignored
+     * @param obstacle obstacle index
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return distance from start point to the nearest intersection or NaN if segment doesn't intersect obstacle
+     */
+    public double nearestHit(int obstacle, double x1, double y1, double z1,
+                             double x2, double y2, double z2){
+        if(!isSegmentOverlapsBounds(obstacle, x1, y1, z1, x2, y2, z2))
+            return Double.NaN;
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double dz = z2 - z1;
+        double nearest = Double.POSITIVE_INFINITY;
+        for(int t = obstacleFirst[obstacle]; t < obstacleFirst[obstacle + 1]; ++t){
+            double hit = intersect(t, x1, y1, z1, dx, dy, dz);
+            if(hit >= 0.0 && hit <= 1.0 && hit < nearest)
+                nearest = hit;
+        }
+        if(nearest == Double.POSITIVE_INFINITY)
+            return Double.NaN;
+        return nearest * Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Slab test of segment from (x1, y1, z1) to (x2, y2, z2) with obstacle bound box
+     * @param obstacle obstacle index
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return true if some part of segment is inside of bound box
+     */
+    public boolean isSegmentOverlapsBounds(int obstacle, double x1, double y1, double z1,
+                                           double x2, double y2, double z2){
+        // zero direction component gives infinite slab parameters, NaN (point on slab plane)
+        // doesn't reject segment
+        int b = obstacle * 6;
+        double enter = 0.0;
+        double exit = 1.0;
+        double ix = 1.0 / (x2 - x1);
+        double iy = 1.0 / (y2 - y1);
+        double iz = 1.0 / (z2 - z1);
+        double t1 = (obstacleBounds[b] - x1) * ix;
+        double t2 = (obstacleBounds[b + 3] - x1) * ix;
+        if(Math.min(t1, t2) > enter) enter = Math.min(t1, t2);
+        if(Math.max(t1, t2) < exit) exit = Math.max(t1, t2);
+        t1 = (obstacleBounds[b + 1] - y1) * iy;
+        t2 = (obstacleBounds[b + 4] - y1) * iy;
+        if(Math.min(t1, t2) > enter) enter = Math.min(t1, t2);
+        if(Math.max(t1, t2) < exit) exit = Math.max(t1, t2);
+        t1 = (obstacleBounds[b + 2] - z1) * iz;
+        t2 = (obstacleBounds[b + 5] - z1) * iz;
+        if(Math.min(t1, t2) > enter) enter = Math.min(t1, t2);
+        if(Math.max(t1, t2) < exit) exit = Math.max(t1, t2);
+        return enter <= exit;
+    }
+}
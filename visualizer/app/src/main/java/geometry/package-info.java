@@ -0,0 +1,8 @@
+/**
+ * Provides primitive geometry structures for configuration space:
+ * packed triangle store and intersection kernels.
+ * Doesn't depend on JavaFX and can be shared by visualizer
+ * and headless tools
+ * @see TriangleStore
+ */
+package geometry;
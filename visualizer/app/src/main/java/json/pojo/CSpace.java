@@ -59,6 +59,14 @@ public class CSpace {
         "obstacles" + obstacles + "\n";
     }
 
+    /**
+     * Return description of the field
+     * @return String
+     */
+    public String getDescription(){
+        return description;
+    }
+
     /**
      * Return start point of the field
      * @return {@link json.pojo.Point}
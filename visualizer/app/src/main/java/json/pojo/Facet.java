@@ -1,7 +1,6 @@
 package json.pojo;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import javafx.scene.shape.TriangleMesh;
 
 /**
  * Class for json Facet parsing.
@@ -18,7 +17,7 @@ import javafx.scene.shape.TriangleMesh;
  * @author      Vladislav Khakin
  * @version     %I%, %G%
  * @see <a href="https://github.com/FasterXML/jackson">Jackkson JSON Java parser</a>
- * @see TriangleMesh
+ * @see javafx.scene.shape.TriangleMesh
  * @see Obstacle
  * @see obstacleVisualizer.Obstacle
  */
@@ -35,6 +35,7 @@ public class Path {
      * Return list of points represented path
      * @return List of {@link json.pojo.Point}
      */
+    @JsonProperty("Path")
     public List<Point> getPoints(){
             return points;
         }
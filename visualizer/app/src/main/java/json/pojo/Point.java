@@ -2,7 +2,6 @@ package json.pojo;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import javafx.geometry.Point3D;
 
 /**
  * Class for json Points parsing.
@@ -35,16 +34,6 @@ public class Point {
         this.z = z;
     }
 
-    /**
-     * Additional constructor for creation Point from {@link Point3D}
-     * @param p javafx Point3D point
-     */
-    public Point(Point3D p){
-        this.x = (float) p.getX();
-        this.y = (float) p.getY();
-        this.z = (float) p.getZ();
-    }
-
     @Override
     public String toString() {
         return "{ x: " + x + "; y: " + y + "z: " + z + "}";
@@ -54,6 +43,7 @@ public class Point {
      * Return x coordinate of a Point
      * @return x
      */
+    @JsonProperty("X")
     public float x() {
         return x;
     }
@@ -62,6 +52,7 @@ public class Point {
      * Return y coordinate of a Point
      * @return y
      */
+    @JsonProperty("Y")
     public float y() {
         return y;
     }
@@ -70,15 +61,8 @@ public class Point {
      * Return z coordinate of a Point
      * @return z
      */
+    @JsonProperty("Z")
     public float z() {
         return z;
     }
-
-    /**
-     * Return {@link Point3D} created from Point
-     * @return new Point3D
-     */
-    public Point3D getPoint3D(){
-        return new Point3D(x,y,z);
-    }
 }
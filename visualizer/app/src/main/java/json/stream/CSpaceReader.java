@@ -0,0 +1,278 @@
+package json.stream;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import geometry.CSpaceGeometry;
+import geometry.TriangleStore;
+import metrics.CSpaceParseEvent;
+import metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.FloatBuffer;
+import java.util.BitSet;
+
+/**
+ * Streaming reader of json c-space file.
+ * Reads file with Jackson token API and writes vertices and triangles directly into
+ * primitive arrays of {@link CSpaceGeometry} without {@link json.pojo} objects.
+ * Triangle array grows to size extrapolated from bytes read so far, when input length is
+ * known, and is transposed to {@link TriangleStore} sections in place, so heap taken by
+ * reading is close to the size of read geometry.
+ * Validates the same required keys as {@link json.pojo.CSpace}, {@link json.pojo.Obstacle},
+ * {@link json.pojo.Point} and {@link json.pojo.Facet}.
+ * Reader is stateless, all methods are thread-safe.
+ *
+ * @version     %I%, %G%
+ * @see CSpaceGeometry
+ * @see Jackson
+ */
+public final class CSpaceReader extends TokenReader {
+
+    // triangle array is sized slightly over extrapolated count to avoid copy near the end
+    private static final double GROWTH_MARGIN = 1.05;
+    private static final long MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+    private CSpaceReader(){
+    }
+
+    /**
+     * Read c-space from json file
+     * @param file reference to json file
+     * @return read {@link CSpaceGeometry}
+     * @throws IOException if file can't be read or has wrong format
+     */
+    public static CSpaceGeometry read(File file) throws IOException {
+        try (JsonParser p = Jackson.FACTORY.createParser(file)){
+            return read(p, file.getPath(), file.length());
+        }
+    }
+
+    /**
+     * Read c-space from json stream
+     * @param in input stream, closed after reading
+     * @return read {@link CSpaceGeometry}
+     * @throws IOException if stream can't be read or has wrong format
+     */
+    public static CSpaceGeometry read(InputStream in) throws IOException {
+        return read(in, "stream", -1L);
+    }
+
+    /**
+     * Read c-space from json stream of known length
+     * @param in input stream, closed after reading
+     * @param source name of stream for metrics and events
+     * @param length stream length in bytes, used to size triangle array, or -1 if unknown
+     * @return read {@link CSpaceGeometry}
+     * @throws IOException if stream can't be read or has wrong format
+     */
+    public static CSpaceGeometry read(InputStream in, String source, long length) throws IOException {
+        try (JsonParser p = Jackson.FACTORY.createParser(in)){
+            return read(p, source, length);
+        }
+    }
+
+    private static CSpaceGeometry read(JsonParser p, String source, long length) throws IOException {
+        long startTime = Metrics.ENABLED ? System.nanoTime() : 0L;
+        CSpaceParseEvent event = new CSpaceParseEvent();
+        event.begin();
+        p.nextToken();
+        expect(p, JsonToken.START_OBJECT);
+        String description = null;
+        FloatArray vertex = null;
+        float[] start = null;
+        float[] finish = null;
+        // v0, edge1, edge2 of each triangle, transposed to TriangleStore sections in place at the end
+        FloatArray triangles = null;
+        IntArray obstacleFirst = null;
+        while(p.nextToken() == JsonToken.FIELD_NAME){
+            String key = p.getCurrentName();
+            p.nextToken();
+            switch (key){
+                case "Description":
+                    description = p.getValueAsString();
+                    break;
+                case "Vertex":
+                    vertex = new FloatArray();
+                    readPoints(p, vertex);
+                    break;
+                case "Start":
+                    start = new float[3];
+                    readPoint(p, start, 0);
+                    break;
+                case "Finish":
+                    finish = new float[3];
+                    readPoint(p, finish, 0);
+                    break;
+                case "Obstacle":
+                    triangles = new FloatArray();
+                    obstacleFirst = new IntArray();
+                    readObstacles(p, triangles, obstacleFirst, length);
+                    break;
+                default:
+                    unknown(p, key);
+            }
+        }
+        if(description == null)
+            missing(p, "Description");
+        if(vertex == null)
+            missing(p, "Vertex");
+        if(start == null)
+            missing(p, "Start");
+        if(finish == null)
+            missing(p, "Finish");
+        if(triangles == null)
+            missing(p, "Obstacle");
+        TriangleStore store = createStore(triangles, obstacleFirst);
+        long bytes = Math.max(0L, p.getCurrentLocation().getByteOffset());
+        if(Metrics.ENABLED)
+            Metrics.recordCSpace(startTime, bytes, store.getObstacleCount(), store.getTriangleCount());
+        event.end();
+        if(event.shouldCommit()){
+            event.source = source;
+            event.bytes = bytes;
+            event.obstacles = store.getObstacleCount();
+            event.facets = store.getTriangleCount();
+            event.commit();
+        }
+        return new CSpaceGeometry(description, vertex.toArray(), start, finish, store);
+    }
+
+    private static void readObstacles(JsonParser p, FloatArray triangles, IntArray obstacleFirst,
+                                      long length) throws IOException {
+        expect(p, JsonToken.START_ARRAY);
+        long begin = p.getCurrentLocation().getByteOffset();
+        FloatArray vertices = new FloatArray();
+        IntArray facets = new IntArray();
+        obstacleFirst.add(0);
+        while(p.nextToken() != JsonToken.END_ARRAY){
+            expect(p, JsonToken.START_OBJECT);
+            vertices.size = 0;
+            facets.size = 0;
+            boolean hasVertex = false;
+            boolean hasFacet = false;
+            while(p.nextToken() == JsonToken.FIELD_NAME){
+                String key = p.getCurrentName();
+                p.nextToken();
+                switch (key){
+                    case "Vertex":
+                        vertices.size = 0;
+                        readPoints(p, vertices);
+                        hasVertex = true;
+                        break;
+                    case "Facet":
+                        facets.size = 0;
+                        readFacets(p, facets);
+                        hasFacet = true;
+                        break;
+                    default:
+                        unknown(p, key);
+                }
+            }
+            if(!hasVertex)
+                missing(p, "Vertex");
+            if(!hasFacet)
+                missing(p, "Facet");
+            // facets may precede vertices in json object, so triangles are resolved at the end
+            int vertexCount = vertices.size / 3;
+            reserve(p, triangles, facets.size * 3, length, begin);
+            for(int i = 0; i < facets.size; i += 3){
+                int a = facets.data[i];
+                int b = facets.data[i + 1];
+                int c = facets.data[i + 2];
+                if(a < 0 || b < 0 || c < 0 || a >= vertexCount || b >= vertexCount || c >= vertexCount)
+                    throw new JsonParseException("Facet index out of range: " + a + ", " + b + ", " + c +
+                            " for " + vertexCount + " vertices", p.getCurrentLocation());
+                for(int axis = 0; axis < 3; ++axis)
+                    triangles.data[triangles.size + axis] = vertices.data[a * 3 + axis];
+                for(int axis = 0; axis < 3; ++axis)
+                    triangles.data[triangles.size + 3 + axis] = vertices.data[b * 3 + axis] - vertices.data[a * 3 + axis];
+                for(int axis = 0; axis < 3; ++axis)
+                    triangles.data[triangles.size + 6 + axis] = vertices.data[c * 3 + axis] - vertices.data[a * 3 + axis];
+                triangles.size += TriangleStore.FLOATS_PER_TRIANGLE;
+            }
+            obstacleFirst.add(triangles.size / TriangleStore.FLOATS_PER_TRIANGLE);
+        }
+    }
+
+    private static void readFacets(JsonParser p, IntArray target) throws IOException {
+        expect(p, JsonToken.START_ARRAY);
+        while(p.nextToken() != JsonToken.END_ARRAY){
+            expect(p, JsonToken.START_OBJECT);
+            int first = 0, second = 0, third = 0;
+            int found = 0;
+            while(p.nextToken() == JsonToken.FIELD_NAME){
+                String key = p.getCurrentName();
+                p.nextToken();
+                switch (key){
+                    case "First":
+                        first = readInt(p);
+                        found |= 1;
+                        break;
+                    case "Second":
+                        second = readInt(p);
+                        found |= 2;
+                        break;
+                    case "Third":
+                        third = readInt(p);
+                        found |= 4;
+                        break;
+                    default:
+                        unknown(p, key);
+                }
+            }
+            if((found & 1) == 0)
+                missing(p, "First");
+            if((found & 2) == 0)
+                missing(p, "Second");
+            if((found & 4) == 0)
+                missing(p, "Third");
+            target.add(first);
+            target.add(second);
+            target.add(third);
+        }
+    }
+
+    // grow triangle array to count extrapolated from bytes of obstacle array read so far,
+    // array is doubled if input length or offset is unknown
+    private static void reserve(JsonParser p, FloatArray triangles, int more, long length, long begin){
+        int needed = triangles.size + more;
+        if(needed <= triangles.data.length)
+            return;
+        long offset = p.getCurrentLocation().getByteOffset();
+        long capacity;
+        if(length > 0 && begin >= 0 && offset > begin && length > offset)
+            capacity = (long) (needed * GROWTH_MARGIN * (length - begin) / (offset - begin));
+        else
+            capacity = triangles.data.length * 2L;
+        // at least eighth part of array is added, so wrong estimate doesn't cause many copies
+        capacity = Math.max(capacity, triangles.data.length + triangles.data.length / 8L);
+        capacity = Math.max(needed, Math.min(capacity, MAX_ARRAY));
+        triangles.grow((int) capacity);
+    }
+
+    // transpose triangles into sections of TriangleStore in place, element of triangle t
+    // at t * 9 + k moves to k * count + t, cycles of this permutation are followed one by one
+    private static TriangleStore createStore(FloatArray triangles, IntArray obstacleFirst){
+        int count = triangles.size / TriangleStore.FLOATS_PER_TRIANGLE;
+        float[] data = triangles.data;
+        BitSet moved = new BitSet(triangles.size);
+        for(int start = moved.nextClearBit(0); start < triangles.size; start = moved.nextClearBit(start + 1)){
+            int i = start;
+            float value = data[i];
+            do {
+                i = i % TriangleStore.FLOATS_PER_TRIANGLE * count + i / TriangleStore.FLOATS_PER_TRIANGLE;
+                float displaced = data[i];
+                data[i] = value;
+                value = displaced;
+                moved.set(i);
+            } while(i != start);
+        }
+        int[] first = new int[obstacleFirst.size];
+        System.arraycopy(obstacleFirst.data, 0, first, 0, obstacleFirst.size);
+        // tail of array after triangles is left as is, store doesn't read past triangle count
+        return new TriangleStore(FloatBuffer.wrap(data), first);
+    }
+}
@@ -0,0 +1,24 @@
+package json.stream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Shared Jackson objects.
+ * {@link ObjectMapper} and {@link JsonFactory} are thread-safe after configuration
+ * and expensive to create, so all parsers use the same instances
+ *
+ * @version     %I%, %G%
+ * @see <a href="https://github.com/FasterXML/jackson">Jackkson JSON Java parser</a>
+ */
+public final class Jackson {
+
+    /** Mapper for {@link json.pojo} model */
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Factory for streaming parsers, shared with {@link #MAPPER} */
+    public static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private Jackson(){
+    }
+}
@@ -0,0 +1,80 @@
+package json.stream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import metrics.Metrics;
+import metrics.PathParseEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming reader of json path file.
+ * Reads points of "Path" array directly into float array without {@link json.pojo.Path}
+ * and {@link json.pojo.Point} objects, validates the same required keys.
+ *
+ * @version     %I%, %G%
+ * @see Jackson
+ */
+public final class PathReader extends TokenReader {
+
+    private PathReader(){
+    }
+
+    /**
+     * Read path from json file
+     * @param file reference to json file
+     * @return packed x, y, z coordinates of path points
+     * @throws IOException if file can't be read or has wrong format
+     */
+    public static float[] read(File file) throws IOException {
+        try (JsonParser p = Jackson.FACTORY.createParser(file)){
+            return read(p, file.getPath());
+        }
+    }
+
+    /**
+     * Read path from json stream
+     * @param in input stream, closed after reading
+     * @return packed x, y, z coordinates of path points
+     * @throws IOException if stream can't be read or has wrong format
+     */
+    public static float[] read(InputStream in) throws IOException {
+        try (JsonParser p = Jackson.FACTORY.createParser(in)){
+            return read(p, "stream");
+        }
+    }
+
+    private static float[] read(JsonParser p, String source) throws IOException {
+        long startTime = Metrics.ENABLED ? System.nanoTime() : 0L;
+        PathParseEvent event = new PathParseEvent();
+        event.begin();
+        p.nextToken();
+        expect(p, JsonToken.START_OBJECT);
+        FloatArray points = null;
+        while(p.nextToken() == JsonToken.FIELD_NAME){
+            String key = p.getCurrentName();
+            p.nextToken();
+            if(key.equals("Path")){
+                points = new FloatArray();
+                readPoints(p, points);
+            }
+            else
+                unknown(p, key);
+        }
+        if(points == null)
+            missing(p, "Path");
+        long bytes = Math.max(0L, p.getCurrentLocation().getByteOffset());
+        if(Metrics.ENABLED)
+            Metrics.recordPath(startTime, bytes);
+        event.end();
+        if(event.shouldCommit()){
+            event.source = source;
+            event.bytes = bytes;
+            event.points = points.size / 3;
+            event.commit();
+        }
+        return points.toArray();
+    }
+}
@@ -0,0 +1,188 @@
+package json.stream;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Base class for streaming readers.
+ * Contains helpers for token checks, required keys validation and
+ * growable primitive arrays. Error messages follow messages of
+ * {@link com.fasterxml.jackson.databind.ObjectMapper} for {@link json.pojo} classes.
+ *
+ * @version     %I%, %G%
+ */
+abstract class TokenReader {
+
+    /**
+     * Check current token and throw exception for other token
+     * @param p parser
+     * @param expected expected token
+     * @throws IOException if current token is different
+     */
+    static void expect(JsonParser p, JsonToken expected) throws IOException {
+        if(p.getCurrentToken() != expected)
+            throw new JsonParseException("Expected " + expected + " but found " + p.getCurrentToken(),
+                    p.getCurrentLocation());
+    }
+
+    /**
+     * Throw exception for missing required key
+     * @param p parser
+     * @param key name of missing key
+     * @throws IOException always
+     */
+    static void missing(JsonParser p, String key) throws IOException {
+        throw new JsonParseException("Missing required creator property '" + key + "'", p.getCurrentLocation());
+    }
+
+    /**
+     * Throw exception for unknown key
+     * @param p parser
+     * @param key name of unknown key
+     * @throws IOException always
+     */
+    static void unknown(JsonParser p, String key) throws IOException {
+        throw new JsonParseException("Unrecognized field \"" + key + "\"", p.getCurrentLocation());
+    }
+
+    /**
+     * Read current float value, strings are converted as by ObjectMapper
+     * @param p parser
+     * @return float value
+     * @throws IOException if value isn't number
+     */
+    static float readFloat(JsonParser p) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if(token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT)
+            return p.getFloatValue();
+        if(token == JsonToken.VALUE_STRING){
+            try {
+                return Float.parseFloat(p.getText().trim());
+            }
+            catch (NumberFormatException e){
+                throw new JsonParseException("Can not parse float from \"" + p.getText() + "\"",
+                        p.getCurrentLocation());
+            }
+        }
+        throw new JsonParseException("Expected number but found " + token, p.getCurrentLocation());
+    }
+
+    /**
+     * Read current int value
+     * @param p parser
+     * @return int value
+     * @throws IOException if value isn't integer number
+     */
+    static int readInt(JsonParser p) throws IOException {
+        if(p.getCurrentToken() == JsonToken.VALUE_NUMBER_INT)
+            return p.getIntValue();
+        if(p.getCurrentToken() == JsonToken.VALUE_STRING){
+            try {
+                return Integer.parseInt(p.getText().trim());
+            }
+            catch (NumberFormatException e){
+                throw new JsonParseException("Can not parse int from \"" + p.getText() + "\"",
+                        p.getCurrentLocation());
+            }
+        }
+        throw new JsonParseException("Expected integer but found " + p.getCurrentToken(), p.getCurrentLocation());
+    }
+
+    /**
+     * Read point object with required "X", "Y" and "Z" keys into array
+     * @param p parser on START_OBJECT token
+     * @param target array for coordinates
+     * @param offset index of x coordinate in target
+     * @throws IOException on wrong format
+     */
+    static void readPoint(JsonParser p, float[] target, int offset) throws IOException {
+        expect(p, JsonToken.START_OBJECT);
+        int found = 0;
+        while(p.nextToken() == JsonToken.FIELD_NAME){
+            String key = p.getCurrentName();
+            p.nextToken();
+            switch (key){
+                case "X":
+                    target[offset] = readFloat(p);
+                    found |= 1;
+                    break;
+                case "Y":
+                    target[offset + 1] = readFloat(p);
+                    found |= 2;
+                    break;
+                case "Z":
+                    target[offset + 2] = readFloat(p);
+                    found |= 4;
+                    break;
+                default:
+                    unknown(p, key);
+            }
+        }
+        if((found & 1) == 0)
+            missing(p, "X");
+        if((found & 2) == 0)
+            missing(p, "Y");
+        if((found & 4) == 0)
+            missing(p, "Z");
+    }
+
+    /**
+     * Read array of points into growable array
+     * @param p parser on START_ARRAY token
+     * @param target array for coordinates
+     * @throws IOException on wrong format
+     */
+    static void readPoints(JsonParser p, FloatArray target) throws IOException {
+        expect(p, JsonToken.START_ARRAY);
+        while(p.nextToken() != JsonToken.END_ARRAY){
+            target.ensure(3);
+            readPoint(p, target.data, target.size);
+            target.size += 3;
+        }
+    }
+
+    /**
+     * Growable float array
+     */
+    static class FloatArray {
+        float[] data = new float[64];
+        int size;
+
+        void ensure(int more){
+            if(size + more > data.length)
+                data = Arrays.copyOf(data, Math.max(size + more, data.length * 2));
+        }
+
+        void grow(int capacity){
+            if(capacity > data.length)
+                data = Arrays.copyOf(data, capacity);
+        }
+
+        void add(float value){
+            ensure(1);
+            data[size++] = value;
+        }
+
+        float[] toArray(){
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    /**
+     * Growable int array
+     */
+    static class IntArray {
+        int[] data = new int[64];
+        int size;
+
+        void add(int value){
+            if(size == data.length)
+                data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Provides streaming readers for json c-space and path files.
+ * Readers use Jackson token API and write coordinates and indices
+ * directly into primitive arrays without {@link json.pojo} objects
+ * @see <a href="https://github.com/FasterXML/jackson-core">Jackson streaming API</a>
+ */
+package json.stream;
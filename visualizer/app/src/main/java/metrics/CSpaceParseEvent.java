@@ -0,0 +1,40 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of c-space parsing, recorded if parsing takes longer than threshold.
+ *
+ * @version     %I%, %G%
+ * @see Metrics#CSPACE_PARSE_TIME
+ */
+@Name("cspace.CSpaceParse")
+@Label("C-Space Parse")
+@Category({"C-Space", "Parsing"})
+@Description("Parsing of c-space file into packed triangles")
+@Threshold("10 ms")
+public class CSpaceParseEvent extends Event {
+
+    /** File name or stream description */
+    @Label("Source")
+    public String source;
+
+    /** Size of parsed file */
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    /** Number of parsed obstacles */
+    @Label("Obstacles")
+    public int obstacles;
+
+    /** Number of parsed triangle facets */
+    @Label("Facets")
+    public int facets;
+}
@@ -0,0 +1,52 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter, concurrent increments don't contend.
+ *
+ * @version     %I%, %G%
+ * @see Metrics
+ */
+public class Counter extends Metric implements CounterMXBean {
+
+    private LongAdder value = new LongAdder();
+
+    /**
+     * Create counter with zero value
+     * @param name counter name
+     */
+    public Counter(String name){
+        super(name);
+    }
+
+    /**
+     * Add one to counter
+     */
+    public void increment(){
+        value.increment();
+    }
+
+    /**
+     * Add value to counter
+     * @param delta added value
+     */
+    public void add(long delta){
+        value.add(delta);
+    }
+
+    @Override
+    public long getCount(){
+        return value.sum();
+    }
+
+    @Override
+    String getType(){
+        return "Counter";
+    }
+
+    @Override
+    Object snapshot(){
+        return getCount();
+    }
+}
@@ -0,0 +1,15 @@
+package metrics;
+
+/**
+ * JMX view of {@link Counter}.
+ *
+ * @version     %I%, %G%
+ */
+public interface CounterMXBean {
+
+    /**
+     * Return counted value
+     * @return sum of all increments
+     */
+    long getCount();
+}
@@ -0,0 +1,159 @@
+package metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative long values (usually durations in nanoseconds)
+ * with log-linear buckets, like HdrHistogram.
+ * Values below 128 have own buckets, each larger power of two range is split into 64 buckets,
+ * so percentiles are reported with relative error below 1.6% for any value up to
+ * {@link Long#MAX_VALUE}. Histogram has fixed size of 3776 buckets (30 KB).
+ * Recording is lock-free: one atomic increment of bucket plus striped count, sum and maximum.
+ * Percentiles are computed from concurrent snapshot of buckets and are approximate
+ * while values are recorded.
+ *
+ * @version     %I%, %G%
+ * @see Metrics
+ */
+public class Histogram extends Metric implements HistogramMXBean {
+
+    // each power of two range above SUB_COUNT has HALF_COUNT buckets
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final int BUCKETS = SUB_COUNT + (Long.SIZE - SUB_BITS) * HALF_COUNT;
+
+    private AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private LongAdder count = new LongAdder();
+    private LongAdder sum = new LongAdder();
+    private LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Create empty histogram
+     * @param name histogram name
+     */
+    public Histogram(String name){
+        super(name);
+    }
+
+    /**
+     * Record value, negative values are recorded as zero
+     * @param value recorded value
+     */
+    public void record(long value){
+        if(value < 0)
+            value = 0;
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Record time passed from start
+     * @param startNanos start time returned by {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos){
+        record(System.nanoTime() - startNanos);
+    }
+
+    // values with the same SUB_BITS leading bits share bucket
+    static int bucket(long value){
+        if(value < SUB_COUNT)
+            return (int) value;
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + (int) (value >>> shift) - HALF_COUNT;
+    }
+
+    // the largest value of bucket
+    static long highest(int bucket){
+        if(bucket < SUB_COUNT)
+            return bucket;
+        int shift = (bucket - SUB_COUNT) / HALF_COUNT + 1;
+        long top = (bucket - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Return value below which lies defined percent of recorded values
+     * @param percent percent from 0 to 100
+     * @return the largest value of bucket with percentile, not larger than maximal recorded value,
+     * 0 if nothing is recorded
+     */
+    public long getPercentile(double percent){
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for(int b = 0; b < BUCKETS; ++b){
+            snapshot[b] = buckets.get(b);
+            total += snapshot[b];
+        }
+        if(total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * total));
+        long seen = 0;
+        for(int b = 0; b < BUCKETS; ++b){
+            seen += snapshot[b];
+            if(seen >= rank)
+                return Math.min(highest(b), getMax());
+        }
+        return getMax();
+    }
+
+    @Override
+    public long getCount(){
+        return count.sum();
+    }
+
+    @Override
+    public double getMean(){
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    @Override
+    public long getMax(){
+        return max.get();
+    }
+
+    @Override
+    public long get50thPercentile(){
+        return getPercentile(50.0);
+    }
+
+    @Override
+    public long get90thPercentile(){
+        return getPercentile(90.0);
+    }
+
+    @Override
+    public long get99thPercentile(){
+        return getPercentile(99.0);
+    }
+
+    @Override
+    public long get999thPercentile(){
+        return getPercentile(99.9);
+    }
+
+    @Override
+    String getType(){
+        return "Histogram";
+    }
+
+    @Override
+    Object snapshot(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("Count", getCount());
+        result.put("Mean", getMean());
+        result.put("P50", get50thPercentile());
+        result.put("P90", get90thPercentile());
+        result.put("P99", get99thPercentile());
+        result.put("P999", get999thPercentile());
+        result.put("Max", getMax());
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package metrics;
+
+/**
+ * JMX view of {@link Histogram}.
+ *
+ * @version     %I%, %G%
+ */
+public interface HistogramMXBean {
+
+    /**
+     * Return number of recorded values
+     * @return value count
+     */
+    long getCount();
+
+    /**
+     * Return mean of recorded values
+     * @return mean, 0 if nothing is recorded
+     */
+    double getMean();
+
+    /**
+     * Return maximal recorded value
+     * @return maximum, 0 if nothing is recorded
+     */
+    long getMax();
+
+    /**
+     * Return median of recorded values
+     * @return 50th percentile
+     */
+    long get50thPercentile();
+
+    /**
+     * Return 90th percentile of recorded values
+     * @return 90th percentile
+     */
+    long get90thPercentile();
+
+    /**
+     * Return 99th percentile of recorded values
+     * @return 99th percentile
+     */
+    long get99thPercentile();
+
+    /**
+     * Return 99.9th percentile of recorded values
+     * @return 99.9th percentile
+     */
+    long get999thPercentile();
+}
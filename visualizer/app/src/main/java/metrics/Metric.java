@@ -0,0 +1,41 @@
+package metrics;
+
+/**
+ * Named metric published by {@link Metrics}.
+ *
+ * @version     %I%, %G%
+ * @see Counter
+ * @see Histogram
+ */
+public abstract class Metric {
+
+    private String name;
+
+    /**
+     * Create metric
+     * @param name metric name, used as JMX name and json key
+     */
+    protected Metric(String name){
+        this.name = name;
+    }
+
+    /**
+     * Return metric name
+     * @return name
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Return JMX type of metric
+     * @return type name
+     */
+    abstract String getType();
+
+    /**
+     * Return current values for json report
+     * @return number or map of values
+     */
+    abstract Object snapshot();
+}
@@ -0,0 +1,166 @@
+package metrics;
+
+import json.stream.Jackson;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metrics of c-space and path parsing and path validation.
+ * All metrics are static, recording code is guarded by {@link #ENABLED}:
+ * <pre>
+ *     long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+ *     ...
+ *     if(Metrics.ENABLED)
+ *         Metrics.VALIDATION_TIME.recordSince(start);
+ * </pre>
+ * The flag is constant, so with metrics disabled by system property
+ * <code>-Dmetrics.disabled=true</code> guarded code is removed by JIT compiler.
+ * Times are recorded in nanoseconds. {@link #start()} publishes metrics as JMX MBeans
+ * with names <code>cspace:type=Counter,name=SegmentsValidated</code> and, if system property
+ * <code>metrics.dump</code> defines file name, writes all metrics to this json file on exit:
+ * <pre>
+ *     java -Dmetrics.dump=metrics.json -cp validator.jar pathValidator.PathValidator c_space.json paths/
+ * </pre>
+ *
+ * @version     %I%, %G%
+ * @see Counter
+ * @see Histogram
+ */
+public final class Metrics {
+
+    /** System property, which disables metrics if set to true */
+    public static final String DISABLED_PROPERTY = "metrics.disabled";
+    /** System property with name of json file written on exit */
+    public static final String DUMP_PROPERTY = "metrics.dump";
+    /** Domain of JMX names */
+    public static final String DOMAIN = "cspace";
+    /** True if metrics are recorded */
+    public static final boolean ENABLED = !Boolean.getBoolean(DISABLED_PROPERTY);
+
+    /** Time of c-space file parsing */
+    public static final Histogram CSPACE_PARSE_TIME = new Histogram("CSpaceParseTime");
+    /** Time of path file parsing */
+    public static final Histogram PATH_PARSE_TIME = new Histogram("PathParseTime");
+    /** Bytes of parsed c-space and path files */
+    public static final Counter BYTES_READ = new Counter("BytesRead");
+    /** Obstacles of parsed c-spaces */
+    public static final Counter OBSTACLES_LOADED = new Counter("ObstaclesLoaded");
+    /** Triangle facets of parsed c-spaces */
+    public static final Counter FACETS_LOADED = new Counter("FacetsLoaded");
+    /** Time of one path validation */
+    public static final Histogram VALIDATION_TIME = new Histogram("ValidationTime");
+    /** Validated paths */
+    public static final Counter PATHS_VALIDATED = new Counter("PathsValidated");
+    /** Validated path segments, including segments moved in visualizer */
+    public static final Counter SEGMENTS_VALIDATED = new Counter("SegmentsValidated");
+    /** Primitives in hierarchy leaves reached by segment and ray queries */
+    public static final Counter CANDIDATES = new Counter("BroadPhaseCandidates");
+    /** Exact segment and triangle intersection tests */
+    public static final Counter TRIANGLE_TESTS = new Counter("TriangleTests");
+    /** Found intersections of segments with obstacles and path points inside obstacles */
+    public static final Counter HITS = new Counter("Hits");
+
+    private static final List<Metric> ALL = Collections.unmodifiableList(Arrays.asList(
+            CSPACE_PARSE_TIME, PATH_PARSE_TIME, BYTES_READ, OBSTACLES_LOADED, FACETS_LOADED,
+            VALIDATION_TIME, PATHS_VALIDATED, SEGMENTS_VALIDATED, CANDIDATES, TRIANGLE_TESTS, HITS));
+
+    private static boolean started;
+
+    private Metrics(){
+    }
+
+    /**
+     * Record parsed c-space
+     * @param startNanos parsing start time returned by {@link System#nanoTime()}
+     * @param bytes size of parsed file
+     * @param obstacles number of obstacles
+     * @param facets number of triangle facets
+     */
+    public static void recordCSpace(long startNanos, long bytes, int obstacles, int facets){
+        CSPACE_PARSE_TIME.recordSince(startNanos);
+        BYTES_READ.add(bytes);
+        OBSTACLES_LOADED.add(obstacles);
+        FACETS_LOADED.add(facets);
+    }
+
+    /**
+     * Record parsed path
+     * @param startNanos parsing start time returned by {@link System#nanoTime()}
+     * @param bytes size of parsed file
+     */
+    public static void recordPath(long startNanos, long bytes){
+        PATH_PARSE_TIME.recordSince(startNanos);
+        BYTES_READ.add(bytes);
+    }
+
+    /**
+     * Return all metrics
+     * @return unmodifiable list of metrics
+     */
+    public static List<Metric> getMetrics(){
+        return ALL;
+    }
+
+    /**
+     * Return current values of all metrics for json report
+     * @return ordered map of metric names to values
+     */
+    public static Map<String, Object> snapshot(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        for(Metric metric: ALL)
+            result.put(metric.getName(), metric.snapshot());
+        return result;
+    }
+
+    /**
+     * Write current values of all metrics to json file
+     * @param file output file
+     * @throws IOException if file can't be written
+     */
+    public static void write(File file) throws IOException {
+        Jackson.MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, snapshot());
+    }
+
+    /**
+     * Register metrics in platform MBean server and set dump of metrics on exit,
+     * if {@link #DUMP_PROPERTY} is defined. Does nothing if metrics are disabled
+     * or already started
+     */
+    public static synchronized void start(){
+        if(!ENABLED || started)
+            return;
+        started = true;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for(Metric metric: ALL){
+            try {
+                server.registerMBean(metric, new ObjectName(
+                        DOMAIN + ":type=" + metric.getType() + ",name=" + metric.getName()));
+            }
+            catch (JMException e){
+                System.err.println("Metric " + metric.getName() + " isn't published: " + e.getMessage());
+            }
+        }
+        String dump = System.getProperty(DUMP_PROPERTY);
+        if(dump != null){
+            File file = new File(dump);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    write(file);
+                }
+                catch (IOException e){
+                    System.err.println("Metrics aren't written: " + e.getMessage());
+                }
+            }, "metrics-dump"));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of path parsing, recorded if parsing takes longer than threshold.
+ *
+ * @version     %I%, %G%
+ * @see Metrics#PATH_PARSE_TIME
+ */
+@Name("cspace.PathParse")
+@Label("Path Parse")
+@Category({"C-Space", "Parsing"})
+@Description("Parsing of path file")
+@Threshold("10 ms")
+public class PathParseEvent extends Event {
+
+    /** File name or stream description */
+    @Label("Source")
+    public String source;
+
+    /** Size of parsed file */
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    /** Number of path points */
+    @Label("Points")
+    public int points;
+}
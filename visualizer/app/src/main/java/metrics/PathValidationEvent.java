@@ -0,0 +1,42 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of one path validation, recorded if validation takes longer than threshold.
+ *
+ * @version     %I%, %G%
+ * @see Metrics#VALIDATION_TIME
+ */
+@Name("cspace.PathValidation")
+@Label("Path Validation")
+@Category({"C-Space", "Validation"})
+@Description("Validation of path against obstacles of c-space")
+@Threshold("20 ms")
+public class PathValidationEvent extends Event {
+
+    /** Path file name used in report */
+    @Label("File")
+    public String file;
+
+    /** Number of path points */
+    @Label("Points")
+    public int points;
+
+    /** Number of checked segments, less than points - 1 if validation stopped on the first hit */
+    @Label("Segments")
+    public int segments;
+
+    /** Number of found segment and obstacle intersections */
+    @Label("Intersections")
+    public int intersections;
+
+    /** Number of path points inside obstacles */
+    @Label("Inside Points")
+    public int inside;
+}
@@ -0,0 +1,38 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of visualizer scene construction: c-space parsing, mesh, hierarchy
+ * and containment grid building and attaching of nodes to scene.
+ *
+ * @version     %I%, %G%
+ */
+@Name("cspace.SceneBuild")
+@Label("Scene Build")
+@Category({"C-Space", "Visualizer"})
+@Description("Construction of visualizer scene graph for c-space")
+@Threshold("100 ms")
+public class SceneBuildEvent extends Event {
+
+    /** C-space file name */
+    @Label("Source")
+    public String source;
+
+    /** Number of obstacles */
+    @Label("Obstacles")
+    public int obstacles;
+
+    /** Number of nodes attached to scene */
+    @Label("Nodes")
+    public int nodes;
+
+    /** True if obstacles are merged into shared meshes */
+    @Label("Merged")
+    public boolean merged;
+}
@@ -0,0 +1,35 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of slow segment check. Fast segments aren't recorded, so candidate count
+ * is computed only for recorded events.
+ *
+ * @version     %I%, %G%
+ * @see geometry.TriangleBvh#getCandidateCount
+ */
+@Name("cspace.SegmentScan")
+@Label("Segment Scan")
+@Category({"C-Space", "Validation"})
+@Description("Check of one path segment against triangle hierarchy")
+@Threshold("1 ms")
+public class SegmentScanEvent extends Event {
+
+    /** Index of segment in path */
+    @Label("Segment")
+    public int segment;
+
+    /** Number of primitives in hierarchy leaves reached by segment */
+    @Label("Candidates")
+    public int candidates;
+
+    /** Number of found intersections */
+    @Label("Hits")
+    public int hits;
+}
@@ -0,0 +1,9 @@
+/**
+ * Provides counters and latency histograms of parsing and validation
+ * and flight recorder events of slow operations.
+ * Metrics are published as JMX MBeans and can be written in json format on exit.
+ * Recording is lock-free and is skipped entirely when metrics are disabled,
+ * events are recorded only by running flight recording
+ * @see Metrics
+ */
+package metrics;
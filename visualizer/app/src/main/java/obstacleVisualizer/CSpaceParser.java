@@ -0,0 +1,226 @@
+package obstacleVisualizer;
+
+import geometry.BinaryCSpace;
+import geometry.CSpaceGeometry;
+import geometry.ConvexShapes;
+import geometry.StlReader;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Box;
+import javafx.scene.shape.DrawMode;
+import json.stream.CSpaceReader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Json CSpace parser
+ * Parse json, STL or binary c-space file into {@link CSpaceGeometry}, used for visualization.
+ * Json file is read by streaming {@link CSpaceReader} without {@link json.pojo} objects.
+ * CSpaceParser generate {@link javafx.scene.shape.Sphere} for each point(start and finish)
+ * {@link javafx.scene.shape.Box} for vertices and {@link Obstacle} for each obstacle.
+ * If number of obstacles reaches merge threshold, obstacles are merged into {@link MergedObstacles}
+ * instead of separate nodes
+ * @author      Vladislav Khakin
+ * @version     %I%, %G%
+ * @see Node
+ */
+public class CSpaceParser {
+
+    private List<Node> obstacles;
+    private List<Node> points;
+    private List<Node> vertices;
+    private CSpaceGeometry geometry;
+    private ConvexShapes shapes;
+    private MergedObstacles mergedObstacles;
+    private int mergeThreshold = Integer.MAX_VALUE;
+
+    /**
+     * Listener of parsing progress. Methods are called from parsing threads,
+     * {@link #obstaclesBuilt} may be called from several threads at once
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called while file is read
+         * @param bytes number of bytes read
+         * @param total file length
+         */
+        void bytesRead(long bytes, long total);
+
+        /**
+         * Called while obstacle meshes are built
+         * @param obstacles number of built obstacles
+         * @param total number of obstacles
+         */
+        void obstaclesBuilt(int obstacles, int total);
+    }
+
+    /**
+     * Default constructor. Initialize internal variable collections
+     */
+    public CSpaceParser(){
+        obstacles = new ArrayList<>();
+        points = new ArrayList<>();
+        vertices = new ArrayList<>();
+    }
+
+    /**
+     * Set number of obstacles, from which obstacles are merged into {@link MergedObstacles}.
+     * Obstacles are not merged by default
+     * @param mergeThreshold min obstacle count for merging, 0 to merge always
+     */
+    public void setMergeThreshold(int mergeThreshold){
+        this.mergeThreshold = mergeThreshold;
+    }
+
+    /**
+     * Return list with parsed obstacles
+     * @return List of {@link Obstacle}, empty if obstacles are merged
+     */
+    public List<Node> getObstacles() {
+       return obstacles;
+    }
+
+    /**
+     * Return merged obstacles.
+     * Obstacle indices are the same as in {@link #getGeometry()}
+     * @return {@link MergedObstacles} or null if obstacles are not merged
+     */
+    public MergedObstacles getMergedObstacles(){
+       return mergedObstacles;
+    }
+
+    /**
+     * Return list with parsed points (as sphere node objects)
+     * @return List of {@link javafx.scene.shape.Sphere}
+     */
+    public List<Node> getPoints(){
+       return points;
+    }
+
+    /**
+     * Return list of vertices (as box object)
+     * @return List of {@link Box}
+     */
+    public List<Node> getVertices(){
+       return vertices;
+    }
+
+    /**
+     * Return packed c-space geometry.
+     * Obstacle indices in geometry are the same as in {@link #getObstacles()}
+     * @return {@link CSpaceGeometry} or null before parsing
+     */
+    public CSpaceGeometry getGeometry(){
+       return geometry;
+    }
+
+    /**
+     * Return box and convex obstacles of c-space geometry, found at load time.
+     * Obstacle indices are the same as in {@link #getGeometry()}
+     * @return {@link ConvexShapes} or null before parsing
+     */
+    public ConvexShapes getShapes(){
+       return shapes;
+    }
+
+    /**
+     * Parse toParse json, STL or binary file to generate CSpace.
+     * Binary file is detected by its magic and mapped by {@link BinaryCSpace}.
+     * STL file (ASCII or binary) is detected by extension and read with {@link StlReader}.
+     * Stores generated List of start and finish spheres, List of {@link Box},
+     * List of {@link Obstacle}, {@link CSpaceGeometry} and {@link ConvexShapes}
+     * in internal variables
+     * @param toParse reference to json file
+     * @throws Error throw Error for IOException
+     * @see IOException
+     * @see Error
+     */
+    public void parse(File toParse) throws Error {
+        parse(toParse, null);
+    }
+
+    /**
+     * Parse toParse json, STL or binary file to generate CSpace and report progress.
+     * Format is detected as in {@link pathValidator.CSpaceConverter#read(File)},
+     * binary file is mapped, so only json reading reports bytes read.
+     * Obstacle meshes are built in parallel. Nodes are not attached to scene,
+     * so parsing can run off the FX thread
+     * @param toParse reference to json file
+     * @param listener progress listener or null
+     * @throws Error throw Error for IOException
+     * @see #parse(File)
+     */
+    public void parse(File toParse, ProgressListener listener) throws Error {
+        Random r = new Random();
+        long length = toParse.length();
+        try {
+            if(StlReader.isStl(toParse))
+                geometry = StlReader.read(toParse);
+            else if(BinaryCSpace.isBinary(toParse))
+                geometry = BinaryCSpace.read(toParse);
+            else {
+                try (InputStream in = new ProgressInputStream(new FileInputStream(toParse),
+                        bytes -> { if(listener != null) listener.bytesRead(bytes, length); })){
+                    geometry = CSpaceReader.read(in, toParse.getPath(), length);
+                }
+            }
+            if(listener != null)
+                listener.bytesRead(length, length);
+            shapes = new ConvexShapes(geometry.getStore());
+            // generate start point
+            float[] start = geometry.getStart();
+            points.add(ObstacleVisualizer.createSphere(start[0], start[1], start[2], 0.2f, Color.YELLOW));
+            // generate finish point
+            float[] finish = geometry.getFinish();
+            points.add(ObstacleVisualizer.createSphere(finish[0], finish[1], finish[2], 0.2f, Color.YELLOW));
+
+            // generate borders
+            Box box = new Box(10.0,10.0,10.0);
+            box.setTranslateX(5.0);
+            box.setTranslateY(5.0);
+            box.setTranslateZ(5.0);
+            //box.setDrawMode(DrawMode.LINE);
+            box.setDrawMode(DrawMode.LINE);
+            box.setDisable(true);
+            vertices.add(box);
+
+            // generate obstacles, colors are chosen in file order and meshes are built in parallel
+            int count = geometry.getStore().getObstacleCount();
+            Color[] colors = new Color[count];
+            for(int i = 0; i < colors.length; ++i)
+                colors[i] = Color.color(r.nextFloat(), r.nextFloat(), r.nextFloat());
+            AtomicInteger built = new AtomicInteger();
+            if(count >= mergeThreshold){
+                mergedObstacles = new MergedObstacles(geometry, colors, batch -> {
+                    if(listener != null)
+                        listener.obstaclesBuilt(built.addAndGet(batch), count);
+                });
+                return;
+            }
+            Obstacle[] nodes = new Obstacle[count];
+            IntStream.range(0, nodes.length).parallel().forEach(i -> {
+                nodes[i] = new Obstacle(geometry.getMesh(i), new PhongMaterial(colors[i]));
+                if(listener != null)
+                    listener.obstaclesBuilt(built.incrementAndGet(), nodes.length);
+            });
+            obstacles.addAll(Arrays.asList(nodes));
+
+        }
+        catch (IOException e){
+            System.err.print(e.getMessage());
+            throw new Error(e.getMessage());
+        }
+    }
+
+}
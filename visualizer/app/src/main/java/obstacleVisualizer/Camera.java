@@ -113,6 +113,15 @@ public class Camera {
         return camera;
     }
 
+    /**
+     * Set far clip of camera. Distance is limited by default far clip
+     * and can't be closer than near clip
+     * @param farClip - distance to far clip plane
+     */
+    public void setFarClip(double farClip){
+        camera.setFarClip(Math.max(CAMERA_NEAR_CLIP * 10.0, Math.min(CAMERA_FAR_CLIP, farClip)));
+    }
+
     /**
      * Move camera forward in it's rotated direction. Straight where it "look's"
      * @param value - how far to move
@@ -0,0 +1,24 @@
+package obstacleVisualizer;
+
+/**
+ * Entry point of executable visualizer jar.
+ * Since Java 11 JavaFX isn't part of JDK and is packed into jar with other dependencies,
+ * Java launcher refuses to start main class extending {@link javafx.application.Application}
+ * from class path, so jar starts this class, which isn't an application itself.
+ *
+ * @version     %I%, %G%
+ * @see ObstacleVisualizer
+ */
+public final class Launcher {
+
+    private Launcher(){
+    }
+
+    /**
+     * Start visualizer with the same arguments
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        ObstacleVisualizer.main(args);
+    }
+}
@@ -0,0 +1,488 @@
+package obstacleVisualizer;
+
+import geometry.CSpaceGeometry;
+import geometry.TriangleStore;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.PickResult;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Box;
+import javafx.scene.shape.DrawMode;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * All obstacles of c-space merged into few large meshes.
+ * Separate {@link obstacleVisualizer.Obstacle} costs scene graph node, mesh and material,
+ * so scenes with thousands of obstacles stall renderer. Here obstacles are packed into
+ * batches of at most {@link #MAX_FACES} faces and all batches share one material with
+ * texture atlas. Atlas has texel with color of each obstacle and texels for intersected
+ * and free state, each obstacle has its own texture coordinate in batch and all its faces
+ * refer to it, so obstacle is recolored by change of two floats.
+ * Obstacles are ordered along Morton curve of their bound box centers before packing,
+ * so each batch covers compact part of space and can be culled by {@link SceneCuller}
+ * or replaced by its proxy box at a distance.
+ * Batches are built in parallel.
+ * Picked face of batch is mapped back to obstacle by first faces of obstacles.
+ * Obstacle switched to line draw mode is hidden in batch by degenerate faces
+ * and shown by separate {@link MeshView}.
+ *
+ * @version     %I%, %G%
+ */
+public class MergedObstacles {
+
+    /**
+     * Max number of faces in one batch
+     */
+    public static final int MAX_FACES = 1 << 14;
+
+    private static final int INTERSECTED_TEXEL = 0;
+    private static final int FREE_TEXEL = 1;
+    // texel of obstacle i is FIRST_OBSTACLE_TEXEL + i
+    private static final int FIRST_OBSTACLE_TEXEL = 2;
+    private static final PhongMaterial INTERSECTED_PROXY = new PhongMaterial(Color.RED);
+    private static final PhongMaterial FREE_PROXY = new PhongMaterial(Color.WHITE);
+
+    private Group root = new Group();
+    private PhongMaterial material;
+    private int atlasSide;
+    private TriangleMesh[] meshes;
+    private MeshView[] views;
+    // faces of each batch, kept to restore faces of obstacle shown in line mode
+    private int[][] faces;
+    // obstacles are packed in Morton order: obstacle of each slot and slot of each obstacle
+    private int[] order;
+    private int[] slot;
+    // first slot of each batch and total obstacle count at the end
+    private int[] batchFirst;
+    // first face and first point of slot in its batch
+    private int[] firstFace;
+    private int[] firstPoint;
+    private float[] obstacleBounds;
+    private float[] batchBounds;
+    private Box[] proxies;
+    private PhongMaterial[] proxyMaterials;
+    private boolean[] intersected;
+    // number of intersected obstacles in batch
+    private int[] batchIntersected;
+    // separate meshes of obstacles in line draw mode, null for filled obstacles
+    private MeshView[] lines;
+    private boolean showIntersections;
+    private float[] texCoord = new float[2];
+
+    /**
+     * Merge obstacles
+     * @param geometry c-space geometry with obstacle triangles
+     * @param colors color of each obstacle
+     */
+    public MergedObstacles(CSpaceGeometry geometry, Color[] colors){
+        this(geometry, colors, count -> {});
+    }
+
+    /**
+     * Merge obstacles and report progress
+     * @param geometry c-space geometry with obstacle triangles
+     * @param colors color of each obstacle
+     * @param built called with number of obstacles in each built batch, may be called from several threads
+     */
+    public MergedObstacles(CSpaceGeometry geometry, Color[] colors, IntConsumer built){
+        TriangleStore store = geometry.getStore();
+        int count = store.getObstacleCount();
+        firstFace = new int[count];
+        firstPoint = new int[count];
+        intersected = new boolean[count];
+        lines = new MeshView[count];
+
+        atlasSide = 1;
+        while(atlasSide * atlasSide < count + FIRST_OBSTACLE_TEXEL)
+            atlasSide *= 2;
+        WritableImage atlas = new WritableImage(atlasSide, atlasSide);
+        PixelWriter writer = atlas.getPixelWriter();
+        writer.setColor(INTERSECTED_TEXEL % atlasSide, INTERSECTED_TEXEL / atlasSide, Color.RED);
+        writer.setColor(FREE_TEXEL % atlasSide, FREE_TEXEL / atlasSide, Color.WHITE);
+        for(int i = 0; i < count; ++i){
+            int texel = FIRST_OBSTACLE_TEXEL + i;
+            writer.setColor(texel % atlasSide, texel / atlasSide, colors[i]);
+        }
+        material = new PhongMaterial(Color.WHITE);
+        material.setDiffuseMap(atlas);
+
+        computeOrder(store);
+        // split slots into batches
+        int batches = 0;
+        int[] split = new int[count + 1];
+        int batchFaces = 0;
+        for(int s = 0; s < count; ++s){
+            int obstacleFaces = store.getFirstTriangle(order[s] + 1) - store.getFirstTriangle(order[s]);
+            if(s == 0 || batchFaces > 0 && batchFaces + obstacleFaces > MAX_FACES){
+                split[batches++] = s;
+                batchFaces = 0;
+            }
+            batchFaces += obstacleFaces;
+        }
+        split[batches] = count;
+        batchFirst = Arrays.copyOf(split, batches + 1);
+        meshes = new TriangleMesh[batches];
+        views = new MeshView[batches];
+        faces = new int[batches][];
+        batchBounds = new float[batches * 6];
+        proxies = new Box[batches];
+        proxyMaterials = new PhongMaterial[batches];
+        batchIntersected = new int[batches];
+        IntStream.range(0, batches).parallel().forEach(b -> {
+            buildBatch(b, geometry);
+            built.accept(batchFirst[b + 1] - batchFirst[b]);
+        });
+        for(int b = 0; b < batches; ++b){
+            views[b] = new MeshView(meshes[b]);
+            views[b].setMaterial(material);
+            root.getChildren().add(views[b]);
+        }
+        for(int b = 0; b < batches; ++b){
+            buildProxy(b, colors);
+            root.getChildren().add(proxies[b]);
+        }
+    }
+
+    // order obstacles along Morton curve of bound box centers
+    private void computeOrder(TriangleStore store){
+        int count = store.getObstacleCount();
+        obstacleBounds = store.getObstacleBounds();
+        float[] scene = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for(int i = 0; i < count; ++i){
+            for(int axis = 0; axis < 3; ++axis){
+                scene[axis] = Math.min(scene[axis], obstacleBounds[i * 6 + axis]);
+                scene[axis + 3] = Math.max(scene[axis + 3], obstacleBounds[i * 6 + axis + 3]);
+            }
+        }
+        long[] keys = new long[count];
+        for(int i = 0; i < count; ++i){
+            long code = 0;
+            for(int axis = 0; axis < 3; ++axis){
+                float size = scene[axis + 3] - scene[axis];
+                float center = (obstacleBounds[i * 6 + axis] + obstacleBounds[i * 6 + axis + 3]) * 0.5f;
+                int cell = size > 0f ? (int) Math.min(1023f, (center - scene[axis]) / size * 1024f) : 0;
+                code |= spread(cell) << axis;
+            }
+            keys[i] = code << 32 | i;
+        }
+        Arrays.sort(keys);
+        order = new int[count];
+        slot = new int[count];
+        for(int s = 0; s < count; ++s){
+            order[s] = (int) keys[s];
+            slot[order[s]] = s;
+        }
+    }
+
+    // spread 10 bits of value to every third bit
+    private static long spread(int value){
+        long result = 0;
+        for(int bit = 0; bit < 10; ++bit)
+            result |= (long) ((value >> bit) & 1) << (bit * 3);
+        return result;
+    }
+
+    private void buildBatch(int batch, CSpaceGeometry geometry){
+        int first = batchFirst[batch];
+        int last = batchFirst[batch + 1];
+        CSpaceGeometry.Mesh[] obstacles = new CSpaceGeometry.Mesh[last - first];
+        int pointCount = 0;
+        int faceCount = 0;
+        float[] bounds = Arrays.copyOfRange(obstacleBounds, order[first] * 6, order[first] * 6 + 6);
+        for(int s = first; s < last; ++s){
+            CSpaceGeometry.Mesh obstacle = geometry.getMesh(order[s]);
+            obstacles[s - first] = obstacle;
+            firstPoint[s] = pointCount;
+            firstFace[s] = faceCount;
+            pointCount += obstacle.getPoints().length / 3;
+            faceCount += obstacle.getFaceCount();
+            for(int axis = 0; axis < 3; ++axis){
+                bounds[axis] = Math.min(bounds[axis], obstacleBounds[order[s] * 6 + axis]);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], obstacleBounds[order[s] * 6 + axis + 3]);
+            }
+        }
+        System.arraycopy(bounds, 0, batchBounds, batch * 6, 6);
+        float[] points = new float[pointCount * 3];
+        int[] batchFaces = new int[faceCount * 6];
+        int p = 0;
+        int f = 0;
+        for(int s = first; s < last; ++s){
+            CSpaceGeometry.Mesh obstacle = obstacles[s - first];
+            System.arraycopy(obstacle.getPoints(), 0, points, p, obstacle.getPoints().length);
+            p += obstacle.getPoints().length;
+            int base = firstPoint[s];
+            int texture = s - first;
+            for(int index: obstacle.getFaces()){
+                batchFaces[f++] = base + index;
+                batchFaces[f++] = texture;
+            }
+        }
+        TriangleMesh mesh = new TriangleMesh();
+        mesh.getPoints().setAll(points);
+        mesh.getTexCoords().setAll(texCoords(batch));
+        mesh.getFaces().setAll(batchFaces);
+        meshes[batch] = mesh;
+        faces[batch] = batchFaces;
+    }
+
+    // box over batch bounds with average color of batch obstacles, hidden until culler shows it
+    private void buildProxy(int batch, Color[] colors){
+        double red = 0.0, green = 0.0, blue = 0.0;
+        int count = batchFirst[batch + 1] - batchFirst[batch];
+        for(int s = batchFirst[batch]; s < batchFirst[batch + 1]; ++s){
+            red += colors[order[s]].getRed();
+            green += colors[order[s]].getGreen();
+            blue += colors[order[s]].getBlue();
+        }
+        proxyMaterials[batch] = new PhongMaterial(Color.color(red / count, green / count, blue / count));
+        int b = batch * 6;
+        Box box = new Box(batchBounds[b + 3] - batchBounds[b], batchBounds[b + 4] - batchBounds[b + 1],
+                batchBounds[b + 5] - batchBounds[b + 2]);
+        box.setTranslateX((batchBounds[b] + batchBounds[b + 3]) * 0.5);
+        box.setTranslateY((batchBounds[b + 1] + batchBounds[b + 4]) * 0.5);
+        box.setTranslateZ((batchBounds[b + 2] + batchBounds[b + 5]) * 0.5);
+        box.setMaterial(proxyMaterials[batch]);
+        box.setVisible(false);
+        proxies[batch] = box;
+    }
+
+    /**
+     * Return node with all obstacles to add it on 3D scene
+     * @return group of batch meshes, proxies and meshes of obstacles in line draw mode
+     */
+    public Group getRoot(){
+        return root;
+    }
+
+    /**
+     * Return number of obstacles
+     * @return obstacle count
+     */
+    public int getObstacleCount(){
+        return intersected.length;
+    }
+
+    /**
+     * Return number of meshes with merged obstacles
+     * @return batch count
+     */
+    public int getBatchCount(){
+        return meshes.length;
+    }
+
+    /**
+     * Return node of batch mesh
+     * @param batch batch index
+     * @return {@link MeshView} of batch
+     */
+    public MeshView getBatchView(int batch){
+        return views[batch];
+    }
+
+    /**
+     * Return box, which replaces batch at a distance
+     * @param batch batch index
+     * @return proxy box of batch, hidden by default
+     */
+    public Box getBatchProxy(int batch){
+        return proxies[batch];
+    }
+
+    /**
+     * Return bound boxes of all batches
+     * @return min x, min y, min z, max x, max y, max z for each batch
+     */
+    public float[] getBatchBounds(){
+        return batchBounds;
+    }
+
+    /**
+     * Return obstacle picked by mouse
+     * @param pick pick result of mouse event
+     * @return index of obstacle or -1 if picked node isn't merged obstacle
+     */
+    public int getObstacle(PickResult pick){
+        Node node = pick.getIntersectedNode();
+        if(node == null || node.getParent() != root)
+            return -1;
+        if(node.getUserData() instanceof Integer)
+            return (Integer) node.getUserData();
+        for(int b = 0; b < views.length; ++b){
+            if(views[b] == node)
+                return getObstacle(b, pick.getIntersectedFace());
+        }
+        return -1;
+    }
+
+    /**
+     * Return obstacle owning face of batch
+     * @param batch batch index
+     * @param face face index in batch
+     * @return index of obstacle or -1 if face is out of batch
+     */
+    public int getObstacle(int batch, int face){
+        if(face < 0 || face >= faces[batch].length / 6)
+            return -1;
+        // the last slot of batch with first face not after face
+        int low = batchFirst[batch];
+        int high = batchFirst[batch + 1] - 1;
+        while(low < high){
+            int mid = (low + high + 1) >>> 1;
+            if(firstFace[mid] <= face)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return order[low];
+    }
+
+    /**
+     * Switch draw mode of obstacle between fill and line
+     * @param obstacle obstacle index
+     */
+    public void toggleDrawMode(int obstacle){
+        int s = slot[obstacle];
+        int batch = batch(s);
+        int from = firstFace[s] * 6;
+        int to = faceEnd(batch, s) * 6;
+        if(lines[obstacle] != null){
+            meshes[batch].getFaces().set(from, faces[batch], from, to - from);
+            root.getChildren().remove(lines[obstacle]);
+            lines[obstacle] = null;
+            return;
+        }
+        // all vertices of face are the same point, so face has no area and isn't drawn
+        int[] degenerate = new int[to - from];
+        for(int i = 0; i < degenerate.length; i += 2){
+            degenerate[i] = firstPoint[s];
+            degenerate[i + 1] = s - batchFirst[batch];
+        }
+        meshes[batch].getFaces().set(from, degenerate, 0, degenerate.length);
+        lines[obstacle] = createLineView(batch, obstacle, from, to);
+        root.getChildren().add(lines[obstacle]);
+    }
+
+    private MeshView createLineView(int batch, int obstacle, int from, int to){
+        int s = slot[obstacle];
+        int pointEnd = s + 1 < batchFirst[batch + 1] ? firstPoint[s + 1] : meshes[batch].getPoints().size() / 3;
+        TriangleMesh mesh = new TriangleMesh();
+        float[] points = new float[(pointEnd - firstPoint[s]) * 3];
+        meshes[batch].getPoints().copyTo(firstPoint[s] * 3, points, 0, points.length);
+        mesh.getPoints().setAll(points);
+        setTexCoord(obstacle);
+        mesh.getTexCoords().setAll(texCoord);
+        int[] lineFaces = new int[to - from];
+        for(int i = 0; i < lineFaces.length; i += 2)
+            lineFaces[i] = faces[batch][from + i] - firstPoint[s];
+        mesh.getFaces().setAll(lineFaces);
+        MeshView view = new MeshView(mesh);
+        view.setMaterial(material);
+        view.setDrawMode(DrawMode.LINE);
+        view.setUserData(obstacle);
+        return view;
+    }
+
+    /**
+     * Set intersection state of obstacle, obstacle is recolored at once if intersections are shown
+     * @param obstacle obstacle index
+     * @param intersected true if obstacle is intersected by path
+     */
+    public void setIntersected(int obstacle, boolean intersected){
+        if(this.intersected[obstacle] == intersected)
+            return;
+        this.intersected[obstacle] = intersected;
+        int batch = batch(slot[obstacle]);
+        batchIntersected[batch] += intersected ? 1 : -1;
+        if(showIntersections){
+            updateTexCoord(obstacle);
+            updateProxy(batch);
+        }
+    }
+
+    /**
+     * Reset intersection state of all obstacles, for example when path is cleared
+     */
+    public void clearIntersections(){
+        for(int obstacle = 0; obstacle < intersected.length; ++obstacle)
+            setIntersected(obstacle, false);
+    }
+
+    /**
+     * Show obstacles in red if they are intersected and in white otherwise
+     * or show them in their own colors
+     * @param show true to show intersections
+     */
+    public void setShowIntersections(boolean show){
+        if(showIntersections == show)
+            return;
+        showIntersections = show;
+        for(int b = 0; b < meshes.length; ++b){
+            meshes[b].getTexCoords().setAll(texCoords(b));
+            updateProxy(b);
+        }
+        for(int i = 0; i < lines.length; ++i){
+            if(lines[i] != null)
+                updateTexCoord(i);
+        }
+    }
+
+    private void updateProxy(int batch){
+        proxies[batch].setMaterial(!showIntersections ? proxyMaterials[batch] :
+                batchIntersected[batch] > 0 ? INTERSECTED_PROXY : FREE_PROXY);
+    }
+
+    private void updateTexCoord(int obstacle){
+        int s = slot[obstacle];
+        int batch = batch(s);
+        setTexCoord(obstacle);
+        meshes[batch].getTexCoords().set((s - batchFirst[batch]) * 2, texCoord, 0, 2);
+        if(lines[obstacle] != null)
+            ((TriangleMesh) lines[obstacle].getMesh()).getTexCoords().set(0, texCoord, 0, 2);
+    }
+
+    private float[] texCoords(int batch){
+        float[] coordinates = new float[(batchFirst[batch + 1] - batchFirst[batch]) * 2];
+        for(int s = batchFirst[batch]; s < batchFirst[batch + 1]; ++s)
+            setTexCoord(order[s], coordinates, (s - batchFirst[batch]) * 2);
+        return coordinates;
+    }
+
+    private void setTexCoord(int obstacle){
+        setTexCoord(obstacle, texCoord, 0);
+    }
+
+    // texture coordinates of texel center for current color of obstacle
+    private void setTexCoord(int obstacle, float[] coordinates, int offset){
+        int texel = !showIntersections ? FIRST_OBSTACLE_TEXEL + obstacle :
+                intersected[obstacle] ? INTERSECTED_TEXEL : FREE_TEXEL;
+        coordinates[offset] = (texel % atlasSide + 0.5f) / atlasSide;
+        coordinates[offset + 1] = (texel / atlasSide + 0.5f) / atlasSide;
+    }
+
+    // batch of slot
+    private int batch(int s){
+        int low = 0;
+        int high = meshes.length - 1;
+        while(low < high){
+            int mid = (low + high + 1) >>> 1;
+            if(batchFirst[mid] <= s)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    private int faceEnd(int batch, int s){
+        return s + 1 < batchFirst[batch + 1] ? firstFace[s + 1] : faces[batch].length / 6;
+    }
+}
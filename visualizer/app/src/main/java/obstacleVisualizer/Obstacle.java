@@ -0,0 +1,165 @@
+package obstacleVisualizer;
+
+import geometry.CSpaceGeometry;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point3D;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Material;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.*;
+import javafx.scene.transform.Translate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class for description 3D obstacle in space.
+ * Represents a Shape3D with custom Mesh and Material.
+ * Intersections are checked against scene-wide {@link geometry.TriangleBvh}.
+ */
+public class Obstacle extends Shape3D {
+    private TriangleMesh mesh;
+    private Material material;
+    private MeshView meshView;
+    private float[] points;
+    private int[] facets;
+
+    /**
+     * Default constructor for obstacle creation.
+     * Create mesh by points and facets and set
+     * filled material yellow color.
+     * @param points packed x, y, z coordinates of obstacle vertices
+     * @param facets three vertex indices of each facet
+     */
+    Obstacle(float[] points, int[] facets){
+        this(points, facets, new PhongMaterial(Color.YELLOW));
+    }
+
+    /**
+     * Constructor for obstacle creation defined material by argument
+     * @param points packed x, y, z coordinates of obstacle vertices
+     * @param facets three vertex indices of each facet
+     * @param material material to apply for created obstacle
+     */
+    Obstacle(float[] points, int[] facets, Material material){
+        this.points = points;
+        this.facets = facets;
+        mesh = createMesh(points, facets);
+        this.material = material;
+        meshView = new MeshView(mesh);
+        meshView.setMaterial(material);
+
+    }
+
+    /**
+     * Constructor for obstacle creation from mesh of c-space geometry
+     * @param mesh obstacle mesh, see {@link CSpaceGeometry#getMesh(int)}
+     * @param material material to apply for created obstacle
+     */
+    Obstacle(CSpaceGeometry.Mesh mesh, Material material){
+        this(mesh.getPoints(), mesh.getFaces(), material);
+    }
+
+    /**
+     * Return MeshView object, used to add it on 3D scene.
+     * @return {@link MeshView} of created obstacle mesh
+     */
+    public MeshView getMeshView(){
+        return meshView;
+    }
+
+    /**
+     * Create mesh, defined by faces and points.
+     * Don't use texture coordinates
+     * @param points packed point coordinates for mesh creation
+     * @param facets three point indices of each face for mesh creation
+     * @return created {@link TriangleMesh}
+     */
+    TriangleMesh createMesh(float[] points, int[] facets){
+        TriangleMesh mesh = new TriangleMesh();
+        mesh.getPoints().addAll(points);
+
+        // single texture coordinate, all faces refer to it
+        mesh.getTexCoords().addAll(0.0f, 0.0f);
+        int faces[] = new int [facets.length * 2];
+
+        for(int i = 0; i < facets.length; ++i){
+            // point position
+            faces[i * 2] = facets[i];
+            // texture
+            faces[i * 2 + 1] = 0;
+        }
+
+       mesh.getFaces().addAll(faces);
+       return mesh;
+       }
+
+    /**
+     * Return obstacle facets
+     * @return three vertex indices of each facet
+     */
+    public int[] getFacets(){
+        return facets;
+    }
+
+    /**
+     * Return obstacle points
+     * @return packed x, y, z coordinates
+     */
+    public float[] getPoints(){
+        return points;
+    }
+
+    /**
+     * Return list of Points, represents normals for each of obstacle face
+     * @return List of {@link Point3D}
+     */
+    public List<Point3D> getNormals(){
+        List<Point3D> normals = new ArrayList<>();
+        //for(int f = 0; f < facets.length; f += 3){
+        int f = 3;
+            Point3D first = point(facets[f]);
+            Point3D secondMinusFirst = point(facets[f + 1]).subtract(first);
+            Point3D thirdMinusFirst = point(facets[f + 2]).subtract(first);
+            normals.add(secondMinusFirst.crossProduct(thirdMinusFirst));
+        //}
+        return normals;
+    }
+
+    private Point3D point(int index){
+        return new Point3D(points[index * 3], points[index * 3 + 1], points[index * 3 + 2]);
+    }
+
+    /**
+     * Return rectangular bound box in local coordinates, represented simple obstacle bounds.
+     * Use min and max points for each of coordinates to build bound box
+     * @return {@link Bounds}
+     */
+    public Bounds getMeshBoundsInLocal(){
+        return meshView.getBoundsInLocal();
+    }
+
+    /**
+     * Return rectangular bound box in global coordinates, represented simple obstacle bounds.
+     * Use min and max points for each of coordinates to build bound box
+     * @return {@link Bounds}
+     */
+    public Bounds getMeshBoundsInGlobal(){
+       return meshView.localToScene(getMeshBoundsInLocal());
+    }
+
+    /**
+     * Return {@link Box} 3D object for obstacle bound box visualization.
+     * Returned box drawn with line drawn mode and blueviolet color
+     * @return obstacle bound box
+     */
+    public Box getBoundBox(){
+        Bounds global = getMeshBoundsInGlobal();
+        Box box = new Box(global.getWidth(),global.getHeight(),global.getDepth());
+        box.setDrawMode(DrawMode.LINE);
+        box.setMaterial(new PhongMaterial(Color.BLUEVIOLET));
+        box.getTransforms().add(new Translate(global.getMinX() + global.getWidth() / 2d,
+                global.getMinY() + global.getHeight() / 2d, global.getMinZ() + global.getDepth() / 2d));
+        return box;
+    }
+}
@@ -0,0 +1,815 @@
+package obstacleVisualizer;
+
+import geometry.BinaryCSpace;
+import geometry.CSpaceGeometry;
+import geometry.ContainmentGrid;
+import geometry.TriangleBvh;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.geometry.Point3D;
+import javafx.scene.*;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.PickResult;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Material;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Cylinder;
+import javafx.scene.shape.DrawMode;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.Sphere;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Translate;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import json.pojo.Path;
+import json.pojo.Point;
+import json.stream.Jackson;
+import metrics.Metrics;
+import metrics.SceneBuildEvent;
+import pathValidator.IncrementalValidator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.FutureTask;
+/**
+ * Main class for obstacle visualizer
+ * Represent scene with 3D scene and toolbar with controls
+ *
+ * @author      Vladislav Khakin
+ * @version     %I%, %G%
+ * @since       1.0
+ */
+
+public class ObstacleVisualizer extends Application {
+
+    private static final double SHIFT_MULTIPLIER = 30.0;
+    private static final double ROTATION_SPEED = 0.1;
+    private static final float CYLINDER_RADIUS = 0.02f;
+    // obstacles are merged into few meshes from this count, unless -merged or -separate option is given
+    private static final int MERGE_THRESHOLD = 1000;
+    // path is drawn by single mesh from this count of points
+    private static final int PATH_MESH_THRESHOLD = 1000;
+    // number of nodes added to scene at once while c-space is loaded
+    private static final int ATTACH_CHUNK = 256;
+    private static final Material INTERSECTED_COLOR = new PhongMaterial(Color.RED);
+    private static final Material FREE_COLOR = new PhongMaterial(Color.WHITE);
+
+    final private Group root = new Group();
+    final private XForm world = new XForm();
+
+    private double mousePosX;
+    private double mousePosY;
+    private double mouseOldX;
+    private double mouseOldY;
+
+
+    private double dx;
+    private double dy;
+
+    private Camera camera = new Camera();
+    private List<Node> pathNodes;
+    private List<Node> obstacles;
+    private List<Node> points;
+    private List<Node> bounds;
+    private List<Node> objects;
+    private List<Point> pathPoints;
+    private TriangleBvh bvh;
+    private ContainmentGrid containment;
+    private String endpointError;
+    private MergedObstacles mergedObstacles;
+    private PathMesh pathMesh;
+    private SceneCuller culler;
+    private IncrementalValidator validator;
+    // index of path point dragged by mouse or -1
+    private int draggedPoint = -1;
+    private SubScene subScene;
+    private Map<Node, Material> defaultColors = new HashMap<>();
+    private Map<Node, Material> errorColors = new HashMap<>();
+
+    private ToolBar toolBar;
+    private Button pathButton;
+    private Button clearButton;
+    private Button saveButton;
+    private CheckBox showErrorState;
+    private Label errorLabel;
+    private ProgressBar loadProgress;
+    private Label loadLabel;
+
+
+    /**
+     * add created {@link Camera} object to scene
+     */
+    private void buildCamera() {
+        root.getChildren().add(camera.getXForm());
+        //cameraXform.setPivot(100,100,100);
+    }
+
+    /**
+     * Create mouse handlers
+     * @param scene
+     */
+    private void handleMouse(SubScene scene){
+
+        scene.setOnMousePressed(event -> {
+            mousePosX = event.getSceneX();
+            mousePosY = event.getSceneY();
+            PickResult pick = event.getPickResult();
+            // picking up path point starts its dragging,
+            // picking up obstacle and changed draw mode to opposite
+            if(pick != null) {
+                Node pickedNode = pick.getIntersectedNode();
+                int pickedObstacle = mergedObstacles != null ? mergedObstacles.getObstacle(pick) : -1;
+                int pickedPoint = pathMesh != null ? pathMesh.getPoint(pick) : -1;
+                if(pickedNode instanceof Sphere && pickedNode.getUserData() instanceof Integer && validator != null)
+                    draggedPoint = (Integer) pickedNode.getUserData();
+                else if(pickedPoint >= 0 && validator != null)
+                    draggedPoint = pickedPoint;
+                else if(pickedObstacle >= 0)
+                    mergedObstacles.toggleDrawMode(pickedObstacle);
+                else if(pickedNode instanceof MeshView){
+                    MeshView pickedMeshView = (MeshView) pickedNode;
+                    if(pickedMeshView.getDrawMode() == DrawMode.FILL)
+                        pickedMeshView.setDrawMode(DrawMode.LINE);
+                    else if(pickedMeshView.getDrawMode() == DrawMode.LINE)
+                        pickedMeshView.setDrawMode(DrawMode.FILL);
+                }
+            }
+        });
+
+        scene.setOnMouseDragged(event -> {
+            mouseOldX = mousePosX;
+            mouseOldY = mousePosY;
+            mousePosX = event.getSceneX();
+            mousePosY = event.getSceneY();
+            dx = mousePosX - mouseOldX;
+            dy = mousePosY - mouseOldY;
+
+            if(draggedPoint >= 0){
+                dragPoint(dx, dy);
+                return;
+            }
+            camera.rotateX(dy * ROTATION_SPEED);
+            camera.rotateY(dx * ROTATION_SPEED);
+        });
+
+        scene.setOnMouseReleased(event -> draggedPoint = -1);
+
+    }
+
+    /**
+     * Create keyboard handlers
+     * @param scene
+     */
+    private void handleKeyboard(Scene scene) {
+        scene.setOnKeyPressed(event -> {
+            if(!event.isShiftDown()) {
+                switch (event.getCode()) {
+                    case W:
+                        camera.moveForward();
+                        break;
+                    case S:
+                        camera.moveBackward();
+                        break;
+                    case A:
+                        camera.moveLeft();
+                        break;
+                    case D:
+                        camera.moveRight();
+                        break;
+                    case SPACE:
+                        camera.moveUp();
+                        break;
+                    case CONTROL:
+                        camera.moveDown();
+                        break;
+                    case ESCAPE:
+                        System.exit(0);
+                        break;
+                }
+            }
+            else if(event.isShiftDown()){
+
+                if(event.isShiftDown() && event.getCode() == KeyCode.W){
+                    camera.moveForward(SHIFT_MULTIPLIER);
+                }
+                else if(event.isShiftDown() && event.getCode() == KeyCode.S){
+                    camera.moveBackward(SHIFT_MULTIPLIER);
+                }
+                else if(event.isShiftDown() && event.getCode() == KeyCode.A){
+                    camera.moveLeft(SHIFT_MULTIPLIER);
+                }
+                else if(event.isShiftDown() && event.getCode() == KeyCode.D){
+                    camera.moveRight(SHIFT_MULTIPLIER);
+                }
+                else if(event.isShiftDown() && event.getCode() == KeyCode.SPACE){
+                    camera.moveUp(SHIFT_MULTIPLIER);
+                }
+                else if(event.isShiftDown() && event.getCode() == KeyCode.CONTROL){
+                    camera.moveDown(20);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Set 3D subscene params and load entered json file with field in background thread.
+     * File is parsed and obstacle meshes are built by {@link CSpaceParser}, then nodes are added
+     * to scene in chunks of {@link #ATTACH_CHUNK} nodes, so window stays responsive
+     * and toolbar shows loading progress.
+     * If file has wrong format, show error message and close application.
+     * @param selectedFile loaded file with field
+     * @param subScene created subscene
+     * @param mergeThreshold min obstacle count for {@link MergedObstacles}
+     */
+    private void build3DSubscene(File selectedFile, SubScene subScene, int mergeThreshold){
+
+        root.getChildren().add(world);
+        root.setDepthTest(DepthTest.ENABLE);
+        subScene.setFill(Color.color(0.3, 0.4, 0.6));
+        if(selectedFile == null)
+            System.exit(0);
+        CSpaceParser cSpaceParser = new CSpaceParser();
+        cSpaceParser.setMergeThreshold(mergeThreshold);
+        ContainmentGrid[] grid = new ContainmentGrid[1];
+        Task<TriangleBvh> task = new Task<TriangleBvh>() {
+            @Override
+            protected TriangleBvh call() throws Exception {
+                SceneBuildEvent event = new SceneBuildEvent();
+                event.begin();
+                cSpaceParser.parse(selectedFile, new CSpaceParser.ProgressListener() {
+                    @Override
+                    public void bytesRead(long bytes, long total) {
+                        updateMessage(String.format("Чтение файла: %d из %d КБ", bytes / 1024, total / 1024));
+                        updateProgress(bytes, total);
+                    }
+
+                    @Override
+                    public void obstaclesBuilt(int obstacles, int total) {
+                        updateMessage(String.format("Построение препятствий: %d из %d", obstacles, total));
+                        updateProgress(obstacles, total);
+                    }
+                });
+                CSpaceGeometry geometry = cSpaceParser.getGeometry();
+                TriangleBvh hierarchy = new TriangleBvh(geometry.getStore(), cSpaceParser.getShapes());
+                updateMessage("Классификация пространства");
+                grid[0] = new ContainmentGrid(geometry, hierarchy, ContainmentGrid.getResolution(geometry.getStore()));
+
+                List<Node> nodes = new ArrayList<>();
+                for(Node o: cSpaceParser.getObstacles())
+                    nodes.add(((Obstacle) o).getMeshView());
+                if(cSpaceParser.getMergedObstacles() != null)
+                    nodes.add(cSpaceParser.getMergedObstacles().getRoot());
+                nodes.addAll(cSpaceParser.getPoints());
+                nodes.addAll(cSpaceParser.getVertices());
+                for(int i = 0; i < nodes.size(); i += ATTACH_CHUNK){
+                    List<Node> chunk = nodes.subList(i, Math.min(nodes.size(), i + ATTACH_CHUNK));
+                    // next chunk is sent after the previous one is added, so frames are drawn between chunks
+                    FutureTask<Void> attach = new FutureTask<>(() -> world.getChildren().addAll(chunk), null);
+                    Platform.runLater(attach);
+                    attach.get();
+                    int attached = i + chunk.size();
+                    updateMessage(String.format("Добавление на сцену: %d из %d", attached, nodes.size()));
+                    updateProgress(attached, nodes.size());
+                }
+                event.end();
+                if(event.shouldCommit()){
+                    event.source = selectedFile.getPath();
+                    event.obstacles = geometry.getStore().getObstacleCount();
+                    event.nodes = nodes.size();
+                    event.merged = cSpaceParser.getMergedObstacles() != null;
+                    event.commit();
+                }
+                return hierarchy;
+            }
+        };
+        task.setOnSucceeded(event -> {
+            obstacles = cSpaceParser.getObstacles();
+            mergedObstacles = cSpaceParser.getMergedObstacles();
+            obstacles.forEach(o->{defaultColors.put(o,((Obstacle) o).getMeshView().getMaterial());});
+            points = cSpaceParser.getPoints();
+            bounds = cSpaceParser.getVertices();
+            bvh = task.getValue();
+            containment = grid[0];
+            checkEndpoints(cSpaceParser.getGeometry());
+            objects = new ArrayList<>();
+            objects.addAll(obstacles);
+            objects.addAll(points);
+            objects.addAll(bounds);
+            buildCuller();
+            loadProgress.progressProperty().unbind();
+            loadLabel.textProperty().unbind();
+            toolBar.getItems().removeAll(loadProgress, loadLabel);
+            pathButton.setDisable(false);
+        });
+        task.setOnFailed(event -> {
+            Throwable error = task.getException();
+            error.printStackTrace();
+            Alert errorDialog = new Alert(Alert.AlertType.ERROR);
+            errorDialog.setTitle("Ошибка");
+            errorDialog.setHeaderText("Неверный формат файла");
+            // exceptions without message are shown by class name
+            errorDialog.setContentText(error.getMessage() != null ? error.getMessage() : error.toString());
+            errorDialog.showAndWait();
+            System.exit(-1);
+        });
+        loadProgress.progressProperty().bind(task.progressProperty());
+        loadLabel.textProperty().bind(task.messageProperty());
+        Thread loader = new Thread(task, "c-space-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Check c-space start and finish points with {@link ContainmentGrid},
+     * show error if any of them lies inside obstacle
+     * @param geometry loaded c-space geometry
+     */
+    private void checkEndpoints(CSpaceGeometry geometry){
+        float[] start = geometry.getStart();
+        float[] finish = geometry.getFinish();
+        int[] inside = containment.getObstacles(new float[]{start[0], start[1], start[2], finish[0], finish[1], finish[2]});
+        List<String> errors = new ArrayList<>();
+        if(inside[0] != ContainmentGrid.OUTSIDE)
+            errors.add("старт внутри препятствия " + inside[0]);
+        if(inside[1] != ContainmentGrid.OUTSIDE)
+            errors.add("финиш внутри препятствия " + inside[1]);
+        endpointError = errors.isEmpty() ? null : "Ошибка: " + String.join(", ", errors);
+        if(endpointError != null)
+            showEndpointError();
+    }
+
+    private void showEndpointError(){
+        errorLabel.setDisable(false);
+        errorLabel.setText(endpointError);
+        errorLabel.setTextFill(Color.RED);
+    }
+
+    /**
+     * Create {@link SceneCuller} for loaded obstacles:
+     * cells are batches of merged obstacles or separate obstacles
+     */
+    private void buildCuller(){
+        if(mergedObstacles != null){
+            int batches = mergedObstacles.getBatchCount();
+            Node[] details = new Node[batches];
+            Node[] proxies = new Node[batches];
+            for(int b = 0; b < batches; ++b){
+                details[b] = mergedObstacles.getBatchView(b);
+                proxies[b] = mergedObstacles.getBatchProxy(b);
+            }
+            culler = new SceneCuller(details, proxies, mergedObstacles.getBatchBounds());
+        }
+        else {
+            Node[] details = new Node[obstacles.size()];
+            for(int o = 0; o < details.length; ++o)
+                details[o] = ((Obstacle) obstacles.get(o)).getMeshView();
+            culler = new SceneCuller(details, null, bvh.getStore().getObstacleBounds());
+        }
+    }
+
+    /**
+     * Show result of path validation on intersections with obstacles.
+     * Segments and points inside obstacles are checked by {@link IncrementalValidator},
+     * which keeps results for later edits of path points.
+     * Change color of intersected obstacle to red.
+     * @param pathValidator - validator of loaded path
+     */
+    private void validatePath(IncrementalValidator pathValidator) {
+        validator = pathValidator;
+        for(int o = 0; o < bvh.getStore().getObstacleCount(); ++o)
+            updateErrorColor(o);
+        updateErrorLabel();
+    }
+
+    /**
+     * Set error color of obstacle by its intersection state,
+     * material is applied at once if intersections are shown
+     * @param obstacle index of obstacle
+     */
+    private void updateErrorColor(int obstacle){
+        if(mergedObstacles != null){
+            mergedObstacles.setIntersected(obstacle, validator.isIntersected(obstacle));
+            return;
+        }
+        Node n = obstacles.get(obstacle);
+        Material m = validator.isIntersected(obstacle) ? INTERSECTED_COLOR : FREE_COLOR;
+        errorColors.put(n, m);
+        if(showErrorState.isSelected())
+            ((Obstacle) n).getMeshView().setMaterial(m);
+    }
+
+    private void updateErrorLabel(){
+        int intersections = validator.getIntersectedCount();
+        if(intersections != 0){
+            errorLabel.setDisable(false);
+            errorLabel.setText("Ошибка.Обнаружено пересечений с препятствием: " + intersections +
+                    (endpointError != null ? ". " + endpointError : ""));
+            errorLabel.setTextFill(Color.RED);
+            showErrorState.setDisable(false);
+        }
+        else if(endpointError != null)
+            showEndpointError();
+        else if(!errorLabel.isDisabled()){
+            errorLabel.setText("Пересечений с препятствиями нет");
+            errorLabel.setTextFill(Color.GREEN);
+        }
+    }
+
+    /**
+     * Move dragged path point in plane parallel to screen, so point follows mouse cursor
+     * @param dx mouse movement along screen x in pixels
+     * @param dy mouse movement along screen y in pixels
+     */
+    private void dragPoint(double dx, double dy){
+        javafx.scene.Camera view = camera.getCamera();
+        Point3D eye = world.sceneToLocal(view.localToScene(0, 0, 0));
+        Point3D right = world.sceneToLocal(view.localToScene(1, 0, 0)).subtract(eye).normalize();
+        Point3D down = world.sceneToLocal(view.localToScene(0, 1, 0)).subtract(eye).normalize();
+        Point3D forward = world.sceneToLocal(view.localToScene(0, 0, 1)).subtract(eye).normalize();
+        Point3D position = createPoint3D(pathPoints.get(draggedPoint));
+        double depth = position.subtract(eye).dotProduct(forward);
+        // scene units per pixel at depth of point
+        double scale = depth / focalLength();
+        Point3D moved = position.add(right.multiply(dx * scale)).add(down.multiply(dy * scale));
+        movePoint(draggedPoint, new Point((float) moved.getX(), (float) moved.getY(), (float) moved.getZ()));
+    }
+
+    /**
+     * Return distance from camera to screen plane in pixels
+     * @return focal length of camera for current subscene height
+     */
+    private double focalLength(){
+        PerspectiveCamera view = (PerspectiveCamera) camera.getCamera();
+        return subScene.getHeight() / (2.0 * Math.tan(Math.toRadians(view.getFieldOfView() / 2.0)));
+    }
+
+    /**
+     * Move path point. Sphere of point and two adjacent lines are moved without node creation,
+     * only two adjacent segments are re-validated and only obstacles, which changed
+     * intersection state, change color
+     * @param index index of path point
+     * @param p new point position
+     */
+    private void movePoint(int index, Point p){
+        pathPoints.set(index, p);
+        if(pathMesh != null)
+            pathMesh.move(index, p.x(), p.y(), p.z());
+        else {
+            pathNodes.get(index * 2).getTransforms().setAll(new Translate(p.x(), p.y(), p.z()));
+            if(index > 0)
+                placeLine((Cylinder) pathNodes.get(index * 2 - 1), pathPoints.get(index - 1), p);
+            if(index < pathPoints.size() - 1)
+                placeLine((Cylinder) pathNodes.get(index * 2 + 1), p, pathPoints.get(index + 1));
+        }
+        for(int o: validator.move(index, p.x(), p.y(), p.z()))
+            updateErrorColor(o);
+        updateErrorLabel();
+    }
+
+    /**
+     * Save edited path to json file.
+     * Show error message if file can't be written
+     * @param file target file
+     */
+    private void savePath(File file){
+        try {
+            Jackson.MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, new Path(new ArrayList<>(pathPoints)));
+        }
+        catch (IOException e){
+            System.err.print(e.getMessage());
+            Alert errorDialog = new Alert(Alert.AlertType.ERROR);
+            errorDialog.setTitle("Ошибка");
+            errorDialog.setHeaderText("Не удалось сохранить путь");
+            errorDialog.setContentText(e.getMessage());
+            errorDialog.showAndWait();
+        }
+    }
+
+    /**
+     * Build path for visualization.
+     * Path file is parsed, path nodes are built and path is validated on intersections
+     * with obstacles in background thread, so long paths don't freeze window.
+     * Nodes are added to scene on the FX thread after loading.
+     * Show error message on parse exception.
+     * @param file path file to parse
+     */
+    private void buildPath(File file){
+        PathParser pathParser = new PathParser();
+        pathParser.setMeshThreshold(PATH_MESH_THRESHOLD);
+        Task<IncrementalValidator> task = new Task<IncrementalValidator>() {
+            @Override
+            protected IncrementalValidator call() {
+                pathParser.parse(file);
+                return new IncrementalValidator(bvh, containment, CSpaceGeometry.pack(pathParser.getPoints()));
+            }
+        };
+        task.setOnSucceeded(event -> {
+            pathNodes = pathParser.getNodes();
+            pathPoints = pathParser.getPoints();
+            pathMesh = pathParser.getMesh();
+            validatePath(task.getValue());
+            world.getChildren().addAll(pathNodes);
+            clearButton.setDisable(false);
+            saveButton.setDisable(false);
+        });
+        task.setOnFailed(event -> {
+            System.err.print(task.getException().getMessage());
+            Alert errorDialog = new Alert(Alert.AlertType.ERROR);
+            errorDialog.setTitle("Ошибка");
+            errorDialog.setHeaderText("Неверный формат файла");
+            errorDialog.setContentText(task.getException().getMessage());
+            errorDialog.showAndWait();
+            pathButton.setDisable(false);
+        });
+        Thread loader = new Thread(task, "path-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Build toolbar panel with number of buttons and other controls.
+     * Set handler for button and checkbox presses
+     * @param pane - pane on which toolbar will be added
+     * @param stage - main application stage
+     */
+    private void buildToolbar(BorderPane pane, Stage stage){
+        pathButton = new Button("Проверить путь");
+        pathButton.setFocusTraversable(false);
+        // enabled when c-space is loaded
+        pathButton.setDisable(true);
+        loadProgress = new ProgressBar();
+        loadLabel = new Label();
+        clearButton = new Button("Очистить путь");
+        clearButton.setDisable(true);
+        clearButton.setFocusTraversable(false);
+        showErrorState = new CheckBox("Показать пересечения");
+        showErrorState.setDisable(true);
+        showErrorState.setFocusTraversable(false);
+        saveButton = new Button("Сохранить путь");
+        saveButton.setDisable(true);
+        saveButton.setFocusTraversable(false);
+        errorLabel = new Label("Ошибка! Обнаружено");
+        errorLabel.setDisable(true);
+        pathButton.setOnMousePressed(event -> {
+            try {
+                FileChooser fileChooser = new FileChooser();
+                fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
+                fileChooser.setTitle("Open Path File");
+                fileChooser.getExtensionFilters().addAll(
+                        new FileChooser.ExtensionFilter("Json files", "*.json"),
+                        new FileChooser.ExtensionFilter("All Files", "*.*"));
+                File selectedFile = fileChooser.showOpenDialog(stage);
+                if(selectedFile != null){
+                    pathButton.setDisable(true);
+                    buildPath(selectedFile);
+                }
+            }
+            catch (Exception e) {
+                System.err.print(e.getMessage());
+                System.exit(-1);
+            }
+        });
+        clearButton.setOnMousePressed(event -> {
+            try {
+                if (!pathNodes.isEmpty()) {
+                    for (Node n : pathNodes) {
+                        ObservableList<Node> worldElems = world.getChildren();
+                        if (worldElems.contains(n)) {
+                            worldElems.remove(n);
+                        }
+                    }
+                    pathPoints.clear();
+                    pathNodes.clear();
+                }
+                validator = null;
+                pathMesh = null;
+                draggedPoint = -1;
+                pathButton.setDisable(false);
+                clearButton.setDisable(true);
+                saveButton.setDisable(true);
+                showErrorState.setDisable(true);
+                showErrorState.setSelected(false);
+                errorLabel.setDisable(true);
+                if(endpointError != null)
+                    showEndpointError();
+                if(mergedObstacles != null)
+                    mergedObstacles.clearIntersections();
+                else
+                    obstacles.forEach(o->{((Obstacle) o).getMeshView().setMaterial(defaultColors.get(o));});
+            }
+            catch (Exception e) {
+                System.err.print(e.getMessage());
+                throw new NoSuchElementException(e.getMessage());
+            }
+        });
+        saveButton.setOnMousePressed(event -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
+            fileChooser.setTitle("Save Path File");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Json files", "*.json"));
+            File selectedFile = fileChooser.showSaveDialog(stage);
+            if(selectedFile != null)
+                savePath(selectedFile);
+        });
+        showErrorState.selectedProperty().addListener(new ChangeListener<Boolean>() {
+            public void changed(ObservableValue<? extends Boolean> ov,
+                                Boolean old_val, Boolean new_val) {
+                    if(mergedObstacles != null)
+                        mergedObstacles.setShowIntersections(new_val);
+                    else if(new_val){
+                        obstacles.forEach(elem->{
+                                ((Obstacle) elem).getMeshView().setMaterial(errorColors.get(elem));
+                        });
+                    }
+                    else
+                        obstacles.forEach(elem->{
+                                ((Obstacle) elem).getMeshView().setMaterial(defaultColors.get(elem));
+                        });
+            }
+
+            });
+        toolBar = new ToolBar(pathButton);
+        toolBar.getItems().add(clearButton);
+        toolBar.getItems().add(saveButton);
+        toolBar.getItems().add(showErrorState);
+        toolBar.getItems().add(errorLabel);
+        toolBar.getItems().add(loadProgress);
+        toolBar.getItems().add(loadLabel);
+        pane.setTop(toolBar);
+    }
+
+    /**
+     * Init application loading and file chooser for loading field.
+     * Build subscene, camera, toolbar and create keyboard and mouse handlers
+     * @param primaryStage internal javafx param
+     */
+        @Override
+        public void start(Stage primaryStage) {
+
+        /*
+        Parameters params = getParameters();
+        String argumentName = "";
+        if(params != null) {
+            List<String> list = params.getRaw();
+            if (list.size() != 0)
+                argumentName = list.get(0);
+        }
+        File selectedFile = new File("./"+argumentName);
+        if(selectedFile == null) {
+        */
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
+            fileChooser.setTitle("Open Resource File");
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("Json files", "*.json"),
+                    new FileChooser.ExtensionFilter("STL files", "*.stl"),
+                    new FileChooser.ExtensionFilter("Binary c-space", "*" + BinaryCSpace.EXTENSION),
+                    new FileChooser.ExtensionFilter("All Files", "*.*"));
+            File selectedFile = fileChooser.showOpenDialog(primaryStage);
+            //}
+
+            List<String> options = getParameters().getRaw();
+            int mergeThreshold = options.contains("-merged") ? 0 :
+                    options.contains("-separate") ? Integer.MAX_VALUE : MERGE_THRESHOLD;
+            subScene = new SubScene(root, 1024, 768, true, SceneAntialiasing.BALANCED);
+
+            try {
+                BorderPane pane = new BorderPane();
+                pane.setPrefHeight(300);
+                pane.setCenter(subScene);
+                buildToolbar(pane, primaryStage);
+                Scene scene = new Scene(pane);
+
+                buildCamera();
+                handleKeyboard(scene);
+                handleMouse(subScene);
+                // visible obstacles and path level of detail follow camera
+                new AnimationTimer() {
+                    @Override
+                    public void handle(long now) {
+                        if(culler != null)
+                            culler.update(camera, world, subScene.getWidth(), subScene.getHeight(), world.getBoundsInLocal());
+                        if(pathMesh != null)
+                            pathMesh.update(world.sceneToLocal(camera.getCamera().localToScene(0, 0, 0)), focalLength());
+                    }
+                }.start();
+
+                subScene.setCamera(camera.getCamera());
+
+                primaryStage.setScene(scene);
+                primaryStage.show();
+                // window is shown before loading, so the first frame doesn't wait for scene
+                build3DSubscene(selectedFile, subScene, mergeThreshold);
+            }
+            catch (Exception e){
+                System.exit(-1);
+            }
+        }
+    /**
+     * Special helper method for {@link Point3D} creation from parsed {@link Point}.
+     * Kept here so that json.pojo classes don't depend on JavaFX
+     * @param p - parsed point
+     * @return new Point3D with same coordinates
+     */
+    public static Point3D createPoint3D(Point p){
+        return new Point3D(p.x(), p.y(), p.z());
+    }
+
+    /**
+     * Special helper method for sphere creation.
+     * Create {@link Sphere} with center in point and defined radius and color
+     * @param p1 - first point
+     * @param radius - radius of created sphere
+     * @param color - color of created line
+     * @return created {@link Sphere}
+     */
+    public static Node createSphere(Point p1, float radius, Color color){
+        return createSphere(p1.x(), p1.y(), p1.z(), radius, color);
+    }
+
+    /**
+     * Special helper method for sphere creation.
+     * Create {@link Sphere} with center in point and defined radius and color
+     * @param x - x coordinate of center
+     * @param y - y coordinate of center
+     * @param z - z coordinate of center
+     * @param radius - radius of created sphere
+     * @param color - color of created sphere
+     * @return created {@link Sphere}
+     */
+    public static Node createSphere(double x, double y, double z, float radius, Color color){
+        Sphere sphere = new Sphere(radius);
+        sphere.getTransforms().add(new Translate(x, y, z));
+        PhongMaterial material = new PhongMaterial(color);
+        material.setSpecularColor(Color.WHITE);
+        sphere.setMaterial(material);
+        return sphere;
+    }
+
+    /**
+     * Special helper method for line creation.
+     * Create {@link Cylinder} between two point with defined color.
+     * @param p1 - first point
+     * @param p2 - second point
+     * @param color - color of created line
+     * @return created {@link Cylinder}
+     */
+    public static Node createLine(Point p1, Point p2, Color color){
+        Cylinder cylinder = new Cylinder(CYLINDER_RADIUS, 0.0);
+        placeLine(cylinder, p1, p2);
+
+        PhongMaterial material = new PhongMaterial(color);
+        material.setSpecularColor(Color.WHITE);
+        cylinder.setMaterial(material);
+        return cylinder;
+    }
+
+    /**
+     * Special helper method for line placement.
+     * Set height and transforms of {@link Cylinder} created by {@link #createLine},
+     * so it connects two points. Used to move lines without node creation
+     * @param cylinder - line to place
+     * @param p1 - first point
+     * @param p2 - second point
+     */
+    public static void placeLine(Cylinder cylinder, Point p1, Point p2){
+        Point3D yAxis = new Point3D(0.0,1.0,0.0);
+        Point3D origin = new Point3D(p1.x(), p1.y(), p1.z());
+        Point3D target = new Point3D(p2.x(), p2.y(), p2.z());
+
+        Point3D diff = target.subtract(origin);
+        double height = diff.magnitude();
+
+        Point3D mid = target.midpoint(origin);
+        Translate moveToMidpoint = new Translate(mid.getX(), mid.getY(), mid.getZ());
+
+        Point3D axisOfRotation = diff.crossProduct(yAxis);
+        double angle = Math.acos(diff.normalize().dotProduct(yAxis));
+        Rotate rotateAroundCenter = new Rotate(-Math.toDegrees(angle), axisOfRotation);
+
+        cylinder.setHeight(Math.max(0.0, height - CYLINDER_RADIUS));
+        cylinder.getTransforms().setAll(moveToMidpoint, rotateAroundCenter);
+    }
+
+        /**
+         * The main() method is ignored in correctly deployed JavaFX application.
+         * main() serves only as fallback in case the application can not be
+         * launched through deployment artifacts, e.g., in IDEs with limited FX
+         * support. NetBeans ignores main().
+         *
+         * @param args the command line arguments
+         */
+    public static void main(String[] args) {
+        Metrics.start();
+        launch(args);
+    }
+}
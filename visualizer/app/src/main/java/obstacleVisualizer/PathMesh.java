@@ -0,0 +1,385 @@
+package obstacleVisualizer;
+
+import javafx.geometry.Point3D;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.input.PickResult;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.transform.Translate;
+
+import java.util.Arrays;
+
+/**
+ * Lightweight rendering of long path.
+ * Instead of {@link javafx.scene.shape.Sphere} and {@link javafx.scene.shape.Cylinder}
+ * for each point and segment, whole polyline is drawn by few {@link TriangleMesh} chunks:
+ * each segment is a triangular prism of 6 points and 6 faces, chunk has at most
+ * {@link #CHUNK_SEGMENTS} segments. Start and finish markers share one mesh and material.
+ * Path is also kept decimated: points closer than tolerance to the previous kept point
+ * are dropped, decimated path is shown instead of full one when its error projects to less
+ * than {@link #MAX_ERROR_PIXELS} on screen.
+ * Meshes can be built off the FX thread, {@link #getRoot()} should be added to scene
+ * on the FX thread.
+ *
+ * @version     %I%, %G%
+ */
+public class PathMesh {
+
+    /**
+     * Max number of segments in one mesh
+     */
+    public static final int CHUNK_SEGMENTS = 1 << 16;
+
+    /**
+     * Max screen error of decimated path in pixels
+     */
+    public static final double MAX_ERROR_PIXELS = 1.0;
+
+    private static final float TUBE_RADIUS = 0.02f;
+    private static final float MARKER_RADIUS = 0.2f;
+    // decimation tolerance relative to diagonal of path bounds
+    private static final float DECIMATION = 1.0f / 2000.0f;
+    private static final int POINTS_PER_SEGMENT = 6;
+    private static final int FACES_PER_SEGMENT = 6;
+    // faces of prism as indices of its points: points 0-2 are section at segment start, 3-5 at end
+    private static final int[] PRISM = {0, 3, 4,  0, 4, 1,  1, 4, 5,  1, 5, 2,  2, 5, 3,  2, 3, 0};
+
+    private float[] points;
+    private Group root = new Group();
+    private Level full;
+    private Level decimated;
+    private float tolerance;
+    private float[] bounds = new float[6];
+    private MeshView[] markers = new MeshView[2];
+    private float[] section = new float[POINTS_PER_SEGMENT * 3];
+
+    /**
+     * Polyline drawn by chunks of one level of detail
+     */
+    private static class Level {
+        // indices of points in path, null for level with all points
+        int[] kept;
+        TriangleMesh[] meshes;
+        MeshView[] views;
+        Group group = new Group();
+
+        int pointCount(float[] points){
+            return kept == null ? points.length / 3 : kept.length;
+        }
+
+        int point(int index){
+            return kept == null ? index : kept[index];
+        }
+    }
+
+    /**
+     * Build path meshes
+     * @param points x, y, z coordinates of each path point, array is copied
+     */
+    public PathMesh(float[] points){
+        this.points = points.clone();
+        computeBounds();
+        float dx = bounds[3] - bounds[0], dy = bounds[4] - bounds[1], dz = bounds[5] - bounds[2];
+        tolerance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz) * DECIMATION;
+
+        PhongMaterial material = new PhongMaterial(Color.LIGHTGREEN);
+        material.setSpecularColor(Color.WHITE);
+        full = buildLevel(null, material);
+        decimated = buildLevel(decimate(), material);
+        decimated.group.setVisible(false);
+        root.getChildren().addAll(full.group, decimated.group);
+
+        int count = this.points.length / 3;
+        if(count > 0){
+            TriangleMesh markerMesh = createMarkerMesh(MARKER_RADIUS);
+            PhongMaterial markerMaterial = new PhongMaterial(Color.YELLOW);
+            markerMaterial.setSpecularColor(Color.WHITE);
+            int[] ends = {0, count - 1};
+            for(int i = 0; i < 2; ++i){
+                markers[i] = new MeshView(markerMesh);
+                markers[i].setMaterial(markerMaterial);
+                markers[i].setCullFace(CullFace.NONE);
+                markers[i].setUserData(ends[i]);
+                markers[i].getTransforms().setAll(new Translate(get(ends[i], 0), get(ends[i], 1), get(ends[i], 2)));
+                root.getChildren().add(markers[i]);
+            }
+        }
+    }
+
+    private void computeBounds(){
+        for(int axis = 0; axis < 3; ++axis){
+            bounds[axis] = Float.POSITIVE_INFINITY;
+            bounds[axis + 3] = Float.NEGATIVE_INFINITY;
+        }
+        for(int i = 0; i < points.length; ++i){
+            bounds[i % 3] = Math.min(bounds[i % 3], points[i]);
+            bounds[i % 3 + 3] = Math.max(bounds[i % 3 + 3], points[i]);
+        }
+    }
+
+    // indices of points not closer than tolerance to the previous kept point, the last point is kept
+    private int[] decimate(){
+        int count = points.length / 3;
+        int[] kept = new int[count];
+        int keptCount = 0;
+        float tolerance2 = tolerance * tolerance;
+        for(int i = 0; i < count; ++i){
+            if(keptCount == 0 || i == count - 1 || distance2(kept[keptCount - 1], i) >= tolerance2)
+                kept[keptCount++] = i;
+        }
+        return Arrays.copyOf(kept, keptCount);
+    }
+
+    private float distance2(int a, int b){
+        float dx = points[a * 3] - points[b * 3];
+        float dy = points[a * 3 + 1] - points[b * 3 + 1];
+        float dz = points[a * 3 + 2] - points[b * 3 + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private Level buildLevel(int[] kept, PhongMaterial material){
+        Level level = new Level();
+        level.kept = kept;
+        int segments = Math.max(0, level.pointCount(points) - 1);
+        int chunks = (segments + CHUNK_SEGMENTS - 1) / CHUNK_SEGMENTS;
+        level.meshes = new TriangleMesh[chunks];
+        level.views = new MeshView[chunks];
+        for(int c = 0; c < chunks; ++c){
+            int first = c * CHUNK_SEGMENTS;
+            int count = Math.min(CHUNK_SEGMENTS, segments - first);
+            float[] chunkPoints = new float[count * POINTS_PER_SEGMENT * 3];
+            int[] faces = new int[count * FACES_PER_SEGMENT * 6];
+            for(int s = 0; s < count; ++s){
+                computeSection(level.point(first + s), level.point(first + s + 1));
+                System.arraycopy(section, 0, chunkPoints, s * section.length, section.length);
+                int base = s * POINTS_PER_SEGMENT;
+                for(int i = 0; i < PRISM.length; ++i)
+                    faces[(s * PRISM.length + i) * 2] = base + PRISM[i];
+            }
+            TriangleMesh mesh = new TriangleMesh();
+            mesh.getPoints().setAll(chunkPoints);
+            mesh.getTexCoords().setAll(0.0f, 0.0f);
+            mesh.getFaces().setAll(faces);
+            MeshView view = new MeshView(mesh);
+            view.setMaterial(material);
+            view.setCullFace(CullFace.NONE);
+            level.meshes[c] = mesh;
+            level.views[c] = view;
+            level.group.getChildren().add(view);
+        }
+        return level;
+    }
+
+    // points of prism around segment from point a to point b
+    private void computeSection(int a, int b){
+        float ax = points[a * 3], ay = points[a * 3 + 1], az = points[a * 3 + 2];
+        float bx = points[b * 3], by = points[b * 3 + 1], bz = points[b * 3 + 2];
+        double dx = bx - ax, dy = by - ay, dz = bz - az;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if(length == 0.0){
+            dx = 1.0;
+            length = 1.0;
+        }
+        dx /= length;
+        dy /= length;
+        dz /= length;
+        // u is perpendicular to direction and to axis least aligned with it, v = d x u
+        double ux, uy, uz;
+        if(Math.abs(dy) < 0.9){
+            ux = -dz;
+            uy = 0.0;
+            uz = dx;
+        }
+        else {
+            ux = 0.0;
+            uy = dz;
+            uz = -dy;
+        }
+        double u = Math.sqrt(ux * ux + uy * uy + uz * uz);
+        ux /= u;
+        uy /= u;
+        uz /= u;
+        double vx = dy * uz - dz * uy, vy = dz * ux - dx * uz, vz = dx * uy - dy * ux;
+        for(int k = 0; k < 3; ++k){
+            double angle = k * 2.0 * Math.PI / 3.0;
+            double cos = Math.cos(angle) * TUBE_RADIUS, sin = Math.sin(angle) * TUBE_RADIUS;
+            float ox = (float) (cos * ux + sin * vx);
+            float oy = (float) (cos * uy + sin * vy);
+            float oz = (float) (cos * uz + sin * vz);
+            section[k * 3] = ax + ox;
+            section[k * 3 + 1] = ay + oy;
+            section[k * 3 + 2] = az + oz;
+            section[9 + k * 3] = bx + ox;
+            section[9 + k * 3 + 1] = by + oy;
+            section[9 + k * 3 + 2] = bz + oz;
+        }
+    }
+
+    /**
+     * Create low polygon sphere mesh for point markers
+     * @param radius radius of sphere
+     * @return sphere mesh, which may be shared by several {@link MeshView}
+     */
+    public static TriangleMesh createMarkerMesh(float radius){
+        final int rings = 6;
+        final int sectors = 8;
+        TriangleMesh mesh = new TriangleMesh();
+        float[] meshPoints = new float[(2 + (rings - 1) * sectors) * 3];
+        meshPoints[1] = -radius;
+        meshPoints[4] = radius;
+        int p = 6;
+        for(int r = 1; r < rings; ++r){
+            double polar = Math.PI * r / rings;
+            for(int s = 0; s < sectors; ++s){
+                double azimuth = 2.0 * Math.PI * s / sectors;
+                meshPoints[p++] = (float) (radius * Math.sin(polar) * Math.cos(azimuth));
+                meshPoints[p++] = (float) (-radius * Math.cos(polar));
+                meshPoints[p++] = (float) (radius * Math.sin(polar) * Math.sin(azimuth));
+            }
+        }
+        int[] faces = new int[sectors * 2 * (rings - 1) * 6];
+        int f = 0;
+        for(int s = 0; s < sectors; ++s){
+            int next = (s + 1) % sectors;
+            // caps
+            f = face(faces, f, 0, 2 + s, 2 + next);
+            f = face(faces, f, 1, 2 + (rings - 2) * sectors + next, 2 + (rings - 2) * sectors + s);
+            for(int r = 0; r < rings - 2; ++r){
+                int a = 2 + r * sectors;
+                int b = a + sectors;
+                f = face(faces, f, a + s, b + s, b + next);
+                f = face(faces, f, a + s, b + next, a + next);
+            }
+        }
+        mesh.getPoints().setAll(meshPoints);
+        mesh.getTexCoords().setAll(0.0f, 0.0f);
+        mesh.getFaces().setAll(faces);
+        return mesh;
+    }
+
+    private static int face(int[] faces, int f, int a, int b, int c){
+        faces[f] = a;
+        faces[f + 2] = b;
+        faces[f + 4] = c;
+        return f + 6;
+    }
+
+    /**
+     * Return node with path meshes and markers to add it on 3D scene
+     * @return group of path nodes
+     */
+    public Group getRoot(){
+        return root;
+    }
+
+    /**
+     * Return number of path points
+     * @return point count
+     */
+    public int getPointCount(){
+        return points.length / 3;
+    }
+
+    /**
+     * Return point coordinate
+     * @param point point index
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return coordinate value
+     */
+    public float get(int point, int axis){
+        return points[point * 3 + axis];
+    }
+
+    /**
+     * Return true if decimated path is shown
+     * @return true if decimated path is shown instead of full one
+     */
+    public boolean isDecimated(){
+        return decimated.group.isVisible();
+    }
+
+    /**
+     * Return path point picked by mouse: marker point or the nearest end of picked segment
+     * @param pick pick result of mouse event
+     * @return index of path point or -1 if picked node isn't part of path
+     */
+    public int getPoint(PickResult pick){
+        Node node = pick.getIntersectedNode();
+        if(node == null)
+            return -1;
+        if(node.getParent() == root && node.getUserData() instanceof Integer)
+            return (Integer) node.getUserData();
+        for(Level level: new Level[]{full, decimated}){
+            for(int c = 0; c < level.views.length; ++c){
+                if(level.views[c] != node)
+                    continue;
+                if(pick.getIntersectedFace() < 0)
+                    return -1;
+                int segment = c * CHUNK_SEGMENTS + pick.getIntersectedFace() / FACES_PER_SEGMENT;
+                int a = level.point(segment);
+                int b = level.point(segment + 1);
+                Point3D hit = pick.getIntersectedPoint();
+                Point3D pa = new Point3D(get(a, 0), get(a, 1), get(a, 2));
+                Point3D pb = new Point3D(get(b, 0), get(b, 1), get(b, 2));
+                return hit.distance(pa) <= hit.distance(pb) ? a : b;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Move path point. Only prisms of adjacent segments are updated
+     * @param point point index
+     * @param x new x coordinate
+     * @param y new y coordinate
+     * @param z new z coordinate
+     */
+    public void move(int point, float x, float y, float z){
+        points[point * 3] = x;
+        points[point * 3 + 1] = y;
+        points[point * 3 + 2] = z;
+        updateSegment(full, point - 1);
+        updateSegment(full, point);
+        // decimated path changes only if point is kept in it
+        int index = Arrays.binarySearch(decimated.kept, point);
+        if(index >= 0){
+            updateSegment(decimated, index - 1);
+            updateSegment(decimated, index);
+        }
+        for(MeshView marker: markers){
+            if(marker != null && (Integer) marker.getUserData() == point)
+                marker.getTransforms().setAll(new Translate(x, y, z));
+        }
+    }
+
+    private void updateSegment(Level level, int segment){
+        if(segment < 0 || segment >= level.pointCount(points) - 1)
+            return;
+        computeSection(level.point(segment), level.point(segment + 1));
+        int offset = (segment % CHUNK_SEGMENTS) * section.length;
+        level.meshes[segment / CHUNK_SEGMENTS].getPoints().set(offset, section, 0, section.length);
+    }
+
+    /**
+     * Choose full or decimated path for current camera position.
+     * Should be called on the FX thread when camera moves
+     * @param eye camera position in path coordinates
+     * @param focalLength distance from camera to screen plane in pixels
+     */
+    public void update(Point3D eye, double focalLength){
+        // distance from eye to path bounds
+        double dx = Math.max(0.0, Math.max(bounds[0] - eye.getX(), eye.getX() - bounds[3]));
+        double dy = Math.max(0.0, Math.max(bounds[1] - eye.getY(), eye.getY() - bounds[4]));
+        double dz = Math.max(0.0, Math.max(bounds[2] - eye.getZ(), eye.getZ() - bounds[5]));
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        boolean far = tolerance * focalLength < MAX_ERROR_PIXELS * distance;
+        if(far != decimated.group.isVisible()){
+            decimated.group.setVisible(far);
+            full.group.setVisible(!far);
+        }
+    }
+}
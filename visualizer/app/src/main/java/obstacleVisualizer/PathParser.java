@@ -0,0 +1,127 @@
+package obstacleVisualizer;
+
+import geometry.CSpaceGeometry;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import json.pojo.Path;
+import json.pojo.Point;
+import json.stream.Jackson;
+import metrics.Metrics;
+import metrics.PathParseEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Json Path parser
+ * Parse json file and generate {@link Path}, used for visualization
+ * PathParser generate {@link javafx.scene.shape.Sphere} for each point in path and {@link javafx.scene.shape.Cylinder}
+ * as line between points. Nodes go in path order: sphere of point i has index 2 * i
+ * and point index as user data, line from point i to point i + 1 has index 2 * i + 1.
+ * If number of points reaches mesh threshold, the only node is root of {@link PathMesh}.
+ * @author      Vladislav Khakin
+ * @version     %I%, %G%
+ * @see Path
+ * @see Point
+ * @see Node
+ */
+public class PathParser {
+
+    private static float POINT_CLOSING_RADIUS = 0.2f;
+    private static float POINT_RADIUS = 0.1f;
+    private List<Node> nodes = new ArrayList<>();
+    private List<Point> points = new ArrayList<>();
+    private PathMesh mesh;
+    private int meshThreshold = Integer.MAX_VALUE;
+
+    /**
+     * Set number of points, from which path is drawn by {@link PathMesh}.
+     * Path is drawn by separate nodes by default
+     * @param meshThreshold min point count for mesh, 0 to use mesh always
+     */
+    public void setMeshThreshold(int meshThreshold){
+        this.meshThreshold = meshThreshold;
+    }
+
+    /**
+     * Parse toParse json file to generate Path.
+     * Stores generated List of {@link Point} and List of {@link Node} in internal variables.
+     * Nodes are not attached to scene, so parsing can run off the FX thread
+     * @param toParse reference to json file
+     * @throws Error throw Error for IOException
+     * @see IOException
+     * @see Error
+     */
+    public void parse(File toParse) throws Error {
+        try {
+            nodes = new ArrayList<>();
+            long startTime = Metrics.ENABLED ? System.nanoTime() : 0L;
+            PathParseEvent event = new PathParseEvent();
+            event.begin();
+            Path path = Jackson.MAPPER.readValue(toParse, Path.class);
+            if(Metrics.ENABLED)
+                Metrics.recordPath(startTime, toParse.length());
+            event.end();
+            if(event.shouldCommit()){
+                event.source = toParse.getPath();
+                event.bytes = toParse.length();
+                event.points = path.getPoints().size();
+                event.commit();
+            }
+            List<Point> pointsList = path.getPoints();
+            if(pointsList.size() >= meshThreshold){
+                mesh = new PathMesh(CSpaceGeometry.pack(pointsList));
+                nodes.add(mesh.getRoot());
+            }
+            else {
+                for(int i = 0; i < pointsList.size(); ++i){
+                    Node sphere;
+                    if(i == 0 || i == pointsList.size() -1)
+                        sphere = ObstacleVisualizer.createSphere(pointsList.get(i), POINT_CLOSING_RADIUS,Color.YELLOW);
+                    else
+                        sphere = ObstacleVisualizer.createSphere(pointsList.get(i), POINT_RADIUS,Color.YELLOW);
+                    // index of point is used to find dragged point
+                    sphere.setUserData(i);
+                    nodes.add(sphere);
+
+
+                   if(i != pointsList.size() - 1)
+                       nodes.add(ObstacleVisualizer.createLine(pointsList.get(i),pointsList.get(i+1),Color.LIGHTGREEN));
+
+                }
+            }
+            points.addAll(pointsList);
+        } catch (IOException e) {
+            System.err.print(e.getMessage());
+            throw new Error(e.getMessage());
+        }
+    }
+
+    /**
+     * Return list of parsed {@link Node}
+     * Used for visualization
+     * @return List of {@link Node}
+     */
+    public List<Node> getNodes(){
+        return nodes;
+    }
+
+    /**
+     * Return path mesh
+     * @return {@link PathMesh} or null if path is drawn by separate nodes
+     */
+    public PathMesh getMesh(){
+        return mesh;
+    }
+
+    /**
+     * Return list of parsed {@link Point}
+     * Used for path validation
+     * @return List of {@link Point}
+     */
+    public List<Point> getPoints(){
+        return points;
+    }
+}
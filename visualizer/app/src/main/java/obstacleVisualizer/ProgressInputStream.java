@@ -0,0 +1,63 @@
+package obstacleVisualizer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Input stream, which reports number of bytes read.
+ * Listener is called at most once per {@link #STEP} bytes, so it can update progress
+ * indicator without slowing down parsing
+ *
+ * @version     %I%, %G%
+ */
+class ProgressInputStream extends FilterInputStream {
+
+    static final long STEP = 1 << 20;
+
+    private LongConsumer listener;
+    private long bytes;
+    private long reported;
+
+    /**
+     * Constructor
+     * @param in stream to read
+     * @param listener called with total number of bytes read
+     */
+    ProgressInputStream(InputStream in, LongConsumer listener){
+        super(in);
+        this.listener = listener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if(b >= 0)
+            advance(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if(count > 0)
+            advance(count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long count = super.skip(n);
+        advance(count);
+        return count;
+    }
+
+    private void advance(long count){
+        bytes += count;
+        if(bytes - reported >= STEP){
+            reported = bytes;
+            listener.accept(bytes);
+        }
+    }
+}
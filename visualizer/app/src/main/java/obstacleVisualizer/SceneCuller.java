@@ -0,0 +1,314 @@
+package obstacleVisualizer;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Point3D;
+import javafx.scene.Node;
+import javafx.scene.PerspectiveCamera;
+
+import java.util.Arrays;
+
+/**
+ * Frustum culling and level of detail for obstacle nodes.
+ * Scene is split into cells, each cell has detail node, optional proxy node and bound box.
+ * Cells are indexed by bounding volume hierarchy over their boxes (median split on the longest
+ * axis), on each camera move hierarchy is traversed against six planes of camera frustum:
+ * subtree outside of frustum is hidden without tests of its cells, subtree inside is shown
+ * without plane tests. Visible cell smaller than {@link #PROXY_PIXELS} on screen shows its
+ * proxy instead of detail node. Far clip of camera is set to the farthest corner of scene,
+ * so depth precision doesn't depend on fixed far clip.
+ * Culler works on the FX thread.
+ *
+ * @version     %I%, %G%
+ */
+public class SceneCuller {
+
+    /**
+     * Cell with smaller projected size in pixels is replaced by its proxy
+     */
+    public static final double PROXY_PIXELS = 16.0;
+
+    private static final int LEAF_SIZE = 4;
+    // states of cell
+    private static final byte HIDDEN = 0;
+    private static final byte DETAIL = 1;
+    private static final byte PROXY = 2;
+
+    private Node[] details;
+    private Node[] proxies;
+    private float[] bounds;
+    private byte[] state;
+    // hierarchy: bounds of node, left child or -1 for leaf, range of leaf in cells
+    private float[] nodeBounds;
+    private int[] left;
+    private int[] right;
+    private int[] first;
+    private int[] last;
+    private int nodeCount;
+    private int[] cells;
+    private float[] scene = new float[6];
+    // camera of the last update
+    private double[] lastCamera = new double[14];
+    // frustum planes: normal and offset, point p is inside if n * p + d >= 0
+    private double[] planes = new double[24];
+    private Point3D eye;
+    private double focalLength;
+    private int visibleCount;
+    private int proxyCount;
+
+    /**
+     * Create culler, all cells are shown until the first update
+     * @param details detail node of each cell
+     * @param proxies proxy node of each cell, array or its elements may be null
+     * @param bounds min x, min y, min z, max x, max y, max z of each cell
+     */
+    public SceneCuller(Node[] details, Node[] proxies, float[] bounds){
+        int count = details.length;
+        this.details = details;
+        this.proxies = proxies != null ? proxies : new Node[count];
+        this.bounds = bounds;
+        state = new byte[count];
+        Arrays.fill(state, DETAIL);
+        Arrays.fill(lastCamera, Double.NaN);
+        cells = new int[count];
+        for(int i = 0; i < count; ++i)
+            cells[i] = i;
+        int capacity = Math.max(1, 2 * count);
+        nodeBounds = new float[capacity * 6];
+        left = new int[capacity];
+        right = new int[capacity];
+        first = new int[capacity];
+        last = new int[capacity];
+        for(int axis = 0; axis < 3; ++axis){
+            scene[axis] = Float.POSITIVE_INFINITY;
+            scene[axis + 3] = Float.NEGATIVE_INFINITY;
+        }
+        if(count > 0){
+            build(0, count);
+            System.arraycopy(nodeBounds, 0, scene, 0, 6);
+        }
+    }
+
+    private int build(int from, int to){
+        int node = nodeCount++;
+        int b = node * 6;
+        float[] centerBounds = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for(int axis = 0; axis < 3; ++axis){
+            nodeBounds[b + axis] = Float.POSITIVE_INFINITY;
+            nodeBounds[b + axis + 3] = Float.NEGATIVE_INFINITY;
+        }
+        for(int i = from; i < to; ++i){
+            int c = cells[i] * 6;
+            for(int axis = 0; axis < 3; ++axis){
+                nodeBounds[b + axis] = Math.min(nodeBounds[b + axis], bounds[c + axis]);
+                nodeBounds[b + axis + 3] = Math.max(nodeBounds[b + axis + 3], bounds[c + axis + 3]);
+                float center = center(cells[i], axis);
+                centerBounds[axis] = Math.min(centerBounds[axis], center);
+                centerBounds[axis + 3] = Math.max(centerBounds[axis + 3], center);
+            }
+        }
+        first[node] = from;
+        last[node] = to;
+        left[node] = -1;
+        if(to - from <= LEAF_SIZE)
+            return node;
+        int axis = 0;
+        for(int a = 1; a < 3; ++a){
+            if(centerBounds[a + 3] - centerBounds[a] > centerBounds[axis + 3] - centerBounds[axis])
+                axis = a;
+        }
+        int mid = (from + to) >>> 1;
+        select(from, to, mid, axis);
+        left[node] = build(from, mid);
+        right[node] = build(mid, to);
+        return node;
+    }
+
+    private float center(int cell, int axis){
+        return (bounds[cell * 6 + axis] + bounds[cell * 6 + axis + 3]) * 0.5f;
+    }
+
+    // partial sort of cells, so cell at index k has k-th center along axis
+    private void select(int from, int to, int k, int axis){
+        while(to - from > 1){
+            float pivot = center(cells[(from + to) >>> 1], axis);
+            int i = from;
+            int j = to - 1;
+            while(i <= j){
+                while(center(cells[i], axis) < pivot)
+                    ++i;
+                while(center(cells[j], axis) > pivot)
+                    --j;
+                if(i <= j){
+                    int swap = cells[i];
+                    cells[i++] = cells[j];
+                    cells[j--] = swap;
+                }
+            }
+            if(k <= j)
+                to = j + 1;
+            else if(k >= i)
+                from = i;
+            else
+                return;
+        }
+    }
+
+    /**
+     * Return number of cells
+     * @return cell count
+     */
+    public int getCellCount(){
+        return details.length;
+    }
+
+    /**
+     * Return number of cells in frustum after the last update
+     * @return visible cell count, including cells shown by proxy
+     */
+    public int getVisibleCount(){
+        return visibleCount;
+    }
+
+    /**
+     * Return number of cells shown by proxy after the last update
+     * @return proxy cell count
+     */
+    public int getProxyCount(){
+        return proxyCount;
+    }
+
+    /**
+     * Update visibility of cells for camera position.
+     * Nothing is done if camera and viewport didn't change since the last update
+     * @param camera scene camera
+     * @param world node, which contains cells
+     * @param width viewport width in pixels
+     * @param height viewport height in pixels
+     * @param sceneBounds bounds of other scene objects in world coordinates, which must stay
+     *                    inside far clip, may be null
+     */
+    public void update(Camera camera, Node world, double width, double height, Bounds sceneBounds){
+        PerspectiveCamera view = (PerspectiveCamera) camera.getCamera();
+        eye = world.sceneToLocal(view.localToScene(0, 0, 0));
+        Point3D right = world.sceneToLocal(view.localToScene(1, 0, 0)).subtract(eye).normalize();
+        Point3D down = world.sceneToLocal(view.localToScene(0, 1, 0)).subtract(eye).normalize();
+        Point3D forward = world.sceneToLocal(view.localToScene(0, 0, 1)).subtract(eye).normalize();
+        double[] current = {eye.getX(), eye.getY(), eye.getZ(), right.getX(), right.getY(), right.getZ(),
+                down.getX(), down.getY(), down.getZ(), forward.getX(), forward.getY(), forward.getZ(),
+                width, height};
+        if(Arrays.equals(current, lastCamera) || width <= 0.0 || height <= 0.0)
+            return;
+        lastCamera = current;
+
+        double far = farthestCorner(scene);
+        if(sceneBounds != null && !sceneBounds.isEmpty()){
+            far = Math.max(far, farthestCorner(new float[]{(float) sceneBounds.getMinX(), (float) sceneBounds.getMinY(),
+                    (float) sceneBounds.getMinZ(), (float) sceneBounds.getMaxX(), (float) sceneBounds.getMaxY(),
+                    (float) sceneBounds.getMaxZ()}));
+        }
+        camera.setFarClip(far * 1.01);
+
+        double tanV = Math.tan(Math.toRadians(view.getFieldOfView() / 2.0));
+        double tanH = tanV * width / height;
+        if(!view.isVerticalFieldOfView()){
+            tanH = tanV;
+            tanV = tanH * height / width;
+        }
+        focalLength = height / (2.0 * tanV);
+        setPlane(0, right.add(forward.multiply(tanH)), 0.0);
+        setPlane(1, right.multiply(-1.0).add(forward.multiply(tanH)), 0.0);
+        setPlane(2, down.add(forward.multiply(tanV)), 0.0);
+        setPlane(3, down.multiply(-1.0).add(forward.multiply(tanV)), 0.0);
+        setPlane(4, forward, -view.getNearClip());
+        setPlane(5, forward.multiply(-1.0), view.getFarClip());
+
+        visibleCount = 0;
+        proxyCount = 0;
+        if(nodeCount > 0)
+            cull(0, (1 << 6) - 1);
+    }
+
+    // distance from eye to the farthest corner of box
+    private double farthestCorner(float[] box){
+        double dx = Math.max(Math.abs(box[0] - eye.getX()), Math.abs(box[3] - eye.getX()));
+        double dy = Math.max(Math.abs(box[1] - eye.getY()), Math.abs(box[4] - eye.getY()));
+        double dz = Math.max(Math.abs(box[2] - eye.getZ()), Math.abs(box[5] - eye.getZ()));
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    // plane through eye shifted by offset: n * (p - eye) + offset >= 0
+    private void setPlane(int plane, Point3D normal, double offset){
+        planes[plane * 4] = normal.getX();
+        planes[plane * 4 + 1] = normal.getY();
+        planes[plane * 4 + 2] = normal.getZ();
+        planes[plane * 4 + 3] = offset - normal.dotProduct(eye);
+    }
+
+    /**
+     * Classify hierarchy node against frustum planes
+     * @param node hierarchy node
+     * @param mask planes, which still may cut node (parent is inside of other planes)
+     */
+    private void cull(int node, int mask){
+        int b = node * 6;
+        for(int p = 0; p < 6; ++p){
+            if((mask & 1 << p) == 0)
+                continue;
+            double nx = planes[p * 4], ny = planes[p * 4 + 1], nz = planes[p * 4 + 2], d = planes[p * 4 + 3];
+            // the most positive and the most negative corners along plane normal
+            double max = nx * (nx > 0 ? nodeBounds[b + 3] : nodeBounds[b])
+                    + ny * (ny > 0 ? nodeBounds[b + 4] : nodeBounds[b + 1])
+                    + nz * (nz > 0 ? nodeBounds[b + 5] : nodeBounds[b + 2]) + d;
+            if(max < 0.0){
+                setState(node, HIDDEN);
+                return;
+            }
+            double min = nx * (nx > 0 ? nodeBounds[b] : nodeBounds[b + 3])
+                    + ny * (ny > 0 ? nodeBounds[b + 1] : nodeBounds[b + 4])
+                    + nz * (nz > 0 ? nodeBounds[b + 2] : nodeBounds[b + 5]) + d;
+            if(min >= 0.0)
+                mask &= ~(1 << p);
+        }
+        if(left[node] >= 0){
+            cull(left[node], mask);
+            cull(right[node], mask);
+            return;
+        }
+        for(int i = first[node]; i < last[node]; ++i){
+            int cell = cells[i];
+            ++visibleCount;
+            if(proxies[cell] != null && projectedSize(cell) < PROXY_PIXELS){
+                ++proxyCount;
+                show(cell, PROXY);
+            }
+            else
+                show(cell, DETAIL);
+        }
+    }
+
+    private void setState(int node, byte cellState){
+        for(int i = first[node]; i < last[node]; ++i)
+            show(cells[i], cellState);
+    }
+
+    // projected diameter of cell bounding sphere in pixels
+    private double projectedSize(int cell){
+        int c = cell * 6;
+        double dx = bounds[c + 3] - bounds[c], dy = bounds[c + 4] - bounds[c + 1], dz = bounds[c + 5] - bounds[c + 2];
+        double diameter = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        double distance = eye.distance(center(cell, 0), center(cell, 1), center(cell, 2));
+        if(distance <= diameter)
+            return Double.POSITIVE_INFINITY;
+        return diameter * focalLength / distance;
+    }
+
+    private void show(int cell, byte cellState){
+        if(state[cell] == cellState)
+            return;
+        state[cell] = cellState;
+        details[cell].setVisible(cellState == DETAIL);
+        if(proxies[cell] != null)
+            proxies[cell].setVisible(cellState == PROXY);
+    }
+}
@@ -0,0 +1,75 @@
+package pathValidator;
+
+import geometry.BinaryCSpace;
+import geometry.CSpaceGeometry;
+import geometry.StlReader;
+import json.stream.CSpaceReader;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converter of json and STL c-space files into {@link BinaryCSpace} format.
+ * <pre>
+ *     java -cp validator.jar pathValidator.CSpaceConverter c_space.json [c_space.cspb]
+ * </pre>
+ * Output file name is created from input file name by default.
+ *
+ * @version     %I%, %G%
+ * @see BinaryCSpace
+ */
+public class CSpaceConverter {
+
+    /**
+     * Read c-space from json, STL or binary file. STL is detected by extension,
+     * binary format by file content
+     * @param file reference to c-space file
+     * @return read {@link CSpaceGeometry}
+     * @throws IOException if file can't be read or parsed
+     */
+    public static CSpaceGeometry read(File file) throws IOException {
+        if(StlReader.isStl(file))
+            return StlReader.read(file);
+        if(BinaryCSpace.isBinary(file))
+            return BinaryCSpace.read(file);
+        return CSpaceReader.read(file);
+    }
+
+    /**
+     * Return default name of binary file for json c-space file
+     * @param json json c-space file
+     * @return file with {@link BinaryCSpace#EXTENSION} extension in the same directory
+     */
+    static File binaryFile(File json){
+        String name = json.getName();
+        int dot = name.lastIndexOf('.');
+        if(dot > 0)
+            name = name.substring(0, dot);
+        return new File(json.getAbsoluteFile().getParentFile(), name + BinaryCSpace.EXTENSION);
+    }
+
+    /**
+     * Run conversion. Arguments: json or STL c-space file and optional output file
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if(args.length < 1 || args.length > 2){
+            System.err.println("Usage: CSpaceConverter <c-space.json | c-space.stl> [c-space" + BinaryCSpace.EXTENSION + "]");
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+        try {
+            File input = new File(args[0]);
+            File output = args.length == 2 ? new File(args[1]) : binaryFile(input);
+            // binary geometry is mapped from input, so input can't be replaced while it is read
+            if(BinaryCSpace.isBinary(input))
+                throw new IOException("C-space is already binary: " + input);
+            if(output.getCanonicalFile().equals(input.getCanonicalFile()))
+                throw new IOException("Output file is the same as input: " + output);
+            BinaryCSpace.write(read(input), output);
+        }
+        catch (IOException e){
+            System.err.println(e.getMessage());
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+    }
+}
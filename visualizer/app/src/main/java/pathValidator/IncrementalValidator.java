@@ -0,0 +1,311 @@
+package pathValidator;
+
+import geometry.ContainmentGrid;
+import geometry.TriangleBvh;
+import geometry.TriangleStore;
+import metrics.Metrics;
+import metrics.SegmentScanEvent;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Validation state of path, which is edited point by point.
+ * Keeps obstacles intersected by each segment and number of intersecting segments
+ * for each obstacle. Moving one point re-validates only its two adjacent segments with
+ * {@link TriangleBvh}, results of other segments are kept, so cost of edit doesn't depend
+ * on path length. With {@link ContainmentGrid} point inside obstacle also counts as intersection
+ * of the obstacle, so path inside obstacle without surface crossings is found.
+ * Each move returns obstacles, which became intersected or free,
+ * so caller updates only them. Validator is not thread safe.
+ *
+ * @version     %I%, %G%
+ * @see ValidationEngine
+ */
+public class IncrementalValidator {
+
+    private static final int[] NONE = new int[0];
+
+    private TriangleBvh bvh;
+    private TriangleStore store;
+    private ContainmentGrid containment;
+    private float[] points;
+    // sorted indices of obstacles intersected by segment i (from point i to point i + 1)
+    private int[][] segmentHits;
+    // obstacle containing point i or OUTSIDE
+    private int[] pointInside;
+    // number of segments intersecting obstacle and points inside it
+    private int[] hitCount;
+    private int intersected;
+    private int[] changed = new int[16];
+    private int changedCount;
+    // obstacles flipped odd number of times by current move
+    private BitSet flipped = new BitSet();
+    // hit visitor of moves, reused by all segment checks
+    private SegmentHits hits;
+
+    /**
+     * Validate path segments without check of points inside obstacles
+     * @param bvh triangle hierarchy of c-space
+     * @param points x, y, z coordinates of each path point, array is copied
+     */
+    public IncrementalValidator(TriangleBvh bvh, float[] points){
+        this(bvh, null, points);
+    }
+
+    /**
+     * Validate path, segments are checked in parallel, points are checked in batch
+     * @param bvh triangle hierarchy of c-space
+     * @param containment containment grid over the same triangles, null to skip check of points
+     * @param points x, y, z coordinates of each path point, array is copied
+     */
+    public IncrementalValidator(TriangleBvh bvh, ContainmentGrid containment, float[] points){
+        this.bvh = bvh;
+        this.store = bvh.getStore();
+        this.containment = containment;
+        this.points = points.clone();
+        int segments = Math.max(0, points.length / 3 - 1);
+        segmentHits = new int[segments][];
+        hitCount = new int[store.getObstacleCount()];
+        hits = new SegmentHits();
+        ThreadLocal<SegmentHits> workerHits = ThreadLocal.withInitial(SegmentHits::new);
+        boolean scanned = new SegmentScanEvent().isEnabled();
+        IntStream.range(0, segments).parallel().forEach(s -> segmentHits[s] = check(s, workerHits.get(), scanned));
+        for(int[] hits: segmentHits){
+            for(int obstacle: hits){
+                if(hitCount[obstacle]++ == 0)
+                    ++intersected;
+            }
+        }
+        if(containment != null)
+            pointInside = containment.getObstacles(points);
+        else {
+            pointInside = new int[points.length / 3];
+            Arrays.fill(pointInside, ContainmentGrid.OUTSIDE);
+        }
+        for(int obstacle: pointInside){
+            if(obstacle != ContainmentGrid.OUTSIDE && hitCount[obstacle]++ == 0)
+                ++intersected;
+        }
+    }
+
+    /**
+     * Return number of path points
+     * @return point count
+     */
+    public int getPointCount(){
+        return points.length / 3;
+    }
+
+    /**
+     * Return point coordinate
+     * @param point point index
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return coordinate value
+     */
+    public float get(int point, int axis){
+        return points[point * 3 + axis];
+    }
+
+    /**
+     * Move path point, re-validate adjacent segments and check if point is inside obstacle
+     * @param point point index
+     * @param x new x coordinate
+     * @param y new y coordinate
+     * @param z new z coordinate
+     * @return indices of obstacles, which changed intersected state, usually empty
+     */
+    public int[] move(int point, float x, float y, float z){
+        points[point * 3] = x;
+        points[point * 3 + 1] = y;
+        points[point * 3 + 2] = z;
+        changedCount = 0;
+        boolean scanned = new SegmentScanEvent().isEnabled();
+        if(point > 0)
+            update(point - 1, scanned);
+        if(point < segmentHits.length)
+            update(point, scanned);
+        if(containment != null)
+            updatePoint(point);
+        if(changedCount == 0)
+            return NONE;
+        // obstacle flipped even number of times (left old hits and entered new ones) keeps its state
+        for(int i = 0; i < changedCount; ++i)
+            flipped.flip(changed[i]);
+        int count = 0;
+        for(int i = 0; i < changedCount; ++i){
+            int obstacle = changed[i];
+            // bit is cleared on the first occurrence, so each obstacle is returned once
+            if(flipped.get(obstacle)){
+                flipped.clear(obstacle);
+                changed[count++] = obstacle;
+            }
+        }
+        return count == 0 ? NONE : Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Check if obstacle is intersected by any segment or contains any point
+     * @param obstacle obstacle index
+     * @return true if obstacle is intersected
+     */
+    public boolean isIntersected(int obstacle){
+        return hitCount[obstacle] > 0;
+    }
+
+    /**
+     * Return number of obstacles intersected by path
+     * @return intersected obstacle count
+     */
+    public int getIntersectedCount(){
+        return intersected;
+    }
+
+    /**
+     * Return obstacles intersected by segment
+     * @param segment segment index (index of its first point)
+     * @return sorted obstacle indices, array should not be modified
+     */
+    public int[] getSegmentHits(int segment){
+        return segmentHits[segment];
+    }
+
+    /**
+     * Return obstacle containing path point
+     * @param point point index
+     * @return obstacle index or {@link ContainmentGrid#OUTSIDE}
+     */
+    public int getPointObstacle(int point){
+        return pointInside[point];
+    }
+
+    /**
+     * Return true if path doesn't intersect any obstacle and has no points inside obstacles
+     * @return true for valid path
+     */
+    public boolean isValid(){
+        return intersected == 0;
+    }
+
+    /**
+     * Create report with intersections and points inside obstacles of current path
+     * @param file name of the path file, used in report
+     * @return {@link PathReport}
+     */
+    public PathReport toReport(String file){
+        PathReport report = new PathReport(file, getPointCount());
+        for(int s = 0; s < segmentHits.length; ++s){
+            for(int obstacle: segmentHits[s])
+                report.addIntersection(s, obstacle);
+        }
+        for(int p = 0; p < pointInside.length; ++p){
+            if(pointInside[p] != ContainmentGrid.OUTSIDE)
+                report.addInsidePoint(p, pointInside[p]);
+        }
+        return report;
+    }
+
+    private void update(int segment, boolean scanned){
+        int[] old = segmentHits[segment];
+        int[] found = check(segment, hits, scanned);
+        segmentHits[segment] = found;
+        if(old.length == 0 && found.length == 0)
+            return;
+        for(int obstacle: old){
+            if(--hitCount[obstacle] == 0){
+                --intersected;
+                addChanged(obstacle);
+            }
+        }
+        for(int obstacle: found){
+            if(hitCount[obstacle]++ == 0){
+                ++intersected;
+                addChanged(obstacle);
+            }
+        }
+    }
+
+    private void updatePoint(int point){
+        int old = pointInside[point];
+        int obstacle = containment.getObstacle(points[point * 3], points[point * 3 + 1], points[point * 3 + 2]);
+        pointInside[point] = obstacle;
+        if(old == obstacle)
+            return;
+        if(old != ContainmentGrid.OUTSIDE && --hitCount[old] == 0){
+            --intersected;
+            addChanged(old);
+        }
+        if(obstacle != ContainmentGrid.OUTSIDE && hitCount[obstacle]++ == 0){
+            ++intersected;
+            addChanged(obstacle);
+        }
+    }
+
+    private void addChanged(int obstacle){
+        if(changedCount == changed.length)
+            changed = Arrays.copyOf(changed, changedCount * 2);
+        changed[changedCount++] = obstacle;
+    }
+
+    // sorted distinct obstacles intersected by segment, event is recorded if scan events are enabled
+    private int[] check(int segment, SegmentHits hits, boolean scanned){
+        int p = segment * 3;
+        double x = points[p], y = points[p + 1], z = points[p + 2];
+        SegmentScanEvent scan = scanned ? new SegmentScanEvent() : null;
+        if(scan != null)
+            scan.begin();
+        hits.count = 0;
+        bvh.forEachHit(x, y, z, points[p + 3] - x, points[p + 4] - y, points[p + 5] - z, 1.0, hits);
+        int[] found = hits.toSorted();
+        if(Metrics.ENABLED){
+            Metrics.SEGMENTS_VALIDATED.increment();
+            Metrics.HITS.add(found.length);
+        }
+        if(scan != null){
+            scan.end();
+            if(scan.shouldCommit()){
+                scan.segment = segment;
+                scan.candidates = bvh.getCandidateCount(x, y, z, points[p + 3], points[p + 4], points[p + 5]);
+                scan.hits = found.length;
+                scan.commit();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Hit visitor of segment check, collects obstacles of hit triangles into reused buffer,
+     * so check allocates only its result
+     */
+    private final class SegmentHits implements IntPredicate {
+        private int[] found = new int[16];
+        private int count;
+
+        @Override
+        public boolean test(int triangle){
+            int obstacle = store.getObstacle(triangle);
+            // hits of one obstacle usually come together
+            if(count > 0 && found[count - 1] == obstacle)
+                return true;
+            if(count == found.length)
+                found = Arrays.copyOf(found, count * 2);
+            found[count++] = obstacle;
+            return true;
+        }
+
+        // sorted distinct obstacles of collected hits
+        int[] toSorted(){
+            if(count == 0)
+                return NONE;
+            Arrays.sort(found, 0, count);
+            int unique = 1;
+            for(int i = 1; i < count; ++i){
+                if(found[i] != found[unique - 1])
+                    found[unique++] = found[i];
+            }
+            return Arrays.copyOf(found, unique);
+        }
+    }
+}
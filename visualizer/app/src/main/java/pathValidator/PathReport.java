@@ -0,0 +1,239 @@
+package pathValidator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of one path validation.
+ * Serialized to json as part of {@link ValidationReport}, for example:
+ * <pre>
+ *     {
+ *         "File": "path.json",
+ *         "Valid": false,
+ *         "Points": 5,
+ *         "Intersection": [
+ *             {
+ *                 "Segment": 1,
+ *                 "Obstacle": 3
+ *             }],
+ *         "Inside": [
+ *             {
+ *                 "Point": 2,
+ *                 "Obstacle": 3
+ *             }]
+ *     }
+ * </pre>
+ * Path point inside obstacle is reported even if adjacent segments don't cross obstacle surface.
+ *
+ * @version     %I%, %G%
+ * @see ValidationReport
+ */
+@JsonPropertyOrder({"File", "Valid", "Points", "Error", "Clearance", "Intersection", "Inside"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PathReport {
+
+    private String file;
+    private int points;
+    private String error;
+    private Double clearance;
+    private boolean enoughClearance = true;
+    private List<Intersection> intersections = new ArrayList<>();
+    private List<InsidePoint> insidePoints = new ArrayList<>();
+
+    /**
+     * Create report for successfully parsed path
+     * @param file name of the path file
+     * @param points number of points in the path
+     */
+    public PathReport(String file, int points){
+        this.file = file;
+        this.points = points;
+    }
+
+    /**
+     * Create report for path, which can't be parsed
+     * @param file name of the path file
+     * @param error error message
+     * @return report without intersections marked as failed
+     */
+    public static PathReport failed(String file, String error){
+        PathReport report = new PathReport(file, 0);
+        report.error = error;
+        return report;
+    }
+
+    /**
+     * Add intersection of path segment with obstacle.
+     * Repeated intersection of the same segment and obstacle is ignored
+     * @param segment index of segment (index of its first point)
+     * @param obstacle index of obstacle in {@link json.pojo.CSpace}
+     */
+    public void addIntersection(int segment, int obstacle){
+        for(int i = intersections.size() - 1; i >= 0 && intersections.get(i).segment == segment; --i){
+            if(intersections.get(i).obstacle == obstacle)
+                return;
+        }
+        intersections.add(new Intersection(segment, obstacle));
+    }
+
+    /**
+     * Add path point, which lies inside obstacle
+     * @param point index of point in path
+     * @param obstacle index of containing obstacle in {@link json.pojo.CSpace}
+     */
+    public void addInsidePoint(int point, int obstacle){
+        insidePoints.add(new InsidePoint(point, obstacle));
+    }
+
+    /**
+     * Set minimal distance from path to obstacles
+     * @param clearance minimal signed distance, negative if path goes through obstacle
+     * @param enough false if clearance is less than required, such path is invalid
+     */
+    public void setClearance(double clearance, boolean enough){
+        this.clearance = clearance;
+        this.enoughClearance = enough;
+    }
+
+    /**
+     * Return minimal distance from path to obstacles or null if clearance wasn't checked
+     * @return clearance
+     */
+    @JsonProperty("Clearance")
+    public Double getClearance(){
+        return clearance;
+    }
+
+    /**
+     * Return name of the path file
+     * @return file name
+     */
+    @JsonProperty("File")
+    public String getFile(){
+        return file;
+    }
+
+    /**
+     * Return number of points in the path
+     * @return number of points
+     */
+    @JsonProperty("Points")
+    public int getPoints(){
+        return points;
+    }
+
+    /**
+     * Return parse error message or null if path was parsed
+     * @return error message
+     */
+    @JsonProperty("Error")
+    public String getError(){
+        return error;
+    }
+
+    /**
+     * Return true if path was parsed, doesn't intersect any obstacle,
+     * has no points inside obstacles and keeps required clearance
+     * @return true for valid path
+     */
+    @JsonProperty("Valid")
+    public boolean isValid(){
+        return error == null && intersections.isEmpty() && insidePoints.isEmpty() && enoughClearance;
+    }
+
+    /**
+     * Return true if path file can't be parsed
+     * @return true for failed path
+     */
+    @JsonIgnore
+    public boolean isFailed(){
+        return error != null;
+    }
+
+    /**
+     * Return list of found intersections
+     * @return List of {@link Intersection}
+     */
+    @JsonProperty("Intersection")
+    public List<Intersection> getIntersections(){
+        return intersections;
+    }
+
+    /**
+     * Return list of path points inside obstacles
+     * @return List of {@link InsidePoint}
+     */
+    @JsonProperty("Inside")
+    public List<InsidePoint> getInsidePoints(){
+        return insidePoints;
+    }
+
+    /**
+     * Intersection of one path segment with one obstacle
+     */
+    @JsonPropertyOrder({"Segment", "Obstacle"})
+    public static class Intersection {
+        private int segment;
+        private int obstacle;
+
+        Intersection(int segment, int obstacle){
+            this.segment = segment;
+            this.obstacle = obstacle;
+        }
+
+        /**
+         * Return index of segment (index of its first point in path)
+         * @return segment index
+         */
+        @JsonProperty("Segment")
+        public int getSegment(){
+            return segment;
+        }
+
+        /**
+         * Return index of intersected obstacle
+         * @return obstacle index
+         */
+        @JsonProperty("Obstacle")
+        public int getObstacle(){
+            return obstacle;
+        }
+    }
+
+    /**
+     * Path point inside obstacle
+     */
+    @JsonPropertyOrder({"Point", "Obstacle"})
+    public static class InsidePoint {
+        private int point;
+        private int obstacle;
+
+        InsidePoint(int point, int obstacle){
+            this.point = point;
+            this.obstacle = obstacle;
+        }
+
+        /**
+         * Return index of point in path
+         * @return point index
+         */
+        @JsonProperty("Point")
+        public int getPoint(){
+            return point;
+        }
+
+        /**
+         * Return index of containing obstacle
+         * @return obstacle index
+         */
+        @JsonProperty("Obstacle")
+        public int getObstacle(){
+            return obstacle;
+        }
+    }
+}
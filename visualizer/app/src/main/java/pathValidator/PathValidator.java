@@ -0,0 +1,193 @@
+package pathValidator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import geometry.CSpaceGeometry;
+import geometry.DistanceField;
+import json.stream.Jackson;
+import json.stream.PathReader;
+import metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Main class for headless path validator.
+ * Parse c-space json, STL or binary file, validate one path file or all json files in directory
+ * in parallel and write json {@link ValidationReport} to file or standard output.
+ * Doesn't require JavaFX, can be run from headless validator jar:
+ * <pre>
+ *     java -cp validator.jar pathValidator.PathValidator c_space.json paths/ report.json
+ * </pre>
+ * With <code>-clearance</code> option path should also keep defined distance from obstacles,
+ * which is checked with {@link DistanceField} cached next to c-space file.
+ * Exit code is {@link #EXIT_VALID} if all paths are valid, {@link #EXIT_INVALID} if any path
+ * intersects obstacle, has point inside obstacle (or is too close to it) or c-space start or finish
+ * point lies inside obstacle and {@link #EXIT_ERROR} if c-space or any path can't be parsed.
+ *
+ * @version     %I%, %G%
+ * @see ValidationEngine
+ * @see ValidationReport
+ */
+public class PathValidator {
+
+    /** Exit code for all paths without intersections */
+    public static final int EXIT_VALID = 0;
+    /** Exit code for at least one path with intersections or c-space endpoint inside obstacle */
+    public static final int EXIT_INVALID = 1;
+    /** Exit code for wrong arguments or files, which can't be parsed */
+    public static final int EXIT_ERROR = 2;
+
+    private static final ObjectMapper MAPPER = Jackson.MAPPER;
+
+    private ValidationEngine engine;
+    private String cSpaceName;
+
+    /**
+     * Default constructor. Parse c-space file and create {@link ValidationEngine},
+     * which reports all intersections
+     * @param cSpaceFile reference to json file with c-space
+     * @throws IOException if c-space file can't be read or parsed
+     */
+    public PathValidator(File cSpaceFile) throws IOException {
+        this(cSpaceFile, false);
+    }
+
+    /**
+     * Read c-space file (json, STL or {@link geometry.BinaryCSpace}) and create {@link ValidationEngine}
+     * with defined report mode
+     * @param cSpaceFile reference to json, STL or binary file with c-space
+     * @param firstHitOnly if true, each path validation stops on the first found intersection
+     * @throws IOException if c-space file can't be read or parsed
+     */
+    public PathValidator(File cSpaceFile, boolean firstHitOnly) throws IOException {
+        this(cSpaceFile, firstHitOnly, 0.0, DistanceField.DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Read c-space file and create {@link ValidationEngine} with clearance check.
+     * Distance field is loaded from cache next to c-space file or built and saved there
+     * @param cSpaceFile reference to json, STL or binary file with c-space
+     * @param firstHitOnly if true, each path validation stops on the first found intersection
+     * @param clearance required distance from path to obstacles, 0 to skip clearance check
+     * @param resolution number of distance field voxels along the longest side of c-space
+     * @throws IOException if c-space file can't be read or parsed
+     */
+    public PathValidator(File cSpaceFile, boolean firstHitOnly, double clearance, int resolution) throws IOException {
+        CSpaceGeometry geometry = CSpaceConverter.read(cSpaceFile);
+        DistanceField field = clearance > 0.0 ? DistanceField.load(cSpaceFile, geometry, resolution) : null;
+        engine = new ValidationEngine(geometry, firstHitOnly, field, clearance);
+        cSpaceName = cSpaceFile.getName();
+    }
+
+    /**
+     * Validate one path file
+     * @param pathFile reference to json file with path
+     * @return {@link PathReport} for path, failed report if file can't be parsed
+     */
+    public PathReport validate(File pathFile){
+        try {
+            return engine.validate(pathFile.getName(), PathReader.read(pathFile));
+        }
+        catch (IOException e){
+            return PathReport.failed(pathFile.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Validate list of path files in parallel using all available cores.
+     * Report also contains obstacles, which contain c-space start and finish points
+     * @param pathFiles list of references to json files with paths
+     * @return {@link ValidationReport} with reports in order of files
+     */
+    public ValidationReport validate(List<File> pathFiles){
+        List<PathReport> reports = pathFiles.parallelStream()
+                .map(this::validate)
+                .collect(Collectors.toList());
+        ValidationReport report = new ValidationReport(cSpaceName, reports);
+        report.setEndpoints(engine.getStartObstacle(), engine.getFinishObstacle());
+        return report;
+    }
+
+    /**
+     * Return json files for validation: file itself or all json files in directory
+     * @param file path file or directory with path files
+     * @return sorted list of files
+     */
+    static List<File> listPathFiles(File file){
+        if(!file.isDirectory())
+            return Collections.singletonList(file);
+        File[] files = file.listFiles((dir, name) -> name.toLowerCase().endsWith(".json"));
+        if(files == null)
+            return Collections.emptyList();
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Return exit code for validation report
+     * @param report validation report
+     * @return one of exit codes
+     */
+    static int exitCode(ValidationReport report){
+        if(report.getFailed() > 0)
+            return EXIT_ERROR;
+        if(report.getInvalid() > 0 || !report.isEndpointsFree())
+            return EXIT_INVALID;
+        return EXIT_VALID;
+    }
+
+    /**
+     * Run validation. Arguments: c-space file, path file or directory with paths
+     * and optional report file (standard output is used by default).
+     * Option <code>-first</code> stops each path validation on the first intersection,
+     * option <code>-clearance radius</code> requires defined distance from path to obstacles,
+     * option <code>-resolution voxels</code> sets distance field resolution for clearance check
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        boolean firstHitOnly = false;
+        double clearance = 0.0;
+        int resolution = DistanceField.DEFAULT_RESOLUTION;
+        int option = 0;
+        try {
+            for(; option < args.length && args[option].startsWith("-"); ++option){
+                if(args[option].equals("-first"))
+                    firstHitOnly = true;
+                else if(args[option].equals("-clearance") && option + 1 < args.length)
+                    clearance = Double.parseDouble(args[++option]);
+                else if(args[option].equals("-resolution") && option + 1 < args.length)
+                    resolution = Integer.parseInt(args[++option]);
+                else
+                    break;
+            }
+        }
+        catch (NumberFormatException e){
+            option = -1;
+        }
+        if(option >= 0)
+            args = Arrays.copyOfRange(args, option, args.length);
+        if(option < 0 || args.length < 2 || args.length > 3 || args[0].startsWith("-") || resolution < 1){
+            System.err.println("Usage: PathValidator [-first] [-clearance radius] [-resolution voxels] " +
+                    "<c-space.json | c-space.stl | c-space.cspb> <path.json | directory> [report.json]");
+            System.exit(EXIT_ERROR);
+        }
+        Metrics.start();
+        try {
+            PathValidator validator = new PathValidator(new File(args[0]), firstHitOnly, clearance, resolution);
+            ValidationReport report = validator.validate(listPathFiles(new File(args[1])));
+            if(args.length == 3)
+                MAPPER.writerWithDefaultPrettyPrinter().writeValue(new File(args[2]), report);
+            else
+                System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+            System.exit(exitCode(report));
+        }
+        catch (IOException e){
+            System.err.println(e.getMessage());
+            System.exit(EXIT_ERROR);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package pathValidator;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Memory bounded cache of {@link ValidationEngine} objects.
+ * Each engine is weighed by its memory size (triangles, hierarchy, containment grid and
+ * distance field), least recently used engines are evicted while total weight exceeds budget.
+ * Engine heavier than the whole budget is returned to caller, but isn't kept.
+ * Keys are defined by caller, e.g. content hash or file path with modification time.
+ * Concurrent loads of the same key are coalesced: the first caller runs loader, others wait
+ * for its result. Failed load isn't cached, the next request tries again.
+ * Evicted engine stays valid for requests which already got it.
+ * Cache is thread safe, loaders run outside of the cache lock.
+ *
+ * @version     %I%, %G%
+ * @see ValidationEngine
+ * @see ValidationServer
+ */
+public class SceneCache {
+
+    private long budget;
+    // access ordered, the first entry is the least recently used
+    private LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private Map<String, FutureTask<ValidationEngine>> loading = new HashMap<>();
+    private long weight;
+    private long hits;
+    private long misses;
+    private long coalesced;
+    private long evictions;
+
+    /**
+     * Create empty cache
+     * @param budget maximal total memory size of cached engines in bytes
+     */
+    public SceneCache(long budget){
+        if(budget < 0)
+            throw new IllegalArgumentException("Budget should not be negative: " + budget);
+        this.budget = budget;
+    }
+
+    /**
+     * Return cached engine or load it. Concurrent calls with the same key run loader once
+     * @param key scene key
+     * @param loader engine loader, null to only look up cached engine
+     * @return engine of scene, null if scene isn't cached or loaded and loader is null
+     * @throws IOException if loader fails
+     */
+    public ValidationEngine get(String key, Loader loader) throws IOException {
+        FutureTask<ValidationEngine> task;
+        boolean owner = false;
+        synchronized (this){
+            Entry entry = entries.get(key);
+            if(entry != null){
+                ++hits;
+                return entry.engine;
+            }
+            task = loading.get(key);
+            if(task != null)
+                ++coalesced;
+            else if(loader == null)
+                return null;
+            else {
+                task = new FutureTask<>(loader::load);
+                loading.put(key, task);
+                owner = true;
+                ++misses;
+            }
+        }
+        if(owner)
+            task.run();
+        ValidationEngine engine;
+        try {
+            engine = task.get();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading scene " + key, e);
+        }
+        catch (ExecutionException e){
+            synchronized (this){
+                loading.remove(key, task);
+            }
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException(cause.getMessage(), cause);
+        }
+        if(owner)
+            put(key, task, engine);
+        return engine;
+    }
+
+    // move loaded engine from loading tasks to entries and evict old entries
+    private synchronized void put(String key, FutureTask<ValidationEngine> task, ValidationEngine engine){
+        loading.remove(key, task);
+        long size = engine.getMemorySize();
+        if(size > budget){
+            ++evictions;
+            return;
+        }
+        entries.put(key, new Entry(engine, size));
+        weight += size;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while(weight > budget){
+            Entry entry = eldest.next();
+            eldest.remove();
+            weight -= entry.size;
+            ++evictions;
+        }
+    }
+
+    /**
+     * Remove all cached engines, running loads are not affected
+     */
+    public synchronized void clear(){
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Return number of cached engines
+     * @return engine count
+     */
+    public synchronized int getSize(){
+        return entries.size();
+    }
+
+    /**
+     * Return total memory size of cached engines
+     * @return size in bytes
+     */
+    public synchronized long getWeight(){
+        return weight;
+    }
+
+    /**
+     * Return maximal total memory size of cached engines
+     * @return size in bytes
+     */
+    public long getBudget(){
+        return budget;
+    }
+
+    /**
+     * Return number of requests served by cached engine
+     * @return hit count
+     */
+    public synchronized long getHitCount(){
+        return hits;
+    }
+
+    /**
+     * Return number of requests which ran loader
+     * @return miss count
+     */
+    public synchronized long getMissCount(){
+        return misses;
+    }
+
+    /**
+     * Return number of requests which waited for load started by another request
+     * @return coalesced request count
+     */
+    public synchronized long getCoalescedCount(){
+        return coalesced;
+    }
+
+    /**
+     * Return number of engines removed to fit budget
+     * @return eviction count
+     */
+    public synchronized long getEvictionCount(){
+        return evictions;
+    }
+
+    /**
+     * Return cache statistics for reports
+     * @return ordered map of statistics names to values
+     */
+    public synchronized Map<String, Object> getStatistics(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("Scenes", entries.size());
+        result.put("Weight", weight);
+        result.put("Budget", budget);
+        result.put("Hits", hits);
+        result.put("Misses", misses);
+        result.put("Coalesced", coalesced);
+        result.put("Evictions", evictions);
+        return result;
+    }
+
+    /**
+     * Loader of engine, called when scene isn't cached
+     */
+    public interface Loader {
+        ValidationEngine load() throws IOException;
+    }
+
+    private static class Entry {
+        private ValidationEngine engine;
+        private long size;
+
+        Entry(ValidationEngine engine, long size){
+            this.engine = engine;
+            this.size = size;
+        }
+    }
+}
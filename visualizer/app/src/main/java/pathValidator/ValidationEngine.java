@@ -0,0 +1,254 @@
+package pathValidator;
+
+import geometry.CSpaceGeometry;
+import geometry.ContainmentGrid;
+import geometry.DistanceField;
+import geometry.TriangleBvh;
+import geometry.TriangleStore;
+import json.pojo.CSpace;
+import json.pojo.Path;
+import metrics.Metrics;
+import metrics.PathValidationEvent;
+import metrics.SegmentScanEvent;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Headless path validation engine.
+ * Checks every path segment against {@link TriangleBvh} built over all
+ * obstacle triangles of {@link CSpace} packed in {@link TriangleStore}.
+ * Path points, c-space start and finish are checked by {@link ContainmentGrid}:
+ * path, which lies inside obstacle without crossing its surface, is invalid too.
+ * Optionally checks clearance of path with {@link DistanceField}: path closer to obstacles
+ * than required clearance is invalid even without intersections.
+ * Works only with {@link json.pojo} model and doesn't use JavaFX,
+ * engine is immutable after creation and can be shared between threads.
+ *
+ * @version     %I%, %G%
+ * @see CSpace
+ * @see PathReport
+ * @see TriangleBvh
+ */
+public class ValidationEngine {
+
+    private TriangleStore store;
+    private TriangleBvh bvh;
+    private boolean firstHitOnly;
+    private ContainmentGrid containment;
+    private DistanceField field;
+    private double clearance;
+    private int startObstacle;
+    private int finishObstacle;
+
+    /**
+     * Default constructor. Pack obstacle triangles into {@link TriangleStore}
+     * and build {@link TriangleBvh} over them. All intersections are reported
+     * @param cSpace parsed {@link CSpace}
+     */
+    public ValidationEngine(CSpace cSpace){
+        this(cSpace, false);
+    }
+
+    /**
+     * Constructor with defined report mode
+     * @param cSpace parsed {@link CSpace}
+     * @param firstHitOnly if true, path validation stops on the first found intersection
+     */
+    public ValidationEngine(CSpace cSpace, boolean firstHitOnly){
+        this(CSpaceGeometry.fromCSpace(cSpace), firstHitOnly);
+    }
+
+    /**
+     * Constructor for c-space read by streaming reader
+     * @param geometry primitive c-space representation
+     * @param firstHitOnly if true, path validation stops on the first found intersection
+     */
+    public ValidationEngine(CSpaceGeometry geometry, boolean firstHitOnly){
+        this(geometry, firstHitOnly, null, 0.0);
+    }
+
+    /**
+     * Constructor with clearance check
+     * @param geometry primitive c-space representation
+     * @param firstHitOnly if true, path validation stops on the first found intersection
+     * @param field distance field of c-space, null to skip clearance check
+     * @param clearance required distance from path to obstacles
+     */
+    public ValidationEngine(CSpaceGeometry geometry, boolean firstHitOnly, DistanceField field, double clearance){
+        this(geometry, firstHitOnly, field, clearance, ContainmentGrid.getResolution(geometry.getStore()));
+    }
+
+    /**
+     * Constructor with clearance check and defined containment grid resolution
+     * @param geometry primitive c-space representation
+     * @param firstHitOnly if true, path validation stops on the first found intersection
+     * @param field distance field of c-space, null to skip clearance check
+     * @param clearance required distance from path to obstacles
+     * @param resolution number of {@link ContainmentGrid} voxels along the longest side of c-space,
+     *                   other constructors scale it with scene by {@link ContainmentGrid#getResolution}
+     */
+    public ValidationEngine(CSpaceGeometry geometry, boolean firstHitOnly, DistanceField field, double clearance,
+                            int resolution){
+        this.store = geometry.getStore();
+        this.bvh = new TriangleBvh(store);
+        this.containment = new ContainmentGrid(geometry, bvh, resolution);
+        int[] endpoints = containment.getObstacles(new float[]{
+                geometry.getStart()[0], geometry.getStart()[1], geometry.getStart()[2],
+                geometry.getFinish()[0], geometry.getFinish()[1], geometry.getFinish()[2]});
+        this.startObstacle = endpoints[0];
+        this.finishObstacle = endpoints[1];
+        this.firstHitOnly = firstHitOnly;
+        this.field = field;
+        this.clearance = clearance;
+    }
+
+    /**
+     * Return number of obstacles in validated c-space
+     * @return number of obstacles
+     */
+    public int getObstacleCount(){
+        return store.getObstacleCount();
+    }
+
+    /**
+     * Return memory taken by engine: triangles, hierarchy, containment grid and distance field
+     * @return size in bytes
+     */
+    public long getMemorySize(){
+        long size = store.getMemorySize() + bvh.getMemorySize() + containment.getMemorySize();
+        return field != null ? size + field.getMemorySize() : size;
+    }
+
+    /**
+     * Return obstacle containing c-space start point
+     * @return obstacle index or {@link ContainmentGrid#OUTSIDE} for free start
+     */
+    public int getStartObstacle(){
+        return startObstacle;
+    }
+
+    /**
+     * Return obstacle containing c-space finish point
+     * @return obstacle index or {@link ContainmentGrid#OUTSIDE} for free finish
+     */
+    public int getFinishObstacle(){
+        return finishObstacle;
+    }
+
+    /**
+     * Validate path on intersections with obstacles.
+     * For each segment in path find all intersected obstacles
+     * (or only the first one in first hit mode).
+     * @param file name of the path file, used in report
+     * @param path parsed path to validate
+     * @return {@link PathReport} with found intersections
+     */
+    public PathReport validate(String file, Path path){
+        return validate(file, CSpaceGeometry.pack(path.getPoints()));
+    }
+
+    /**
+     * Validate path given as packed coordinates.
+     * Points inside obstacles are found in batch before segment checks,
+     * in first hit mode segments aren't checked if such point is found.
+     * If engine has distance field, minimal clearance of path is added to report
+     * @param file name of the path file, used in report
+     * @param points x, y, z coordinates of each path point
+     * @return {@link PathReport} with found intersections
+     */
+    public PathReport validate(String file, float[] points){
+        long startTime = Metrics.ENABLED ? System.nanoTime() : 0L;
+        PathValidationEvent event = new PathValidationEvent();
+        event.begin();
+        PathReport report = new PathReport(file, points.length / 3);
+        int[] inside = containment.getObstacles(points);
+        boolean found = false;
+        for(int p = 0; p < inside.length && !(found && firstHitOnly); ++p){
+            if(inside[p] != ContainmentGrid.OUTSIDE){
+                report.addInsidePoint(p, inside[p]);
+                found = true;
+            }
+        }
+        SegmentHits hits = new SegmentHits(report);
+        // segment events are created only while recording enables them, not for every segment
+        boolean scanned = new SegmentScanEvent().isEnabled();
+        int segments = 0;
+        for(int i = 0; !(found && firstHitOnly) && i + 5 < points.length; i += 3){
+            ++segments;
+            double x = points[i], y = points[i + 1], z = points[i + 2];
+            double dx = points[i + 3] - x;
+            double dy = points[i + 4] - y;
+            double dz = points[i + 5] - z;
+            int segment = i / 3;
+            SegmentScanEvent scan = scanned ? new SegmentScanEvent() : null;
+            if(scan != null)
+                scan.begin();
+            int before = report.getIntersections().size();
+            if(firstHitOnly){
+                int triangle = bvh.anyHit(x, y, z, dx, dy, dz, 1.0);
+                if(triangle >= 0){
+                    report.addIntersection(segment, store.getObstacle(triangle));
+                    found = true;
+                }
+            }
+            else {
+                hits.segment = segment;
+                bvh.forEachHit(x, y, z, dx, dy, dz, 1.0, hits);
+            }
+            if(scan != null){
+                scan.end();
+                if(scan.shouldCommit()){
+                    scan.segment = segment;
+                    scan.candidates = bvh.getCandidateCount(x, y, z, x + dx, y + dy, z + dz);
+                    scan.hits = report.getIntersections().size() - before;
+                    scan.commit();
+                }
+            }
+        }
+        if(field != null)
+            checkClearance(report, points);
+        if(Metrics.ENABLED){
+            Metrics.VALIDATION_TIME.recordSince(startTime);
+            Metrics.PATHS_VALIDATED.increment();
+            Metrics.SEGMENTS_VALIDATED.add(segments);
+            Metrics.HITS.add(report.getIntersections().size() + report.getInsidePoints().size());
+        }
+        event.end();
+        if(event.shouldCommit()){
+            event.file = file;
+            event.points = points.length / 3;
+            event.segments = segments;
+            event.intersections = report.getIntersections().size();
+            event.inside = report.getInsidePoints().size();
+            event.commit();
+        }
+        return report;
+    }
+
+    private void checkClearance(PathReport report, float[] points){
+        if(points.length < 3)
+            return;
+        double min = field.distance(points[0], points[1], points[2]);
+        for(int i = 0; i + 5 < points.length; i += 3){
+            min = Math.min(min, field.minClearance(points[i], points[i + 1], points[i + 2],
+                    points[i + 3], points[i + 4], points[i + 5]));
+        }
+        report.setClearance(min, min >= clearance);
+    }
+
+    // adds every hit of current segment to report, one visitor serves all segments of path
+    private final class SegmentHits implements IntPredicate {
+        private final PathReport report;
+        private int segment;
+
+        SegmentHits(PathReport report){
+            this.report = report;
+        }
+
+        @Override
+        public boolean test(int triangle){
+            report.addIntersection(segment, store.getObstacle(triangle));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package pathValidator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Result of batch validation, written by {@link PathValidator} as json.
+ * Contains c-space file name, summary counters and {@link PathReport} for each path.
+ * If c-space start or finish point lies inside obstacle, index of the obstacle is written
+ * as <code>StartInside</code> or <code>FinishInside</code>
+ *
+ * @version     %I%, %G%
+ * @see PathReport
+ */
+@JsonPropertyOrder({"CSpace", "StartInside", "FinishInside", "Valid", "Invalid", "Failed", "Path"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ValidationReport {
+
+    private String cSpace;
+    private List<PathReport> paths;
+    private Integer startObstacle;
+    private Integer finishObstacle;
+
+    /**
+     * Default constructor
+     * @param cSpace name of the c-space file
+     * @param paths list of {@link PathReport}
+     */
+    public ValidationReport(String cSpace, List<PathReport> paths){
+        this.cSpace = cSpace;
+        this.paths = paths;
+    }
+
+    /**
+     * Return name of the c-space file
+     * @return file name
+     */
+    @JsonProperty("CSpace")
+    public String getCSpace(){
+        return cSpace;
+    }
+
+    /**
+     * Set obstacles containing c-space start and finish points
+     * @param start index of obstacle containing start point, negative for free start
+     * @param finish index of obstacle containing finish point, negative for free finish
+     */
+    public void setEndpoints(int start, int finish){
+        startObstacle = start >= 0 ? start : null;
+        finishObstacle = finish >= 0 ? finish : null;
+    }
+
+    /**
+     * Return obstacle containing c-space start point or null if start is free
+     * @return obstacle index
+     */
+    @JsonProperty("StartInside")
+    public Integer getStartObstacle(){
+        return startObstacle;
+    }
+
+    /**
+     * Return obstacle containing c-space finish point or null if finish is free
+     * @return obstacle index
+     */
+    @JsonProperty("FinishInside")
+    public Integer getFinishObstacle(){
+        return finishObstacle;
+    }
+
+    /**
+     * Return true if c-space start and finish points are outside of obstacles
+     * @return true for free endpoints
+     */
+    @JsonIgnore
+    public boolean isEndpointsFree(){
+        return startObstacle == null && finishObstacle == null;
+    }
+
+    /**
+     * Return number of paths without intersections
+     * @return number of valid paths
+     */
+    @JsonProperty("Valid")
+    public long getValid(){
+        return paths.stream().filter(PathReport::isValid).count();
+    }
+
+    /**
+     * Return number of paths with intersections
+     * @return number of invalid paths
+     */
+    @JsonProperty("Invalid")
+    public long getInvalid(){
+        return paths.stream().filter(p -> !p.isValid() && !p.isFailed()).count();
+    }
+
+    /**
+     * Return number of paths, which can't be parsed
+     * @return number of failed paths
+     */
+    @JsonProperty("Failed")
+    public long getFailed(){
+        return paths.stream().filter(PathReport::isFailed).count();
+    }
+
+    /**
+     * Return reports of all validated paths
+     * @return List of {@link PathReport}
+     */
+    @JsonProperty("Path")
+    public List<PathReport> getPaths(){
+        return paths;
+    }
+}
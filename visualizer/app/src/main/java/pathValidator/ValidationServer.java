@@ -0,0 +1,386 @@
+package pathValidator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import geometry.CSpaceGeometry;
+import json.stream.CSpaceReader;
+import json.stream.Jackson;
+import json.stream.PathReader;
+import metrics.Metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running validation server on loopback interface.
+ * Keeps {@link ValidationEngine} of each c-space in {@link SceneCache}, keyed by SHA-256 hash
+ * of c-space content, so repeated validations don't start JVM and don't parse c-space again.
+ * Cache is bounded by memory budget, c-space evicted from it is parsed again on the next
+ * file request, uploaded c-space should be posted again after 404 response.
+ * Protocol is plain HTTP with json bodies:
+ * <pre>
+ *     POST /cspace                     body: c-space json, returns {"CSpace": hash, "Obstacles": n}
+ *     POST /validate?cspace=hash       body: path json, returns {@link PathReport}
+ *     POST /validate?file=c_space.json body: path json, c-space file (json, STL or binary) is read
+ *                                      by server, its hash is cached while file length and
+ *                                      modification time don't change
+ *     GET  /status                     returns cache statistics
+ *     GET  /metrics                    returns parsing and validation {@link Metrics}
+ * </pre>
+ * Optional <code>name</code> parameter of validation request is written as file name of report.
+ * Errors are returned with status 400 (malformed request body or query), 404 (unknown c-space
+ * hash or file), 405 (wrong method) or 500 (failure on server side, such as read of c-space file)
+ * and json body {"Error": message}.
+ * Requests are handled by fixed pool of threads with bounded queue, when queue is full
+ * request is handled by accepting thread, which slows down new connections.
+ * Run server from headless validator jar:
+ * <pre>
+ *     java -cp validator.jar pathValidator.ValidationServer -port 8750 -cache 2048
+ * </pre>
+ *
+ * @version     %I%, %G%
+ * @see ValidationEngine
+ * @see PathValidator
+ * @see SceneCache
+ */
+public class ValidationServer {
+
+    /** Default server port */
+    public static final int DEFAULT_PORT = 8750;
+
+    private static final int QUEUE_SIZE = 256;
+    private static final int BUFFER_SIZE = 65536;
+    private static final ObjectMapper MAPPER = Jackson.MAPPER;
+
+    private HttpServer server;
+    private ThreadPoolExecutor executor;
+    private boolean firstHitOnly;
+    // engines by content hash
+    private SceneCache cache;
+    // content hash of c-space files by absolute path, valid while length and modification time match
+    private Map<String, FileHash> fileHashes = new ConcurrentHashMap<>();
+
+    /**
+     * Create server bound to loopback address, server doesn't accept requests until {@link #start()}
+     * @param port port number, 0 for any free port
+     * @param threads number of request threads
+     * @param firstHitOnly if true, each path validation stops on the first found intersection
+     * @throws IOException if port can't be bound
+     */
+    public ValidationServer(int port, int threads, boolean firstHitOnly) throws IOException {
+        this(port, threads, firstHitOnly, Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    /**
+     * Create server with defined memory budget of c-space cache
+     * @param port port number, 0 for any free port
+     * @param threads number of request threads
+     * @param firstHitOnly if true, each path validation stops on the first found intersection
+     * @param cacheBudget maximal memory size of loaded c-spaces in bytes
+     * @throws IOException if port can't be bound
+     */
+    public ValidationServer(int port, int threads, boolean firstHitOnly, long cacheBudget) throws IOException {
+        this.firstHitOnly = firstHitOnly;
+        this.cache = new SceneCache(cacheBudget);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger index = new AtomicInteger();
+        ThreadFactory factory = task -> new Thread(task, "validation-" + index.incrementAndGet());
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+        server.setExecutor(executor);
+        server.createContext("/cspace", exchange -> handle(exchange, "POST", this::loadCSpace));
+        server.createContext("/validate", exchange -> handle(exchange, "POST", this::validate));
+        server.createContext("/status", exchange -> handle(exchange, "GET", this::status));
+        server.createContext("/metrics", exchange -> handle(exchange, "GET",
+                request -> new Response(200, Metrics.snapshot())));
+    }
+
+    /**
+     * Start accepting requests
+     */
+    public void start(){
+        server.start();
+    }
+
+    /**
+     * Stop server, wait for running requests up to defined delay
+     * @param delay maximal wait time in seconds
+     */
+    public void stop(int delay){
+        server.stop(delay);
+        executor.shutdown();
+    }
+
+    /**
+     * Return port of server socket
+     * @return port number
+     */
+    public int getPort(){
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Return cache of loaded c-spaces
+     * @return {@link SceneCache}
+     */
+    public SceneCache getCache(){
+        return cache;
+    }
+
+    private Response loadCSpace(HttpExchange exchange) throws IOException {
+        byte[] body = readBody(exchange);
+        String hash = hash(new ByteArrayInputStream(body));
+        ValidationEngine engine = cache.get(hash, null);
+        boolean cached = engine != null;
+        if(!cached)
+            engine = cache.get(hash, () -> new ValidationEngine(readCSpace(body), firstHitOnly));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("CSpace", hash);
+        result.put("Obstacles", engine.getObstacleCount());
+        result.put("Cached", cached);
+        return new Response(200, result);
+    }
+
+    private Response validate(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        ValidationEngine engine;
+        if(query.containsKey("cspace")){
+            engine = cache.get(query.get("cspace"), null);
+            if(engine == null)
+                return error(404, "Unknown c-space: " + query.get("cspace"));
+        }
+        else if(query.containsKey("file")){
+            File file = new File(query.get("file")).getAbsoluteFile();
+            if(!file.isFile())
+                return error(404, "C-space file not found: " + file);
+            engine = cache.get(fileHash(file), () -> new ValidationEngine(CSpaceConverter.read(file), firstHitOnly));
+        }
+        else
+            return error(400, "Request should define cspace or file parameter");
+        float[] points;
+        try (InputStream in = exchange.getRequestBody()){
+            points = PathReader.read(in);
+        }
+        catch (IOException e){
+            throw new BadRequestException(e.getMessage(), e);
+        }
+        String name = query.containsKey("name") ? query.get("name") : "path";
+        return new Response(200, engine.validate(name, points));
+    }
+
+    // uploaded c-space can't be read only because of its content
+    private static CSpaceGeometry readCSpace(byte[] body) throws BadRequestException {
+        try {
+            return CSpaceReader.read(new ByteArrayInputStream(body));
+        }
+        catch (IOException e){
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+
+    private Response status(HttpExchange exchange){
+        return new Response(200, cache.getStatistics());
+    }
+
+    // hash of file is computed again only if file changed
+    private String fileHash(File file) throws IOException {
+        String path = file.getPath();
+        long length = file.length();
+        long modified = file.lastModified();
+        FileHash known = fileHashes.get(path);
+        if(known != null && known.length == length && known.modified == modified)
+            return known.hash;
+        String hash;
+        try (InputStream in = new FileInputStream(file)){
+            hash = hash(in);
+        }
+        fileHashes.put(path, new FileHash(length, modified, hash));
+        return hash;
+    }
+
+    /**
+     * Return hex SHA-256 hash of stream content
+     * @param in input stream, isn't closed
+     * @return lower case hex string
+     * @throws IOException if stream can't be read
+     */
+    static String hash(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for(int read = in.read(buffer); read >= 0; read = in.read(buffer))
+            digest.update(buffer, 0, read);
+        StringBuilder hex = new StringBuilder();
+        for(byte b: digest.digest())
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = exchange.getRequestBody()){
+            for(int read = in.read(buffer); read >= 0; read = in.read(buffer))
+                body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> result = new HashMap<>();
+        if(query == null)
+            return result;
+        try {
+            for(String pair: query.split("&")){
+                int equals = pair.indexOf('=');
+                if(equals > 0)
+                    result.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                            URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+            }
+        }
+        catch (IllegalArgumentException e){
+            throw new BadRequestException("Malformed query: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    private static Response error(int status, String message){
+        return new Response(status, Collections.singletonMap("Error", message));
+    }
+
+    // run handler, write its json response, errors in request body or query are bad requests,
+    // other errors are failures of server
+    private static void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Response response;
+        try {
+            if(!exchange.getRequestMethod().equals(method))
+                response = error(405, "Method should be " + method);
+            else
+                response = handler.handle(exchange);
+        }
+        catch (BadRequestException e){
+            response = error(400, String.valueOf(e.getMessage()));
+        }
+        catch (IOException | RuntimeException e){
+            e.printStackTrace();
+            response = error(500, String.valueOf(e.getMessage()));
+        }
+        byte[] body = MAPPER.writeValueAsBytes(response.body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()){
+            out.write(body);
+        }
+    }
+
+    /**
+     * Run server. Option <code>-port number</code> sets port (default {@link #DEFAULT_PORT}),
+     * option <code>-threads number</code> sets number of request threads (number of cores
+     * by default), option <code>-cache megabytes</code> sets memory budget of loaded c-spaces (half
+     * of maximal heap size by default), option <code>-first</code> stops each path validation
+     * on the first intersection
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long budget = Runtime.getRuntime().maxMemory() / 2;
+        boolean firstHitOnly = false;
+        int option = 0;
+        try {
+            for(; option < args.length; ++option){
+                if(args[option].equals("-first"))
+                    firstHitOnly = true;
+                else if(args[option].equals("-port") && option + 1 < args.length)
+                    port = Integer.parseInt(args[++option]);
+                else if(args[option].equals("-threads") && option + 1 < args.length)
+                    threads = Integer.parseInt(args[++option]);
+                else if(args[option].equals("-cache") && option + 1 < args.length)
+                    budget = Long.parseLong(args[++option]) << 20;
+                else
+                    break;
+            }
+        }
+        catch (NumberFormatException e){
+            option = -1;
+        }
+        if(option != args.length || port < 0 || threads < 1 || budget < 0){
+            System.err.println("Usage: ValidationServer [-port number] [-threads number] [-cache megabytes] [-first]");
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+        Metrics.start();
+        try {
+            ValidationServer server = new ValidationServer(port, threads, firstHitOnly, budget);
+            server.start();
+            System.err.println("Validation server is listening on " +
+                    InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort());
+        }
+        catch (IOException e){
+            System.err.println(e.getMessage());
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+    }
+
+    /**
+     * Error caused by request content, returned with status 400
+     */
+    private static class BadRequestException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequestException(String message, Throwable cause){
+            super(message, cause);
+        }
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static class Response {
+        private int status;
+        private Object body;
+
+        Response(int status, Object body){
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static class FileHash {
+        private long length;
+        private long modified;
+        private String hash;
+
+        FileHash(long length, long modified, String hash){
+            this.length = length;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+}
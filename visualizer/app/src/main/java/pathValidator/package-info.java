@@ -0,0 +1,10 @@
+/**
+ * Provides the classes necessary to validate paths
+ * against configuration space without JavaFX.
+ * Works only with {@link json.pojo} model and can be run
+ * in batch mode on a directory of path files
+ * or as a loopback server with loaded configuration spaces
+ * @see PathValidator
+ * @see ValidationServer
+ */
+package pathValidator;
@@ -0,0 +1,98 @@
+package planner;
+
+import geometry.TriangleBvh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel collision checker of candidate edges of sampling planners.
+ * Edges are packed as start and end coordinates, six floats per edge. Batch of edges is split
+ * in halves between workers of {@link ForkJoinPool} until blocks are small enough, each edge
+ * is tested against obstacle triangles with {@link TriangleBvh}. Results don't depend on
+ * number of workers, small batches are checked in caller thread.
+ *
+ * @version     %I%, %G%
+ * @see TriangleBvh
+ */
+public final class EdgeChecker {
+
+    // edges per task, each edge test takes microseconds, so smaller blocks don't pay for forking
+    private static final int THRESHOLD = 16;
+
+    private final TriangleBvh bvh;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create checker running in common fork-join pool
+     * @param bvh triangle hierarchy of c-space
+     */
+    public EdgeChecker(TriangleBvh bvh){
+        this(bvh, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create checker running in defined pool
+     * @param bvh triangle hierarchy of c-space
+     * @param pool pool for parallel checks
+     */
+    public EdgeChecker(TriangleBvh bvh, ForkJoinPool pool){
+        this.bvh = bvh;
+        this.pool = pool;
+    }
+
+    /**
+     * Check edges in parallel
+     * @param edges x, y, z of start and x, y, z of end for each edge
+     * @param count number of edges to check
+     * @param free result, element is set to true if edge doesn't intersect obstacles
+     */
+    public void check(float[] edges, int count, boolean[] free){
+        if(count <= THRESHOLD || pool.getParallelism() == 1)
+            checkRange(edges, free, 0, count);
+        else
+            pool.invoke(new CheckTask(edges, free, 0, count));
+    }
+
+    /**
+     * Check one edge
+     * @param edges packed edges
+     * @param edge edge index
+     * @return true if edge doesn't intersect obstacles
+     */
+    public boolean isFree(float[] edges, int edge){
+        int e = edge * 6;
+        return !bvh.isSegmentIntersects(edges[e], edges[e + 1], edges[e + 2], edges[e + 3], edges[e + 4], edges[e + 5]);
+    }
+
+    private void checkRange(float[] edges, boolean[] free, int start, int end){
+        for(int edge = start; edge < end; ++edge)
+            free[edge] = isFree(edges, edge);
+    }
+
+    private class CheckTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private float[] edges;
+        private boolean[] free;
+        private int start;
+        private int end;
+
+        CheckTask(float[] edges, boolean[] free, int start, int end){
+            this.edges = edges;
+            this.free = free;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute(){
+            if(end - start <= THRESHOLD){
+                checkRange(edges, free, start, end);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new CheckTask(edges, free, start, middle), new CheckTask(edges, free, middle, end));
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package planner;
+
+import geometry.CSpaceGeometry;
+import geometry.OccupancyGrid;
+import geometry.TriangleBvh;
+import pathValidator.CSpaceConverter;
+import pathValidator.PathValidator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reference A* planner over voxelised c-space.
+ * Obstacles are rasterised into {@link OccupancyGrid}, search runs over free voxels with
+ * 26-connected moves of cost 1, sqrt(2) and sqrt(3) voxels and octile heuristic. Diagonal move
+ * is allowed only if all voxels of its bound box are free (no corner cutting), so every move
+ * stays inside free voxels and doesn't intersect obstacles.
+ * <p>
+ * Search state is kept in primitive arrays indexed by voxel: cost, parent and closed bits,
+ * open set is {@link LongHeap} of priority and voxel index packed into long. Free voxels are
+ * copied into bit set padded with occupied border, so neighbour is fixed offset of voxel index,
+ * and voxels with all neighbours free are marked to skip per-neighbour checks.
+ * <p>
+ * There is no Jump Point Search mode: in 3D each diagonal jump step scans all its straight and
+ * planar sub-directions, on example c-space it expanded 7 times fewer nodes than A*,
+ * but searched about 3 times longer.
+ * <pre>
+ *     java -cp validator.jar planner.GridPlanner [-raw] [-resolution 128] c_space.json path.json
+ * </pre>
+ *
+ * @version     %I%, %G%
+ * @see OccupancyGrid
+ */
+public class GridPlanner {
+
+    private static final int[][] DIRECTIONS = new int[26][];
+    private static final float[] COSTS = new float[26];
+    // offsets of voxels in bound box of move (except start and end voxel), checked for corner cutting
+    private static final int[][][] SIDES = new int[26][][];
+    // bits of neighbour voxels, which must be free for move in direction
+    private static final int[] REQUIRED = new int[26];
+    private static final int ALL = (1 << 26) - 1;
+    // heuristic is weighted a bit to prefer nodes closer to goal among nodes of equal cost
+    private static final float TIE_BREAK = 1.0001f;
+    private static final float SQRT2 = (float) Math.sqrt(2.0);
+    private static final float SQRT3 = (float) Math.sqrt(3.0);
+
+    static {
+        int d = 0;
+        for(int dz = -1; dz <= 1; ++dz){
+            for(int dy = -1; dy <= 1; ++dy){
+                for(int dx = -1; dx <= 1; ++dx){
+                    if(dx == 0 && dy == 0 && dz == 0)
+                        continue;
+                    DIRECTIONS[d] = new int[]{dx, dy, dz};
+                    COSTS[d] = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    int[][] sides = new int[6][];
+                    int count = 0;
+                    for(int mask = 1; mask < 7; ++mask){
+                        int sx = (mask & 1) != 0 ? dx : 0;
+                        int sy = (mask & 2) != 0 ? dy : 0;
+                        int sz = (mask & 4) != 0 ? dz : 0;
+                        boolean empty = sx == 0 && sy == 0 && sz == 0;
+                        boolean full = sx == dx && sy == dy && sz == dz;
+                        boolean repeated = (mask & 1) != 0 && dx == 0 || (mask & 2) != 0 && dy == 0 ||
+                                (mask & 4) != 0 && dz == 0;
+                        if(!empty && !full && !repeated)
+                            sides[count++] = new int[]{sx, sy, sz};
+                    }
+                    SIDES[d] = Arrays.copyOf(sides, count);
+                    ++d;
+                }
+            }
+        }
+        for(d = 0; d < 26; ++d){
+            REQUIRED[d] = 1 << d;
+            for(int[] side: SIDES[d])
+                REQUIRED[d] |= 1 << direction(side[0], side[1], side[2]);
+        }
+    }
+
+    private OccupancyGrid grid;
+    private TriangleBvh bvh;
+    private int nx;
+    private int ny;
+    private int nz;
+    // nodes are voxels of grid padded with one layer of occupied voxels, so moves need no bound checks
+    private int px;
+    private int py;
+    private int[] offsets = new int[26];
+    private long[] free;
+    // voxels with all 26 neighbours free, for them every move is allowed
+    private long[] clear;
+    private int startNode;
+    private int goalNode;
+    private int goalI;
+    private int goalJ;
+    private int goalK;
+    private float[] cost;
+    private int[] parent;
+    private long[] closed;
+    private LongHeap open;
+    private int expanded;
+
+    /**
+     * Default constructor. Rasterise c-space with default resolution
+     * @param geometry c-space geometry
+     */
+    public GridPlanner(CSpaceGeometry geometry){
+        this(geometry, OccupancyGrid.DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Constructor with defined grid resolution
+     * @param geometry c-space geometry
+     * @param resolution number of voxels along the longest side of c-space
+     */
+    public GridPlanner(CSpaceGeometry geometry, int resolution){
+        this(new OccupancyGrid(geometry, resolution), new TriangleBvh(geometry.getStore()));
+    }
+
+    /**
+     * Constructor for prepared grid and triangle hierarchy
+     * @param grid occupancy grid of c-space
+     * @param bvh triangle hierarchy of c-space, used to shortcut found path
+     */
+    public GridPlanner(OccupancyGrid grid, TriangleBvh bvh){
+        this.grid = grid;
+        this.bvh = bvh;
+        nx = grid.getSize(0);
+        ny = grid.getSize(1);
+        nz = grid.getSize(2);
+        px = nx + 2;
+        py = ny + 2;
+        for(int d = 0; d < 26; ++d){
+            int[] dir = DIRECTIONS[d];
+            offsets[d] = (dir[2] * py + dir[1]) * px + dir[0];
+        }
+        free = new long[(int) (((long) px * py * (nz + 2) + 63) >>> 6)];
+        for(int k = 0; k < nz; ++k){
+            for(int j = 0; j < ny; ++j){
+                int row = ((k + 1) * py + j + 1) * px + 1;
+                for(int i = 0; i < nx; ++i){
+                    if(!grid.isOccupied(i, j, k))
+                        setFree(row + i);
+                }
+            }
+        }
+        clear = erode(free, 1);
+        clear = erode(clear, px);
+        clear = erode(clear, px * py);
+    }
+
+    // bit set if it is set in bits and in bits shifted by distance in both directions
+    private static long[] erode(long[] bits, int distance){
+        long[] result = bits.clone();
+        int words = distance >>> 6;
+        int shift = distance & 63;
+        for(int w = 0; w < bits.length; ++w){
+            // bit b of result needs bits b - distance and b + distance
+            long below = word(bits, w - words, shift, true);
+            long above = word(bits, w + words, shift, false);
+            result[w] &= below & above;
+        }
+        return result;
+    }
+
+    // bits shifted to word w from lower (up) or higher (down) positions, missing bits are zero
+    private static long word(long[] bits, int w, int shift, boolean up){
+        if(up){
+            long low = w >= 0 && w < bits.length ? bits[w] : 0L;
+            if(shift == 0)
+                return low;
+            long lower = w - 1 >= 0 && w - 1 < bits.length ? bits[w - 1] : 0L;
+            return low << shift | lower >>> (64 - shift);
+        }
+        long high = w >= 0 && w < bits.length ? bits[w] : 0L;
+        if(shift == 0)
+            return high;
+        long higher = w + 1 >= 0 && w + 1 < bits.length ? bits[w + 1] : 0L;
+        return high >>> shift | higher << (64 - shift);
+    }
+
+    /**
+     * Return grid used for search
+     * @return {@link OccupancyGrid}
+     */
+    public OccupancyGrid getGrid(){
+        return grid;
+    }
+
+    /**
+     * Return number of nodes expanded by the last search
+     * @return expanded node count
+     */
+    public int getExpanded(){
+        return expanded;
+    }
+
+    /**
+     * Find path from start to finish
+     * @param start x, y, z coordinates of start point
+     * @param finish x, y, z coordinates of finish point
+     * @param shortcut if true, remove redundant points and shortcut path with exact segment tests
+     * @return x, y, z coordinates of path points from start to finish or null if path doesn't exist
+     */
+    public float[] plan(float[] start, float[] finish, boolean shortcut){
+        startNode = toNode(start);
+        goalNode = toNode(finish);
+        if(startNode < 0 || goalNode < 0)
+            return null;
+        goalI = goalNode % px;
+        goalJ = (goalNode / px) % py;
+        goalK = goalNode / (px * py);
+        int nodes = px * py * (nz + 2);
+        if(cost == null){
+            cost = new float[nodes];
+            parent = new int[nodes];
+            closed = new long[free.length];
+            open = new LongHeap(1024);
+        }
+        Arrays.fill(cost, Float.POSITIVE_INFINITY);
+        Arrays.fill(closed, 0L);
+        open.clear();
+        expanded = 0;
+        // start and goal voxels are passable even if they are occupied
+        boolean startFree = isFree(startNode);
+        boolean goalFree = isFree(goalNode);
+        setFree(startNode);
+        setFree(goalNode);
+
+        cost[startNode] = 0f;
+        parent[startNode] = startNode;
+        open.push(LongHeap.key(heuristic(startNode % px, (startNode / px) % py, startNode / (px * py)), startNode));
+        boolean found = false;
+        while(!open.isEmpty()){
+            int node = LongHeap.node(open.poll());
+            if((closed[node >>> 6] & (1L << node)) != 0)
+                continue;
+            closed[node >>> 6] |= 1L << node;
+            if(node == goalNode){
+                found = true;
+                break;
+            }
+            ++expanded;
+            expand(node);
+        }
+        if(!startFree)
+            free[startNode >>> 6] &= ~(1L << startNode);
+        if(!goalFree)
+            free[goalNode >>> 6] &= ~(1L << goalNode);
+        if(!found)
+            return null;
+        float[] path = reconstruct(start, finish);
+        if(shortcut)
+            path = PathSmoother.shortcut(PathSmoother.collinear(path), bvh);
+        return path;
+    }
+
+    private int toNode(float[] point){
+        int i = grid.toVoxel(point[0], 0);
+        int j = grid.toVoxel(point[1], 1);
+        int k = grid.toVoxel(point[2], 2);
+        if(i < 0 || j < 0 || k < 0 || i >= nx || j >= ny || k >= nz)
+            return -1;
+        return ((k + 1) * py + j + 1) * px + i + 1;
+    }
+
+    private void expand(int node){
+        int mask = neighbours(node);
+        int i = node % px;
+        int j = (node / px) % py;
+        int k = node / (px * py);
+        for(int d = 0; d < 26; ++d){
+            if((mask & REQUIRED[d]) == REQUIRED[d])
+                relax(node, d, i, j, k);
+        }
+    }
+
+    // node at (i, j, k) is parent of its neighbour in direction d
+    private void relax(int node, int d, int i, int j, int k){
+        int next = node + offsets[d];
+        if((closed[next >>> 6] & (1L << next)) != 0)
+            return;
+        float g = cost[node] + COSTS[d];
+        if(g < cost[next]){
+            cost[next] = g;
+            parent[next] = node;
+            int[] dir = DIRECTIONS[d];
+            open.push(LongHeap.key(g + heuristic(i + dir[0], j + dir[1], k + dir[2]), next));
+        }
+    }
+
+    private static int direction(int dx, int dy, int dz){
+        int d = (dz + 1) * 9 + (dy + 1) * 3 + (dx + 1);
+        return d > 13 ? d - 1 : d;
+    }
+
+    // bit d is set if neighbour voxel in direction d is free
+    private int neighbours(int node){
+        if((clear[node >>> 6] & (1L << node)) != 0)
+            return ALL;
+        int mask = 0;
+        for(int d = 0; d < 26; ++d){
+            int next = node + offsets[d];
+            mask |= (int) (free[next >>> 6] >>> next & 1L) << d;
+        }
+        return mask;
+    }
+
+    private boolean isFree(int node){
+        return (free[node >>> 6] & (1L << node)) != 0;
+    }
+
+    private void setFree(int node){
+        free[node >>> 6] |= 1L << node;
+    }
+
+    // octile distance in voxels
+    private float heuristic(int i, int j, int k){
+        int dx = Math.abs(i - goalI);
+        int dy = Math.abs(j - goalJ);
+        int dz = Math.abs(k - goalK);
+        int min = Math.min(dx, Math.min(dy, dz));
+        int max = Math.max(dx, Math.max(dy, dz));
+        int mid = dx + dy + dz - min - max;
+        return TIE_BREAK * (SQRT3 * min + SQRT2 * (mid - min) + (max - mid));
+    }
+
+    // start point, centers of path voxels from start to goal voxel, finish point
+    private float[] reconstruct(float[] start, float[] finish){
+        int count = 1;
+        for(int node = goalNode; node != startNode; node = parent[node])
+            ++count;
+        float[] path = new float[(count + 2) * 3];
+        System.arraycopy(start, 0, path, 0, 3);
+        int index = count;
+        for(int node = goalNode; index > 0; node = parent[node], --index){
+            path[index * 3] = (float) grid.toCenter(node % px - 1, 0);
+            path[index * 3 + 1] = (float) grid.toCenter((node / px) % py - 1, 1);
+            path[index * 3 + 2] = (float) grid.toCenter(node / (px * py) - 1, 2);
+        }
+        System.arraycopy(finish, 0, path, path.length - 3, 3);
+        return path;
+    }
+
+    /**
+     * Run planner. Arguments: c-space file (json, STL or binary) and output path file.
+     * Option <code>-raw</code> keeps path
+     * through voxel centers without shortcuts, <code>-resolution voxels</code> sets grid resolution
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        boolean raw = false;
+        int resolution = OccupancyGrid.DEFAULT_RESOLUTION;
+        int option = 0;
+        try {
+            for(; option < args.length && args[option].startsWith("-"); ++option){
+                if(args[option].equals("-raw"))
+                    raw = true;
+                else if(args[option].equals("-resolution") && option + 1 < args.length)
+                    resolution = Integer.parseInt(args[++option]);
+                else
+                    break;
+            }
+        }
+        catch (NumberFormatException e){
+            option = -1;
+        }
+        if(option >= 0)
+            args = Arrays.copyOfRange(args, option, args.length);
+        if(option < 0 || args.length != 2 || args[0].startsWith("-") || resolution < 1){
+            System.err.println("Usage: GridPlanner [-raw] [-resolution voxels] " +
+                    "<c-space.json | c-space.stl | c-space.cspb> <path.json>");
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+        try {
+            CSpaceGeometry geometry = CSpaceConverter.read(new File(args[0]));
+            long begin = System.nanoTime();
+            GridPlanner planner = new GridPlanner(geometry, resolution);
+            long built = System.nanoTime();
+            float[] path = planner.plan(geometry.getStart(), geometry.getFinish(), !raw);
+            long end = System.nanoTime();
+            System.err.printf("Grid %dx%dx%d built in %d ms, search %d ms, %d nodes expanded%n",
+                    planner.nx, planner.ny, planner.nz, (built - begin) / 1000000,
+                    (end - built) / 1000000, planner.expanded);
+            if(path == null){
+                System.err.println("Path not found");
+                System.exit(PathValidator.EXIT_INVALID);
+            }
+            PathWriter.write(PathWriter.toPath(path), new File(args[1]));
+            System.err.printf("Path: %d points, length %.3f%n", path.length / 3, PathWriter.length(path));
+        }
+        catch (IOException e){
+            System.err.println(e.getMessage());
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package planner;
+
+import java.util.Arrays;
+
+/**
+ * Incremental 3D tree of points for nearest neighbour queries of sampling planners.
+ * Points are inserted one by one without rebalancing: split axis cycles with depth
+ * and split value is the inserted point, random insertion order keeps tree depth logarithmic.
+ * Points and links are kept in primitive arrays, index of point is its insertion order.
+ * Tree is not thread safe.
+ *
+ * @version     %I%, %G%
+ */
+final class KdTree {
+
+    private float[] points;
+    private int[] left;
+    private int[] right;
+    private byte[] axis;
+    private int size;
+    private int[] found = new int[64];
+    private int foundCount;
+    // query of running search
+    private float qx;
+    private float qy;
+    private float qz;
+    private float bestDistance;
+    private int best;
+    // max-heap of k nearest points found by running search
+    private int[] heapIndex = new int[16];
+    private float[] heapDistance = new float[16];
+    private int heapSize;
+    private int heapCapacity;
+
+    /**
+     * Create empty tree
+     * @param capacity initial number of points, tree grows when needed
+     */
+    KdTree(int capacity){
+        capacity = Math.max(16, capacity);
+        points = new float[capacity * 3];
+        left = new int[capacity];
+        right = new int[capacity];
+        axis = new byte[capacity];
+    }
+
+    int size(){
+        return size;
+    }
+
+    void clear(){
+        size = 0;
+    }
+
+    /**
+     * Return coordinate of point
+     * @param index point index
+     * @param coordinate 0 for x, 1 for y, 2 for z
+     * @return coordinate value
+     */
+    float get(int index, int coordinate){
+        return points[index * 3 + coordinate];
+    }
+
+    /**
+     * Insert point
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return index of inserted point
+     */
+    int add(float x, float y, float z){
+        if(size == left.length){
+            int capacity = size * 2;
+            points = Arrays.copyOf(points, capacity * 3);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            axis = Arrays.copyOf(axis, capacity);
+        }
+        int index = size++;
+        points[index * 3] = x;
+        points[index * 3 + 1] = y;
+        points[index * 3 + 2] = z;
+        left[index] = -1;
+        right[index] = -1;
+        if(index == 0){
+            axis[index] = 0;
+            return index;
+        }
+        int node = 0;
+        while(true){
+            int a = axis[node];
+            float value = a == 0 ? x : a == 1 ? y : z;
+            if(value < points[node * 3 + a]){
+                if(left[node] < 0){
+                    left[node] = index;
+                    break;
+                }
+                node = left[node];
+            }
+            else {
+                if(right[node] < 0){
+                    right[node] = index;
+                    break;
+                }
+                node = right[node];
+            }
+        }
+        axis[index] = (byte) ((axis[node] + 1) % 3);
+        return index;
+    }
+
+    /**
+     * Find the nearest point
+     * @param x x coordinate of query point
+     * @param y y coordinate of query point
+     * @param z z coordinate of query point
+     * @return index of the nearest point or -1 if tree is empty
+     */
+    int nearest(float x, float y, float z){
+        if(size == 0)
+            return -1;
+        qx = x;
+        qy = y;
+        qz = z;
+        best = -1;
+        bestDistance = Float.POSITIVE_INFINITY;
+        nearest(0);
+        return best;
+    }
+
+    private void nearest(int node){
+        while(node >= 0){
+            float distance = distance(node);
+            if(distance < bestDistance){
+                bestDistance = distance;
+                best = node;
+            }
+            float diff = query(axis[node]) - points[node * 3 + axis[node]];
+            int near = diff < 0 ? left[node] : right[node];
+            int far = diff < 0 ? right[node] : left[node];
+            nearest(near);
+            if(diff * diff >= bestDistance)
+                return;
+            node = far;
+        }
+    }
+
+    /**
+     * Find k nearest points
+     * @param x x coordinate of query point
+     * @param y y coordinate of query point
+     * @param z z coordinate of query point
+     * @param k number of points to find
+     * @return indices of at most k nearest points ordered by distance
+     */
+    int[] nearest(float x, float y, float z, int k){
+        if(heapIndex.length < k){
+            heapIndex = new int[k];
+            heapDistance = new float[k];
+        }
+        heapSize = 0;
+        heapCapacity = k;
+        if(size > 0 && k > 0){
+            qx = x;
+            qy = y;
+            qz = z;
+            nearestK(0);
+        }
+        int[] result = new int[heapSize];
+        // pop the furthest point first
+        for(int i = heapSize - 1; i >= 0; --i){
+            result[i] = heapIndex[0];
+            pop();
+        }
+        return result;
+    }
+
+    private void nearestK(int node){
+        while(node >= 0){
+            float distance = distance(node);
+            if(heapSize < heapCapacity)
+                push(node, distance);
+            else if(distance < heapDistance[0]){
+                pop();
+                push(node, distance);
+            }
+            float diff = query(axis[node]) - points[node * 3 + axis[node]];
+            int near = diff < 0 ? left[node] : right[node];
+            int far = diff < 0 ? right[node] : left[node];
+            nearestK(near);
+            if(heapSize == heapCapacity && diff * diff >= heapDistance[0])
+                return;
+            node = far;
+        }
+    }
+
+    private void push(int node, float distance){
+        int i = heapSize++;
+        while(i > 0){
+            int parent = (i - 1) >>> 1;
+            if(heapDistance[parent] >= distance)
+                break;
+            heapIndex[i] = heapIndex[parent];
+            heapDistance[i] = heapDistance[parent];
+            i = parent;
+        }
+        heapIndex[i] = node;
+        heapDistance[i] = distance;
+    }
+
+    private void pop(){
+        int last = --heapSize;
+        int node = heapIndex[last];
+        float distance = heapDistance[last];
+        int i = 0;
+        while(2 * i + 1 < heapSize){
+            int child = 2 * i + 1;
+            if(child + 1 < heapSize && heapDistance[child + 1] > heapDistance[child])
+                ++child;
+            if(distance >= heapDistance[child])
+                break;
+            heapIndex[i] = heapIndex[child];
+            heapDistance[i] = heapDistance[child];
+            i = child;
+        }
+        heapIndex[i] = node;
+        heapDistance[i] = distance;
+    }
+
+    /**
+     * Find all points in ball
+     * @param x x coordinate of ball center
+     * @param y y coordinate of ball center
+     * @param z z coordinate of ball center
+     * @param radius ball radius
+     * @return indices of points not further than radius from center
+     */
+    int[] near(float x, float y, float z, float radius){
+        foundCount = 0;
+        if(size > 0){
+            qx = x;
+            qy = y;
+            qz = z;
+            near(0, radius * radius);
+        }
+        return Arrays.copyOf(found, foundCount);
+    }
+
+    private void near(int node, float radius2){
+        while(node >= 0){
+            if(distance(node) <= radius2){
+                if(foundCount == found.length)
+                    found = Arrays.copyOf(found, foundCount * 2);
+                found[foundCount++] = node;
+            }
+            float diff = query(axis[node]) - points[node * 3 + axis[node]];
+            int near = diff < 0 ? left[node] : right[node];
+            int far = diff < 0 ? right[node] : left[node];
+            near(near, radius2);
+            if(diff * diff > radius2)
+                return;
+            node = far;
+        }
+    }
+
+    private float query(int a){
+        return a == 0 ? qx : a == 1 ? qy : qz;
+    }
+
+    // squared distance from query to point
+    private float distance(int node){
+        float dx = points[node * 3] - qx;
+        float dy = points[node * 3 + 1] - qy;
+        float dz = points[node * 3 + 2] - qz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
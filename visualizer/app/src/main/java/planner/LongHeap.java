@@ -0,0 +1,107 @@
+package planner;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap of primitive long keys with four children per node: shallower than binary heap,
+ * and children of node share cache line, so sifting does fewer cache misses.
+ * Planners pack priority and node index into one key, see {@link #key(float, int)},
+ * so heap doesn't allocate objects for entries. Decrease-key is not supported:
+ * node is pushed again with better priority and stale entries are skipped by caller.
+ *
+ * @version     %I%, %G%
+ */
+final class LongHeap {
+
+    private long[] keys;
+    private int size;
+
+    /**
+     * Create empty heap
+     * @param capacity initial capacity, heap grows when needed
+     */
+    LongHeap(int capacity){
+        keys = new long[Math.max(16, capacity)];
+    }
+
+    /**
+     * Pack non-negative priority and node index into key. Bits of non-negative float
+     * are ordered as float values, so keys are ordered by priority, then by node index
+     * @param priority non-negative priority
+     * @param node node index
+     * @return packed key
+     */
+    static long key(float priority, int node){
+        return ((long) Float.floatToIntBits(priority) << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Return node index of packed key
+     * @param key packed key
+     * @return node index
+     */
+    static int node(long key){
+        return (int) key;
+    }
+
+    /**
+     * Return priority of packed key
+     * @param key packed key
+     * @return priority
+     */
+    static float priority(long key){
+        return Float.intBitsToFloat((int) (key >>> 32));
+    }
+
+    boolean isEmpty(){
+        return size == 0;
+    }
+
+    int size(){
+        return size;
+    }
+
+    void clear(){
+        size = 0;
+    }
+
+    void push(long key){
+        if(size == keys.length)
+            keys = Arrays.copyOf(keys, size * 2);
+        int i = size++;
+        while(i > 0){
+            int parent = (i - 1) >>> 2;
+            if(keys[parent] <= key)
+                break;
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        keys[i] = key;
+    }
+
+    long poll(){
+        long top = keys[0];
+        long last = keys[--size];
+        int i = 0;
+        while(true){
+            int first = 4 * i + 1;
+            if(first >= size)
+                break;
+            int child = first;
+            long min = keys[first];
+            int end = Math.min(first + 4, size);
+            for(int c = first + 1; c < end; ++c){
+                if(keys[c] < min){
+                    min = keys[c];
+                    child = c;
+                }
+            }
+            if(last <= min)
+                break;
+            keys[i] = min;
+            i = child;
+        }
+        keys[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,81 @@
+package planner;
+
+import geometry.TriangleBvh;
+
+import java.util.Arrays;
+
+/**
+ * Post-processing of planned paths given as packed coordinates.
+ * Removes points between collinear segments and shortcuts path
+ * with exact segment tests of {@link TriangleBvh}.
+ *
+ * @version     %I%, %G%
+ */
+final class PathSmoother {
+
+    private static final double COLLINEAR_EPS = 1e-9;
+
+    private PathSmoother(){
+    }
+
+    /**
+     * Remove points lying between two segments of the same direction
+     * @param points x, y, z coordinates of each path point
+     * @return path without redundant points
+     */
+    static float[] collinear(float[] points){
+        int count = points.length / 3;
+        if(count < 3)
+            return points;
+        float[] result = new float[points.length];
+        System.arraycopy(points, 0, result, 0, 3);
+        int size = 1;
+        for(int i = 1; i < count - 1; ++i){
+            int a = (size - 1) * 3, b = i * 3, c = (i + 1) * 3;
+            double ux = points[b] - result[a], uy = points[b + 1] - result[a + 1], uz = points[b + 2] - result[a + 2];
+            double vx = points[c] - points[b], vy = points[c + 1] - points[b + 1], vz = points[c + 2] - points[b + 2];
+            double cx = uy * vz - uz * vy, cy = uz * vx - ux * vz, cz = ux * vy - uy * vx;
+            double cross = cx * cx + cy * cy + cz * cz;
+            double scale = (ux * ux + uy * uy + uz * uz) * (vx * vx + vy * vy + vz * vz);
+            boolean straight = cross <= COLLINEAR_EPS * scale && ux * vx + uy * vy + uz * vz > 0.0;
+            if(!straight){
+                System.arraycopy(points, b, result, size * 3, 3);
+                ++size;
+            }
+        }
+        System.arraycopy(points, points.length - 3, result, size * 3, 3);
+        return Arrays.copyOf(result, (size + 1) * 3);
+    }
+
+    /**
+     * Greedy shortcut: from each kept point go to the furthest next point
+     * reachable by free segment. Only segments tested with hierarchy are added,
+     * so valid path stays valid
+     * @param points x, y, z coordinates of each path point
+     * @param bvh triangle hierarchy of c-space
+     * @return shortened path
+     */
+    static float[] shortcut(float[] points, TriangleBvh bvh){
+        int count = points.length / 3;
+        if(count < 3)
+            return points;
+        float[] result = new float[points.length];
+        System.arraycopy(points, 0, result, 0, 3);
+        int size = 1;
+        int anchor = 0;
+        while(anchor < count - 1){
+            int next = anchor + 1;
+            while(next + 1 < count && isFree(points, anchor, next + 1, bvh))
+                ++next;
+            System.arraycopy(points, next * 3, result, size * 3, 3);
+            ++size;
+            anchor = next;
+        }
+        return Arrays.copyOf(result, size * 3);
+    }
+
+    private static boolean isFree(float[] points, int a, int b, TriangleBvh bvh){
+        return !bvh.isSegmentIntersects(points[a * 3], points[a * 3 + 1], points[a * 3 + 2],
+                points[b * 3], points[b * 3 + 1], points[b * 3 + 2]);
+    }
+}
@@ -0,0 +1,61 @@
+package planner;
+
+import json.pojo.Path;
+import json.pojo.Point;
+import json.stream.Jackson;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer of planned paths in json format of {@link Path}.
+ * Written files are read back by <code>PathParser</code> and {@link json.stream.PathReader}.
+ *
+ * @version     %I%, %G%
+ * @see Path
+ */
+public final class PathWriter {
+
+    private PathWriter(){
+    }
+
+    /**
+     * Create path from packed coordinates
+     * @param points x, y, z coordinates of each path point
+     * @return {@link Path}
+     */
+    public static Path toPath(float[] points){
+        List<Point> list = new ArrayList<>(points.length / 3);
+        for(int i = 0; i + 2 < points.length; i += 3)
+            list.add(new Point(points[i], points[i + 1], points[i + 2]));
+        return new Path(list);
+    }
+
+    /**
+     * Write path to json file
+     * @param path path to write
+     * @param file target file
+     * @throws IOException if file can't be written
+     */
+    public static void write(Path path, File file) throws IOException {
+        Jackson.MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, path);
+    }
+
+    /**
+     * Return length of path given as packed coordinates
+     * @param points x, y, z coordinates of each path point
+     * @return sum of segment lengths
+     */
+    public static double length(float[] points){
+        double length = 0.0;
+        for(int i = 0; i + 5 < points.length; i += 3){
+            double dx = points[i + 3] - points[i];
+            double dy = points[i + 4] - points[i + 1];
+            double dz = points[i + 5] - points[i + 2];
+            length += Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,233 @@
+package planner;
+
+import geometry.CSpaceGeometry;
+import geometry.TriangleBvh;
+import pathValidator.CSpaceConverter;
+import pathValidator.PathValidator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Query planner over prebuilt {@link Roadmap}.
+ * Query connects start and finish to their nearest roadmap nodes by free edges
+ * (checked together in parallel with direct start-finish edge) and runs A* with
+ * Euclidean heuristic over roadmap graph. Roadmap is built once per c-space file
+ * and reused by later runs, so query takes milliseconds.
+ * <pre>
+ *     java -cp validator.jar planner.PrmPlanner [-samples 10000] [-neighbours 10] c_space.json path.json
+ * </pre>
+ *
+ * @version     %I%, %G%
+ * @see Roadmap
+ */
+public class PrmPlanner {
+
+    private Roadmap roadmap;
+    private TriangleBvh bvh;
+    private EdgeChecker checker;
+    private KdTree tree;
+    private int nodes;
+    private float[] cost;
+    private int[] parent;
+    private boolean[] closed;
+    // length of free edge from roadmap node to finish, infinity if node isn't connected to finish
+    private float[] toFinish;
+    private LongHeap open = new LongHeap(1024);
+    private int expanded;
+
+    /**
+     * Constructor
+     * @param roadmap roadmap of c-space
+     * @param bvh triangle hierarchy of c-space
+     */
+    public PrmPlanner(Roadmap roadmap, TriangleBvh bvh){
+        this.roadmap = roadmap;
+        this.bvh = bvh;
+        checker = new EdgeChecker(bvh);
+        nodes = roadmap.getNodeCount();
+        tree = new KdTree(nodes);
+        for(int i = 0; i < nodes; ++i)
+            tree.add(roadmap.get(i, 0), roadmap.get(i, 1), roadmap.get(i, 2));
+        // roadmap nodes, then start and finish
+        cost = new float[nodes + 2];
+        parent = new int[nodes + 2];
+        closed = new boolean[nodes + 2];
+        toFinish = new float[nodes];
+        Arrays.fill(toFinish, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Return number of nodes expanded by the last query
+     * @return expanded node count
+     */
+    public int getExpanded(){
+        return expanded;
+    }
+
+    /**
+     * Find path from start to finish
+     * @param start x, y, z coordinates of start point
+     * @param finish x, y, z coordinates of finish point
+     * @param shortcut if true, shortcut path with exact segment tests
+     * @return x, y, z coordinates of path points from start to finish or null if path wasn't found
+     */
+    public float[] plan(float[] start, float[] finish, boolean shortcut){
+        int startNode = nodes;
+        int finishNode = nodes + 1;
+        int k = roadmap.getNeighbours();
+        int[] fromStart = tree.nearest(start[0], start[1], start[2], k);
+        int[] toGoal = tree.nearest(finish[0], finish[1], finish[2], k);
+        int count = fromStart.length + toGoal.length + 1;
+        float[] edges = new float[count * 6];
+        for(int i = 0; i < fromStart.length; ++i)
+            setEdge(edges, i, start, fromStart[i]);
+        for(int i = 0; i < toGoal.length; ++i)
+            setEdge(edges, fromStart.length + i, finish, toGoal[i]);
+        System.arraycopy(start, 0, edges, (count - 1) * 6, 3);
+        System.arraycopy(finish, 0, edges, (count - 1) * 6 + 3, 3);
+        boolean[] free = new boolean[count];
+        checker.check(edges, count, free);
+        if(free[count - 1]){
+            expanded = 0;
+            return new float[]{start[0], start[1], start[2], finish[0], finish[1], finish[2]};
+        }
+
+        Arrays.fill(cost, Float.POSITIVE_INFINITY);
+        Arrays.fill(closed, false);
+        for(int i = 0; i < toGoal.length; ++i){
+            if(free[fromStart.length + i])
+                toFinish[toGoal[i]] = distance(toGoal[i], finish);
+        }
+        open.clear();
+        expanded = 0;
+        cost[startNode] = 0f;
+        parent[startNode] = startNode;
+        for(int i = 0; i < fromStart.length; ++i){
+            if(free[i])
+                relax(startNode, fromStart[i], distance(fromStart[i], start), finish);
+        }
+        while(!open.isEmpty()){
+            int node = LongHeap.node(open.poll());
+            if(closed[node])
+                continue;
+            closed[node] = true;
+            if(node == finishNode)
+                break;
+            ++expanded;
+            if(toFinish[node] != Float.POSITIVE_INFINITY)
+                relax(node, finishNode, toFinish[node], finish);
+            for(int e = roadmap.getOffset(node); e < roadmap.getOffset(node + 1); ++e)
+                relax(node, roadmap.getTarget(e), roadmap.getLength(e), finish);
+        }
+        for(int goal: toGoal)
+            toFinish[goal] = Float.POSITIVE_INFINITY;
+        if(!closed[finishNode])
+            return null;
+
+        int points = 1;
+        for(int node = finishNode; node != startNode; node = parent[node])
+            ++points;
+        float[] path = new float[points * 3];
+        System.arraycopy(start, 0, path, 0, 3);
+        System.arraycopy(finish, 0, path, path.length - 3, 3);
+        int index = points - 2;
+        for(int node = parent[finishNode]; node != startNode; node = parent[node], --index){
+            for(int axis = 0; axis < 3; ++axis)
+                path[index * 3 + axis] = roadmap.get(node, axis);
+        }
+        if(shortcut)
+            path = PathSmoother.shortcut(path, bvh);
+        return path;
+    }
+
+    private void relax(int node, int next, float step, float[] finish){
+        if(closed[next])
+            return;
+        float g = cost[node] + step;
+        if(g < cost[next]){
+            cost[next] = g;
+            parent[next] = node;
+            float h = next < nodes ? distance(next, finish) : 0f;
+            open.push(LongHeap.key(g + h, next));
+        }
+    }
+
+    private float distance(int node, float[] point){
+        float dx = roadmap.get(node, 0) - point[0];
+        float dy = roadmap.get(node, 1) - point[1];
+        float dz = roadmap.get(node, 2) - point[2];
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private void setEdge(float[] edges, int edge, float[] point, int node){
+        System.arraycopy(point, 0, edges, edge * 6, 3);
+        for(int axis = 0; axis < 3; ++axis)
+            edges[edge * 6 + 3 + axis] = roadmap.get(node, axis);
+    }
+
+    /**
+     * Run planner. Arguments: c-space file (json, STL or binary) and output path file.
+     * Roadmap is loaded from file next to c-space file or built and saved there.
+     * Options: <code>-samples count</code>, <code>-neighbours count</code>, <code>-seed number</code>
+     * define roadmap, <code>-raw</code> keeps roadmap path without shortcuts
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        boolean raw = false;
+        int samples = Roadmap.DEFAULT_SAMPLES;
+        int neighbours = Roadmap.DEFAULT_NEIGHBOURS;
+        long seed = 0L;
+        int option = 0;
+        try {
+            for(; option < args.length && args[option].startsWith("-"); ++option){
+                boolean hasValue = option + 1 < args.length;
+                if(args[option].equals("-raw"))
+                    raw = true;
+                else if(args[option].equals("-samples") && hasValue)
+                    samples = Integer.parseInt(args[++option]);
+                else if(args[option].equals("-neighbours") && hasValue)
+                    neighbours = Integer.parseInt(args[++option]);
+                else if(args[option].equals("-seed") && hasValue)
+                    seed = Long.parseLong(args[++option]);
+                else
+                    break;
+            }
+        }
+        catch (NumberFormatException e){
+            option = -1;
+        }
+        if(option >= 0)
+            args = Arrays.copyOfRange(args, option, args.length);
+        if(option < 0 || args.length != 2 || args[0].startsWith("-") || samples < 1 || neighbours < 1){
+            System.err.println("Usage: PrmPlanner [-raw] [-samples count] [-neighbours count] [-seed number] " +
+                    "<c-space.json | c-space.stl | c-space.cspb> <path.json>");
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+        try {
+            File cSpaceFile = new File(args[0]);
+            CSpaceGeometry geometry = CSpaceConverter.read(cSpaceFile);
+            long begin = System.nanoTime();
+            TriangleBvh bvh = new TriangleBvh(geometry.getStore());
+            Roadmap roadmap = Roadmap.load(cSpaceFile, geometry, bvh, samples, neighbours, seed);
+            PrmPlanner planner = new PrmPlanner(roadmap, bvh);
+            long loaded = System.nanoTime();
+            float[] path = planner.plan(geometry.getStart(), geometry.getFinish(), !raw);
+            long end = System.nanoTime();
+            System.err.printf("Roadmap of %d nodes, %d edges ready in %d ms, query %.3f ms, %d nodes expanded%n",
+                    roadmap.getNodeCount(), roadmap.getEdgeCount(), (loaded - begin) / 1000000,
+                    (end - loaded) / 1e6, planner.getExpanded());
+            if(path == null){
+                System.err.println("Path not found");
+                System.exit(PathValidator.EXIT_INVALID);
+            }
+            PathWriter.write(PathWriter.toPath(path), new File(args[1]));
+            System.err.printf("Path: %d points, length %.3f%n", path.length / 3, PathWriter.length(path));
+        }
+        catch (IOException e){
+            System.err.println(e.getMessage());
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package planner;
+
+import geometry.CSpaceGeometry;
+import geometry.CacheFile;
+import geometry.ContainmentGrid;
+import geometry.TriangleBvh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Probabilistic roadmap of c-space: graph of free sample points connected with
+ * their k nearest neighbours by edges which don't intersect obstacles.
+ * Samples are drawn in c-space vertex bounds, points inside obstacles are rejected by
+ * {@link ContainmentGrid}. Candidate edges are checked in parallel by {@link EdgeChecker}.
+ * <p>
+ * Graph is stored in compressed sparse row form: neighbours of node i are targets
+ * from offset i to offset i + 1, each undirected edge is stored in both directions
+ * with its length. Roadmap is saved next to c-space file and mapped back by {@link #load}:
+ * <pre>
+ *     int     magic "PRMR"
+ *     int     format version
+ *     int     requested samples, int neighbours, long seed
+ *     long    c-space file length, long c-space file modification time
+ *     int     node count, int edge entry count
+ *     float[] x, y, z of nodes
+ *     int[]   offsets, node count + 1 values
+ *     int[]   targets
+ *     float[] edge lengths
+ * </pre>
+ *
+ * @version     %I%, %G%
+ * @see PrmPlanner
+ */
+public class Roadmap {
+
+    /** First four bytes of roadmap file */
+    public static final int MAGIC = 0x524D5250;
+    /** Current format version */
+    public static final int VERSION = 1;
+    /** Default file extension */
+    public static final String EXTENSION = ".prm";
+    /** Default number of samples */
+    public static final int DEFAULT_SAMPLES = 10000;
+    /** Default number of nearest neighbours connected to each sample */
+    public static final int DEFAULT_NEIGHBOURS = 10;
+
+    private static final int HEADER_SIZE = 48;
+
+    private int samples;
+    private int neighbours;
+    private long seed;
+    private int nodes;
+    private FloatBuffer points;
+    private IntBuffer offsets;
+    private IntBuffer targets;
+    private FloatBuffer lengths;
+
+    /**
+     * Build roadmap
+     * @param geometry c-space geometry
+     * @param bvh triangle hierarchy of c-space
+     * @param samples number of free samples
+     * @param neighbours number of nearest neighbours connected to each sample
+     * @param seed random seed, the same seed gives the same roadmap
+     */
+    public Roadmap(CSpaceGeometry geometry, TriangleBvh bvh, int samples, int neighbours, long seed){
+        if(samples < 1 || neighbours < 1)
+            throw new IllegalArgumentException("Samples and neighbours should be positive: " + samples + ", " + neighbours);
+        this.samples = samples;
+        this.neighbours = neighbours;
+        this.seed = seed;
+        ContainmentGrid containment = new ContainmentGrid(geometry, bvh, ContainmentGrid.getResolution(geometry.getStore()));
+        float[] sampled = sample(geometry.getBounds(), containment, samples, seed);
+        nodes = sampled.length / 3;
+        points = FloatBuffer.wrap(sampled);
+        connect(sampled, new EdgeChecker(bvh));
+    }
+
+    private Roadmap(int samples, int neighbours, long seed, int nodes, FloatBuffer points, IntBuffer offsets,
+                    IntBuffer targets, FloatBuffer lengths){
+        this.samples = samples;
+        this.neighbours = neighbours;
+        this.seed = seed;
+        this.nodes = nodes;
+        this.points = points;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Return roadmap for c-space file, cached next to it.
+     * Cached roadmap is used if it was built with the same parameters for the same
+     * c-space file (length and modification time), otherwise roadmap is built and saved.
+     * Cache is optional: if file can't be written, built roadmap is returned anyway
+     * @param cSpaceFile c-space file
+     * @param geometry geometry read from c-space file
+     * @param bvh triangle hierarchy of c-space
+     * @param samples number of free samples
+     * @param neighbours number of nearest neighbours connected to each sample
+     * @param seed random seed
+     * @return roadmap
+     */
+    public static Roadmap load(File cSpaceFile, CSpaceGeometry geometry, TriangleBvh bvh, int samples,
+                               int neighbours, long seed){
+        File cache = cacheFile(cSpaceFile);
+        if(cache.isFile()){
+            try {
+                Roadmap roadmap = read(cache, cSpaceFile);
+                if(roadmap != null && roadmap.samples == samples && roadmap.neighbours == neighbours &&
+                        roadmap.seed == seed)
+                    return roadmap;
+            }
+            catch (IOException e){
+                // broken cache is rebuilt
+            }
+        }
+        Roadmap roadmap = new Roadmap(geometry, bvh, samples, neighbours, seed);
+        try {
+            roadmap.write(cache, cSpaceFile);
+        }
+        catch (IOException e){
+            // cache is optional, roadmap is still usable
+        }
+        return roadmap;
+    }
+
+    /**
+     * Return default cache file for c-space file
+     * @param cSpaceFile c-space file
+     * @return file with {@link #EXTENSION} extension in the same directory
+     */
+    public static File cacheFile(File cSpaceFile){
+        String name = cSpaceFile.getName();
+        int dot = name.lastIndexOf('.');
+        if(dot > 0)
+            name = name.substring(0, dot);
+        return new File(cSpaceFile.getAbsoluteFile().getParentFile(), name + EXTENSION);
+    }
+
+    /**
+     * Write roadmap to file.
+     * File is replaced atomically, see {@link CacheFile}
+     * @param file target file
+     * @param cSpaceFile c-space file, which length and modification time are stored to check cache
+     * @throws IOException if file can't be written
+     */
+    public void write(File file, File cSpaceFile) throws IOException {
+        int entries = getEntryCount();
+        long length = HEADER_SIZE + (nodes * 3L + nodes + 1 + entries * 2L) * 4L;
+        long cSpaceLength = cSpaceFile.length();
+        long cSpaceModified = cSpaceFile.lastModified();
+        CacheFile.write(file, length, buffer -> {
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(samples);
+            buffer.putInt(neighbours);
+            buffer.putLong(seed);
+            buffer.putLong(cSpaceLength);
+            buffer.putLong(cSpaceModified);
+            buffer.putInt(nodes);
+            buffer.putInt(entries);
+            for(int i = 0; i < nodes * 3; ++i)
+                buffer.putFloat(points.get(i));
+            for(int i = 0; i <= nodes; ++i)
+                buffer.putInt(offsets.get(i));
+            for(int i = 0; i < entries; ++i)
+                buffer.putInt(targets.get(i));
+            for(int i = 0; i < entries; ++i)
+                buffer.putFloat(lengths.get(i));
+        });
+    }
+
+    /**
+     * Map roadmap file, arrays stay in mapped buffer
+     * @param file roadmap file
+     * @param cSpaceFile c-space file to check, null to skip check
+     * @return read roadmap or null if it was built for other version of c-space file
+     * @throws IOException if file can't be read or has wrong format
+     */
+    public static Roadmap read(File file, File cSpaceFile) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()){
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            if(buffer.getInt() != MAGIC)
+                throw new IOException("Not a roadmap file: " + file);
+            int version = buffer.getInt();
+            if(version != VERSION)
+                throw new IOException("Unsupported roadmap version " + version + " in " + file);
+            int samples = buffer.getInt();
+            int neighbours = buffer.getInt();
+            long seed = buffer.getLong();
+            long length = buffer.getLong();
+            long modified = buffer.getLong();
+            if(cSpaceFile != null && (length != cSpaceFile.length() || modified != cSpaceFile.lastModified()))
+                return null;
+            int nodes = buffer.getInt();
+            int entries = buffer.getInt();
+            long expected = (nodes * 3L + nodes + 1 + entries * 2L) * 4L;
+            if(nodes < 0 || entries < 0 || expected != buffer.remaining())
+                throw new IOException("Roadmap " + file + " has " + buffer.remaining() +
+                        " bytes of graph, expected " + expected);
+            FloatBuffer points = slice(buffer, nodes * 3).asFloatBuffer();
+            IntBuffer offsets = slice(buffer, nodes + 1).asIntBuffer();
+            IntBuffer targets = slice(buffer, entries).asIntBuffer();
+            FloatBuffer lengths = slice(buffer, entries).asFloatBuffer();
+            return new Roadmap(samples, neighbours, seed, nodes, points, offsets, targets, lengths);
+        }
+        catch (RuntimeException e){
+            throw new IOException("Corrupted roadmap file " + file + ": " + e, e);
+        }
+    }
+
+    // next count of four byte values, buffer position moves past them
+    private static ByteBuffer slice(ByteBuffer buffer, int count){
+        ByteBuffer slice = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        slice.limit(count * 4);
+        buffer.position(buffer.position() + count * 4);
+        return slice;
+    }
+
+    /**
+     * Return number of nodes
+     * @return node count
+     */
+    public int getNodeCount(){
+        return nodes;
+    }
+
+    /**
+     * Return number of undirected edges
+     * @return edge count
+     */
+    public int getEdgeCount(){
+        return getEntryCount() / 2;
+    }
+
+    /**
+     * Return number of nearest neighbours connected to each sample
+     * @return neighbour count
+     */
+    public int getNeighbours(){
+        return neighbours;
+    }
+
+    /**
+     * Return node coordinate
+     * @param node node index
+     * @param axis coordinate index (0 for x, 1 for y, 2 for z)
+     * @return coordinate value
+     */
+    public float get(int node, int axis){
+        return points.get(node * 3 + axis);
+    }
+
+    /**
+     * Return index of the first edge entry of node, entries of node end at offset of the next node
+     * @param node node index, or node count for the end of the last node entries
+     * @return entry index
+     */
+    public int getOffset(int node){
+        return offsets.get(node);
+    }
+
+    /**
+     * Return target node of edge entry
+     * @param entry entry index
+     * @return node index
+     */
+    public int getTarget(int entry){
+        return targets.get(entry);
+    }
+
+    /**
+     * Return length of edge entry
+     * @param entry entry index
+     * @return edge length
+     */
+    public float getLength(int entry){
+        return lengths.get(entry);
+    }
+
+    private int getEntryCount(){
+        return offsets.get(nodes);
+    }
+
+    // free points, sampled sequentially from seed and tested in parallel
+    private static float[] sample(float[] bounds, ContainmentGrid containment, int samples, long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        float[] result = new float[samples * 3];
+        int count = 0;
+        int batch = Math.max(1024, samples / 8);
+        float[] candidates = new float[batch * 3];
+        // stop if almost all space is occupied
+        for(int attempt = 0; count < samples && attempt < 64; ++attempt){
+            for(int i = 0; i < batch * 3; ++i){
+                int axis = i % 3;
+                candidates[i] = (float) (bounds[axis] + random.nextDouble() * (bounds[axis + 3] - bounds[axis]));
+            }
+            int[] inside = containment.getObstacles(candidates);
+            for(int i = 0; i < batch && count < samples; ++i){
+                if(inside[i] == ContainmentGrid.OUTSIDE)
+                    System.arraycopy(candidates, i * 3, result, count++ * 3, 3);
+            }
+        }
+        return Arrays.copyOf(result, count * 3);
+    }
+
+    private void connect(float[] sampled, EdgeChecker checker){
+        KdTree tree = new KdTree(nodes);
+        for(int i = 0; i < nodes; ++i)
+            tree.add(sampled[i * 3], sampled[i * 3 + 1], sampled[i * 3 + 2]);
+        // undirected candidate edges as sorted unique pairs (smaller index in high bits)
+        long[] pairs = new long[nodes * neighbours];
+        int count = 0;
+        for(int i = 0; i < nodes; ++i){
+            for(int j: tree.nearest(sampled[i * 3], sampled[i * 3 + 1], sampled[i * 3 + 2], neighbours + 1)){
+                if(j != i)
+                    pairs[count++] = (long) Math.min(i, j) << 32 | Math.max(i, j);
+            }
+        }
+        Arrays.sort(pairs, 0, count);
+        int unique = 0;
+        for(int p = 0; p < count; ++p){
+            if(unique == 0 || pairs[p] != pairs[unique - 1])
+                pairs[unique++] = pairs[p];
+        }
+
+        float[] edges = new float[unique * 6];
+        for(int p = 0; p < unique; ++p){
+            System.arraycopy(sampled, (int) (pairs[p] >>> 32) * 3, edges, p * 6, 3);
+            System.arraycopy(sampled, (int) pairs[p] * 3, edges, p * 6 + 3, 3);
+        }
+        boolean[] free = new boolean[unique];
+        checker.check(edges, unique, free);
+
+        int[] offset = new int[nodes + 1];
+        for(int p = 0; p < unique; ++p){
+            if(free[p]){
+                ++offset[(int) (pairs[p] >>> 32) + 1];
+                ++offset[(int) pairs[p] + 1];
+            }
+        }
+        for(int i = 0; i < nodes; ++i)
+            offset[i + 1] += offset[i];
+        int[] target = new int[offset[nodes]];
+        float[] length = new float[offset[nodes]];
+        int[] fill = Arrays.copyOf(offset, nodes);
+        for(int p = 0; p < unique; ++p){
+            if(!free[p])
+                continue;
+            int a = (int) (pairs[p] >>> 32);
+            int b = (int) pairs[p];
+            int e = p * 6;
+            float dx = edges[e + 3] - edges[e], dy = edges[e + 4] - edges[e + 1], dz = edges[e + 5] - edges[e + 2];
+            float edgeLength = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            target[fill[a]] = b;
+            length[fill[a]++] = edgeLength;
+            target[fill[b]] = a;
+            length[fill[b]++] = edgeLength;
+        }
+        offsets = IntBuffer.wrap(offset);
+        targets = IntBuffer.wrap(target);
+        lengths = FloatBuffer.wrap(length);
+    }
+}
@@ -0,0 +1,527 @@
+package planner;
+
+import geometry.CSpaceGeometry;
+import geometry.TriangleBvh;
+import pathValidator.CSpaceConverter;
+import pathValidator.PathValidator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Sampling planner in continuous c-space: RRT and, optionally, RRT*.
+ * Tree grows from start: random sample (finish point with probability of goal bias) is
+ * connected to the nearest tree node by edge not longer than step. RRT* connects new node
+ * to the cheapest node among neighbours in shrinking radius and rewires neighbours through
+ * new node when it makes them cheaper. Nodes are indexed by {@link KdTree}.
+ * <p>
+ * Samples are drawn in batches. Candidate edges of the whole batch, including all RRT*
+ * neighbour edges, are checked against obstacle triangles in parallel by {@link EdgeChecker},
+ * then nodes are added in sample order. Within batch samples see tree as it was before batch,
+ * so result depends only on seed and node limit, not on number of threads.
+ * RRT stops at the first path, RRT* improves path until time budget or node limit is spent.
+ * <pre>
+ *     java -cp validator.jar planner.RrtPlanner [-star] [-step 0.5] [-seed 1] c_space.json path.json
+ * </pre>
+ *
+ * @version     %I%, %G%
+ * @see EdgeChecker
+ */
+public class RrtPlanner {
+
+    /** Probability to sample finish point by default */
+    public static final double DEFAULT_GOAL_BIAS = 0.05;
+    /** Default time budget in milliseconds */
+    public static final long DEFAULT_TIME_BUDGET = 5000;
+    /** Default limit of tree nodes */
+    public static final int DEFAULT_MAX_NODES = 200000;
+    // default step is this part of c-space bound box diagonal
+    private static final double DEFAULT_STEP = 0.05;
+    private static final int BATCH = 64;
+    // RRT* radius constant for 3D: 2 * (1 + 1/3)^(1/3) / (4/3 * pi)^(1/3), scaled by cube root of volume
+    private static final double GAMMA = 2.0 * Math.cbrt(4.0 / 3.0) / Math.cbrt(4.0 / 3.0 * Math.PI);
+
+    private TriangleBvh bvh;
+    private EdgeChecker checker;
+    private float[] bounds;
+    private double step;
+    private double goalBias = DEFAULT_GOAL_BIAS;
+    private long timeBudget = DEFAULT_TIME_BUDGET;
+    private int maxNodes = DEFAULT_MAX_NODES;
+    private long seed;
+    private boolean star;
+
+    private KdTree tree;
+    private int[] parent;
+    private float[] cost;
+    private int[] firstChild;
+    private int[] nextSibling;
+    // nodes connected to finish by free edge
+    private int[] goalNodes;
+    private int goalCount;
+    private int samples;
+
+    /**
+     * Default constructor. Build triangle hierarchy of c-space,
+     * samples are drawn in bound box of c-space, start and finish
+     * @param geometry c-space geometry
+     */
+    public RrtPlanner(CSpaceGeometry geometry){
+        this(new TriangleBvh(geometry.getStore()), samplingBounds(geometry));
+    }
+
+    /**
+     * Constructor for prepared triangle hierarchy
+     * @param bvh triangle hierarchy of c-space
+     * @param bounds min x, min y, min z, max x, max y, max z of sampled region
+     */
+    public RrtPlanner(TriangleBvh bvh, float[] bounds){
+        this.bvh = bvh;
+        this.bounds = bounds.clone();
+        checker = new EdgeChecker(bvh);
+        double dx = bounds[3] - bounds[0], dy = bounds[4] - bounds[1], dz = bounds[5] - bounds[2];
+        step = DEFAULT_STEP * Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static float[] samplingBounds(CSpaceGeometry geometry){
+        float[] bounds = geometry.getBounds().clone();
+        for(float[] point: new float[][]{geometry.getStart(), geometry.getFinish()}){
+            for(int axis = 0; axis < 3; ++axis){
+                bounds[axis] = Math.min(bounds[axis], point[axis]);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], point[axis]);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Set maximal edge length
+     * @param step step in c-space units
+     */
+    public void setStep(double step){
+        this.step = step;
+    }
+
+    /**
+     * Set probability to sample finish point instead of random point
+     * @param goalBias probability from 0 to 1
+     */
+    public void setGoalBias(double goalBias){
+        this.goalBias = goalBias;
+    }
+
+    /**
+     * Set time budget of one search
+     * @param timeBudget milliseconds
+     */
+    public void setTimeBudget(long timeBudget){
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * Set limit of tree nodes of one search
+     * @param maxNodes node limit
+     */
+    public void setMaxNodes(int maxNodes){
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Set seed of random samples, search with the same seed and node limit gives the same path
+     * @param seed random seed
+     */
+    public void setSeed(long seed){
+        this.seed = seed;
+    }
+
+    /**
+     * Switch between RRT and RRT*
+     * @param star if true, use RRT*
+     */
+    public void setStar(boolean star){
+        this.star = star;
+    }
+
+    /**
+     * Return number of tree nodes after the last search
+     * @return node count
+     */
+    public int getNodeCount(){
+        return tree == null ? 0 : tree.size();
+    }
+
+    /**
+     * Return number of samples drawn by the last search
+     * @return sample count
+     */
+    public int getSampleCount(){
+        return samples;
+    }
+
+    /**
+     * Find path from start to finish
+     * @param start x, y, z coordinates of start point
+     * @param finish x, y, z coordinates of finish point
+     * @param shortcut if true, shortcut path with exact segment tests
+     * @return x, y, z coordinates of path points from start to finish or null if path wasn't found
+     */
+    public float[] plan(float[] start, float[] finish, boolean shortcut){
+        long deadline = System.nanoTime() + timeBudget * 1000000L;
+        SplittableRandom random = new SplittableRandom(seed);
+        reset();
+        addNode(start[0], start[1], start[2], -1, 0f);
+        float[] goalEdges = new float[BATCH * 6];
+        boolean[] goalFree = new boolean[BATCH];
+        int[] goalCandidates = new int[BATCH];
+        if(distance(0, finish) <= step){
+            setEdge(goalEdges, 0, start, finish);
+            if(checker.isFree(goalEdges, 0))
+                addGoalNode(0);
+        }
+
+        Batch batch = new Batch();
+        double volume = (bounds[3] - bounds[0]) * (bounds[4] - bounds[1]) * (double) (bounds[5] - bounds[2]);
+        double gamma = GAMMA * Math.cbrt(volume);
+        while((star || goalCount == 0) && tree.size() < maxNodes && System.nanoTime() < deadline){
+            // sample batch and collect candidate edges against tree before batch
+            batch.clear();
+            int n = tree.size();
+            double radius = Math.min(step, gamma * Math.cbrt(Math.log(n + 1) / (n + 1)));
+            for(int b = 0; b < BATCH; ++b){
+                ++samples;
+                float x, y, z;
+                if(random.nextDouble() < goalBias){
+                    x = finish[0];
+                    y = finish[1];
+                    z = finish[2];
+                }
+                else {
+                    x = sample(random, 0);
+                    y = sample(random, 1);
+                    z = sample(random, 2);
+                }
+                int nearest = tree.nearest(x, y, z);
+                float dx = x - tree.get(nearest, 0), dy = y - tree.get(nearest, 1), dz = z - tree.get(nearest, 2);
+                double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if(length < 1e-9)
+                    continue;
+                if(length > step){
+                    double scale = step / length;
+                    x = (float) (tree.get(nearest, 0) + dx * scale);
+                    y = (float) (tree.get(nearest, 1) + dy * scale);
+                    z = (float) (tree.get(nearest, 2) + dz * scale);
+                }
+                batch.addCandidate(x, y, z);
+                batch.addEdge(nearest);
+                if(star){
+                    for(int node: tree.near(x, y, z, (float) radius)){
+                        if(node != nearest)
+                            batch.addEdge(node);
+                    }
+                }
+            }
+            batch.check();
+
+            // add nodes in sample order
+            int goals = 0;
+            for(int c = 0; c < batch.candidates; ++c){
+                int best = -1;
+                float bestCost = Float.POSITIVE_INFINITY;
+                for(int e = batch.edgeStart[c]; e < batch.edgeStart[c + 1]; ++e){
+                    if(!batch.free[e])
+                        continue;
+                    float candidateCost = cost[batch.edgeNode[e]] + batch.edgeLength(e);
+                    if(candidateCost < bestCost){
+                        bestCost = candidateCost;
+                        best = batch.edgeNode[e];
+                    }
+                }
+                if(best < 0)
+                    continue;
+                int node = addNode(batch.point[c * 3], batch.point[c * 3 + 1], batch.point[c * 3 + 2], best, bestCost);
+                if(star)
+                    rewire(node, batch, c);
+                if(distance(node, finish) <= step){
+                    float[] point = {batch.point[c * 3], batch.point[c * 3 + 1], batch.point[c * 3 + 2]};
+                    setEdge(goalEdges, goals, point, finish);
+                    goalCandidates[goals++] = node;
+                }
+            }
+            checker.check(goalEdges, goals, goalFree);
+            for(int g = 0; g < goals; ++g){
+                if(goalFree[g])
+                    addGoalNode(goalCandidates[g]);
+            }
+        }
+        if(goalCount == 0)
+            return null;
+        float[] path = reconstruct(finish);
+        if(shortcut)
+            path = PathSmoother.shortcut(path, bvh);
+        return path;
+    }
+
+    private void reset(){
+        if(tree == null){
+            tree = new KdTree(1024);
+            parent = new int[1024];
+            cost = new float[1024];
+            firstChild = new int[1024];
+            nextSibling = new int[1024];
+            goalNodes = new int[16];
+        }
+        tree.clear();
+        goalCount = 0;
+        samples = 0;
+    }
+
+    private float sample(SplittableRandom random, int axis){
+        return (float) (bounds[axis] + random.nextDouble() * (bounds[axis + 3] - bounds[axis]));
+    }
+
+    private int addNode(float x, float y, float z, int parentNode, float nodeCost){
+        int node = tree.add(x, y, z);
+        if(node == parent.length){
+            int capacity = node * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            cost = Arrays.copyOf(cost, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+        }
+        cost[node] = nodeCost;
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        parent[node] = -1;
+        if(parentNode >= 0)
+            link(node, parentNode);
+        return node;
+    }
+
+    private void addGoalNode(int node){
+        if(goalCount == goalNodes.length)
+            goalNodes = Arrays.copyOf(goalNodes, goalCount * 2);
+        goalNodes[goalCount++] = node;
+    }
+
+    private void link(int node, int parentNode){
+        parent[node] = parentNode;
+        nextSibling[node] = firstChild[parentNode];
+        firstChild[parentNode] = node;
+    }
+
+    private void unlink(int node){
+        int parentNode = parent[node];
+        if(firstChild[parentNode] == node)
+            firstChild[parentNode] = nextSibling[node];
+        else {
+            int child = firstChild[parentNode];
+            while(nextSibling[child] != node)
+                child = nextSibling[child];
+            nextSibling[child] = nextSibling[node];
+        }
+        parent[node] = -1;
+    }
+
+    // reconnect neighbours of new node through it if it is cheaper, edges were checked with the batch
+    private void rewire(int node, Batch batch, int candidate){
+        for(int e = batch.edgeStart[candidate]; e < batch.edgeStart[candidate + 1]; ++e){
+            int neighbour = batch.edgeNode[e];
+            if(!batch.free[e] || neighbour == parent[node] || neighbour == 0)
+                continue;
+            float newCost = cost[node] + batch.edgeLength(e);
+            if(newCost >= cost[neighbour] - 1e-6f)
+                continue;
+            unlink(neighbour);
+            link(neighbour, node);
+            propagate(neighbour, newCost - cost[neighbour]);
+        }
+    }
+
+    // add delta to cost of node and all its descendants
+    private void propagate(int root, float delta){
+        int node = root;
+        while(true){
+            cost[node] += delta;
+            if(firstChild[node] >= 0){
+                node = firstChild[node];
+                continue;
+            }
+            while(node != root && nextSibling[node] < 0)
+                node = parent[node];
+            if(node == root)
+                return;
+            node = nextSibling[node];
+        }
+    }
+
+    // tree path to the cheapest node connected to finish, then finish
+    private float[] reconstruct(float[] finish){
+        int best = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for(int g = 0; g < goalCount; ++g){
+            double total = cost[goalNodes[g]] + distance(goalNodes[g], finish);
+            if(total < bestCost){
+                bestCost = total;
+                best = goalNodes[g];
+            }
+        }
+        int count = 1;
+        for(int node = best; node >= 0; node = parent[node])
+            ++count;
+        float[] path = new float[count * 3];
+        System.arraycopy(finish, 0, path, path.length - 3, 3);
+        int index = count - 2;
+        for(int node = best; node >= 0; node = parent[node], --index){
+            for(int axis = 0; axis < 3; ++axis)
+                path[index * 3 + axis] = tree.get(node, axis);
+        }
+        return path;
+    }
+
+    private double distance(int node, float[] point){
+        double dx = tree.get(node, 0) - point[0];
+        double dy = tree.get(node, 1) - point[1];
+        double dz = tree.get(node, 2) - point[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static void setEdge(float[] edges, int edge, float[] from, float[] to){
+        System.arraycopy(from, 0, edges, edge * 6, 3);
+        System.arraycopy(to, 0, edges, edge * 6 + 3, 3);
+    }
+
+    /**
+     * Candidate nodes of one batch and their edges to tree nodes
+     */
+    private class Batch {
+        private float[] point = new float[BATCH * 3];
+        private int candidates;
+        private int[] edgeStart = new int[BATCH + 1];
+        private int[] edgeNode = new int[BATCH];
+        private float[] edges = new float[BATCH * 6];
+        private boolean[] free = new boolean[BATCH];
+        private int edgeCount;
+
+        void clear(){
+            candidates = 0;
+            edgeCount = 0;
+        }
+
+        void addCandidate(float x, float y, float z){
+            point[candidates * 3] = x;
+            point[candidates * 3 + 1] = y;
+            point[candidates * 3 + 2] = z;
+            ++candidates;
+            edgeStart[candidates - 1] = edgeCount;
+            edgeStart[candidates] = edgeCount;
+        }
+
+        // edge from tree node to the last candidate
+        void addEdge(int node){
+            if(edgeCount == edgeNode.length){
+                edgeNode = Arrays.copyOf(edgeNode, edgeCount * 2);
+                edges = Arrays.copyOf(edges, edgeCount * 12);
+                free = Arrays.copyOf(free, edgeCount * 2);
+            }
+            int c = candidates - 1;
+            int e = edgeCount * 6;
+            for(int axis = 0; axis < 3; ++axis){
+                edges[e + axis] = tree.get(node, axis);
+                edges[e + 3 + axis] = point[c * 3 + axis];
+            }
+            edgeNode[edgeCount++] = node;
+            edgeStart[candidates] = edgeCount;
+        }
+
+        void check(){
+            checker.check(edges, edgeCount, free);
+        }
+
+        float edgeLength(int edge){
+            int e = edge * 6;
+            float dx = edges[e + 3] - edges[e], dy = edges[e + 4] - edges[e + 1], dz = edges[e + 5] - edges[e + 2];
+            return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+    }
+
+    /**
+     * Run planner. Arguments: c-space file (json, STL or binary) and output path file.
+     * Options: <code>-star</code> enables RRT*, <code>-step length</code>, <code>-bias probability</code>,
+     * <code>-time milliseconds</code>, <code>-nodes count</code>, <code>-seed number</code>,
+     * <code>-raw</code> keeps tree path without shortcuts
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        boolean raw = false;
+        boolean star = false;
+        double step = 0.0;
+        double bias = DEFAULT_GOAL_BIAS;
+        long time = DEFAULT_TIME_BUDGET;
+        int nodes = DEFAULT_MAX_NODES;
+        long seed = 0L;
+        int option = 0;
+        try {
+            for(; option < args.length && args[option].startsWith("-"); ++option){
+                boolean hasValue = option + 1 < args.length;
+                if(args[option].equals("-star"))
+                    star = true;
+                else if(args[option].equals("-raw"))
+                    raw = true;
+                else if(args[option].equals("-step") && hasValue)
+                    step = Double.parseDouble(args[++option]);
+                else if(args[option].equals("-bias") && hasValue)
+                    bias = Double.parseDouble(args[++option]);
+                else if(args[option].equals("-time") && hasValue)
+                    time = Long.parseLong(args[++option]);
+                else if(args[option].equals("-nodes") && hasValue)
+                    nodes = Integer.parseInt(args[++option]);
+                else if(args[option].equals("-seed") && hasValue)
+                    seed = Long.parseLong(args[++option]);
+                else
+                    break;
+            }
+        }
+        catch (NumberFormatException e){
+            option = -1;
+        }
+        if(option >= 0)
+            args = Arrays.copyOfRange(args, option, args.length);
+        if(option < 0 || args.length != 2 || args[0].startsWith("-") || step < 0.0 || bias < 0.0 || bias > 1.0 ||
+                time < 0 || nodes < 1){
+            System.err.println("Usage: RrtPlanner [-star] [-raw] [-step length] [-bias probability] " +
+                    "[-time milliseconds] [-nodes count] [-seed number] " +
+                    "<c-space.json | c-space.stl | c-space.cspb> <path.json>");
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+        try {
+            CSpaceGeometry geometry = CSpaceConverter.read(new File(args[0]));
+            long begin = System.nanoTime();
+            RrtPlanner planner = new RrtPlanner(geometry);
+            if(step > 0.0)
+                planner.setStep(step);
+            planner.setGoalBias(bias);
+            planner.setTimeBudget(time);
+            planner.setMaxNodes(nodes);
+            planner.setSeed(seed);
+            planner.setStar(star);
+            long built = System.nanoTime();
+            float[] path = planner.plan(geometry.getStart(), geometry.getFinish(), !raw);
+            long end = System.nanoTime();
+            System.err.printf("Hierarchy built in %d ms, search %d ms, %d samples, %d nodes%n",
+                    (built - begin) / 1000000, (end - built) / 1000000, planner.getSampleCount(),
+                    planner.getNodeCount());
+            if(path == null){
+                System.err.println("Path not found");
+                System.exit(PathValidator.EXIT_INVALID);
+            }
+            PathWriter.write(PathWriter.toPath(path), new File(args[1]));
+            System.err.printf("Path: %d points, length %.3f%n", path.length / 3, PathWriter.length(path));
+        }
+        catch (IOException e){
+            System.err.println(e.getMessage());
+            System.exit(PathValidator.EXIT_ERROR);
+        }
+    }
+}
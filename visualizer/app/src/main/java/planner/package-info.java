@@ -0,0 +1,7 @@
+/**
+ * Provides reference path planners for configuration space.
+ * Planners work with primitive {@link geometry} structures without JavaFX
+ * and write found paths in json format of {@link json.pojo.Path}
+ * @see GridPlanner
+ */
+package planner;
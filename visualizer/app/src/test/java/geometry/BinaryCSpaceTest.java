@@ -0,0 +1,64 @@
+package geometry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip of geometry through {@link BinaryCSpace} file.
+ *
+ * @version     %I%, %G%
+ */
+class BinaryCSpaceTest {
+
+    private static final float[] START = {0.5f, 0.5f, 0.5f};
+    private static final float[] FINISH = {9.5f, 9.5f, 9.5f};
+
+    @TempDir
+    File dir;
+
+    @Test
+    void readGivesWrittenGeometry() throws IOException {
+        CSpaceGeometry geometry = TestScenes.geometry(START, FINISH, TestScenes.randomBoxes(25, 4));
+        File file = new File(dir, "c_space" + BinaryCSpace.EXTENSION);
+        BinaryCSpace.write(geometry, file);
+        assertTrue(BinaryCSpace.isBinary(file));
+        CSpaceGeometry read = BinaryCSpace.read(file);
+        assertEquals(geometry.getDescription(), read.getDescription());
+        TestScenes.assertSameGeometry(geometry, read);
+    }
+
+    @Test
+    void writeReplacesFileAndLeavesNoTemporaryFile() throws IOException {
+        File file = new File(dir, "c_space" + BinaryCSpace.EXTENSION);
+        BinaryCSpace.write(TestScenes.geometry(START, FINISH, TestScenes.randomBoxes(25, 5)), file);
+        CSpaceGeometry smaller = TestScenes.geometry(START, FINISH, TestScenes.randomBoxes(3, 6));
+        BinaryCSpace.write(smaller, file);
+        TestScenes.assertSameGeometry(smaller, BinaryCSpace.read(file));
+        assertArrayEquals(new String[]{file.getName()}, dir.list());
+    }
+
+    @Test
+    void emptyObstaclesRoundTrip() throws IOException {
+        CSpaceGeometry geometry = TestScenes.geometry(START, FINISH, new float[0][]);
+        File file = new File(dir, "empty" + BinaryCSpace.EXTENSION);
+        BinaryCSpace.write(geometry, file);
+        TestScenes.assertSameGeometry(geometry, BinaryCSpace.read(file));
+    }
+
+    @Test
+    void jsonIsNotBinary() throws IOException {
+        File json = TestScenes.writeCSpace(new File(dir, "c_space.json"), START, FINISH, TestScenes.randomBoxes(2, 7));
+        assertFalse(BinaryCSpace.isBinary(json));
+        assertFalse(BinaryCSpace.isBinary(TestScenes.write(new File(dir, "short.json"), "{}")));
+        assertThrows(IOException.class, () -> BinaryCSpace.read(json));
+    }
+}
@@ -0,0 +1,83 @@
+package geometry;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Classified voxels and ray parity of {@link ContainmentGrid} against containment in boxes.
+ *
+ * @version     %I%, %G%
+ */
+class ContainmentGridTest {
+
+    private static final int POINTS = 20000;
+
+    private static float[][] boxes;
+    private static ContainmentGrid grid;
+
+    @BeforeAll
+    static void setUp(){
+        boxes = TestScenes.randomBoxes(80, 12);
+        CSpaceGeometry geometry = TestScenes.geometry(new float[]{0f, 0f, 0f}, new float[]{10f, 10f, 10f}, boxes);
+        TriangleBvh bvh = new TriangleBvh(geometry.getStore());
+        grid = new ContainmentGrid(geometry, bvh, ContainmentGrid.getResolution(geometry.getStore()));
+    }
+
+    // the smallest box containing point, as grid reports for overlapping obstacles
+    private static int bruteForce(double x, double y, double z){
+        for(int b = 0; b < boxes.length; ++b){
+            float[] box = boxes[b];
+            if(x > box[0] && x < box[3] && y > box[1] && y < box[4] && z > box[2] && z < box[5])
+                return b;
+        }
+        return ContainmentGrid.OUTSIDE;
+    }
+
+    @Test
+    void pointsMatchBoxContainment(){
+        Random random = new Random(13);
+        float[] points = new float[POINTS * 3];
+        int inside = 0;
+        for(int p = 0; p < POINTS; ++p){
+            double x = random.nextDouble() * TestScenes.SIZE;
+            double y = random.nextDouble() * TestScenes.SIZE;
+            double z = random.nextDouble() * TestScenes.SIZE;
+            points[p * 3] = (float) x;
+            points[p * 3 + 1] = (float) y;
+            points[p * 3 + 2] = (float) z;
+            int expected = bruteForce(x, y, z);
+            assertEquals(expected, grid.getObstacleExact(x, y, z));
+            assertEquals(expected, grid.getObstacle(x, y, z));
+            assertEquals(expected != ContainmentGrid.OUTSIDE, grid.isInside(x, y, z));
+            if(expected != ContainmentGrid.OUTSIDE)
+                ++inside;
+        }
+        assertTrue(inside > POINTS / 50);
+        // batch is long enough to be checked in parallel
+        int[] obstacles = grid.getObstacles(points);
+        for(int p = 0; p < POINTS; ++p)
+            assertEquals(bruteForce(points[p * 3], points[p * 3 + 1], points[p * 3 + 2]), obstacles[p]);
+    }
+
+    @Test
+    void pointsOutsideGridAreOutside(){
+        assertEquals(ContainmentGrid.OUTSIDE, grid.getObstacle(-100.0, 5.0, 5.0));
+        assertEquals(ContainmentGrid.OUTSIDE, grid.getObstacle(5.0, 5.0, 100.0));
+    }
+
+    @Test
+    void resolutionScalesWithTriangles(){
+        TriangleStore empty = TestScenes.geometry(new float[3], new float[3], new float[0][]).getStore();
+        assertEquals(ContainmentGrid.MIN_RESOLUTION, ContainmentGrid.getResolution(empty));
+        TriangleStore small = TestScenes.geometry(new float[3], new float[3], TestScenes.randomBoxes(30, 14)).getStore();
+        // 360 triangles of 64 voxels
+        assertEquals(29, ContainmentGrid.getResolution(small));
+        TriangleStore large = TestScenes.geometry(new float[3], new float[3], TestScenes.randomBoxes(3000, 15)).getStore();
+        assertEquals(ContainmentGrid.DEFAULT_RESOLUTION, ContainmentGrid.getResolution(large));
+    }
+}
@@ -0,0 +1,131 @@
+package geometry;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Samples and sign of {@link DistanceField} against exact distance to box obstacles.
+ *
+ * @version     %I%, %G%
+ */
+class DistanceFieldTest {
+
+    private static final float[][] BOXES = {
+            {1f, 1f, 1f, 3f, 4f, 2.5f},
+            {5f, 2f, 6f, 8.5f, 3f, 9f},
+            {2f, 6f, 3f, 6f, 8f, 7f},
+            // overlaps the previous box
+            {4.5f, 5.5f, 2f, 7.5f, 7f, 4f}};
+    private static final int RESOLUTION = 40;
+
+    @TempDir
+    static File dir;
+
+    private static CSpaceGeometry geometry;
+    private static DistanceField field;
+
+    @BeforeAll
+    static void setUp(){
+        geometry = TestScenes.geometry(new float[]{0f, 0f, 0f}, new float[]{10f, 10f, 10f}, BOXES);
+        field = new DistanceField(geometry, RESOLUTION);
+    }
+
+    // signed distance to the nearest box surface, negative inside any box
+    private static double exact(double x, double y, double z){
+        double nearest = Double.POSITIVE_INFINITY;
+        boolean inside = false;
+        for(float[] b: BOXES){
+            double dx = Math.max(Math.max(b[0] - x, x - b[3]), 0.0);
+            double dy = Math.max(Math.max(b[1] - y, y - b[4]), 0.0);
+            double dz = Math.max(Math.max(b[2] - z, z - b[5]), 0.0);
+            double outside = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if(outside > 0.0)
+                nearest = Math.min(nearest, outside);
+            else {
+                inside = true;
+                nearest = Math.min(nearest, Math.min(Math.min(Math.min(x - b[0], b[3] - x), Math.min(y - b[1], b[4] - y)),
+                        Math.min(z - b[2], b[5] - z)));
+            }
+        }
+        return inside ? -nearest : nearest;
+    }
+
+    @Test
+    void samplesMatchExactDistance(){
+        float voxel = field.getVoxelSize();
+        assertEquals(TestScenes.SIZE / RESOLUTION, voxel, 1e-6f);
+        for(int axis = 0; axis < 3; ++axis)
+            assertEquals(RESOLUTION + 1, field.getSize(axis));
+        for(int k = 0; k < field.getSize(2); ++k){
+            for(int j = 0; j < field.getSize(1); ++j){
+                for(int i = 0; i < field.getSize(0); ++i){
+                    double expected = exact(i * voxel, j * voxel, k * voxel);
+                    float sample = field.getSample(i, j, k);
+                    // surface points may get either sign, flooded distance is within voxel of exact one
+                    if(Math.abs(expected) > 1e-4)
+                        assertEquals(expected < 0.0, sample < 0f, "sample " + i + " " + j + " " + k);
+                    assertEquals(expected, sample, voxel, "sample " + i + " " + j + " " + k);
+                }
+            }
+        }
+    }
+
+    @Test
+    void interpolatedDistanceHasSignOfContainment(){
+        Random random = new Random(9);
+        int inside = 0;
+        for(int n = 0; n < 5000; ++n){
+            double x = random.nextDouble() * TestScenes.SIZE;
+            double y = random.nextDouble() * TestScenes.SIZE;
+            double z = random.nextDouble() * TestScenes.SIZE;
+            double expected = exact(x, y, z);
+            double distance = field.distance(x, y, z);
+            if(Math.abs(expected) > field.getVoxelSize())
+                assertEquals(expected < 0.0, distance < 0.0);
+            assertEquals(expected, distance, field.getVoxelSize() * 2);
+            if(expected < 0.0)
+                ++inside;
+        }
+        assertTrue(inside > 0);
+    }
+
+    @Test
+    void segmentClearance(){
+        // passes between the first two boxes
+        assertTrue(field.isClear(4f, 0.5f, 0.5f, 4f, 9.5f, 0.5f, 0.2));
+        assertTrue(field.minClearance(4f, 0.5f, 0.5f, 4f, 9.5f, 0.5f) > 0.2);
+        // goes through the first box
+        assertFalse(field.isClear(0.5f, 2f, 2f, 9.5f, 2f, 2f, 0.0));
+        assertTrue(field.minClearance(0.5f, 2f, 2f, 9.5f, 2f, 2f) < -0.3);
+    }
+
+    @Test
+    void cacheKeepsSamples() throws IOException {
+        File cSpace = TestScenes.writeCSpace(new File(dir, "c_space.json"), new float[]{0f, 0f, 0f},
+                new float[]{10f, 10f, 10f}, BOXES);
+        DistanceField built = DistanceField.load(cSpace, geometry, RESOLUTION);
+        File cache = DistanceField.cacheFile(cSpace);
+        assertTrue(cache.isFile());
+        DistanceField read = DistanceField.read(cache, cSpace);
+        assertEquals(RESOLUTION, read.getResolution());
+        for(int k = 0; k < built.getSize(2); ++k){
+            for(int j = 0; j < built.getSize(1); ++j){
+                for(int i = 0; i < built.getSize(0); ++i)
+                    assertEquals(field.getSample(i, j, k), read.getSample(i, j, k));
+            }
+        }
+        // cache of changed c-space isn't used
+        assertTrue(cSpace.setLastModified(cSpace.lastModified() - 10000L));
+        assertNull(DistanceField.read(cache, cSpace));
+    }
+}
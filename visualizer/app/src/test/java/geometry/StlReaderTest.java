@@ -0,0 +1,145 @@
+package geometry;
+
+import json.pojo.CSpace;
+import json.pojo.Facet;
+import json.pojo.Obstacle;
+import json.pojo.Point;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link StlReader} on ASCII and binary STL written as generator does: 12 bound facets,
+ * start and finish zero-area facets and facets of obstacles.
+ *
+ * @version     %I%, %G%
+ */
+class StlReaderTest {
+
+    private static final float[] START = {0.5f, 0.25f, 0.75f};
+    private static final float[] FINISH = {9.5f, 9.25f, 9.75f};
+    private static final float[][] BOXES = TestScenes.randomBoxes(30, 8);
+
+    @TempDir
+    File dir;
+
+    // triangles of c-space in generator STL order, 9 floats per facet
+    private static float[] facets(){
+        float[][] boxes = new float[BOXES.length + 1][];
+        boxes[0] = new float[]{0f, 0f, 0f, TestScenes.SIZE, TestScenes.SIZE, TestScenes.SIZE};
+        System.arraycopy(BOXES, 0, boxes, 1, BOXES.length);
+        // bounds are written as the first box, its facets go before start and finish
+        CSpace cSpace = TestScenes.cSpace(START, FINISH, boxes);
+        List<float[]> facets = new ArrayList<>();
+        for(int o = 0; o < cSpace.getObstacles().size(); ++o){
+            Obstacle obstacle = cSpace.getObstacles().get(o);
+            List<Point> v = obstacle.getVertices();
+            for(Facet f: obstacle.getFacets()){
+                Point a = v.get(f.getFirst()), b = v.get(f.getSecond()), c = v.get(f.getThird());
+                facets.add(new float[]{a.x(), a.y(), a.z(), b.x(), b.y(), b.z(), c.x(), c.y(), c.z()});
+            }
+            if(o == 0){
+                for(float[] p: new float[][]{START, FINISH})
+                    facets.add(new float[]{p[0], p[1], p[2], p[0], p[1], p[2], p[0], p[1], p[2]});
+            }
+        }
+        float[] all = new float[facets.size() * 9];
+        for(int i = 0; i < facets.size(); ++i)
+            System.arraycopy(facets.get(i), 0, all, i * 9, 9);
+        return all;
+    }
+
+    private static File writeAscii(File file, float[] facets) throws IOException {
+        StringBuilder stl = new StringBuilder("solid test c-space\n");
+        for(int i = 0; i < facets.length; i += 9){
+            stl.append("  facet normal 0 0 0\n    outer loop\n");
+            for(int v = 0; v < 9; v += 3)
+                stl.append(String.format(Locale.ROOT, "      vertex %s %s %s%n", Float.toString(facets[i + v]),
+                        Float.toString(facets[i + v + 1]), Float.toString(facets[i + v + 2])));
+            stl.append("    endloop\n  endfacet\n");
+        }
+        stl.append("endsolid test c-space\n");
+        return TestScenes.write(file, stl.toString());
+    }
+
+    private static File writeBinary(File file, float[] facets) throws IOException {
+        int count = facets.length / 9;
+        ByteBuffer buffer = ByteBuffer.allocate(84 + count * 50).order(ByteOrder.LITTLE_ENDIAN);
+        // some exporters start binary header with "solid" too
+        buffer.put("solid test c-space".getBytes(StandardCharsets.US_ASCII));
+        buffer.position(80);
+        buffer.putInt(count);
+        for(int i = 0; i < count; ++i){
+            buffer.position(84 + i * 50 + 12);
+            for(int k = 0; k < 9; ++k)
+                buffer.putFloat(facets[i * 9 + k]);
+        }
+        Files.write(file.toPath(), buffer.array());
+        return file;
+    }
+
+    private static void assertScene(CSpaceGeometry read){
+        CSpaceGeometry expected = TestScenes.geometry(START, FINISH, BOXES);
+        assertEquals("test c-space", read.getDescription());
+        assertArrayEquals(expected.getBounds(), read.getBounds());
+        float[] vertex = read.getVertex();
+        assertEquals(24, vertex.length);
+        for(float v: vertex)
+            assertTrue(v == 0f || v == TestScenes.SIZE);
+        // bound vertices are numbered in order of facets, other parts have to match exactly
+        TestScenes.assertSameGeometry(new CSpaceGeometry(expected.getDescription(), vertex,
+                expected.getStart(), expected.getFinish(), expected.getStore()), read);
+    }
+
+    @Test
+    void asciiStlMatchesBoxes() throws IOException {
+        File file = writeAscii(new File(dir, "c_space" + StlReader.EXTENSION), facets());
+        assertTrue(StlReader.isStl(file));
+        assertScene(StlReader.read(file));
+    }
+
+    @Test
+    void binaryStlMatchesBoxes() throws IOException {
+        File file = writeBinary(new File(dir, "C_SPACE.STL"), facets());
+        assertTrue(StlReader.isStl(file));
+        assertScene(StlReader.read(file));
+    }
+
+    @Test
+    void asciiAndBinaryAreEqual() throws IOException {
+        float[] facets = facets();
+        CSpaceGeometry ascii = StlReader.read(writeAscii(new File(dir, "a.stl"), facets));
+        CSpaceGeometry binary = StlReader.read(writeBinary(new File(dir, "b.stl"), facets));
+        TestScenes.assertSameGeometry(ascii, binary);
+    }
+
+    @Test
+    void malformedStlFails() throws IOException {
+        float[] facets = facets();
+        // drop start and finish facets
+        float[] obstacles = new float[facets.length - 18];
+        System.arraycopy(facets, 0, obstacles, 0, 12 * 9);
+        System.arraycopy(facets, 14 * 9, obstacles, 12 * 9, facets.length - 14 * 9);
+        File file = writeAscii(new File(dir, "broken.stl"), obstacles);
+        assertThrows(IOException.class, () -> StlReader.read(file));
+        assertFalse(StlReader.isStl(new File(dir, "c_space.json")));
+        assertThrows(IOException.class, () -> StlReader.read(writeAscii(new File(dir, "short.stl"),
+                Arrays.copyOf(facets, 9 * 13))));
+    }
+}
@@ -0,0 +1,208 @@
+package geometry;
+
+import json.pojo.CSpace;
+import json.pojo.Facet;
+import json.pojo.Obstacle;
+import json.pojo.Point;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Small c-spaces for tests: cube of side 10 with axis-aligned box obstacles,
+ * as json text and as {@link json.pojo} model.
+ * Box is given by min x, min y, min z, max x, max y, max z.
+ *
+ * @version     %I%, %G%
+ */
+public final class TestScenes {
+
+    /** Side of c-space cube */
+    public static final float SIZE = 10f;
+
+    // box corners: bit 0 selects x, bit 1 selects y, bit 2 selects z of max corner
+    private static final int[][] BOX_FACETS = {
+            {0, 2, 1}, {1, 2, 3}, {4, 5, 6}, {5, 7, 6},
+            {0, 1, 4}, {1, 5, 4}, {2, 6, 3}, {3, 6, 7},
+            {0, 4, 2}, {2, 4, 6}, {1, 3, 5}, {3, 7, 5}};
+
+    private TestScenes(){
+    }
+
+    /**
+     * Create random non-empty boxes inside c-space cube
+     * @param count number of boxes
+     * @param seed random seed
+     * @return bounds of each box
+     */
+    public static float[][] randomBoxes(int count, long seed){
+        Random random = new Random(seed);
+        float[][] boxes = new float[count][];
+        for(int i = 0; i < count; ++i){
+            float[] box = new float[6];
+            for(int axis = 0; axis < 3; ++axis){
+                box[axis] = 0.5f + random.nextFloat() * 8f;
+                box[axis + 3] = box[axis] + 0.2f + random.nextFloat() * 1.3f;
+            }
+            boxes[i] = box;
+        }
+        return boxes;
+    }
+
+    /**
+     * Create c-space model
+     * @param start start point
+     * @param finish finish point
+     * @param boxes box obstacles
+     * @return c-space with one obstacle of 8 vertices and 12 facets per box
+     */
+    public static CSpace cSpace(float[] start, float[] finish, float[][] boxes){
+        List<Obstacle> obstacles = new ArrayList<>();
+        for(float[] box: boxes){
+            List<Point> vertices = new ArrayList<>();
+            for(int corner = 0; corner < 8; ++corner)
+                vertices.add(corner(box, corner));
+            List<Facet> facets = new ArrayList<>();
+            for(int[] f: BOX_FACETS)
+                facets.add(new Facet(f[0], f[1], f[2]));
+            obstacles.add(new Obstacle(vertices, facets));
+        }
+        List<Point> vertex = new ArrayList<>();
+        for(int corner = 0; corner < 8; ++corner)
+            vertex.add(corner(new float[]{0f, 0f, 0f, SIZE, SIZE, SIZE}, corner));
+        return new CSpace("test c-space", vertex, point(start), point(finish), obstacles);
+    }
+
+    /**
+     * Create geometry of c-space model
+     * @param start start point
+     * @param finish finish point
+     * @param boxes box obstacles
+     * @return geometry with triangles in box order
+     */
+    public static CSpaceGeometry geometry(float[] start, float[] finish, float[][] boxes){
+        return CSpaceGeometry.fromCSpace(cSpace(start, finish, boxes));
+    }
+
+    /**
+     * Check that geometries have the same points and triangles of the same obstacles
+     * @param expected expected geometry
+     * @param actual checked geometry
+     */
+    public static void assertSameGeometry(CSpaceGeometry expected, CSpaceGeometry actual){
+        assertArrayEquals(expected.getVertex(), actual.getVertex());
+        assertArrayEquals(expected.getBounds(), actual.getBounds());
+        assertArrayEquals(expected.getStart(), actual.getStart());
+        assertArrayEquals(expected.getFinish(), actual.getFinish());
+        TriangleStore e = expected.getStore();
+        TriangleStore a = actual.getStore();
+        assertEquals(e.getObstacleCount(), a.getObstacleCount());
+        assertEquals(e.getTriangleCount(), a.getTriangleCount());
+        for(int o = 0; o <= e.getObstacleCount(); ++o)
+            assertEquals(e.getFirstTriangle(o), a.getFirstTriangle(o));
+        assertArrayEquals(e.getObstacleBounds(), a.getObstacleBounds());
+        for(int t = 0; t < e.getTriangleCount(); ++t){
+            for(int v = 0; v < 3; ++v){
+                for(int axis = 0; axis < 3; ++axis)
+                    assertEquals(e.getVertex(t, v, axis), a.getVertex(t, v, axis), "triangle " + t);
+            }
+        }
+    }
+
+    /**
+     * Write c-space as json in generator format
+     * @param file target file
+     * @param start start point
+     * @param finish finish point
+     * @param boxes box obstacles
+     * @return written file
+     * @throws IOException if file can't be written
+     */
+    public static File writeCSpace(File file, float[] start, float[] finish, float[][] boxes) throws IOException {
+        CSpace cSpace = cSpace(start, finish, boxes);
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"Description\":\"").append(cSpace.getDescription()).append("\",\n  \"Vertex\":");
+        appendPoints(json, cSpace.getVertex());
+        json.append(",\n  \"Start\":");
+        appendPoint(json, cSpace.getStart());
+        json.append(",\n  \"Finish\":");
+        appendPoint(json, cSpace.getFinish());
+        json.append(",\n  \"Obstacle\":[");
+        for(int o = 0; o < cSpace.getObstacles().size(); ++o){
+            Obstacle obstacle = cSpace.getObstacles().get(o);
+            json.append(o > 0 ? ",\n" : "\n").append("    {\"Vertex\":");
+            appendPoints(json, obstacle.getVertices());
+            json.append(", \"Facet\":[");
+            for(int f = 0; f < obstacle.getFacets().size(); ++f){
+                Facet facet = obstacle.getFacets().get(f);
+                json.append(f > 0 ? ", " : "").append("{\"First\":").append(facet.getFirst())
+                        .append(", \"Second\":").append(facet.getSecond())
+                        .append(", \"Third\":").append(facet.getThird()).append('}');
+            }
+            json.append("]}");
+        }
+        json.append("\n  ]\n}\n");
+        return write(file, json.toString());
+    }
+
+    /**
+     * Write path json
+     * @param file target file
+     * @param points x, y, z coordinates of each path point
+     * @return written file
+     * @throws IOException if file can't be written
+     */
+    public static File writePath(File file, float... points) throws IOException {
+        List<Point> list = new ArrayList<>();
+        for(int i = 0; i + 2 < points.length; i += 3)
+            list.add(new Point(points[i], points[i + 1], points[i + 2]));
+        StringBuilder json = new StringBuilder("{\n  \"Path\":");
+        appendPoints(json, list);
+        json.append("\n}\n");
+        return write(file, json.toString());
+    }
+
+    /**
+     * Write text file in UTF-8
+     * @param file target file
+     * @param content file content
+     * @return written file
+     * @throws IOException if file can't be written
+     */
+    public static File write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static Point corner(float[] box, int corner){
+        return new Point(box[(corner & 1) != 0 ? 3 : 0], box[(corner & 2) != 0 ? 4 : 1], box[(corner & 4) != 0 ? 5 : 2]);
+    }
+
+    private static Point point(float[] p){
+        return new Point(p[0], p[1], p[2]);
+    }
+
+    private static void appendPoints(StringBuilder json, List<Point> points){
+        json.append('[');
+        for(int i = 0; i < points.size(); ++i){
+            if(i > 0)
+                json.append(", ");
+            appendPoint(json, points.get(i));
+        }
+        json.append(']');
+    }
+
+    private static void appendPoint(StringBuilder json, Point p){
+        json.append(String.format(Locale.ROOT, "{\"X\":%s, \"Y\":%s, \"Z\":%s}",
+                Float.toString(p.x()), Float.toString(p.y()), Float.toString(p.z())));
+    }
+}
@@ -0,0 +1,137 @@
+package geometry;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Queries of {@link TriangleBvh} against brute force scan of all triangles of {@link TriangleStore}.
+ *
+ * @version     %I%, %G%
+ */
+class TriangleBvhTest {
+
+    private static final int SEGMENTS = 2000;
+
+    private static TriangleStore store;
+    private static TriangleBvh triangles;
+    private static TriangleBvh shapes;
+    private static double[][] segments;
+
+    @BeforeAll
+    static void setUp(){
+        CSpaceGeometry geometry = TestScenes.geometry(new float[]{0f, 0f, 0f}, new float[]{10f, 10f, 10f},
+                TestScenes.randomBoxes(60, 1));
+        store = geometry.getStore();
+        triangles = new TriangleBvh(store, null);
+        shapes = new TriangleBvh(store);
+        Random random = new Random(2);
+        segments = new double[SEGMENTS][6];
+        for(double[] segment: segments){
+            for(int i = 0; i < 6; ++i)
+                segment[i] = random.nextDouble() * TestScenes.SIZE;
+        }
+    }
+
+    // triangles hit by segment in [0, 1]
+    private static BitSet bruteForce(double[] s){
+        BitSet hits = new BitSet();
+        for(int t = 0; t < store.getTriangleCount(); ++t){
+            double hit = store.intersect(t, s[0], s[1], s[2], s[3] - s[0], s[4] - s[1], s[5] - s[2]);
+            if(hit >= 0.0 && hit <= 1.0)
+                hits.set(t);
+        }
+        return hits;
+    }
+
+    @Test
+    void anyHitMatchesBruteForce(){
+        int hit = 0;
+        for(double[] s: segments){
+            BitSet expected = bruteForce(s);
+            int triangle = triangles.anyHit(s[0], s[1], s[2], s[3] - s[0], s[4] - s[1], s[5] - s[2], 1.0);
+            assertEquals(!expected.isEmpty(), triangle >= 0);
+            if(triangle >= 0){
+                assertTrue(expected.get(triangle));
+                ++hit;
+            }
+            assertEquals(!expected.isEmpty(), triangles.isSegmentIntersects(s[0], s[1], s[2], s[3], s[4], s[5]));
+        }
+        // scene is dense enough to test both outcomes
+        assertTrue(hit > SEGMENTS / 10 && hit < SEGMENTS * 9 / 10);
+    }
+
+    @Test
+    void forEachHitVisitsAllHitTriangles(){
+        for(double[] s: segments){
+            BitSet visited = new BitSet();
+            triangles.forEachHit(s[0], s[1], s[2], s[3] - s[0], s[4] - s[1], s[5] - s[2], 1.0, t -> {
+                assertFalse(visited.get(t));
+                visited.set(t);
+                return true;
+            });
+            assertEquals(bruteForce(s), visited);
+        }
+    }
+
+    @Test
+    void forEachHitStopsWhenVisitorReturnsFalse(){
+        for(double[] s: segments){
+            int[] calls = {0};
+            triangles.forEachHit(s[0], s[1], s[2], s[3] - s[0], s[4] - s[1], s[5] - s[2], 1.0, t -> ++calls[0] < 1);
+            assertEquals(bruteForce(s).isEmpty() ? 0 : 1, calls[0]);
+        }
+    }
+
+    @Test
+    void nearestHitMatchesBruteForce(){
+        for(double[] s: segments){
+            double dx = s[3] - s[0], dy = s[4] - s[1], dz = s[5] - s[2];
+            double nearest = Double.POSITIVE_INFINITY;
+            BitSet expected = bruteForce(s);
+            for(int t = expected.nextSetBit(0); t >= 0; t = expected.nextSetBit(t + 1))
+                nearest = Math.min(nearest, store.intersect(t, s[0], s[1], s[2], dx, dy, dz));
+            double distance = triangles.nearestHit(s[0], s[1], s[2], s[3], s[4], s[5]);
+            if(expected.isEmpty())
+                assertTrue(Double.isNaN(distance));
+            else
+                assertEquals(nearest * Math.sqrt(dx * dx + dy * dy + dz * dz), distance, 1e-9);
+        }
+    }
+
+    @Test
+    void convexPrimitivesGiveSameObstacles(){
+        for(double[] s: segments){
+            BitSet expected = new BitSet();
+            BitSet found = new BitSet();
+            BitSet hits = bruteForce(s);
+            for(int t = hits.nextSetBit(0); t >= 0; t = hits.nextSetBit(t + 1))
+                expected.set(store.getObstacle(t));
+            shapes.forEachHit(s[0], s[1], s[2], s[3] - s[0], s[4] - s[1], s[5] - s[2], 1.0, t -> {
+                found.set(store.getObstacle(t));
+                return true;
+            });
+            assertEquals(expected, found);
+            assertEquals(!expected.isEmpty(), shapes.isSegmentIntersects(s[0], s[1], s[2], s[3], s[4], s[5]));
+        }
+    }
+
+    @Test
+    void nestedQueriesFromVisitor(){
+        // visitor runs another query of the same hierarchy in the same thread
+        double[] s = {0.1, 0.1, 0.1, 9.9, 9.9, 9.9};
+        int[] nested = {0};
+        triangles.forEachHit(s[0], s[1], s[2], s[3] - s[0], s[4] - s[1], s[5] - s[2], 1.0, t -> {
+            if(triangles.isSegmentIntersects(s[0], s[1], s[2], s[3], s[4], s[5]))
+                ++nested[0];
+            return true;
+        });
+        assertEquals(bruteForce(s).cardinality(), nested[0]);
+    }
+}
@@ -0,0 +1,74 @@
+package json.stream;
+
+import geometry.CSpaceGeometry;
+import geometry.TestScenes;
+import json.pojo.CSpace;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Streaming {@link CSpaceReader} against c-space read by Jackson object model,
+ * with right, wrong and unknown stream length to check growth of triangle array
+ * and in-place transpose into {@link geometry.TriangleStore} sections.
+ *
+ * @version     %I%, %G%
+ */
+class CSpaceReaderTest {
+
+    private static final float[] START = {0.1f, 0.2f, 0.3f};
+    private static final float[] FINISH = {9.7f, 9.8f, 9.9f};
+
+    @TempDir
+    static File dir;
+
+    private static File file;
+    private static byte[] bytes;
+    private static CSpaceGeometry expected;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        float[][] boxes = TestScenes.randomBoxes(37, 3);
+        file = TestScenes.writeCSpace(new File(dir, "c_space.json"), START, FINISH, boxes);
+        bytes = Files.readAllBytes(file.toPath());
+        expected = CSpaceGeometry.fromCSpace(Jackson.MAPPER.readValue(file, CSpace.class));
+    }
+
+    @Test
+    void fileMatchesObjectModel() throws IOException {
+        TestScenes.assertSameGeometry(expected, CSpaceReader.read(file));
+    }
+
+    @Test
+    void streamOfUnknownLengthMatchesObjectModel() throws IOException {
+        TestScenes.assertSameGeometry(expected, CSpaceReader.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void wrongLengthMatchesObjectModel() throws IOException {
+        // too small length makes extrapolation grow array many times, too big one leaves long tail
+        for(long length: new long[]{1L, bytes.length / 10L, bytes.length * 10L})
+            TestScenes.assertSameGeometry(expected, CSpaceReader.read(new ByteArrayInputStream(bytes), "test", length));
+    }
+
+    @Test
+    void emptyObstaclesAreRead() throws IOException {
+        File empty = TestScenes.writeCSpace(new File(dir, "empty.json"), START, FINISH, new float[0][]);
+        TestScenes.assertSameGeometry(TestScenes.geometry(START, FINISH, new float[0][]), CSpaceReader.read(empty));
+    }
+
+    @Test
+    void truncatedFileFails(){
+        byte[] truncated = new String(bytes, StandardCharsets.UTF_8).substring(0, bytes.length / 2)
+                .getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> CSpaceReader.read(new ByteArrayInputStream(truncated)));
+    }
+}
@@ -0,0 +1,120 @@
+package pathValidator;
+
+import geometry.CSpaceGeometry;
+import geometry.ContainmentGrid;
+import geometry.TestScenes;
+import geometry.TriangleBvh;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Random point moves of {@link IncrementalValidator} against full re-validation of moved path.
+ *
+ * @version     %I%, %G%
+ */
+class IncrementalValidatorTest {
+
+    private static final int POINTS = 20;
+    private static final int MOVES = 1500;
+
+    private static CSpaceGeometry geometry;
+    private static TriangleBvh bvh;
+    private static ContainmentGrid containment;
+    private static ValidationEngine engine;
+
+    @BeforeAll
+    static void setUp(){
+        geometry = TestScenes.geometry(new float[]{0f, 0f, 0f}, new float[]{10f, 10f, 10f},
+                TestScenes.randomBoxes(40, 10));
+        int resolution = ContainmentGrid.getResolution(geometry.getStore());
+        bvh = new TriangleBvh(geometry.getStore());
+        containment = new ContainmentGrid(geometry, bvh, resolution);
+        engine = new ValidationEngine(geometry, false, null, 0.0, resolution);
+    }
+
+    // intersections and inside points of report as comparable strings
+    private static Set<String> hits(PathReport report){
+        Set<String> hits = new TreeSet<>();
+        for(PathReport.Intersection intersection: report.getIntersections())
+            hits.add("segment " + intersection.getSegment() + " obstacle " + intersection.getObstacle());
+        for(PathReport.InsidePoint point: report.getInsidePoints())
+            hits.add("point " + point.getPoint() + " obstacle " + point.getObstacle());
+        return hits;
+    }
+
+    private static float[] randomPoints(Random random, int count){
+        float[] points = new float[count * 3];
+        for(int i = 0; i < points.length; ++i)
+            points[i] = random.nextFloat() * TestScenes.SIZE;
+        return points;
+    }
+
+    @Test
+    void movesMatchFullValidation(){
+        Random random = new Random(11);
+        float[] points = randomPoints(random, POINTS);
+        IncrementalValidator validator = new IncrementalValidator(bvh, containment, points);
+        int obstacles = geometry.getStore().getObstacleCount();
+        int changes = 0;
+        for(int move = 0; move < MOVES; ++move){
+            BitSet before = new BitSet();
+            for(int o = 0; o < obstacles; ++o)
+                before.set(o, validator.isIntersected(o));
+            int point = random.nextInt(POINTS);
+            float[] p = randomPoints(random, 1);
+            System.arraycopy(p, 0, points, point * 3, 3);
+            int[] changed = validator.move(point, p[0], p[1], p[2]);
+
+            IncrementalValidator full = new IncrementalValidator(bvh, containment, points);
+            BitSet after = new BitSet();
+            for(int o = 0; o < obstacles; ++o){
+                assertEquals(full.isIntersected(o), validator.isIntersected(o));
+                after.set(o, validator.isIntersected(o));
+            }
+            assertEquals(full.getIntersectedCount(), validator.getIntersectedCount());
+            assertEquals(full.isValid(), validator.isValid());
+            for(int s = 0; s < POINTS - 1; ++s)
+                assertArrayEquals(full.getSegmentHits(s), validator.getSegmentHits(s));
+            for(int i = 0; i < POINTS; ++i)
+                assertEquals(full.getPointObstacle(i), validator.getPointObstacle(i));
+
+            // each obstacle which changed state is returned once, others aren't returned
+            BitSet flipped = new BitSet();
+            for(int obstacle: changed){
+                assertFalse(flipped.get(obstacle));
+                flipped.set(obstacle);
+            }
+            before.xor(after);
+            assertEquals(before, flipped);
+            changes += changed.length;
+
+            assertEquals(hits(engine.validate("path", points)), hits(validator.toReport("path")));
+        }
+        // moves toggle obstacles often enough to test changes
+        assertTrue(changes > MOVES / 10);
+    }
+
+    @Test
+    void validatorWithoutContainmentChecksOnlySegments(){
+        float[] points = {1f, 1f, 1f, 5f, 5f, 5f};
+        CSpaceGeometry box = TestScenes.geometry(new float[]{0f, 0f, 0f}, new float[]{10f, 10f, 10f},
+                new float[][]{{4f, 4f, 4f, 6f, 6f, 6f}});
+        IncrementalValidator validator = new IncrementalValidator(new TriangleBvh(box.getStore()), points);
+        assertEquals(ContainmentGrid.OUTSIDE, validator.getPointObstacle(1));
+        assertArrayEquals(new int[]{0}, validator.getSegmentHits(0));
+        // segment inside obstacle doesn't cross its surface
+        assertArrayEquals(new int[]{0}, validator.move(0, 4.5f, 4.5f, 4.5f));
+        assertTrue(validator.isValid());
+        assertArrayEquals(new int[0], validator.move(1, 5.5f, 5.5f, 5.5f));
+    }
+}
@@ -0,0 +1,115 @@
+package pathValidator;
+
+import geometry.TestScenes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reports and exit codes of {@link PathValidator} on c-space with one box in the middle.
+ *
+ * @version     %I%, %G%
+ */
+class PathValidatorTest {
+
+    private static final float[][] BOX = {{4f, 4f, 4f, 6f, 6f, 6f}};
+    private static final float[] START = {1f, 1f, 1f};
+    private static final float[] FINISH = {9f, 9f, 9f};
+
+    @TempDir
+    File dir;
+
+    private PathValidator validator;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        validator = new PathValidator(TestScenes.writeCSpace(new File(dir, "c_space.json"), START, FINISH, BOX));
+    }
+
+    @Test
+    void pathAroundObstacleIsValid() throws IOException {
+        File path = TestScenes.writePath(new File(dir, "around.json"), 1f, 1f, 1f, 9f, 1f, 1f, 9f, 9f, 9f);
+        PathReport report = validator.validate(path);
+        assertTrue(report.isValid());
+        assertEquals(3, report.getPoints());
+        assertTrue(report.getIntersections().isEmpty());
+        assertTrue(report.getInsidePoints().isEmpty());
+        assertEquals(PathValidator.EXIT_VALID, PathValidator.exitCode(validator.validate(Collections.singletonList(path))));
+    }
+
+    @Test
+    void pathThroughObstacleIsInvalid() throws IOException {
+        File path = TestScenes.writePath(new File(dir, "through.json"), 1f, 1f, 1f, 9f, 9f, 9f);
+        PathReport report = validator.validate(path);
+        assertFalse(report.isValid());
+        assertFalse(report.getIntersections().isEmpty());
+        for(PathReport.Intersection intersection: report.getIntersections()){
+            assertEquals(0, intersection.getSegment());
+            assertEquals(0, intersection.getObstacle());
+        }
+        assertTrue(report.getInsidePoints().isEmpty());
+        assertEquals(PathValidator.EXIT_INVALID, PathValidator.exitCode(validator.validate(Collections.singletonList(path))));
+    }
+
+    @Test
+    void pathInsideObstacleIsInvalid() throws IOException {
+        File path = TestScenes.writePath(new File(dir, "inside.json"), 4.5f, 4.5f, 4.5f, 5.5f, 5.5f, 5.5f);
+        PathReport report = validator.validate(path);
+        assertFalse(report.isValid());
+        assertTrue(report.getIntersections().isEmpty());
+        assertEquals(2, report.getInsidePoints().size());
+        assertEquals(0, report.getInsidePoints().get(0).getPoint());
+        assertEquals(0, report.getInsidePoints().get(0).getObstacle());
+        assertEquals(PathValidator.EXIT_INVALID, PathValidator.exitCode(validator.validate(Collections.singletonList(path))));
+    }
+
+    @Test
+    void unparsedPathFailsValidation() throws IOException {
+        File valid = TestScenes.writePath(new File(dir, "a.json"), 1f, 1f, 1f, 9f, 1f, 1f);
+        File broken = TestScenes.write(new File(dir, "b.json"), "{ \"Path\": [");
+        PathReport report = validator.validate(broken);
+        assertTrue(report.isFailed());
+        assertFalse(report.isValid());
+
+        ValidationReport all = validator.validate(Arrays.asList(valid, broken));
+        assertEquals(1, all.getValid());
+        assertEquals(1, all.getFailed());
+        assertEquals(PathValidator.EXIT_ERROR, PathValidator.exitCode(all));
+    }
+
+    @Test
+    void startInsideObstacleIsInvalid() throws IOException {
+        File cSpace = TestScenes.writeCSpace(new File(dir, "blocked.json"), new float[]{5f, 5f, 5f}, FINISH, BOX);
+        PathValidator blocked = new PathValidator(cSpace);
+        File path = TestScenes.writePath(new File(dir, "free.json"), 1f, 1f, 1f, 9f, 1f, 1f);
+        ValidationReport report = blocked.validate(Collections.singletonList(path));
+        assertEquals(1, report.getValid());
+        assertEquals(Integer.valueOf(0), report.getStartObstacle());
+        assertNull(report.getFinishObstacle());
+        assertFalse(report.isEndpointsFree());
+        assertEquals(PathValidator.EXIT_INVALID, PathValidator.exitCode(report));
+    }
+
+    @Test
+    void directoryPathsAreSorted() throws IOException {
+        TestScenes.writePath(new File(dir, "b.json"), 1f, 1f, 1f, 9f, 1f, 1f);
+        TestScenes.writePath(new File(dir, "a.json"), 1f, 1f, 1f, 9f, 1f, 1f);
+        TestScenes.write(new File(dir, "notes.txt"), "not a path");
+        List<File> files = PathValidator.listPathFiles(dir);
+        // c-space file of the test is json too
+        assertEquals(Arrays.asList("a.json", "b.json", "c_space.json"), Arrays.asList(
+                files.get(0).getName(), files.get(1).getName(), files.get(2).getName()));
+        assertEquals(3, files.size());
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import geometry.CSpaceGeometry;
+import geometry.ContainmentGrid;
+import geometry.TriangleBvh;
+import json.stream.CSpaceReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in obstacle queries for uniformly sampled points of c-space, as in roadmap sampling.
+ * Score is number of points per second:
+ * <ul>
+ *     <li>grid - batch query of {@link ContainmentGrid}</li>
+ *     <li>exact - ray parity through {@link TriangleBvh} for every point</li>
+ *     <li>build - classification of voxels, score is grids per second</li>
+ * </ul>
+ *
+ * @version     %I%, %G%
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContainmentBenchmark {
+
+    private static final int POINTS = 100000;
+    private static final long SEED = 7;
+
+    @Param({Scenes.EXAMPLE, "1000", "100000"})
+    public String scene;
+
+    private CSpaceGeometry geometry;
+    private TriangleBvh bvh;
+    private ContainmentGrid containment;
+    private float[] points;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        geometry = CSpaceReader.read(Scenes.cSpace(scene));
+        bvh = new TriangleBvh(geometry.getStore());
+        containment = new ContainmentGrid(geometry, bvh, ContainmentGrid.DEFAULT_RESOLUTION);
+        float[] bounds = geometry.getBounds();
+        SplittableRandom random = new SplittableRandom(SEED);
+        points = new float[POINTS * 3];
+        for(int i = 0; i < points.length; ++i){
+            int axis = i % 3;
+            points[i] = (float) (bounds[axis] + random.nextDouble() * (bounds[axis + 3] - bounds[axis]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int[] grid(){
+        return containment.getObstacles(points);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int exact(){
+        int inside = 0;
+        for(int i = 0; i < points.length; i += 3){
+            if(containment.getObstacleExact(points[i], points[i + 1], points[i + 2]) != ContainmentGrid.OUTSIDE)
+                ++inside;
+        }
+        return inside;
+    }
+
+    @Benchmark
+    public ContainmentGrid build(){
+        return new ContainmentGrid(geometry, bvh, ContainmentGrid.DEFAULT_RESOLUTION);
+    }
+}
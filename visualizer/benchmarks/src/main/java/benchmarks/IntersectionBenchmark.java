@@ -0,0 +1,177 @@
+package benchmarks;
+
+import geometry.CSpaceGeometry;
+import geometry.ConvexShapes;
+import geometry.OccupancyGrid;
+import geometry.TriangleBvh;
+import geometry.TriangleStore;
+import json.stream.CSpaceReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Segment versus obstacle intersection kernels.
+ * Every benchmark checks all path segments against c-space and returns number of
+ * intersections (segment-triangle pairs for triangle scan, segment-obstacle pairs for
+ * obstacle tests, hit segments for packet and bvh):
+ * <ul>
+ *     <li>triangleScan - test of every triangle, one segment at a time,
+ *     as the original per-obstacle facet loop</li>
+ *     <li>packetScan - the same tests with {@link SegmentPacket} kernel</li>
+ *     <li>segmentScan - segment test of every obstacle</li>
+ *     <li>shapeScan - segment test of every obstacle, box and convex obstacles
+ *     are clipped by {@link ConvexShapes}</li>
+ *     <li>bvh - any hit query of hierarchy with box and convex obstacles as primitives</li>
+ *     <li>bvhTriangles - any hit query of hierarchy over triangles only</li>
+ *     <li>occupancy - conservative walk of {@link OccupancyGrid} only</li>
+ *     <li>occupancyExact - occupancy grid walk with hierarchy test in occupied voxels</li>
+ * </ul>
+ * Scans are linear in obstacle count, so path length here is limited, long paths
+ * are measured by {@link ValidationBenchmark}.
+ *
+ * @version     %I%, %G%
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntersectionBenchmark {
+
+    @Param({Scenes.EXAMPLE, "1000", "100000"})
+    public String scene;
+
+    @Param({"10", "1000"})
+    public int points;
+
+    private TriangleStore store;
+    private ConvexShapes shapes;
+    private TriangleBvh bvh;
+    private TriangleBvh triangleBvh;
+    private OccupancyGrid occupancy;
+    private float[] path;
+    private SegmentPacket packet;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        CSpaceGeometry geometry = CSpaceReader.read(Scenes.cSpace(scene));
+        store = geometry.getStore();
+        shapes = new ConvexShapes(store);
+        bvh = new TriangleBvh(store, shapes);
+        triangleBvh = new TriangleBvh(store, null);
+        occupancy = new OccupancyGrid(geometry, OccupancyGrid.DEFAULT_RESOLUTION);
+        path = Scenes.waypoints(points, Scenes.size(scene));
+        packet = SegmentPacket.fromPath(path);
+    }
+
+    @Benchmark
+    public int triangleScan(){
+        int hits = 0;
+        int triangles = store.getTriangleCount();
+        for(int i = 0; i + 5 < path.length; i += 3){
+            double dx = path[i + 3] - path[i];
+            double dy = path[i + 4] - path[i + 1];
+            double dz = path[i + 5] - path[i + 2];
+            for(int t = 0; t < triangles; ++t){
+                double hit = store.intersect(t, path[i], path[i + 1], path[i + 2], dx, dy, dz);
+                if(hit >= 0.0 && hit <= 1.0)
+                    ++hits;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int packetScan(){
+        int hits = 0;
+        packet.resetHits();
+        packet.intersect(store);
+        for(int i = 0; i < packet.size(); ++i){
+            if(packet.isHit(i))
+                ++hits;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int segmentScan(){
+        int hits = 0;
+        int obstacles = store.getObstacleCount();
+        for(int i = 0; i + 5 < path.length; i += 3){
+            for(int o = 0; o < obstacles; ++o){
+                if(store.isSegmentIntersects(o, path[i], path[i + 1], path[i + 2],
+                        path[i + 3], path[i + 4], path[i + 5]))
+                    ++hits;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int shapeScan(){
+        int hits = 0;
+        int obstacles = store.getObstacleCount();
+        for(int i = 0; i + 5 < path.length; i += 3){
+            for(int o = 0; o < obstacles; ++o){
+                if(shapes.isSegmentIntersects(o, path[i], path[i + 1], path[i + 2],
+                        path[i + 3], path[i + 4], path[i + 5]))
+                    ++hits;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int bvh(){
+        int hits = 0;
+        for(int i = 0; i + 5 < path.length; i += 3){
+            if(bvh.isSegmentIntersects(path[i], path[i + 1], path[i + 2], path[i + 3], path[i + 4], path[i + 5]))
+                ++hits;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int bvhTriangles(){
+        int hits = 0;
+        for(int i = 0; i + 5 < path.length; i += 3){
+            if(triangleBvh.isSegmentIntersects(path[i], path[i + 1], path[i + 2], path[i + 3], path[i + 4], path[i + 5]))
+                ++hits;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int occupancy(){
+        int hits = 0;
+        for(int i = 0; i + 5 < path.length; i += 3){
+            if(occupancy.isSegmentOccupied(path[i], path[i + 1], path[i + 2], path[i + 3], path[i + 4], path[i + 5]))
+                ++hits;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int occupancyExact(){
+        int hits = 0;
+        for(int i = 0; i + 5 < path.length; i += 3){
+            if(occupancy.isSegmentIntersects(path[i], path[i + 1], path[i + 2], path[i + 3], path[i + 4], path[i + 5], bvh))
+                ++hits;
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import geometry.BinaryCSpace;
+import geometry.CSpaceGeometry;
+import geometry.OccupancyGrid;
+import geometry.TriangleBvh;
+import json.pojo.CSpace;
+import json.stream.CSpaceReader;
+import json.stream.Jackson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * C-space loading benchmarks.
+ * Compares object model parsing used by <code>CSpaceParser.parse</code> with streaming
+ * json reader and memory-mapped binary c-space for the same scene, and measures
+ * construction of occupancy grid and triangle hierarchy built after loading.
+ *
+ * @version     %I%, %G%
+ * @see CSpaceReader
+ * @see BinaryCSpace
+ * @see TriangleBvh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({Scenes.EXAMPLE, "1000", "100000"})
+    public String scene;
+
+    private File json;
+    private File binary;
+    private CSpaceGeometry geometry;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        json = Scenes.cSpace(scene);
+        binary = Scenes.temp("c_space_" + scene, BinaryCSpace.EXTENSION);
+        geometry = CSpaceReader.read(json);
+        BinaryCSpace.write(geometry, binary);
+    }
+
+    @Benchmark
+    public CSpace objectModel() throws IOException {
+        return Jackson.MAPPER.readValue(json, CSpace.class);
+    }
+
+    @Benchmark
+    public CSpaceGeometry streaming() throws IOException {
+        return CSpaceReader.read(json);
+    }
+
+    @Benchmark
+    public CSpaceGeometry binary() throws IOException {
+        return BinaryCSpace.read(binary);
+    }
+
+    @Benchmark
+    public TriangleBvh buildBvh(){
+        return new TriangleBvh(geometry.getStore());
+    }
+
+    @Benchmark
+    public OccupancyGrid buildOccupancy(){
+        return new OccupancyGrid(geometry, OccupancyGrid.DEFAULT_RESOLUTION);
+    }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import json.pojo.Path;
+import json.stream.Jackson;
+import json.stream.PathReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path loading benchmarks.
+ * Compares object model parsing used by <code>PathParser.parse</code> with streaming
+ * json reader for paths of different length.
+ *
+ * @version     %I%, %G%
+ * @see PathReader
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathParseBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int points;
+
+    private File json;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        json = Scenes.path(points, Scenes.size(Scenes.EXAMPLE));
+    }
+
+    @Benchmark
+    public Path objectModel() throws IOException {
+        return Jackson.MAPPER.readValue(json, Path.class);
+    }
+
+    @Benchmark
+    public float[] streaming() throws IOException {
+        return PathReader.read(json);
+    }
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import geometry.CSpaceGeometry;
+import geometry.TriangleBvh;
+import json.stream.CSpaceReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import planner.EdgeChecker;
+import planner.RrtPlanner;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edge checking of sampling planners:
+ * <ul>
+ *     <li>sequentialEdges - batch of edges checked by {@link EdgeChecker} in one thread</li>
+ *     <li>parallelEdges - the same batch in common fork-join pool</li>
+ *     <li>rrt - RRT search with fixed seed, time of one plan</li>
+ * </ul>
+ * Edges are segments between consecutive random waypoints.
+ *
+ * @version     %I%, %G%
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlannerBenchmark {
+
+    @Param({Scenes.EXAMPLE, "100000"})
+    public String scene;
+
+    @Param({"64", "1024"})
+    public int edges;
+
+    private CSpaceGeometry geometry;
+    private float[] packed;
+    private boolean[] free;
+    private ForkJoinPool single;
+    private EdgeChecker sequential;
+    private EdgeChecker parallel;
+    private RrtPlanner planner;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        geometry = CSpaceReader.read(Scenes.cSpace(scene));
+        TriangleBvh bvh = new TriangleBvh(geometry.getStore());
+        float[] path = Scenes.waypoints(edges + 1, Scenes.size(scene));
+        packed = new float[edges * 6];
+        for(int e = 0; e < edges; ++e)
+            System.arraycopy(path, e * 3, packed, e * 6, 6);
+        free = new boolean[edges];
+        single = new ForkJoinPool(1);
+        sequential = new EdgeChecker(bvh, single);
+        parallel = new EdgeChecker(bvh);
+        planner = new RrtPlanner(geometry);
+        planner.setTimeBudget(60000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        single.shutdown();
+    }
+
+    @Benchmark
+    public boolean[] sequentialEdges(){
+        sequential.check(packed, edges, free);
+        return free;
+    }
+
+    @Benchmark
+    public boolean[] parallelEdges(){
+        parallel.check(packed, edges, free);
+        return free;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public float[] rrt(){
+        return planner.plan(geometry.getStart(), geometry.getFinish(), false);
+    }
+}
@@ -0,0 +1,192 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import json.stream.Jackson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Scene and path files for benchmarks.
+ * Scene "example" is shipped <code>examples/example_c_space.json</code>, numeric scene
+ * is synthetic c-space with defined number of box obstacles. Synthetic space grows with
+ * obstacle count so obstacle density stays close to generator output.
+ * Files are written to temporary directory and removed on JVM exit.
+ *
+ * @version     %I%, %G%
+ */
+final class Scenes {
+
+    /** Scene parameter value for shipped example c-space */
+    static final String EXAMPLE = "example";
+
+    private static final String EXAMPLE_FILE = "examples/example_c_space.json";
+    private static final long SEED = 99;
+    private static final float BOX_MIN = 0.02f;
+    private static final float BOX_MAX = 0.06f;
+    private static final float DENSITY_SIZE = 10f;
+    private static final int DENSITY_OBSTACLES = 8;
+
+    // unit cube vertices and triangulation of its faces
+    private static final float[][] CUBE = {{0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0},
+            {0, 1, 1}, {0, 0, 1}, {1, 0, 1}, {1, 1, 1}};
+    private static final int[][] FACES = {{0, 2, 1}, {0, 3, 2}, {0, 1, 6}, {0, 6, 5},
+            {1, 2, 7}, {1, 7, 6}, {2, 3, 4}, {2, 4, 7}, {3, 0, 5}, {3, 5, 4}, {5, 6, 7}, {5, 7, 4}};
+
+    private Scenes(){
+    }
+
+    /**
+     * Get c-space json file for scene parameter
+     * @param scene {@link #EXAMPLE} or number of obstacles
+     * @return existing json file
+     */
+    static File cSpace(String scene){
+        if(scene.equals(EXAMPLE))
+            return example();
+        int obstacles = Integer.parseInt(scene);
+        File file = temp("c_space_" + obstacles, ".json");
+        try (JsonGenerator g = Jackson.FACTORY.createGenerator(file, JsonEncoding.UTF8)){
+            writeCSpace(g, obstacles, size(obstacles));
+        }
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    /**
+     * Get edge length of cubic space for scene parameter
+     * @param scene {@link #EXAMPLE} or number of obstacles
+     * @return edge length
+     */
+    static float size(String scene){
+        return scene.equals(EXAMPLE) ? DENSITY_SIZE : size(Integer.parseInt(scene));
+    }
+
+    /**
+     * Create path json file with random waypoints inside cubic space
+     * @param points number of waypoints
+     * @param size edge length of space
+     * @return written json file
+     */
+    static File path(int points, float size){
+        File file = temp("path_" + points, ".json");
+        try (JsonGenerator g = Jackson.FACTORY.createGenerator(file, JsonEncoding.UTF8)){
+            float[] p = waypoints(points, size);
+            g.writeStartObject();
+            g.writeArrayFieldStart("Path");
+            for(int i = 0; i < p.length; i += 3)
+                writePoint(g, p[i], p[i + 1], p[i + 2]);
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    /**
+     * Create random waypoints inside cubic space. Every next point is near previous one,
+     * so segments have length of few obstacles as generated paths do
+     * @param points number of waypoints
+     * @param size edge length of space
+     * @return packed x, y, z coordinates
+     */
+    static float[] waypoints(int points, float size){
+        Random random = new Random(SEED);
+        float[] p = new float[points * 3];
+        float step = size * BOX_MAX * 4;
+        for(int axis = 0; axis < 3; ++axis)
+            p[axis] = random.nextFloat() * size;
+        for(int i = 3; i < p.length; ++i){
+            float v = p[i - 3] + (random.nextFloat() * 2 - 1) * step;
+            p[i] = Math.max(0f, Math.min(size, v));
+        }
+        return p;
+    }
+
+    /**
+     * Create temporary file for generated output
+     * @param prefix file name prefix
+     * @param suffix file name suffix
+     * @return new file, deleted on exit
+     */
+    static File temp(String prefix, String suffix){
+        try {
+            File file = File.createTempFile(prefix + "_", suffix);
+            file.deleteOnExit();
+            return file;
+        }
+        catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static float size(int obstacles){
+        return DENSITY_SIZE * (float) Math.cbrt(Math.max(1.0, (double) obstacles / DENSITY_OBSTACLES));
+    }
+
+    private static File example(){
+        // benchmarks may be started from repository root, visualizer or benchmarks directory
+        File dir = new File(System.getProperty("user.dir")).getAbsoluteFile();
+        for(; dir != null; dir = dir.getParentFile()){
+            File file = new File(dir, EXAMPLE_FILE);
+            if(file.isFile())
+                return file;
+        }
+        throw new IllegalStateException("Can't find " + EXAMPLE_FILE);
+    }
+
+    private static void writeCSpace(JsonGenerator g, int obstacles, float size) throws IOException {
+        Random random = new Random(SEED);
+        g.writeStartObject();
+        g.writeStringField("Description", "synthetic c-space, " + obstacles + " obstacles, seed " + SEED);
+        g.writeArrayFieldStart("Vertex");
+        for(float[] c : CUBE)
+            writePoint(g, c[0] * size, c[1] * size, c[2] * size);
+        g.writeEndArray();
+        g.writeFieldName("Start");
+        writePoint(g, 0.01f, 0.01f, 0.01f);
+        g.writeFieldName("Finish");
+        writePoint(g, size - 0.01f, size - 0.01f, size - 0.01f);
+        g.writeArrayFieldStart("Obstacle");
+        float[] s = new float[3];
+        float[] o = new float[3];
+        for(int i = 0; i < obstacles; ++i){
+            for(int axis = 0; axis < 3; ++axis){
+                s[axis] = (BOX_MIN + random.nextFloat() * (BOX_MAX - BOX_MIN)) * DENSITY_SIZE;
+                o[axis] = random.nextFloat() * (size - s[axis]);
+            }
+            g.writeStartObject();
+            g.writeArrayFieldStart("Vertex");
+            for(float[] c : CUBE)
+                writePoint(g, o[0] + c[0] * s[0], o[1] + c[1] * s[1], o[2] + c[2] * s[2]);
+            g.writeEndArray();
+            g.writeArrayFieldStart("Facet");
+            for(int[] f : FACES){
+                g.writeStartObject();
+                g.writeNumberField("First", f[0]);
+                g.writeNumberField("Second", f[1]);
+                g.writeNumberField("Third", f[2]);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+        g.writeEndArray();
+        g.writeEndObject();
+    }
+
+    private static void writePoint(JsonGenerator g, float x, float y, float z) throws IOException {
+        g.writeStartObject();
+        g.writeNumberField("X", x);
+        g.writeNumberField("Y", y);
+        g.writeNumberField("Z", z);
+        g.writeEndObject();
+    }
+}
@@ -0,0 +1,239 @@
+package benchmarks;
+
+import geometry.TriangleStore;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Packet of segments tested together against blocks of triangles.
+ * Segments are stored as structure of arrays: start point and direction (end minus start)
+ * for each coordinate. Kernel takes one triangle and runs Moller-Trumbore for all segments
+ * of packet in a flat loop over primitive arrays without branches on intermediate values,
+ * so the loop is simple enough for the JIT to unroll and vectorise.
+ * For each segment packet keeps the nearest hit parameter and hit triangle.
+ * <p>
+ * Packet is kept here as measured negative result of {@link IntersectionBenchmark#packetScan()}:
+ * it scans triangles without hierarchy, and hierarchy traversal with packets of roadmap edges
+ * visited union of nodes of all edges and checked them about twice slower than
+ * {@link geometry.TriangleBvh} queries of single segments, so application doesn't use it.
+ *
+ * @version     %I%, %G%
+ * @see TriangleStore
+ */
+final class SegmentPacket {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    // determinant threshold of TriangleStore#intersect
+    private static final double EPS = 0.000001;
+    // sections of triangle data, see TriangleStore#getData()
+    private static final int V0X = 0;
+    private static final int V0Y = 1;
+    private static final int V0Z = 2;
+    private static final int E1X = 3;
+    private static final int E1Y = 4;
+    private static final int E1Z = 5;
+    private static final int E2X = 6;
+    private static final int E2Y = 7;
+    private static final int E2Z = 8;
+
+    private double[] ox;
+    private double[] oy;
+    private double[] oz;
+    private double[] dx;
+    private double[] dy;
+    private double[] dz;
+    private double[] nearest;
+    private int[] triangle;
+    private int size;
+
+    /**
+     * Create empty packet with default capacity
+     */
+    SegmentPacket(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create empty packet
+     * @param capacity initial number of segments, packet grows when needed
+     */
+    SegmentPacket(int capacity){
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Create packet for all segments of path
+     * @param points packed x, y, z coordinates of path points
+     * @return packet with segment i from point i to point i + 1
+     */
+    static SegmentPacket fromPath(float[] points){
+        int segments = Math.max(0, points.length / 3 - 1);
+        SegmentPacket packet = new SegmentPacket(segments);
+        for(int i = 0; i < segments; ++i){
+            int p = i * 3;
+            packet.add(points[p], points[p + 1], points[p + 2], points[p + 3], points[p + 4], points[p + 5]);
+        }
+        return packet;
+    }
+
+    private void allocate(int capacity){
+        ox = new double[capacity];
+        oy = new double[capacity];
+        oz = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        dz = new double[capacity];
+        nearest = new double[capacity];
+        triangle = new int[capacity];
+    }
+
+    /**
+     * Remove all segments, arrays are kept for reuse
+     */
+    void clear(){
+        size = 0;
+    }
+
+    /**
+     * Add segment from (x1, y1, z1) to (x2, y2, z2)
+     * @param x1 x coordinate of start segment point
+     * @param y1 y coordinate of start segment point
+     * @param z1 z coordinate of start segment point
+     * @param x2 x coordinate of end segment point
+     * @param y2 y coordinate of end segment point
+     * @param z2 z coordinate of end segment point
+     * @return index of added segment in packet
+     */
+    int add(double x1, double y1, double z1, double x2, double y2, double z2){
+        if(size == ox.length){
+            int capacity = size * 2;
+            ox = Arrays.copyOf(ox, capacity);
+            oy = Arrays.copyOf(oy, capacity);
+            oz = Arrays.copyOf(oz, capacity);
+            dx = Arrays.copyOf(dx, capacity);
+            dy = Arrays.copyOf(dy, capacity);
+            dz = Arrays.copyOf(dz, capacity);
+            nearest = Arrays.copyOf(nearest, capacity);
+            triangle = Arrays.copyOf(triangle, capacity);
+        }
+        ox[size] = x1;
+        oy[size] = y1;
+        oz[size] = z1;
+        dx[size] = x2 - x1;
+        dy[size] = y2 - y1;
+        dz[size] = z2 - z1;
+        nearest[size] = Double.POSITIVE_INFINITY;
+        triangle[size] = -1;
+        return size++;
+    }
+
+    /**
+     * Return number of segments in packet
+     * @return segment count
+     */
+    int size(){
+        return size;
+    }
+
+    /**
+     * Reset hit results of all segments, segments are kept
+     */
+    void resetHits(){
+        Arrays.fill(nearest, 0, size, Double.POSITIVE_INFINITY);
+        Arrays.fill(triangle, 0, size, -1);
+    }
+
+    /**
+     * Test all segments against all triangles of store
+     * @param store packed triangles
+     */
+    void intersect(TriangleStore store){
+        intersect(store, 0, store.getTriangleCount());
+    }
+
+    /**
+     * Test all segments against triangles of one obstacle
+     * @param store packed triangles
+     * @param obstacle obstacle index
+     */
+    void intersectObstacle(TriangleStore store, int obstacle){
+        intersect(store, store.getFirstTriangle(obstacle), store.getFirstTriangle(obstacle + 1));
+    }
+
+    /**
+     * Test all segments against block of triangles from first (inclusive) to last (exclusive).
+     * Hit is accepted if its parameter is in [0, 1] and is less than the nearest hit found before
+     * @param store packed triangles
+     * @param first index of the first triangle in block
+     * @param last index after the last triangle in block
+     */
+    void intersect(TriangleStore store, int first, int last){
+        FloatBuffer data = store.getData();
+        int count = store.getTriangleCount();
+        for(int t = first; t < last; ++t){
+            double v0x = data.get(V0X * count + t);
+            double v0y = data.get(V0Y * count + t);
+            double v0z = data.get(V0Z * count + t);
+            double e1x = data.get(E1X * count + t);
+            double e1y = data.get(E1Y * count + t);
+            double e1z = data.get(E1Z * count + t);
+            double e2x = data.get(E2X * count + t);
+            double e2y = data.get(E2Y * count + t);
+            double e2z = data.get(E2Z * count + t);
+            for(int i = 0; i < size; ++i){
+                // pvec = direction x edge2
+                double px = dy[i] * e2z - dz[i] * e2y;
+                double py = dz[i] * e2x - dx[i] * e2z;
+                double pz = dx[i] * e2y - dy[i] * e2x;
+                double det = e1x * px + e1y * py + e1z * pz;
+                double invDet = 1.0 / det;
+                double tx = ox[i] - v0x;
+                double ty = oy[i] - v0y;
+                double tz = oz[i] - v0z;
+                double u = (tx * px + ty * py + tz * pz) * invDet;
+                // qvec = tvec x edge1
+                double qx = ty * e1z - tz * e1y;
+                double qy = tz * e1x - tx * e1z;
+                double qz = tx * e1y - ty * e1x;
+                double v = (dx[i] * qx + dy[i] * qy + dz[i] * qz) * invDet;
+                double h = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+                boolean hit = (det <= -EPS | det >= EPS)
+                        & u >= 0.0 & u <= 1.0 & v >= 0.0 & u + v <= 1.0
+                        & h >= 0.0 & h <= 1.0 & h < nearest[i];
+                nearest[i] = hit ? h : nearest[i];
+                triangle[i] = hit ? t : triangle[i];
+            }
+        }
+    }
+
+    /**
+     * Check if segment intersects any tested triangle
+     * @param segment segment index
+     * @return true if hit was found
+     */
+    boolean isHit(int segment){
+        return triangle[segment] >= 0;
+    }
+
+    /**
+     * Return index of the nearest intersected triangle
+     * @param segment segment index
+     * @return triangle index or -1 if segment doesn't intersect tested triangles
+     */
+    int getTriangle(int segment){
+        return triangle[segment];
+    }
+
+    /**
+     * Return distance from segment start to the nearest intersection
+     * @param segment segment index
+     * @return distance in range from 0 to segment length or NaN if there is no hit
+     */
+    double getHitDistance(int segment){
+        if(triangle[segment] < 0)
+            return Double.NaN;
+        double x = dx[segment], y = dy[segment], z = dz[segment];
+        return nearest[segment] * Math.sqrt(x * x + y * y + z * z);
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import geometry.CSpaceGeometry;
+import geometry.TriangleBvh;
+import json.stream.CSpaceReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pathValidator.IncrementalValidator;
+import pathValidator.PathReport;
+import pathValidator.ValidationEngine;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole path validation benchmarks.
+ * Measures {@link ValidationEngine} in full report and first hit modes for paths
+ * up to million waypoints and re-validation of single moved waypoint by
+ * {@link IncrementalValidator}, which shouldn't depend on path length.
+ *
+ * @version     %I%, %G%
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({Scenes.EXAMPLE, "1000", "100000"})
+    public String scene;
+
+    @Param({"10", "1000", "1000000"})
+    public int points;
+
+    private ValidationEngine full;
+    private ValidationEngine firstHit;
+    private float[] path;
+    private IncrementalValidator incremental;
+    private int moved;
+    private float shift;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        CSpaceGeometry geometry = CSpaceReader.read(Scenes.cSpace(scene));
+        full = new ValidationEngine(geometry, false);
+        firstHit = new ValidationEngine(geometry, true);
+        path = Scenes.waypoints(points, Scenes.size(scene));
+        incremental = new IncrementalValidator(new TriangleBvh(geometry.getStore()), path);
+        moved = points / 2;
+        shift = Scenes.size(scene) * 0.01f;
+    }
+
+    @Benchmark
+    public PathReport validate(){
+        return full.validate("path", path);
+    }
+
+    @Benchmark
+    public PathReport validateFirstHit(){
+        return firstHit.validate("path", path);
+    }
+
+    @Benchmark
+    public int[] incrementalMove(){
+        // move waypoint forth and back, so path stays the same between invocations
+        shift = -shift;
+        return incremental.move(moved, incremental.get(moved, 0) + shift,
+                incremental.get(moved, 1), incremental.get(moved, 2));
+    }
+}